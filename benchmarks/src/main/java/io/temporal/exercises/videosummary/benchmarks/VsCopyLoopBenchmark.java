@@ -0,0 +1,69 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import io.temporal.exercises.videosummary.VsDigests;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Download/copy loop of uploadToS3 when staging the video in a temp file, without the network and disk:
+ * the 4 KB buffer loop of the original code against larger buffers and InputStream.transferTo, each with and
+ * without the SHA-256 content hash that dedup computes on the way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class VsCopyLoopBenchmark {
+    @Param({"1", "64", "2048"})
+    public int sizeMb;
+
+    @Param({"4096", "65536"})
+    public int bufferSize;
+
+    @Param({"false", "true"})
+    public boolean hash;
+
+    private static final OutputStream discard = OutputStream.nullOutputStream();
+
+    @Benchmark
+    public long bufferLoop() throws IOException {
+        try (InputStream inputStream = source()) {
+            byte[] buffer = new byte[bufferSize];
+            long total = 0;
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                discard.write(buffer, 0, bytesRead);
+                total += bytesRead;
+            }
+            return total;
+        }
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        try (InputStream inputStream = source()) {
+            return inputStream.transferTo(discard);
+        }
+    }
+
+    private InputStream source() {
+        InputStream video = VsSyntheticData.videoStream(sizeMb * 1024L * 1024L);
+        return hash ? new DigestInputStream(video, VsDigests.newSha256()) : video;
+    }
+}
@@ -0,0 +1,174 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.temporal.exercises.videosummary.VsDigests;
+import io.temporal.exercises.videosummary.VsRangedDownloader;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Download throughput of VsRangedDownloader against the single-stream loop uploadToS3 used before, from a local
+ * HTTP server that simulates a high-latency CDN link: every response starts after vs.download.test.latencyMs and
+ * every connection is capped at vs.download.test.connectionMbps. With vs.download.test.dropRate some responses
+ * are cut off midway, which exercises the range retries. Every download is checked against the served bytes.
+ * <pre>
+ * java -Dvs.download.test.sizeMb=256 -Dvs.download.test.connectionMbps=80 \
+ *      -cp target/benchmarks.jar io.temporal.exercises.videosummary.benchmarks.VsDownloadTest
+ * </pre>
+ */
+public class VsDownloadTest {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    public static void main(String[] args) throws Exception {
+        int sizeMb = Integer.getInteger("vs.download.test.sizeMb", 128);
+        int latencyMs = Integer.getInteger("vs.download.test.latencyMs", 80);
+        double connectionMbps = Double.parseDouble(System.getProperty("vs.download.test.connectionMbps", "100"));
+        double dropRate = Double.parseDouble(System.getProperty("vs.download.test.dropRate", "0"));
+        int rangeSizeMb = Integer.getInteger("vs.download.test.rangeSizeMb", 8);
+        int[] parallelisms = Arrays.stream(System.getProperty("vs.download.test.parallelism", "1,2,4,8").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+
+        byte[] video = new byte[sizeMb * 1024 * 1024];
+        try (InputStream inputStream = VsSyntheticData.videoStream(video.length)) {
+            inputStream.readNBytes(video, 0, video.length);
+        }
+        String expectedHash = VsDigests.toHex(VsDigests.newSha256().digest(video));
+
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger dropped = new AtomicInteger();
+        HttpServer server = startServer(video, latencyMs, connectionMbps, dropRate, requests, dropped);
+        URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/video.mp4");
+        Path file = Files.createTempFile("download-test-", ".mp4");
+
+        System.out.println(String.format("%d MB video, %d ms latency, %.0f Mbit/s per connection, drop rate %.2f",
+                sizeMb, latencyMs, connectionMbps, dropRate));
+        try {
+            // The single-stream loop with a 4 KB buffer that uploadToS3 used before
+            requests.set(0);
+            long start = System.nanoTime();
+            long bytes = singleStreamLoop(url, file);
+            report("single stream, 4 KB loop", bytes, System.nanoTime() - start, file, expectedHash, requests, dropped);
+
+            for (int parallelism : parallelisms) {
+                requests.set(0);
+                dropped.set(0);
+                VsRangedDownloader downloader = new VsRangedDownloader(parallelism, rangeSizeMb * 1024L * 1024, 3);
+                start = System.nanoTime();
+                VsRangedDownloader.Result result = downloader.download(url, file);
+                report(String.format("ranged, %d connection%s", result.connections(),
+                                result.connections() == 1 ? "" : "s"),
+                        result.bytes(), System.nanoTime() - start, file, expectedHash, requests, dropped);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            server.stop(0);
+        }
+        System.exit(0);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static long singleStreamLoop(URL url, Path file) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        long bytesDownloaded = 0;
+        try (InputStream inputStream = connection.getInputStream();
+             FileOutputStream outputStream = new FileOutputStream(file.toFile())) {
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+                bytesDownloaded += bytesRead;
+            }
+        }
+        return bytesDownloaded;
+    }
+
+    private static void report(String method, long bytes, long nanos, Path file, String expectedHash,
+                               AtomicInteger requests, AtomicInteger dropped) throws IOException {
+        MessageDigest digest = VsDigests.newSha256();
+        VsDigests.update(digest, file);
+        boolean intact = VsDigests.toHex(digest.digest()).equals(expectedHash);
+        System.out.println(String.format("  %-28s %8.1f MB/s  %6.2f s  %3d requests, %d dropped%s", method,
+                bytes / 1024.0 / 1024.0 / (nanos / 1e9), nanos / 1e9, requests.get(), dropped.get(),
+                intact ? "" : "  CONTENT MISMATCH"));
+    }
+
+    private static HttpServer startServer(byte[] video, int latencyMs, double connectionMbps, double dropRate,
+                                          AtomicInteger requests, AtomicInteger dropped) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/video.mp4", exchange -> {
+            requests.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMs);
+                serve(exchange, video, connectionMbps * 1_000_000 / 8, dropRate, dropped);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static void serve(HttpExchange exchange, byte[] video, double bytesPerSecond, double dropRate,
+                              AtomicInteger dropped) throws IOException, InterruptedException {
+        int start = 0;
+        int end = video.length;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher matcher = range == null ? null : RANGE.matcher(range);
+        exchange.getResponseHeaders().set("ETag", "\"synthetic-video\"");
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        if (matcher != null && matcher.matches()) {
+            start = Integer.parseInt(matcher.group(1));
+            end = matcher.group(2).isEmpty() ? video.length : Math.min(video.length, Integer.parseInt(matcher.group(2)) + 1);
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + video.length);
+            exchange.sendResponseHeaders(206, end - start);
+        } else {
+            exchange.sendResponseHeaders(200, video.length);
+        }
+
+        // Cut some responses off halfway through
+        int cutOffAt = ThreadLocalRandom.current().nextDouble() < dropRate ? start + (end - start) / 2 : end;
+
+        // Pace the body to the per-connection bandwidth
+        long startNanos = System.nanoTime();
+        int chunkSize = 16 * 1024;
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            for (int position = start; position < end; position += chunkSize) {
+                if (position >= cutOffAt) {
+                    dropped.incrementAndGet();
+                    throw new IOException("Dropped connection");
+                }
+                int length = Math.min(chunkSize, end - position);
+                outputStream.write(video, position, length);
+                long dueNanos = (long) ((position + length - start) / bytesPerSecond * 1e9);
+                long aheadNanos = dueNanos - (System.nanoTime() - startNanos);
+                if (aheadNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(aheadNanos);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.amazonaws.services.comprehend.AbstractAmazonComprehend;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesItemResult;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesRequest;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesResult;
+import com.amazonaws.services.comprehend.model.KeyPhrase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comprehend stand-in. Reports the word pairs at the start of every document as its key phrases.
+ */
+public class VsFakeComprehend extends AbstractAmazonComprehend {
+    private static final int PHRASES_PER_DOCUMENT = 5;
+
+    private final VsFakeService service;
+
+    public VsFakeComprehend(VsFakeService service) {
+        this.service = service;
+    }
+
+    @Override
+    public BatchDetectKeyPhrasesResult batchDetectKeyPhrases(BatchDetectKeyPhrasesRequest request) {
+        service.call("BatchDetectKeyPhrases");
+        List<BatchDetectKeyPhrasesItemResult> results = new ArrayList<>();
+        List<String> documents = request.getTextList();
+        for (int i = 0; i < documents.size(); i++) {
+            String[] words = documents.get(i).trim().split("\\s+");
+            List<KeyPhrase> keyPhrases = new ArrayList<>();
+            for (int w = 0; w + 1 < words.length && keyPhrases.size() < PHRASES_PER_DOCUMENT; w += 2) {
+                keyPhrases.add(new KeyPhrase().withText(words[w] + " " + words[w + 1]).withScore(0.9f));
+            }
+            results.add(new BatchDetectKeyPhrasesItemResult().withIndex(i).withKeyPhrases(keyPhrases));
+        }
+        return new BatchDetectKeyPhrasesResult().withResultList(results);
+    }
+}
@@ -0,0 +1,240 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory S3 covering the calls the activities make.
+ * Media objects (videos/ and audio/) are read to the end but not kept, so thousands of executions fit in the heap;
+ * transcripts, claim-check payloads and content index entries are kept.
+ */
+public class VsFakeS3 extends AbstractAmazonS3 {
+    private static final byte[] DISCARDED = new byte[0];
+
+    private final VsFakeService service;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, String> multipartUploads = new ConcurrentHashMap<>(); // Upload ID -> object key
+
+    public VsFakeS3(VsFakeService service) {
+        this.service = service;
+    }
+
+    /**
+     * Store an object without going through the injected latency and failures, e.g. for Transcribe output.
+     */
+    public void store(String bucketName, String key, byte[] content) {
+        objects.put(path(bucketName, key), content);
+    }
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, File file) {
+        service.call("PutObject");
+        try (InputStream input = new FileInputStream(file)) {
+            objects.put(path(bucketName, key), read(key, input));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new PutObjectResult();
+    }
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, InputStream input, ObjectMetadata metadata) {
+        service.call("PutObject");
+        objects.put(path(bucketName, key), read(key, input));
+        return new PutObjectResult();
+    }
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, String content) {
+        service.call("PutObject");
+        objects.put(path(bucketName, key), content.getBytes(StandardCharsets.UTF_8));
+        return new PutObjectResult();
+    }
+
+    @Override
+    public S3Object getObject(String bucketName, String key) {
+        service.call("GetObject");
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName(bucketName);
+        s3Object.setKey(key);
+        s3Object.setObjectContent(new ByteArrayInputStream(content(bucketName, key)));
+        return s3Object;
+    }
+
+    @Override
+    public String getObjectAsString(String bucketName, String key) {
+        service.call("GetObject");
+        return new String(content(bucketName, key), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String key) {
+        service.call("HeadObject");
+        return objects.containsKey(path(bucketName, key));
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        service.call("DeleteObject");
+        objects.remove(path(bucketName, key));
+    }
+
+    // Every matching key in one page
+    @Override
+    public ListObjectsV2Result listObjectsV2(ListObjectsV2Request request) {
+        service.call("ListObjectsV2");
+        String prefix = path(request.getBucketName(), request.getPrefix() == null ? "" : request.getPrefix());
+        ListObjectsV2Result result = new ListObjectsV2Result();
+        result.setBucketName(request.getBucketName());
+        for (String path : objects.keySet()) {
+            if (path.startsWith(prefix)) {
+                S3ObjectSummary summary = new S3ObjectSummary();
+                summary.setBucketName(request.getBucketName());
+                summary.setKey(path.substring(request.getBucketName().length() + 1));
+                result.getObjectSummaries().add(summary);
+            }
+        }
+        result.setKeyCount(result.getObjectSummaries().size());
+        return result;
+    }
+
+    @Override
+    public DeleteObjectsResult deleteObjects(DeleteObjectsRequest request) {
+        service.call("DeleteObjects");
+        List<DeleteObjectsResult.DeletedObject> deletedObjects = new ArrayList<>();
+        for (DeleteObjectsRequest.KeyVersion keyVersion : request.getKeys()) {
+            objects.remove(path(request.getBucketName(), keyVersion.getKey()));
+            DeleteObjectsResult.DeletedObject deletedObject = new DeleteObjectsResult.DeletedObject();
+            deletedObject.setKey(keyVersion.getKey());
+            deletedObjects.add(deletedObject);
+        }
+        return new DeleteObjectsResult(deletedObjects);
+    }
+
+    @Override
+    public URL generatePresignedUrl(String bucketName, String key, Date expiration) {
+        try {
+            return new URL("https://" + bucketName + ".s3.fake/" + key + "?X-Amz-Expires=3600");
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        service.call("CreateMultipartUpload");
+        String uploadId = UUID.randomUUID().toString();
+        multipartUploads.put(uploadId, request.getKey());
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        service.call("UploadPart");
+        requireUpload(request.getUploadId());
+        read(request.getKey(), request.getInputStream());
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(request.getUploadId() + "-" + request.getPartNumber());
+        return result;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        service.call("CompleteMultipartUpload");
+        requireUpload(request.getUploadId());
+        multipartUploads.remove(request.getUploadId());
+        objects.put(path(request.getBucketName(), request.getKey()), DISCARDED);
+        return new CompleteMultipartUploadResult();
+    }
+
+    @Override
+    public PartListing listParts(ListPartsRequest request) {
+        service.call("ListParts");
+        requireUpload(request.getUploadId());
+        return new PartListing();
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        service.call("AbortMultipartUpload");
+        multipartUploads.remove(request.getUploadId());
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static String path(String bucketName, String key) {
+        return bucketName + "/" + key;
+    }
+
+    private byte[] content(String bucketName, String key) {
+        byte[] content = objects.get(path(bucketName, key));
+        if (content == null) {
+            throw notFound("NoSuchKey", key);
+        }
+        return content;
+    }
+
+    private void requireUpload(String uploadId) {
+        if (!multipartUploads.containsKey(uploadId)) {
+            throw notFound("NoSuchUpload", uploadId);
+        }
+    }
+
+    private static AmazonS3Exception notFound(String errorCode, String name) {
+        AmazonS3Exception e = new AmazonS3Exception("Not found: " + name);
+        e.setErrorCode(errorCode);
+        e.setStatusCode(404);
+        return e;
+    }
+
+    private static byte[] read(String key, InputStream input) {
+        try {
+            if (key.startsWith("videos/") || key.startsWith("audio/")) {
+                input.transferTo(OutputStream.nullOutputStream());
+                return DISCARDED;
+            }
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
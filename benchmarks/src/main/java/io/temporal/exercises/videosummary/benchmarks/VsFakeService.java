@@ -0,0 +1,87 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.amazonaws.AmazonServiceException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency, throttling and failure injection shared by the AWS stand-ins.
+ * Every call sleeps for the configured latency (+-50% jitter) and then fails with the configured probabilities,
+ * the way the real services answer under load. Settings come from system properties, e.g.
+ * -Dvs.load.translate.latencyMs=300 -Dvs.load.translate.throttleRate=0.05 -Dvs.load.translate.failureRate=0.01
+ */
+public class VsFakeService {
+    private final String name;
+    private final long latencyMillis;
+    private final double throttleRate;
+    private final double failureRate;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public VsFakeService(String name, long latencyMillis, double throttleRate, double failureRate) {
+        this.name = name;
+        this.latencyMillis = latencyMillis;
+        this.throttleRate = throttleRate;
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * @return Service configured by the vs.load.[name].* system properties
+     */
+    public static VsFakeService fromSystemProperties(String name, long defaultLatencyMillis) {
+        String prefix = "vs.load." + name + ".";
+        return new VsFakeService(name,
+                Long.getLong(prefix + "latencyMs", defaultLatencyMillis),
+                Double.parseDouble(System.getProperty(prefix + "throttleRate", "0")),
+                Double.parseDouble(System.getProperty(prefix + "failureRate", "0")));
+    }
+
+    /**
+     * Simulate one request: wait, then maybe throw the service's throttling or internal error.
+     */
+    public void call(String operation) {
+        calls.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (latencyMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis / 2 + random.nextLong(latencyMillis + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted during " + name + " " + operation, e);
+            }
+        }
+
+        double draw = random.nextDouble();
+        if (draw < throttleRate) {
+            throttled.incrementAndGet();
+            throw serviceException(operation, "ThrottlingException", 400, AmazonServiceException.ErrorType.Client);
+        }
+        if (draw < throttleRate + failureRate) {
+            failed.incrementAndGet();
+            throw serviceException(operation, "InternalFailure", 500, AmazonServiceException.ErrorType.Service);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-10s calls=%d throttled=%d failed=%d", name, calls.get(), throttled.get(), failed.get());
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private AmazonServiceException serviceException(String operation, String errorCode, int statusCode,
+                                                    AmazonServiceException.ErrorType errorType) {
+        AmazonServiceException e = new AmazonServiceException("Injected " + errorCode + " in " + name + " " + operation);
+        e.setServiceName(name);
+        e.setErrorCode(errorCode);
+        e.setStatusCode(statusCode);
+        e.setErrorType(errorType);
+        return e;
+    }
+}
@@ -0,0 +1,99 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.amazonaws.services.transcribe.AbstractAmazonTranscribe;
+import com.amazonaws.services.transcribe.model.BadRequestException;
+import com.amazonaws.services.transcribe.model.ConflictException;
+import com.amazonaws.services.transcribe.model.GetTranscriptionJobRequest;
+import com.amazonaws.services.transcribe.model.GetTranscriptionJobResult;
+import com.amazonaws.services.transcribe.model.StartTranscriptionJobRequest;
+import com.amazonaws.services.transcribe.model.StartTranscriptionJobResult;
+import com.amazonaws.services.transcribe.model.TranscriptionJob;
+import com.amazonaws.services.transcribe.model.TranscriptionJobStatus;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Transcribe stand-in. A job waits in the queue for queueMillis, runs for processingMillis and then writes a
+ * synthetic transcript of transcriptWords words to the output location in the fake S3.
+ * Time is read from the given clock, so jobs follow the skipped time of the test environment.
+ */
+public class VsFakeTranscribe extends AbstractAmazonTranscribe {
+    private record Job(String outputBucket, String outputKey, long creationMillis, int seed) {
+    }
+
+    private final VsFakeService service;
+    private final VsFakeS3 s3;
+    private final LongSupplier clock;
+    private final long queueMillis;
+    private final long processingMillis;
+    private final int transcriptWords;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> writtenTranscripts = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSeed = new AtomicInteger();
+
+    public VsFakeTranscribe(VsFakeService service, VsFakeS3 s3, LongSupplier clock, long queueMillis,
+                            long processingMillis, int transcriptWords) {
+        this.service = service;
+        this.s3 = s3;
+        this.clock = clock;
+        this.queueMillis = queueMillis;
+        this.processingMillis = processingMillis;
+        this.transcriptWords = transcriptWords;
+    }
+
+    @Override
+    public StartTranscriptionJobResult startTranscriptionJob(StartTranscriptionJobRequest request) {
+        service.call("StartTranscriptionJob");
+        Job job = new Job(request.getOutputBucketName(), request.getOutputKey(), clock.getAsLong(),
+                nextSeed.incrementAndGet());
+        if (jobs.putIfAbsent(request.getTranscriptionJobName(), job) != null) {
+            throw new ConflictException("The requested job name already exists: " + request.getTranscriptionJobName());
+        }
+        return new StartTranscriptionJobResult().withTranscriptionJob(describe(request.getTranscriptionJobName(), job));
+    }
+
+    @Override
+    public GetTranscriptionJobResult getTranscriptionJob(GetTranscriptionJobRequest request) {
+        service.call("GetTranscriptionJob");
+        Job job = jobs.get(request.getTranscriptionJobName());
+        if (job == null) {
+            throw new BadRequestException("The requested job couldn't be found: " + request.getTranscriptionJobName());
+        }
+        return new GetTranscriptionJobResult().withTranscriptionJob(describe(request.getTranscriptionJobName(), job));
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private TranscriptionJob describe(String jobName, Job job) {
+        long now = clock.getAsLong();
+        long startMillis = job.creationMillis() + queueMillis;
+        long completionMillis = startMillis + processingMillis;
+
+        TranscriptionJob transcriptionJob = new TranscriptionJob()
+                .withTranscriptionJobName(jobName)
+                .withCreationTime(new Date(job.creationMillis()));
+        if (now < startMillis) {
+            return transcriptionJob.withTranscriptionJobStatus(TranscriptionJobStatus.QUEUED);
+        }
+        transcriptionJob.withStartTime(new Date(startMillis));
+        if (now < completionMillis) {
+            return transcriptionJob.withTranscriptionJobStatus(TranscriptionJobStatus.IN_PROGRESS);
+        }
+
+        // Every job gets its own text, so the translation memory sees realistic misses
+        writtenTranscripts.computeIfAbsent(jobName, name -> {
+            s3.store(job.outputBucket(), job.outputKey(), VsSyntheticData.transcriptJson(transcriptWords, job.seed()));
+            return true;
+        });
+        return transcriptionJob
+                .withTranscriptionJobStatus(TranscriptionJobStatus.COMPLETED)
+                .withCompletionTime(new Date(completionMillis));
+    }
+}
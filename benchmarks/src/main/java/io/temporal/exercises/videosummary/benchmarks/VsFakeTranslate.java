@@ -0,0 +1,31 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.amazonaws.services.translate.AbstractAmazonTranslate;
+import com.amazonaws.services.translate.model.TranslateTextRequest;
+import com.amazonaws.services.translate.model.TranslateTextResult;
+
+/**
+ * Translate stand-in. Keeps the line structure of the request, like the real service, and tags every line with
+ * the target language.
+ */
+public class VsFakeTranslate extends AbstractAmazonTranslate {
+    private final VsFakeService service;
+
+    public VsFakeTranslate(VsFakeService service) {
+        this.service = service;
+    }
+
+    @Override
+    public TranslateTextResult translateText(TranslateTextRequest request) {
+        service.call("TranslateText");
+        String prefix = "[" + request.getTargetLanguageCode() + "] ";
+        StringBuilder translated = new StringBuilder(request.getText().length() + 64);
+        for (String line : request.getText().split("\n", -1)) {
+            if (translated.length() > 0) {
+                translated.append('\n');
+            }
+            translated.append(prefix).append(line);
+        }
+        return new TranslateTextResult().withTranslatedText(translated.toString());
+    }
+}
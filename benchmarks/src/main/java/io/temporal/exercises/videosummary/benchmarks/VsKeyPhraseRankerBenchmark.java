@@ -0,0 +1,73 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import io.temporal.exercises.videosummary.VsKeyPhraseRanker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phrase dedup and top-k selection of the summary: VsKeyPhraseRanker against sorting every distinct phrase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VsKeyPhraseRankerBenchmark {
+    @Param({"1000", "100000"})
+    public int phraseCount;
+
+    @Param({"10"})
+    public int top;
+
+    private String[] phrases;
+    private double[] scores;
+
+    @Setup
+    public void setUp() {
+        phrases = VsSyntheticData.phrases(phraseCount);
+        scores = new Random(42).doubles(phraseCount, 0.5, 1.0).toArray();
+    }
+
+    @Benchmark
+    public List<String> rankerHeap() {
+        VsKeyPhraseRanker ranker = new VsKeyPhraseRanker(Locale.ENGLISH);
+        for (int i = 0; i < phrases.length; i++) {
+            ranker.add(phrases[i], scores[i]);
+        }
+        return ranker.top(top);
+    }
+
+    @Benchmark
+    public List<String> fullSort() {
+        Map<String, Double> merged = new HashMap<>();
+        for (int i = 0; i < phrases.length; i++) {
+            merged.merge(phrases[i].trim().toLowerCase(Locale.ENGLISH), scores[i], Double::sum);
+        }
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(merged.entrySet());
+        entries.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+        List<String> texts = new ArrayList<>(top);
+        for (Map.Entry<String, Double> entry : entries.subList(0, Math.min(top, entries.size()))) {
+            texts.add(entry.getKey());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,49 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe collection of latency samples with exact percentiles. Keeps every sample, which is fine for the
+ * tens of thousands a load run produces.
+ */
+public class VsLatencies {
+    private final ConcurrentLinkedQueue<Long> samples = new ConcurrentLinkedQueue<>();
+
+    public void record(long nanos) {
+        samples.add(nanos);
+    }
+
+    public int count() {
+        return samples.size();
+    }
+
+    /**
+     * @return Count, mean, p50, p95, p99 and max in milliseconds
+     */
+    public String summary() {
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        if (sorted.length == 0) {
+            return "count=0";
+        }
+        return String.format("count=%d mean=%.1fms p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms",
+                sorted.length, millis(Arrays.stream(sorted).average().orElse(0)),
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.95)),
+                millis(percentile(sorted, 0.99)), millis(sorted[sorted.length - 1]));
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Nearest-rank percentile
+    private static long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
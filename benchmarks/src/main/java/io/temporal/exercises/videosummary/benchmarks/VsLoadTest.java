@@ -0,0 +1,276 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.amazonaws.services.comprehend.AmazonComprehend;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.transcribe.AmazonTranscribe;
+import com.amazonaws.services.translate.AmazonTranslate;
+import com.sun.net.httpserver.HttpServer;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.exercises.videosummary.VsActivity;
+import io.temporal.exercises.videosummary.VsActivityImpl;
+import io.temporal.exercises.videosummary.VsAwsClientPool;
+import io.temporal.exercises.videosummary.VsCompressionCodec;
+import io.temporal.exercises.videosummary.VsJobDetails;
+import io.temporal.exercises.videosummary.VsSharedKeys;
+import io.temporal.exercises.videosummary.VsThreads;
+import io.temporal.exercises.videosummary.VsTranslationMemory;
+import io.temporal.exercises.videosummary.VsWorkflow;
+import io.temporal.exercises.videosummary.VsWorkflowWorker;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Load test of the whole workflow on the in-process Temporal test server, with local stand-ins for S3, Transcribe,
+ * Translate and Comprehend. Runs vs.load.executions getVideoSummary executions, at most vs.load.concurrency at a
+ * time, through the same workers VsWorkflowWorker creates, and reports throughput, end-to-end latency percentiles,
+ * per-activity latency and the events, size and replay time of the histories. Needs no Temporal server, AWS account
+ * or network.
+ * <pre>
+ * java -Dvs.load.executions=2000 -Dvs.load.concurrency=300 -Dvs.load.translate.throttleRate=0.02 \
+ *      -cp target/benchmarks.jar io.temporal.exercises.videosummary.benchmarks.VsLoadTest
+ * </pre>
+ * Every vs.* worker property (queue sizes, virtual threads, claim-check, ...) applies as usual.
+ */
+public class VsLoadTest {
+    private static final String BUCKET_NAME = "load-test-bucket";
+    private static final int HISTORY_SAMPLE_SIZE = 100;
+
+    public static void main(String[] args) throws Exception {
+        int executions = Integer.getInteger("vs.load.executions", 1000);
+        int concurrency = Integer.getInteger("vs.load.concurrency", 200);
+        int videoKb = Integer.getInteger("vs.load.videoKb", 1024);
+        int transcriptWords = Integer.getInteger("vs.load.transcriptWords", 2000);
+        List<String> targetLanguages = List.of(System.getProperty("vs.load.targetLanguages", "fr").split(","));
+        boolean timeSkipping = Boolean.parseBoolean(System.getProperty("vs.load.timeSkipping", "true"));
+
+        // Serves the synthetic videos the activities download
+        HttpServer videoServer = startVideoServer(videoKb);
+        String videoBaseUrl = "http://localhost:" + videoServer.getAddress().getPort() + "/videos/";
+
+        TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkflowClientOptions(WorkflowClientOptions.newBuilder()
+                        .setDataConverter(VsCompressionCodec.newDataConverter())
+                        .build())
+                .setUseTimeskipping(timeSkipping)
+                .build());
+
+        // AWS stand-ins with the latency, throttling and failure rates of the vs.load.<service>.* properties
+        VsFakeService s3Service = VsFakeService.fromSystemProperties("s3", 20);
+        VsFakeService transcribeService = VsFakeService.fromSystemProperties("transcribe", 50);
+        VsFakeService translateService = VsFakeService.fromSystemProperties("translate", 150);
+        VsFakeService comprehendService = VsFakeService.fromSystemProperties("comprehend", 100);
+        VsFakeS3 s3 = new VsFakeS3(s3Service);
+        VsFakeTranscribe transcribe = new VsFakeTranscribe(transcribeService, s3, testEnv::currentTimeMillis,
+                Long.getLong("vs.load.transcribe.queueMs", 2000),
+                Long.getLong("vs.load.transcribe.processingMs", 20000),
+                transcriptWords);
+        VsFakeTranslate translate = new VsFakeTranslate(translateService);
+        VsFakeComprehend comprehend = new VsFakeComprehend(comprehendService);
+
+        VsAwsClientPool clientPool = new VsAwsClientPool(64, TimeUnit.MINUTES.toMillis(10), 0,
+                new VsAwsClientPool.ClientFactory() {
+                    @Override
+                    public AmazonS3 s3(VsJobDetails jobDetails) {
+                        return s3;
+                    }
+
+                    @Override
+                    public AmazonTranscribe transcribe(VsJobDetails jobDetails) {
+                        return transcribe;
+                    }
+
+                    @Override
+                    public AmazonTranslate translate(VsJobDetails jobDetails) {
+                        return translate;
+                    }
+
+                    @Override
+                    public AmazonComprehend comprehend(VsJobDetails jobDetails) {
+                        return comprehend;
+                    }
+                });
+
+        Map<String, VsLatencies> activityLatencies = new ConcurrentHashMap<>();
+        AtomicInteger activitiesRunning = new AtomicInteger();
+        AtomicInteger peakActivitiesRunning = new AtomicInteger();
+        VsActivity activities = timed(new VsActivityImpl(clientPool, VsTranslationMemory.shared()), activityLatencies,
+                activitiesRunning, peakActivitiesRunning);
+        VsWorkflowWorker.registerWorkers(testEnv.getWorkerFactory(), testEnv.getWorkflowClient(), activities,
+                Set.of("workflow", "media", "transcription", "nlp"));
+        testEnv.start();
+
+        System.out.println(String.format("Running %d executions, %d at a time, %d KB videos, %d-word transcripts, "
+                + "target languages %s, time skipping %s", executions, concurrency, videoKb, transcriptWords,
+                targetLanguages, timeSkipping ? "on" : "off"));
+
+        WorkflowClient client = testEnv.getWorkflowClient();
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        VsLatencies endToEnd = new VsLatencies();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(executions);
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        progress.scheduleAtFixedRate(() -> System.out.println(String.format("Completed %d of %d (%d failed)",
+                succeeded.get() + failed.get(), executions, failed.get())), 10, 10, TimeUnit.SECONDS);
+
+        long runStart = System.nanoTime();
+        for (int i = 0; i < executions; i++) {
+            inFlight.acquire();
+            VsJobDetails jobDetails = new VsJobDetails(videoBaseUrl + i + ".mp4", "en-US", targetLanguages,
+                    "load-test-key", "load-test-secret", "us-east-1", BUCKET_NAME);
+            VsWorkflow workflow = client.newWorkflowStub(VsWorkflow.class, WorkflowOptions.newBuilder()
+                    .setTaskQueue(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE)
+                    .setWorkflowId("load-" + runId + "-" + i)
+                    .build());
+
+            long start = System.nanoTime();
+            WorkflowClient.start(workflow::getVideoSummary, jobDetails);
+            WorkflowStub.fromTyped(workflow).getResultAsync(Map.class).whenComplete((summaries, e) -> {
+                // The workflow returns no summaries when the upload failed or every language failed
+                if (e == null && summaries != null) {
+                    endToEnd.record(System.nanoTime() - start);
+                    succeeded.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        double runSeconds = (System.nanoTime() - runStart) / 1e9;
+        progress.shutdownNow();
+
+        System.out.println();
+        System.out.println(String.format("Executions: %d succeeded, %d failed in %.1f s", succeeded.get(),
+                failed.get(), runSeconds));
+        System.out.println(String.format("Throughput: %.1f executions/s", succeeded.get() / runSeconds));
+        System.out.println("End-to-end: " + endToEnd.summary());
+        System.out.println("Activities:");
+        new TreeMap<>(activityLatencies).forEach((activity, latencies) ->
+                System.out.println(String.format("  %-36s %s", activity, latencies.summary())));
+        System.out.println("AWS stand-ins:");
+        for (VsFakeService service : new VsFakeService[]{s3Service, transcribeService, translateService, comprehendService}) {
+            System.out.println("  " + service);
+        }
+        // Activities in flight are bounded by the SDK's slots, or by VsAsyncActivityImpl with virtual threads
+        System.out.println(String.format("Peak activities running: %d, peak JVM threads: %d (%s)",
+                peakActivitiesRunning.get(), ManagementFactory.getThreadMXBean().getPeakThreadCount(),
+                VsThreads.useVirtualThreads() ? "virtual threads" : "platform threads"));
+
+        // Every activity adds its scheduled, started and completed events, and usually a workflow task to handle
+        // the result; a local activity adds one marker
+        List<WorkflowExecutionHistory> histories = IntStream.range(0, Math.min(executions, HISTORY_SAMPLE_SIZE))
+                .mapToObj(i -> client.fetchHistory("load-" + runId + "-" + i))
+                .collect(Collectors.toList());
+        LongSummaryStatistics historyEvents = histories.stream()
+                .mapToLong(history -> history.getEvents().size())
+                .summaryStatistics();
+        System.out.println(String.format("History events per execution (first %d): mean=%.1f min=%d max=%d",
+                historyEvents.getCount(), historyEvents.getAverage(), historyEvents.getMin(), historyEvents.getMax()));
+        // Payloads as stored by the server, i.e. after the claim-check and the compression codec
+        LongSummaryStatistics historyBytes = histories.stream()
+                .mapToLong(history -> history.getHistory().getSerializedSize())
+                .summaryStatistics();
+        System.out.println(String.format("History size per execution: mean=%.1f KB max=%.1f KB",
+                historyBytes.getAverage() / 1024, historyBytes.getMax() / 1024.0));
+        // What a worker does when an execution is not in its cache; the first pass warms up the JIT
+        Worker workflowWorker = testEnv.getWorkerFactory().getWorker(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE);
+        replay(workflowWorker, histories);
+        System.out.println(String.format("Replay: %.2f ms per execution", replay(workflowWorker, histories)));
+
+        testEnv.close();
+        videoServer.stop(0);
+        System.exit(0);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Mean time to replay one of the histories
+    private static double replay(Worker worker, List<WorkflowExecutionHistory> histories) throws Exception {
+        long start = System.nanoTime();
+        for (WorkflowExecutionHistory history : histories) {
+            worker.replayWorkflowExecution(history);
+        }
+        return (System.nanoTime() - start) / 1e6 / histories.size();
+    }
+
+    // Records the duration of every activity attempt by method name, failed attempts included, and the most
+    // activities running at the same time
+    private static VsActivity timed(VsActivity activities, Map<String, VsLatencies> latencies, AtomicInteger running,
+                                    AtomicInteger peakRunning) {
+        return (VsActivity) Proxy.newProxyInstance(VsActivity.class.getClassLoader(), new Class<?>[]{VsActivity.class},
+                (proxy, method, methodArgs) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(activities, methodArgs);
+                    }
+                    long start = System.nanoTime();
+                    peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        return method.invoke(activities, methodArgs);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        running.decrementAndGet();
+                        latencies.computeIfAbsent(method.getName(), name -> new VsLatencies())
+                                .record(System.nanoTime() - start);
+                    }
+                });
+    }
+
+    // Every video starts with its own number, so the content index does not treat them as duplicates
+    private static HttpServer startVideoServer(int videoKb) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/videos/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] header = (path + "\n").getBytes(StandardCharsets.UTF_8);
+            long size = Math.max(header.length, videoKb * 1024L);
+            exchange.getResponseHeaders().set("Content-Type", "video/mp4");
+            exchange.getResponseHeaders().set("ETag", "\"" + path + "\"");
+            exchange.sendResponseHeaders(200, size);
+            try (InputStream video = new SequenceInputStream(new ByteArrayInputStream(header),
+                    VsSyntheticData.videoStream(size - header.length));
+                 OutputStream outputStream = exchange.getResponseBody()) {
+                video.transferTo(outputStream);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+}
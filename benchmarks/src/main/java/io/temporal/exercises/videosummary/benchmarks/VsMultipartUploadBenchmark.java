@@ -0,0 +1,103 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import io.temporal.exercises.videosummary.VsS3MultipartUploader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming path of uploadToS3: VsS3MultipartUploader against an in-memory S3 that drains every part.
+ * Shows the cost of cutting the stream into parts and handing them between threads, and the memory the buffer
+ * pool holds, without the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class VsMultipartUploadBenchmark {
+    @Param({"1", "64", "2048"})
+    public int sizeMb;
+
+    @Param({"8"})
+    public int partSizeMb;
+
+    @Param({"1", "4"})
+    public int maxPartsInFlight;
+
+    private VsS3MultipartUploader uploader;
+
+    // Accepts every request and reads the part data, like the HTTP client would
+    private static final class DrainingS3 extends AbstractAmazonS3 {
+        @Override
+        public PutObjectResult putObject(String bucketName, String key, InputStream input, ObjectMetadata metadata) {
+            drain(input);
+            return new PutObjectResult();
+        }
+
+        @Override
+        public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId("benchmark");
+            return result;
+        }
+
+        @Override
+        public UploadPartResult uploadPart(UploadPartRequest request) {
+            drain(request.getInputStream());
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        }
+
+        @Override
+        public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            return new CompleteMultipartUploadResult();
+        }
+
+        private static void drain(InputStream input) {
+            try {
+                input.transferTo(OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        uploader = new VsS3MultipartUploader(new DrainingS3(), partSizeMb * 1024 * 1024, maxPartsInFlight);
+    }
+
+    @Benchmark
+    public long upload() throws IOException {
+        try (InputStream video = VsSyntheticData.videoStream(sizeMb * 1024L * 1024L)) {
+            return uploader.upload(video, "benchmark-bucket", "videos/benchmark.mp4");
+        }
+    }
+}
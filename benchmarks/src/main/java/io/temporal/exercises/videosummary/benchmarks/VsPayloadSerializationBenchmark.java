@@ -0,0 +1,74 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.exercises.videosummary.VsActionReturnVals;
+import io.temporal.exercises.videosummary.VsCompressionCodec;
+import io.temporal.exercises.videosummary.VsJobDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the workflow payloads through the Temporal data converter, with and without the
+ * compression codec the client uses. Text sizes cover a short clip up to the inline limit of a long video.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VsPayloadSerializationBenchmark {
+    @Param({"200", "10000", "150000"})
+    public int words;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private DataConverter dataConverter;
+    private VsJobDetails jobDetails;
+    private VsActionReturnVals returnVals;
+    private Payloads encodedReturnVals;
+
+    @Setup
+    public void setUp() {
+        dataConverter = compressed ? VsCompressionCodec.newDataConverter() : DefaultDataConverter.newDefaultInstance();
+        jobDetails = new VsJobDetails("https://example.com/videos/benchmark.mp4", "en-US", "es",
+                "AKIAEXAMPLE", "secret", "us-east-1", "benchmark-bucket");
+        returnVals = new VsActionReturnVals();
+        returnVals.setS3Key("videos/benchmark.mp4");
+        returnVals.setTranscriptionJobName("benchmark-job");
+        returnVals.setOriginalText(VsSyntheticData.text(words));
+        returnVals.setTargetText(VsSyntheticData.text(words));
+        encodedReturnVals = dataConverter.toPayloads(returnVals).orElseThrow();
+    }
+
+    @Benchmark
+    public Optional<Payloads> encodeJobDetails() {
+        return dataConverter.toPayloads(jobDetails);
+    }
+
+    @Benchmark
+    public Optional<Payloads> encodeReturnVals() {
+        return dataConverter.toPayloads(returnVals);
+    }
+
+    @Benchmark
+    public VsActionReturnVals decodeReturnVals() {
+        return dataConverter.fromPayloads(0, Optional.of(encodedReturnVals),
+                VsActionReturnVals.class, VsActionReturnVals.class);
+    }
+}
@@ -0,0 +1,117 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic inputs for the benchmarks: video byte streams of any size without holding them in memory,
+ * Amazon Transcribe output documents and key phrase lists.
+ */
+public final class VsSyntheticData {
+    private static final String[] WORDS = {
+            "temporal", "workflow", "activity", "video", "summary", "transcript", "translation", "durable",
+            "execution", "worker", "queue", "retry", "history", "replay", "signal", "query", "timer", "upload",
+            "bucket", "language", "sentence", "phrase", "amazon", "service", "cluster", "latency", "throughput",
+            "the", "a", "of", "and", "to", "in", "is", "it", "that", "for", "on", "with", "as"
+    };
+
+    private VsSyntheticData() {
+    }
+
+    /**
+     * @return Stream of pseudo-random bytes of the given size, served from a fixed 1 MB block
+     */
+    public static InputStream videoStream(long size) {
+        byte[] block = new byte[1024 * 1024];
+        new Random(42).nextBytes(block);
+        return new InputStream() {
+            private long position;
+
+            @Override
+            public int read() {
+                if (position >= size) {
+                    return -1;
+                }
+                return block[(int) (position++ % block.length)] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (position >= size) {
+                    return -1;
+                }
+                int blockOffset = (int) (position % block.length);
+                int count = (int) Math.min(Math.min(length, block.length - blockOffset), size - position);
+                System.arraycopy(block, blockOffset, buffer, offset, count);
+                position += count;
+                return count;
+            }
+        };
+    }
+
+    /**
+     * @return Transcribe output document with the given number of words, a period after every 15th
+     */
+    public static byte[] transcriptJson(int wordCount) {
+        return transcriptJson(wordCount, 42);
+    }
+
+    /**
+     * @return Transcribe output document with the given number of words; the seed picks the words
+     */
+    public static byte[] transcriptJson(int wordCount, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(wordCount * 8);
+        StringBuilder items = new StringBuilder(wordCount * 110);
+        double time = 0;
+        for (int i = 0; i < wordCount; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i > 0) {
+                text.append(' ');
+                items.append(',');
+            }
+            text.append(word);
+            double end = time + 0.2 + random.nextInt(400) / 1000.0;
+            items.append(String.format("{\"start_time\":\"%.3f\",\"end_time\":\"%.3f\",\"alternatives\":"
+                    + "[{\"confidence\":\"0.99\",\"content\":\"%s\"}],\"type\":\"pronunciation\"}", time, end, word));
+            time = end + 0.05;
+            if (i % 15 == 14) {
+                text.append('.');
+                items.append(",{\"alternatives\":[{\"confidence\":\"0.0\",\"content\":\".\"}],\"type\":\"punctuation\"}");
+            }
+        }
+        String json = "{\"jobName\":\"synthetic\",\"accountId\":\"000000000000\",\"results\":{\"transcripts\":[{\"transcript\":\""
+                + text + "\"}],\"items\":[" + items + "]},\"status\":\"COMPLETED\"}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Text of the given number of words in sentences of 15 words
+     */
+    public static String text(int wordCount) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(wordCount * 8);
+        for (int i = 0; i < wordCount; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i % 15 == 0) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            text.append(word).append(i % 15 == 14 ? ". " : " ");
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return Key phrases as Comprehend reports them: many repeats in varying case, with scores
+     */
+    public static String[] phrases(int count) {
+        Random random = new Random(42);
+        String[] phrases = new String[count];
+        for (int i = 0; i < count; i++) {
+            String phrase = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            phrases[i] = random.nextBoolean() ? phrase : phrase.toUpperCase();
+        }
+        return phrases;
+    }
+}
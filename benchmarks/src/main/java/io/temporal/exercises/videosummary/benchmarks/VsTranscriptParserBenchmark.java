@@ -0,0 +1,75 @@
+package io.temporal.exercises.videosummary.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.temporal.exercises.videosummary.VsTranscript;
+import io.temporal.exercises.videosummary.VsTranscriptParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transcript extraction from the Transcribe output document: the streaming VsTranscriptParser against the original
+ * extraction (the whole document in a StringBuilder, cut out with indexOf) and against reading it into a Jackson tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VsTranscriptParserBenchmark {
+    @Param({"1000", "10000", "100000", "500000"})
+    public int words;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] document;
+
+    @Setup
+    public void setUp() {
+        document = VsSyntheticData.transcriptJson(words);
+    }
+
+    @Benchmark
+    public VsTranscript streamingParser() throws IOException {
+        return VsTranscriptParser.parse(new ByteArrayInputStream(document));
+    }
+
+    // The original activity code: no unescaping, and the text ends at the first escaped quote
+    @Benchmark
+    public String indexOfLegacy() throws IOException {
+        StringBuilder resultBuilder = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(document)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                resultBuilder.append(line);
+            }
+        }
+
+        String jsonResult = resultBuilder.toString();
+        int transcriptStart = jsonResult.indexOf("\"transcript\":\"") + 14;
+        int transcriptEnd = jsonResult.indexOf("\"", transcriptStart);
+        return jsonResult.substring(transcriptStart, transcriptEnd);
+    }
+
+    @Benchmark
+    public String jsonTree() throws IOException {
+        JsonNode root = objectMapper.readTree(new ByteArrayInputStream(document));
+        return root.get("results").get("transcripts").get(0).get("transcript").asText();
+    }
+}
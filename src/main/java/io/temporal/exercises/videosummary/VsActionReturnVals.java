@@ -2,6 +2,8 @@ package io.temporal.exercises.videosummary;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
+import java.util.List;
+
 @JsonDeserialize(as = VsActionReturnVals.class)
 public class VsActionReturnVals {
     private String s3Key;
@@ -30,6 +32,96 @@ public class VsActionReturnVals {
         this.targetText = targetText;
     }
 
+    public String getOriginalTextRef() {
+        return originalTextRef;
+    }
+
+    public void setOriginalTextRef(String originalTextRef) {
+        this.originalTextRef = originalTextRef;
+    }
+
+    public String getTargetTextRef() {
+        return targetTextRef;
+    }
+
+    public void setTargetTextRef(String targetTextRef) {
+        this.targetTextRef = targetTextRef;
+    }
+
+    public String getOriginalTextPreview() {
+        return originalTextPreview;
+    }
+
+    public void setOriginalTextPreview(String originalTextPreview) {
+        this.originalTextPreview = originalTextPreview;
+    }
+
+    public String getTargetTextPreview() {
+        return targetTextPreview;
+    }
+
+    public void setTargetTextPreview(String targetTextPreview) {
+        this.targetTextPreview = targetTextPreview;
+    }
+
+    public String getTranscriptionJobName() {
+        return transcriptionJobName;
+    }
+
+    public void setTranscriptionJobName(String transcriptionJobName) {
+        this.transcriptionJobName = transcriptionJobName;
+    }
+
+    public String getTranscriptKey() {
+        return transcriptKey;
+    }
+
+    public void setTranscriptKey(String transcriptKey) {
+        this.transcriptKey = transcriptKey;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getSourceValidator() {
+        return sourceValidator;
+    }
+
+    public void setSourceValidator(String sourceValidator) {
+        this.sourceValidator = sourceValidator;
+    }
+
+    public boolean isReusedUpload() {
+        return reusedUpload;
+    }
+
+    public void setReusedUpload(boolean reusedUpload) {
+        this.reusedUpload = reusedUpload;
+    }
+
+    public List<VsMediaSegment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<VsMediaSegment> segments) {
+        this.segments = segments;
+    }
+
     private String originalText;
     private String targetText;
+    private String originalTextRef; // Claim-check reference used instead of originalText when the text is large
+    private String targetTextRef; // Claim-check reference used instead of targetText when the text is large
+    private String originalTextPreview; // Start of the original text when it is passed by reference
+    private String targetTextPreview; // Start of the target text when it is passed by reference
+    private String transcriptionJobName;
+    private String transcriptKey; // Key of the Transcribe output JSON in the job bucket
+    private String contentHash; // SHA-256 of the uploaded video
+    private String sourceValidator; // ETag or Last-Modified the video URL served the video with
+    private boolean reusedUpload; // The S3 object belongs to an earlier job or to the user, and must not be deleted
+    private List<VsMediaSegment> segments; // Uploaded audio segments in media order, instead of s3Key in segmented mode
 }
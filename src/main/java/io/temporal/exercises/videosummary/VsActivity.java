@@ -2,34 +2,73 @@ package io.temporal.exercises.videosummary;
 
 import io.temporal.activity.ActivityInterface;
 
+import java.util.List;
+
 @ActivityInterface
 public interface VsActivity {
     /**
      * Upload to S3.
      * @param jobDetails Job details containing the video URL and S3 configuration
      * @param results Action results
+     * @return Action results with the S3 key of the uploaded video
      */
-    void uploadToS3(VsJobDetails jobDetails, VsActionReturnVals results);
+    VsActionReturnVals uploadToS3(VsJobDetails jobDetails, VsActionReturnVals results);
 
     /**
      * Delete from S3. (Compensating action)
+     * @param jobDetails Job details containing the S3 configuration
+     * @param results Action results
+     */
+    void deleteFromS3(VsJobDetails jobDetails, VsActionReturnVals results);
+
+    /**
+     * Delete the claim-check payloads of the calling workflow, once its result no longer needs them.
+     * @param jobDetails Job details containing the S3 configuration
+     */
+    void deletePayloads(VsJobDetails jobDetails);
+
+    /**
+     * Start the transcription job for the uploaded video. Returns as soon as the job is submitted.
+     * @param jobDetails Job details containing the video URL and S3 configuration
      * @param results Action results
+     * @return Action results with the transcription job name
      */
-    void deleteFromS3(VsActionReturnVals results);
+    VsActionReturnVals startTranscription(VsJobDetails jobDetails, VsActionReturnVals results);
 
     /**
-     * Transcribe the video.
+     * Check the status of a started transcription job.
      * @param jobDetails Job details containing the video URL and S3 configuration
      * @param results Action results
+     * @return Transcribe job status, e.g. QUEUED, IN_PROGRESS, COMPLETED or FAILED
      */
-    void transcribe(VsJobDetails jobDetails, VsActionReturnVals results);
+    String getTranscriptionStatus(VsJobDetails jobDetails, VsActionReturnVals results);
+
+    /**
+     * Download the text of a completed transcription job.
+     * @param jobDetails Job details containing the video URL and S3 configuration
+     * @param results Action results
+     * @return Action results with the original text
+     */
+    VsActionReturnVals fetchTranscript(VsJobDetails jobDetails, VsActionReturnVals results);
 
     /**
      * Convert the transcription to the target language using the target language from job details.
      * @param jobDetails Job details containing the video URL and S3 configuration
      * @param results Action results
+     * @return Action results with the target text
+     */
+    VsActionReturnVals convertOriginalTextToTargetLanguage(VsJobDetails jobDetails, VsActionReturnVals results);
+
+    /**
+     * Join the transcripts and translations of the segments of a segmented upload.
+     * @param jobDetails Job details containing the video URL and S3 configuration
+     * @param results Action results with the segments, or with the transcript a merge for another target
+     *                language returned, which is kept instead of being joined and stored again
+     * @param segmentResults Transcribed and translated segments, in the order of results.getSegments()
+     * @return Action results with the original and target text of the whole video
      */
-    void convertOriginalTextToTargetLanguage(VsJobDetails jobDetails, VsActionReturnVals results);
+    VsActionReturnVals mergeSegments(VsJobDetails jobDetails, VsActionReturnVals results,
+                                     List<VsActionReturnVals> segmentResults);
 
     /**
      * Generate a summary of the video.
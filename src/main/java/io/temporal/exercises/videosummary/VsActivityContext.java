@@ -0,0 +1,75 @@
+package io.temporal.exercises.videosummary;
+
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.activity.ActivityInfo;
+import io.temporal.client.ActivityCompletionClient;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Heartbeat access for activity code, whether it runs on the SDK activity thread or was handed off to another
+ * thread by VsAsyncActivityImpl. Activity code calls current() instead of Activity.getExecutionContext(),
+ * which only works on the SDK thread.
+ */
+public final class VsActivityContext {
+    private static final ThreadLocal<VsActivityContext> handedOffContext = new ThreadLocal<>();
+
+    private final ActivityExecutionContext executionContext;
+    private final ActivityCompletionClient completionClient; // Null when the SDK completes the activity
+
+    private VsActivityContext(ActivityExecutionContext executionContext, ActivityCompletionClient completionClient) {
+        this.executionContext = executionContext;
+        this.completionClient = completionClient;
+    }
+
+    /**
+     * @return Context of the activity running on the current thread
+     */
+    public static VsActivityContext current() {
+        VsActivityContext context = handedOffContext.get();
+        return context != null ? context : new VsActivityContext(Activity.getExecutionContext(), null);
+    }
+
+    public ActivityInfo getInfo() {
+        return executionContext.getInfo();
+    }
+
+    /**
+     * Record progress. Throws ActivityCompletionException when the activity was cancelled or timed out.
+     */
+    public <V> void heartbeat(V details) {
+        if (completionClient == null) {
+            executionContext.heartbeat(details);
+        } else {
+            // The SDK stops heartbeating for an activity once its handler has returned
+            completionClient.heartbeat(executionContext.getTaskToken(), details);
+        }
+    }
+
+    /**
+     * @return Details of the last heartbeat of a previous attempt, if any
+     */
+    public <V> Optional<V> getHeartbeatDetails(Class<V> detailsClass) {
+        return executionContext.getHeartbeatDetails(detailsClass);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Capture the context on the SDK thread, to be used by the thread the activity is handed off to
+    static VsActivityContext handOff(ActivityExecutionContext executionContext, ActivityCompletionClient completionClient) {
+        return new VsActivityContext(executionContext, completionClient);
+    }
+
+    <R> R call(Callable<R> activity) throws Exception {
+        handedOffContext.set(this);
+        try {
+            return activity.call();
+        } finally {
+            handedOffContext.remove();
+        }
+    }
+}
@@ -1,101 +1,284 @@
 package io.temporal.exercises.videosummary;
 
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.regions.Regions;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.transcribe.AmazonTranscribe;
-import com.amazonaws.services.transcribe.AmazonTranscribeClientBuilder;
+import com.amazonaws.services.transcribe.model.BadRequestException;
+import com.amazonaws.services.transcribe.model.ConflictException;
 import com.amazonaws.services.transcribe.model.GetTranscriptionJobRequest;
 import com.amazonaws.services.transcribe.model.LanguageCode;
 import com.amazonaws.services.transcribe.model.Media;
 import com.amazonaws.services.transcribe.model.MediaFormat;
 import com.amazonaws.services.transcribe.model.StartTranscriptionJobRequest;
 import com.amazonaws.services.transcribe.model.TranscriptionJob;
+import com.amazonaws.services.transcribe.model.TranscriptionJobStatus;
 import com.amazonaws.services.translate.AmazonTranslate;
-import com.amazonaws.services.translate.AmazonTranslateClientBuilder;
 import com.amazonaws.services.translate.model.TranslateTextRequest;
-import com.amazonaws.services.translate.model.TranslateTextResult;
-import com.amazonaws.services.comprehend.AmazonComprehend;
-import com.amazonaws.services.comprehend.AmazonComprehendClientBuilder;
-import com.amazonaws.services.comprehend.model.DetectKeyPhrasesRequest;
-import com.amazonaws.services.comprehend.model.DetectKeyPhrasesResult;
-import com.amazonaws.services.comprehend.model.KeyPhrase;
-
-import java.io.BufferedReader;
-import java.io.FileOutputStream;
+
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.UUID;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class VsActivityImpl implements VsActivity {
-    // Store the last used JobDetails for use in compensating actions
-    private static VsJobDetails lastJobDetails;
+    // Runs the concurrent AWS requests of a single activity. Each activity bounds its own number of tasks.
+    private static final ExecutorService awsRequestExecutor = VsThreads.newExecutor("vs-aws-request");
+
+    // AWS clients are cached and shared across activities and workflows to keep connections warm
+    private final VsAwsClientPool clientPool;
+
+    // Sentence translations shared across jobs
+    private final VsTranslationMemory translationMemory;
+
+    // Summarization engines, selected per job by VsConfig.SUMMARY_ENGINE
+    private final VsSummarizer comprehendSummarizer;
+    private final VsSummarizer textRankSummarizer;
+
+    public VsActivityImpl() {
+        this(VsAwsClientPool.shared(), VsTranslationMemory.shared());
+    }
+
+    public VsActivityImpl(VsAwsClientPool clientPool, VsTranslationMemory translationMemory) {
+        this.clientPool = clientPool;
+        this.translationMemory = translationMemory;
+        this.comprehendSummarizer = new VsComprehendSummarizer(clientPool, awsRequestExecutor);
+        this.textRankSummarizer = new VsTextRankSummarizer();
+    }
     
     @Override
-    public void uploadToS3(VsJobDetails jobDetails, VsActionReturnVals results) {
-        // Store jobDetails for potential compensation (deletion) later
-        lastJobDetails = jobDetails;
-        
+    public VsActionReturnVals uploadToS3(VsJobDetails jobDetails, VsActionReturnVals results) {
         try {
-            // Configure AWS credentials
-            AWSCredentials credentials = new BasicAWSCredentials(
-                    jobDetails.apiKey(),
-                    jobDetails.apiSecret()
-            );
-            
-            // Create S3 client
-            AmazonS3 s3Client = AmazonS3ClientBuilder
-                    .standard()
-                    .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                    .withRegion(Regions.fromName(jobDetails.region()))
-                    .build();
-            
-            // Download the video from the URL
-            URL url = new URL(jobDetails.videoUrl());
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            
-            // Create a temp file to store the downloaded video
-            String fileExtension = getFileExtension(jobDetails.videoUrl());
-            Path tempFile = Files.createTempFile("video-", fileExtension);
-            
-            // Download the file
-            try (InputStream inputStream = connection.getInputStream();
-                 FileOutputStream outputStream = new FileOutputStream(tempFile.toFile())) {
-                
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
+            AmazonS3 s3Client = clientPool.s3(jobDetails);
+            VsContentIndex contentIndex = new VsContentIndex(s3Client, jobDetails.bucketName());
+            Optional<VsS3Location> source = VsS3Location.fromUrl(jobDetails.videoUrl());
+            
+            // The same URL was transcribed before and still serves the same video: skip the download, 
+            // upload and transcription
+            if (VsConfig.DEDUP_ENABLED) {
+                Optional<VsContentIndexEntry> indexEntry = contentIndex.findByUrl(jobDetails.videoUrl(), 
+                        jobDetails.orgLanguage(), () -> currentSourceValidator(s3Client, jobDetails, source));
+                if (indexEntry.isPresent()) {
+                    System.out.println("Video " + jobDetails.videoUrl() + " was already transcribed, reusing " 
+                            + indexEntry.get().transcriptKey());
+                    return reuseIndexEntry(indexEntry.get(), results);
                 }
             }
             
-            // Generate a unique key for the S3 object
-            String s3Key = "videos/" + UUID.randomUUID() + fileExtension;
+            // Generate a unique key for the S3 object, under a prefix of the workflow, so the compensation can find
+            // the multipart uploads its attempts left behind
+            String fileExtension = getFileExtension(source.map(VsS3Location::key).orElse(jobDetails.videoUrl()));
+            String s3Key = uploadPrefix() + UUID.randomUUID() + fileExtension;
+            
+            // Segmented transcription cuts the audio track into time windows, which needs the file on disk
+            boolean splitAudio = VsConfig.TRANSCRIPTION_SEGMENTED && isMp4Container(fileExtension);
+            List<VsMediaSegment> segments = null;
+            
+            // The video is already in S3: no bytes need to pass through this worker
+            if (VsConfig.S3_SOURCE_FAST_PATH && source.isPresent() && !splitAudio) {
+                try {
+                    return useS3Source(s3Client, jobDetails, source.get(), s3Key, results);
+                } catch (AmazonServiceException e) {
+                    // No access through the S3 API, e.g. a pre-signed URL of another account: download it instead
+                    if (jobDetails.videoUrl().startsWith("s3://")) {
+                        throw e;
+                    }
+                    System.out.println("Cannot copy " + source.get() + " within S3, downloading it: " + e.getMessage());
+                }
+            }
             
-            // Upload the file to S3
-            s3Client.putObject(
-                    jobDetails.bucketName(),
-                    s3Key,
-                    tempFile.toFile()
-            );
+            // Download the video from the URL; s3:// URLs are read through a pre-signed URL
+            URL url = jobDetails.videoUrl().startsWith("s3://") && source.isPresent()
+                    ? s3Client.generatePresignedUrl(source.get().bucketName(), source.get().key(),
+                            new java.util.Date(System.currentTimeMillis() + 1000 * 60 * 60), HttpMethod.GET)
+                    : new URL(jobDetails.videoUrl());
+            HttpURLConnection connection = openConnection(url);
+            
+            // Hash the content while it streams through, to find the same bytes under different URLs
+            MessageDigest contentDigest = VsDigests.newSha256();
+            
+            // Transcribe only needs the audio: pull the AAC track out of MP4 videos and upload just that.
+            // The container must be read out of order, so the video is staged in a temp file.
+            boolean extractAudio = VsConfig.AUDIO_EXTRACTION_ENABLED && isMp4Container(fileExtension);
+            
+            if (VsConfig.UPLOAD_STREAMING && !extractAudio && !splitAudio) {
+                // Stream the download straight into a multipart upload, no scratch disk needed
+                VsS3MultipartUploader uploader = new VsS3MultipartUploader(s3Client,
+                        VsConfig.UPLOAD_PART_SIZE_MB * 1024 * 1024, VsConfig.UPLOAD_MAX_PARTS_IN_FLIGHT);
+                
+                // Continue the multipart upload of a previous attempt, downloading only the missing bytes
+                VsActivityContext context = VsActivityContext.current();
+                VsUploadProgress resumeFrom = context.getHeartbeatDetails(VsUploadProgress.class)
+                        .filter(progress -> progress.sourceValidator() != null)
+                        .filter(progress -> uploader.canResume(jobDetails.bucketName(), progress))
+                        .orElse(null);
+                if (resumeFrom != null) {
+                    connection.setRequestProperty("Range", "bytes=" + resumeFrom.bytesUploaded() + "-");
+                }
+                
+                InputStream inputStream = connection.getInputStream();
+                String sourceValidator = sourceValidator(connection);
+                if (resumeFrom != null && !resumeFrom.sourceValidator().equals(sourceValidator)) {
+                    // The video changed since the previous attempt, or the server no longer says which version it
+                    // sends: start over
+                    System.out.println("Video " + jobDetails.videoUrl() + " changed, restarting the upload");
+                    inputStream.close();
+                    uploader.abort(jobDetails.bucketName(), resumeFrom);
+                    resumeFrom = null;
+                    connection = openConnection(url);
+                    inputStream = connection.getInputStream();
+                    sourceValidator = sourceValidator(connection);
+                }
+                
+                if (resumeFrom != null) {
+                    s3Key = resumeFrom.s3Key();
+                    if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                        // The server ignored the range: skip what is already uploaded
+                        inputStream.skipNBytes(resumeFrom.bytesUploaded());
+                    }
+                    System.out.println("Resuming upload of " + s3Key + " at byte " + resumeFrom.bytesUploaded());
+                } else {
+                    inputStream = new DigestInputStream(inputStream, contentDigest);
+                }
+                
+                // Without a validator a resumed upload could mix two versions of the video, so the upload is not
+                // resumable and is aborted when it fails. It still heartbeats; the next attempt ignores that progress.
+                long transferStart = System.nanoTime();
+                long bytesUploaded;
+                try (InputStream uploadStream = inputStream) {
+                    bytesUploaded = uploader.upload(uploadStream, jobDetails.bucketName(), s3Key, resumeFrom,
+                            sourceValidator, context::heartbeat);
+                }
+                
+                // Download and upload overlap, so both ran at the same rate
+                long bytesTransferred = bytesUploaded - (resumeFrom != null ? resumeFrom.bytesUploaded() : 0);
+                long transferNanos = System.nanoTime() - transferStart;
+                VsMetrics.recordTransfer("download", bytesTransferred, transferNanos);
+                VsMetrics.recordTransfer("upload", bytesTransferred, transferNanos);
+                
+                if (resumeFrom != null) {
+                    // The digest only saw part of the video, so the content index cannot be used
+                    contentDigest = null;
+                }
+                results.setSourceValidator(sourceValidator);
+            } else {
+                // Every temp file is tracked as soon as it exists, and deleted however the upload ends
+                List<Path> tempFiles = new ArrayList<>();
+                try {
+                    // Create a temp file to store the downloaded video
+                    Path tempFile = Files.createTempFile("video-", fileExtension);
+                    tempFiles.add(tempFile);
+                    
+                    // Download the file, over several connections when the server supports byte ranges. The
+                    // heartbeats carry no details: a download is not resumed, they only tell Temporal the worker
+                    // is alive.
+                    VsActivityContext context = VsActivityContext.current();
+                    long downloadStart = System.nanoTime();
+                    VsRangedDownloader.Result download = new VsRangedDownloader(VsConfig.DOWNLOAD_PARALLELISM,
+                            VsConfig.DOWNLOAD_RANGE_SIZE_MB * 1024L * 1024, VsConfig.DOWNLOAD_RANGE_RETRIES,
+                            VsConfig.DOWNLOAD_CONNECT_TIMEOUT_MS, VsConfig.DOWNLOAD_READ_TIMEOUT_MS)
+                            .download(url, tempFile, bytes -> context.heartbeat(null));
+                    VsMetrics.recordTransfer("download", download.bytes(), System.nanoTime() - downloadStart);
+                    results.setSourceValidator(download.sourceValidator());
+                    
+                    // Ranges arrive out of order, so the content hash is taken from the file
+                    VsDigests.update(contentDigest, tempFile);
+                    
+                    Path uploadFile = tempFile;
+                    if (splitAudio) {
+                        segments = uploadSegments(s3Client, jobDetails.bucketName(), tempFile);
+                        if (segments == null) {
+                            // Fragmented file, no AAC track or a single segment: transcribe it as a whole
+                            System.out.println("Not splitting the audio track of " + jobDetails.videoUrl());
+                        }
+                    }
+                    
+                    if (segments == null && extractAudio) {
+                        Path audioFile = Files.createTempFile("audio-", ".m4a");
+                        tempFiles.add(audioFile);
+                        if (VsAudioExtractor.extract(tempFile, audioFile)) {
+                            System.out.println("Extracted audio track: " + Files.size(audioFile) + " of "
+                                    + Files.size(tempFile) + " bytes");
+                            uploadFile = audioFile;
+                            s3Key = "audio/" + UUID.randomUUID() + ".m4a";
+                        } else {
+                            // Fragmented file or no AAC track: upload the whole video
+                            System.out.println("No extractable audio track in " + jobDetails.videoUrl() 
+                                    + ", uploading the video");
+                        }
+                    }
+                    
+                    // Upload the file to S3
+                    if (segments == null) {
+                        long uploadStart = System.nanoTime();
+                        s3Client.putObject(
+                                jobDetails.bucketName(),
+                                s3Key,
+                                uploadFile.toFile()
+                        );
+                        VsMetrics.recordTransfer("upload", Files.size(uploadFile), System.nanoTime() - uploadStart);
+                    }
+                } finally {
+                    deleteTempFiles(tempFiles);
+                }
+            }
             
-            // Clean up the temp file
-            Files.delete(tempFile);
+            String contentHash = contentDigest == null ? null : VsDigests.toHex(contentDigest.digest());
+            results.setContentHash(contentHash);
+            
+            // The same bytes were transcribed before under another URL: drop the duplicate, keep the transcript
+            if (VsConfig.DEDUP_ENABLED && contentHash != null) {
+                Optional<VsContentIndexEntry> indexEntry = contentIndex.findByContent(contentHash, jobDetails.orgLanguage());
+                if (indexEntry.isPresent()) {
+                    if (segments != null) {
+                        for (VsMediaSegment segment : segments) {
+                            s3Client.deleteObject(jobDetails.bucketName(), segment.s3Key());
+                        }
+                    } else {
+                        s3Client.deleteObject(jobDetails.bucketName(), s3Key);
+                    }
+                    contentIndex.put(jobDetails.videoUrl(), results.getSourceValidator(), indexEntry.get());
+                    System.out.println("Video content " + contentHash + " was already transcribed, reusing " 
+                            + indexEntry.get().transcriptKey());
+                    return reuseIndexEntry(indexEntry.get(), results);
+                }
+            }
+            
+            if (segments != null) {
+                System.out.println("Successfully uploaded " + segments.size() + " audio segments to S3 bucket " 
+                        + jobDetails.bucketName());
+                results.setSegments(segments);
+                return results;
+            }
             
             System.out.println("Successfully uploaded video to S3 bucket " + 
                     jobDetails.bucketName() + " with key " + s3Key);
             
             results.setS3Key(s3Key);
+            return results;
             
         } catch (IOException e) {
             throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to upload video to S3: " + e.getMessage(), e));
@@ -103,31 +286,38 @@ public class VsActivityImpl implements VsActivity {
     }
 
     @Override
-    public void deleteFromS3(VsActionReturnVals results) {
+    public void deleteFromS3(VsJobDetails jobDetails, VsActionReturnVals results) {
         try {
-            // Use the last used JobDetails for credentials
-            if (lastJobDetails == null) {
-                throw new IllegalStateException("No JobDetails available. Make sure this method is called after uploadToS3.");
+            AmazonS3 s3Client = clientPool.s3(jobDetails);
+            
+            // Resumable uploads are kept when an attempt fails; none of them will be resumed any more
+            int aborted = new VsS3MultipartUploader(s3Client, VsConfig.UPLOAD_PART_SIZE_MB * 1024 * 1024,
+                    VsConfig.UPLOAD_MAX_PARTS_IN_FLIGHT).abortAll(jobDetails.bucketName(), uploadPrefix());
+            if (aborted > 0) {
+                System.out.println("Aborted " + aborted + " incomplete multipart uploads in S3 bucket " 
+                        + jobDetails.bucketName());
             }
             
-            // Configure AWS credentials
-            AWSCredentials credentials = new BasicAWSCredentials(
-                    lastJobDetails.apiKey(),
-                    lastJobDetails.apiSecret()
-            );
+            // A reused upload belongs to the job that created it; a failed upload left no object
+            if (results.isReusedUpload() || (results.getS3Key() == null && results.getSegments() == null)) {
+                return;
+            }
             
-            // Create S3 client
-            AmazonS3 s3Client = AmazonS3ClientBuilder
-                    .standard()
-                    .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                    .withRegion(Regions.fromName(lastJobDetails.region()))
-                    .build();
+            // Delete the audio segments of a segmented upload
+            if (results.getSegments() != null) {
+                for (VsMediaSegment segment : results.getSegments()) {
+                    s3Client.deleteObject(jobDetails.bucketName(), segment.s3Key());
+                }
+                System.out.println("Successfully deleted " + results.getSegments().size() 
+                        + " audio segments from S3 bucket " + jobDetails.bucketName());
+                return;
+            }
             
             // Delete the object from S3
-            s3Client.deleteObject(lastJobDetails.bucketName(), results.getS3Key());
+            s3Client.deleteObject(jobDetails.bucketName(), results.getS3Key());
             
             System.out.println("Successfully deleted object from S3 bucket " + 
-                    lastJobDetails.bucketName() + " with key " + results.getS3Key());
+                    jobDetails.bucketName() + " with key " + results.getS3Key());
             
         } catch (Exception e) {
             throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to delete object from S3: " + e.getMessage(), e));
@@ -135,24 +325,25 @@ public class VsActivityImpl implements VsActivity {
     }
 
     @Override
-    public void transcribe(VsJobDetails jobDetails, VsActionReturnVals results) {
+    public void deletePayloads(VsJobDetails jobDetails) {
+        try {
+            int deleted = blobStore(jobDetails).deleteAll();
+            System.out.println("Deleted " + deleted + " claim-check payloads of workflow " 
+                    + VsActivityContext.current().getInfo().getWorkflowId());
+        } catch (Exception e) {
+            throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to delete payloads: " + e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public VsActionReturnVals startTranscription(VsJobDetails jobDetails, VsActionReturnVals results) {
         try {
             if(results.getS3Key() == null) {
-                return;
+                return results;
             }
 
-            // Configure AWS credentials
-            AWSCredentials credentials = new BasicAWSCredentials(
-                    jobDetails.apiKey(),
-                    jobDetails.apiSecret()
-            );
-            
-            // Create S3 client to get the input file URL
-            AmazonS3 s3Client = AmazonS3ClientBuilder
-                    .standard()
-                    .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                    .withRegion(Regions.fromName(jobDetails.region()))
-                    .build();
+            // S3 client to get the input file URL
+            AmazonS3 s3Client = clientPool.s3(jobDetails);
             
             // Generate a pre-signed URL for the video file in S3
             java.util.Date expiration = new java.util.Date();
@@ -166,15 +357,21 @@ public class VsActivityImpl implements VsActivity {
                     expiration
             ).toString();
             
-            // Create Transcribe client
-            AmazonTranscribe transcribeClient = AmazonTranscribeClientBuilder.standard()
-                    .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                    .withRegion(Regions.fromName(jobDetails.region()))
-                    .build();
+            AmazonTranscribe transcribeClient = clientPool.transcribe(jobDetails);
             
-            // Create unique job name
-            String jobName = "transcription-" + UUID.randomUUID().toString();
+            // Create unique job name, or take the one a previous attempt may already have started
+            VsActivityContext context = VsActivityContext.current();
+            Optional<String> previousJobName = context.getHeartbeatDetails(String.class);
+            String jobName = previousJobName.orElse("transcription-" + UUID.randomUUID().toString());
             String outputKey = "transcriptions/" + jobName + ".json";
+            
+            if (previousJobName.isPresent() && jobExists(transcribeClient, jobName)) {
+                System.out.println("Reusing transcription job " + jobName + " started by a previous attempt");
+                results.setTranscriptionJobName(jobName);
+                results.setTranscriptKey(outputKey);
+                return results;
+            }
+            
             String outputBucket = jobDetails.bucketName();
             
             // Set up media format based on file extension
@@ -183,9 +380,12 @@ public class VsActivityImpl implements VsActivity {
                 format = "mp3";
             } else if (results.getS3Key().toLowerCase().endsWith(".wav")) {
                 format = "wav";
+            } else if (results.getS3Key().toLowerCase().endsWith(".m4a")) {
+                format = "m4a";
             }
             
-            // Start transcription job
+            // Start transcription job. The workflow polls for its completion with durable timers,
+            // so no worker thread is held while Transcribe is busy.
             StartTranscriptionJobRequest startJobRequest = new StartTranscriptionJobRequest()
                     .withTranscriptionJobName(jobName)
                     .withLanguageCode(LanguageCode.fromValue(jobDetails.orgLanguage()))
@@ -194,95 +394,191 @@ public class VsActivityImpl implements VsActivity {
                     .withOutputBucketName(outputBucket)
                     .withOutputKey(outputKey);
             
-            transcribeClient.startTranscriptionJob(startJobRequest);
-            
-            // Wait for completion
-            GetTranscriptionJobRequest getJobRequest = new GetTranscriptionJobRequest()
-                    .withTranscriptionJobName(jobName);
-            
-            TranscriptionJob transcriptionJob;
-            do {
-                Thread.sleep(10000); // Check every 10 seconds
-                transcriptionJob = transcribeClient.getTranscriptionJob(getJobRequest)
-                        .getTranscriptionJob();
-                
-                System.out.println("Transcription job status: " + transcriptionJob.getTranscriptionJobStatus());
-                
-            } while (transcriptionJob.getTranscriptionJobStatus().equals("IN_PROGRESS"));
-            
-            if (!transcriptionJob.getTranscriptionJobStatus().equals("COMPLETED")) {
-                throw new RuntimeException("Transcription job failed with status: " 
-                        + transcriptionJob.getTranscriptionJobStatus());
+            // Record the name before starting, so a retry finds the job even if this attempt dies right after
+            context.heartbeat(jobName);
+            try {
+                transcribeClient.startTranscriptionJob(startJobRequest);
+                System.out.println("Started transcription job " + jobName);
+            } catch (ConflictException e) {
+                // Started by a previous attempt whose response was lost
+                System.out.println("Transcription job " + jobName + " already exists");
             }
             
-            // Get the transcription result
-            String transcriptFileUrl = transcriptionJob.getTranscript().getTranscriptFileUri();
+            results.setTranscriptionJobName(jobName);
+            results.setTranscriptKey(outputKey);
+            return results;
+        } catch (Exception e) {
+            throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to start transcription: " + e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public String getTranscriptionStatus(VsJobDetails jobDetails, VsActionReturnVals results) {
+        try {
+            TranscriptionJob transcriptionJob = getTranscriptionJob(jobDetails, results.getTranscriptionJobName());
             
-            // Download the JSON result
-            URL url = new URL(transcriptFileUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            System.out.println("Transcription job status: " + transcriptionJob.getTranscriptionJobStatus());
             
-            StringBuilder resultBuilder = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(connection.getInputStream()))) {
+            return transcriptionJob.getTranscriptionJobStatus();
+        } catch (Exception e) {
+            throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to get transcription status: " + e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public VsActionReturnVals fetchTranscript(VsJobDetails jobDetails, VsActionReturnVals results) {
+        try {
+            // No job name when the transcript was reused from the content index
+            if (results.getTranscriptionJobName() != null) {
+                TranscriptionJob transcriptionJob = getTranscriptionJob(jobDetails, results.getTranscriptionJobName());
                 
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    resultBuilder.append(line);
+                if (!transcriptionJob.getTranscriptionJobStatus().equals(TranscriptionJobStatus.COMPLETED.toString())) {
+                    throw new RuntimeException("Transcription job failed with status: " 
+                            + transcriptionJob.getTranscriptionJobStatus());
                 }
+                recordTranscriptionJob(transcriptionJob);
+            }
+            
+            // Download the JSON result that Transcribe wrote to the job bucket
+            AmazonS3 s3Client = clientPool.s3(jobDetails);
+            
+            // Stream the transcript text and its duration straight out of the S3 object
+            VsTranscript transcript;
+            try (InputStream inputStream = s3Client.getObject(jobDetails.bucketName(), results.getTranscriptKey())
+                    .getObjectContent()) {
+                transcript = VsTranscriptParser.parse(inputStream);
             }
             
-            // Parse the JSON to extract the actual transcription text
-            String jsonResult = resultBuilder.toString();
-            // Using simple string parsing instead of full JSON parsing for brevity
-            // In a real implementation, you would use a JSON library
-            int transcriptStart = jsonResult.indexOf("\"transcript\":\"") + 14;
-            int transcriptEnd = jsonResult.indexOf("\"", transcriptStart);
+            System.out.println("Fetched transcript with " + transcript.getItemCount() + " items covering " 
+                    + transcript.getDurationMillis() / 1000 + " seconds");
 
-            // Clean up by deleting the transcription result from S3 if needed
-            // s3Client.deleteObject(outputBucket, outputKey);
-            results.setOriginalText(jsonResult.substring(transcriptStart, transcriptEnd));
+            storeOriginalText(jobDetails, results, transcript.getText());
+            
+            // Remember the transcript, so the same video is not transcribed again
+            if (VsConfig.DEDUP_ENABLED && results.getContentHash() != null && !results.isReusedUpload()) {
+                new VsContentIndex(s3Client, jobDetails.bucketName()).put(jobDetails.videoUrl(), 
+                        results.getSourceValidator(), new VsContentIndexEntry(results.getContentHash(), jobDetails.orgLanguage(),
+                                results.getS3Key(), results.getTranscriptKey()));
+            }
+            return results;
         } catch (Exception e) {
-            throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to transcribe video: " + e.getMessage(), e));
+            throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to fetch transcript: " + e.getMessage(), e));
         }
     }
 
     @Override
-    public void convertOriginalTextToTargetLanguage(VsJobDetails jobDetails, VsActionReturnVals results) {
+    public VsActionReturnVals convertOriginalTextToTargetLanguage(VsJobDetails jobDetails, VsActionReturnVals results) {
         try {
-            if(results.getOriginalText() == null) {
-                return;
+            if(results.getOriginalText() == null && results.getOriginalTextRef() == null) {
+                return results;
             }
 
-            // Configure AWS credentials
-            AWSCredentials credentials = new BasicAWSCredentials(
-                    jobDetails.apiKey(),
-                    jobDetails.apiSecret()
-            );
-            
-            // Create Amazon Translate client
-            AmazonTranslate translateClient = AmazonTranslateClientBuilder.standard()
-                    .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                    .withRegion(Regions.fromName(jobDetails.region()))
-                    .build();
+            AmazonTranslate translateClient = clientPool.translate(jobDetails);
             
             // Get source language from jobDetails
             String sourceLanguage = jobDetails.orgLanguage();
+            String originalText = loadOriginalText(jobDetails, results);
             
-            // Create translation request
-            TranslateTextRequest translateRequest = new TranslateTextRequest()
-                    .withText(results.getOriginalText())
-                    .withSourceLanguageCode(sourceLanguage)
-                    .withTargetLanguageCode(jobDetails.targetLanguage());
+            String targetLanguage = jobDetails.targetLanguage();
             
-            // Perform translation
-            TranslateTextResult translateResult = translateClient.translateText(translateRequest);
+            // Split the text into sentences, the unit of the translation memory
+            List<String> sentences = new ArrayList<>();
+            for (String sentence : VsTextSegmenter.sentences(originalText,
+                    Locale.forLanguageTag(sourceLanguage), VsConfig.TRANSLATE_MAX_SEGMENT_BYTES)) {
+                String normalized = VsTranslationMemory.normalize(sentence);
+                if (!normalized.isEmpty()) {
+                    sentences.add(normalized);
+                }
+            }
+            
+            // Resume from the sentences a previous attempt already translated
+            VsActivityContext context = VsActivityContext.current();
+            VsBlobStore blobStore = blobStore(jobDetails);
+            Map<Integer, String> translatedSentences = new HashMap<>();
+            Map<String, List<Integer>> storedTranslations = new LinkedHashMap<>();
+            context.getHeartbeatDetails(VsTranslationProgress.class)
+                    .filter(progress -> progress.matches(sentences.size(), originalText.length()))
+                    .ifPresent(progress -> storedTranslations.putAll(progress.translatedSegments()));
+            storedTranslations.forEach((reference, sentenceIndexes) ->
+                    loadTranslations(blobStore, reference, sentenceIndexes, translatedSentences));
+            
+            // Take repeated content (intros, disclaimers, sponsor reads) from the translation memory
+            List<Integer> pendingSentences = new ArrayList<>();
+            for (int i = 0; i < sentences.size(); i++) {
+                if (translatedSentences.containsKey(i)) {
+                    continue;
+                }
+                Optional<String> cached = VsConfig.TM_ENABLED
+                        ? translationMemory.get(sourceLanguage, targetLanguage, sentences.get(i))
+                        : Optional.empty();
+                if (cached.isPresent()) {
+                    translatedSentences.put(i, cached.get());
+                    VsMetrics.recordCharacters("translate", "memory", sentences.get(i).length());
+                } else {
+                    pendingSentences.add(i);
+                }
+            }
+            
+            // Pack the remaining sentences, one per line, into requests that fit the size limit
+            List<List<Integer>> requests = packSentences(sentences, pendingSentences, VsConfig.TRANSLATE_MAX_SEGMENT_BYTES);
+            
+            // Translate the requests concurrently, at most TRANSLATE_PARALLELISM at a time
+            CompletionService<Map<Integer, String>> completionService =
+                    new ExecutorCompletionService<>(awsRequestExecutor);
+            List<Future<Map<Integer, String>>> inFlight = new ArrayList<>();
+            Iterator<List<Integer>> nextRequest = requests.iterator();
+            try {
+                while (nextRequest.hasNext() && inFlight.size() < VsConfig.TRANSLATE_PARALLELISM) {
+                    inFlight.add(submitTranslation(completionService, translateClient, jobDetails,
+                            nextRequest.next(), sentences));
+                }
+                
+                Map<Integer, String> uncheckpointed = new HashMap<>();
+                int requestsSinceCheckpoint = 0;
+                for (int completed = 0; completed < requests.size(); completed++) {
+                    Map<Integer, String> translations = completionService.take().get();
+                    translatedSentences.putAll(translations);
+                    uncheckpointed.putAll(translations);
+                    requestsSinceCheckpoint++;
+                    
+                    // Record progress so that a retry only translates the missing sentences. Every checkpoint is a
+                    // blob store write, so several requests are stored together, and none after the last request.
+                    // Without claim-check the blob store is not used; a retry then relies on the translation memory.
+                    if (VsConfig.CLAIM_CHECK_ENABLED && VsConfig.TRANSLATE_CHECKPOINT_REQUESTS > 0
+                            && requestsSinceCheckpoint >= VsConfig.TRANSLATE_CHECKPOINT_REQUESTS
+                            && completed < requests.size() - 1) {
+                        List<Integer> sentenceIndexes = new ArrayList<>(uncheckpointed.keySet());
+                        Collections.sort(sentenceIndexes);
+                        storedTranslations.put(storeTranslations(blobStore, sentenceIndexes, uncheckpointed),
+                                sentenceIndexes);
+                        uncheckpointed.clear();
+                        requestsSinceCheckpoint = 0;
+                    }
+                    context.heartbeat(new VsTranslationProgress(sentences.size(), originalText.length(),
+                            new LinkedHashMap<>(storedTranslations)));
+                    
+                    if (nextRequest.hasNext()) {
+                        inFlight.add(submitTranslation(completionService, translateClient, jobDetails,
+                                nextRequest.next(), sentences));
+                    }
+                }
+            } finally {
+                inFlight.forEach(future -> future.cancel(true));
+            }
+            
+            // Reassemble the translation in the original order
+            List<String> orderedTranslations = new ArrayList<>();
+            for (int i = 0; i < sentences.size(); i++) {
+                orderedTranslations.add(translatedSentences.get(i));
+            }
             
             System.out.println("Successfully translated text from " + sourceLanguage + 
-                    " to " + jobDetails.targetLanguage());
+                    " to " + targetLanguage + ": " + sentences.size() + " sentences, " 
+                    + pendingSentences.size() + " sent in " + requests.size() + " requests, " + translationMemory);
             
             // Return the translated text
-            results.setTargetText(translateResult.getTranslatedText());
+            storeTargetText(jobDetails, results, joinTranslatedSegments(orderedTranslations, targetLanguage));
+            return results;
             
         } catch (Exception e) {
             throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to translate text: " + e.getMessage(), e));
@@ -290,55 +586,60 @@ public class VsActivityImpl implements VsActivity {
     }
 
     @Override
-    public String generateSummary(VsJobDetails jobDetails, VsActionReturnVals results) {
+    public VsActionReturnVals mergeSegments(VsJobDetails jobDetails, VsActionReturnVals results,
+                                            List<VsActionReturnVals> segmentResults) {
         try {
-            // Configure AWS credentials
-            AWSCredentials credentials = new BasicAWSCredentials(
-                    jobDetails.apiKey(),
-                    jobDetails.apiSecret()
-            );
-            
-            // Create Amazon Comprehend client
-            AmazonComprehend comprehendClient = AmazonComprehendClientBuilder.standard()
-                    .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                    .withRegion(Regions.fromName(jobDetails.region()))
-                    .build();
-            
-            // Get the language code for comprehend
-            String languageCode = jobDetails.targetLanguage();
-            
-            // AWS Comprehend supports a limited set of languages for key phrases
-            // If the target language is not supported, fall back to English
-            if (!isLanguageSupportedForKeyPhrases(languageCode)) {
-                System.out.println("Language " + languageCode + " not supported for key phrases, using English");
-                languageCode = "en";
+            // The merge for another target language already stored the transcript: keep its text or reference
+            boolean transcriptMerged = results.getOriginalText() != null || results.getOriginalTextRef() != null;
+            
+            // Segment results come in the order of results.getSegments(), which is media order
+            List<String> originalTexts = new ArrayList<>();
+            List<String> targetTexts = new ArrayList<>();
+            for (VsActionReturnVals segmentResult : segmentResults) {
+                String originalText = transcriptMerged ? null : loadOriginalText(jobDetails, segmentResult);
+                String targetText = loadTargetText(jobDetails, segmentResult);
+                if (originalText != null && !originalText.isEmpty()) {
+                    originalTexts.add(originalText);
+                }
+                if (targetText != null) {
+                    targetTexts.add(targetText);
+                }
             }
             
-            // Create the key phrases request
-            DetectKeyPhrasesRequest keyPhrasesRequest = new DetectKeyPhrasesRequest()
-                    .withText(results.getTargetText())
-                    .withLanguageCode(languageCode);
-            
-            // Detect key phrases
-            DetectKeyPhrasesResult keyPhrasesResult = comprehendClient.detectKeyPhrases(keyPhrasesRequest);
+            if (!transcriptMerged) {
+                storeOriginalText(jobDetails, results, String.join(" ", originalTexts));
+            }
+            storeTargetText(jobDetails, results, joinTranslatedSegments(targetTexts, jobDetails.targetLanguage()));
             
-            // Build a summary using the key phrases
-            StringBuilder summaryBuilder = new StringBuilder("Summary:\n");
+            System.out.println("Successfully merged the transcripts and translations of " + segmentResults.size() 
+                    + " segments");
+            return results;
             
-            // Sort key phrases by score (most important first)
-            List<KeyPhrase> sortedPhrases = new ArrayList<>(keyPhrasesResult.getKeyPhrases());
-            sortedPhrases.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+        } catch (Exception e) {
+            throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to merge segments: " + e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public String generateSummary(VsJobDetails jobDetails, VsActionReturnVals results) {
+        try {
+            String languageCode = jobDetails.targetLanguage();
             
-            // Use the top phrases to create the summary (limit to top 10 or less)
-            int phrasesToUse = Math.min(10, sortedPhrases.size());
-            for (int i = 0; i < phrasesToUse; i++) {
-                KeyPhrase phrase = sortedPhrases.get(i);
-                summaryBuilder.append("- ").append(phrase.getText()).append("\n");
+            String targetText = loadTargetText(jobDetails, results);
+            if (targetText == null) {
+                throw new IllegalStateException("No translated text to summarize");
             }
             
-            System.out.println("Successfully generated summary with " + phrasesToUse + " key phrases");
+            VsSummarizer summarizer = summarizer(languageCode);
+            VsSummary summary = summarizer.summarize(jobDetails, targetText, languageCode);
+            VsMetrics.recordCharacters("summary", summarizer == comprehendSummarizer ? "comprehend" : "textrank",
+                    targetText.length());
             
-            return summaryBuilder.toString();
+            System.out.println("Successfully generated summary with " + summary.keySentences().size() 
+                    + " key sentences and " + summary.keyPhrases().size() + " key phrases using " 
+                    + summarizer.getClass().getSimpleName());
+            
+            return summary.format();
             
         } catch (Exception e) {
             throw io.temporal.activity.Activity.wrap(new RuntimeException("Failed to generate summary: " + e.getMessage(), e));
@@ -349,6 +650,322 @@ public class VsActivityImpl implements VsActivity {
     //     Private stuff      //
     ////////////////////////////
 
+    // Texts above the claim-check threshold go to the blob store; only their reference is passed to the workflow
+    private void storeOriginalText(VsJobDetails jobDetails, VsActionReturnVals results, String text) {
+        if (isClaimCheckNeeded(text)) {
+            results.setOriginalTextRef(blobStore(jobDetails).put("original-text", text));
+            results.setOriginalTextPreview(preview(text));
+            results.setOriginalText(null);
+        } else {
+            results.setOriginalText(text);
+            results.setOriginalTextRef(null);
+            results.setOriginalTextPreview(null);
+        }
+    }
+
+    private void storeTargetText(VsJobDetails jobDetails, VsActionReturnVals results, String text) {
+        if (isClaimCheckNeeded(text)) {
+            results.setTargetTextRef(blobStore(jobDetails).put("target-text", text));
+            results.setTargetTextPreview(preview(text));
+            results.setTargetText(null);
+        } else {
+            results.setTargetText(text);
+            results.setTargetTextRef(null);
+            results.setTargetTextPreview(null);
+        }
+    }
+
+    private String loadOriginalText(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return results.getOriginalTextRef() != null
+                ? blobStore(jobDetails).get(results.getOriginalTextRef())
+                : results.getOriginalText();
+    }
+
+    private String loadTargetText(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return results.getTargetTextRef() != null
+                ? blobStore(jobDetails).get(results.getTargetTextRef())
+                : results.getTargetText();
+    }
+
+    // The claim-checked blobs are deleted with the workflow, so progress reports carry the start of the text instead
+    private static String preview(String text) {
+        int end = Math.min(text.length(), VsConfig.CLAIM_CHECK_PREVIEW_CHARS);
+        if (end > 0 && end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private static boolean isClaimCheckNeeded(String text) {
+        return VsConfig.CLAIM_CHECK_ENABLED && text != null
+                && VsTextSegmenter.utf8Length(text) > VsConfig.CLAIM_CHECK_THRESHOLD_BYTES;
+    }
+
+    // Texts are stored per workflow, which deletes them with deletePayloads when it is done
+    private VsBlobStore blobStore(VsJobDetails jobDetails) {
+        return VsBlobStore.newInstance(clientPool, jobDetails, VsActivityContext.current().getInfo().getWorkflowId());
+    }
+
+    // Translations never contain line breaks, so the translations of one request are stored a line per sentence
+    private static String storeTranslations(VsBlobStore blobStore, List<Integer> sentenceIndexes,
+                                            Map<Integer, String> translations) {
+        List<String> lines = new ArrayList<>();
+        for (int sentenceIndex : sentenceIndexes) {
+            lines.add(translations.get(sentenceIndex));
+        }
+        return blobStore.put("translated-sentences", String.join("\n", lines));
+    }
+
+    private static void loadTranslations(VsBlobStore blobStore, String reference, List<Integer> sentenceIndexes,
+                                         Map<Integer, String> translatedSentences) {
+        String[] lines = blobStore.get(reference).split("\n", -1);
+        if (lines.length != sentenceIndexes.size()) {
+            throw new IllegalStateException("Stored translations " + reference + " hold " + lines.length
+                    + " sentences instead of " + sentenceIndexes.size());
+        }
+        for (int i = 0; i < lines.length; i++) {
+            translatedSentences.put(sentenceIndexes.get(i), lines[i]);
+        }
+    }
+
+    // An object in the job's bucket is transcribed where it is and never deleted by this job; one in another bucket
+    // is copied server-side. Neither is hashed, so the content index does not cover them.
+    private VsActionReturnVals useS3Source(AmazonS3 s3Client, VsJobDetails jobDetails, VsS3Location source,
+                                           String s3Key, VsActionReturnVals results) throws IOException {
+        if (source.bucketName().equals(jobDetails.bucketName())) {
+            // Fails early when the object is missing or not readable
+            s3Client.getObjectMetadata(source.bucketName(), source.key());
+            System.out.println("Video " + source + " is already in S3 bucket " + jobDetails.bucketName()
+                    + ", transcribing it in place");
+            results.setS3Key(source.key());
+            results.setReusedUpload(true);
+            return results;
+        }
+
+        long copyStart = System.nanoTime();
+        long bytesCopied = new VsS3MultipartUploader(s3Client, VsConfig.UPLOAD_PART_SIZE_MB * 1024 * 1024,
+                VsConfig.UPLOAD_MAX_PARTS_IN_FLIGHT)
+                .copy(source.bucketName(), source.key(), jobDetails.bucketName(), s3Key);
+        VsMetrics.recordTransfer("copy", bytesCopied, System.nanoTime() - copyStart);
+
+        System.out.println("Successfully copied " + source + " to S3 bucket " + jobDetails.bucketName()
+                + " with key " + s3Key);
+        results.setS3Key(s3Key);
+        return results;
+    }
+
+    private VsActionReturnVals reuseIndexEntry(VsContentIndexEntry indexEntry, VsActionReturnVals results) {
+        results.setS3Key(indexEntry.s3Key());
+        results.setContentHash(indexEntry.contentHash());
+        results.setTranscriptKey(indexEntry.transcriptKey());
+        results.setReusedUpload(true);
+        return results;
+    }
+
+    // Group sentences into requests of at most maxBytes, counting the line break between sentences
+    private static List<List<Integer>> packSentences(List<String> sentences, List<Integer> sentenceIndexes, int maxBytes) {
+        List<List<Integer>> requests = new ArrayList<>();
+        List<Integer> request = new ArrayList<>();
+        int requestBytes = 0;
+        for (int sentenceIndex : sentenceIndexes) {
+            int sentenceBytes = VsTextSegmenter.utf8Length(sentences.get(sentenceIndex)) + 1;
+            if (requestBytes + sentenceBytes > maxBytes && !request.isEmpty()) {
+                requests.add(request);
+                request = new ArrayList<>();
+                requestBytes = 0;
+            }
+            request.add(sentenceIndex);
+            requestBytes += sentenceBytes;
+        }
+        
+        if (!request.isEmpty()) {
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private Future<Map<Integer, String>> submitTranslation(
+            CompletionService<Map<Integer, String>> completionService, AmazonTranslate translateClient,
+            VsJobDetails jobDetails, List<Integer> sentenceIndexes, List<String> sentences) {
+        return completionService.submit(() -> {
+            List<String> requestSentences = new ArrayList<>();
+            for (int sentenceIndex : sentenceIndexes) {
+                requestSentences.add(sentences.get(sentenceIndex));
+            }
+            
+            TranslateTextRequest translateRequest = new TranslateTextRequest()
+                    .withText(String.join("\n", requestSentences))
+                    .withSourceLanguageCode(jobDetails.orgLanguage())
+                    .withTargetLanguageCode(jobDetails.targetLanguage());
+            
+            // Shared with every translation on this worker, so together they stay under the account's quota
+            String translatedText = VsRateLimiter.call("translate", jobDetails.region(),
+                    () -> translateClient.translateText(translateRequest)).getTranslatedText();
+            VsMetrics.recordCharacters("translate", "translate", translateRequest.getText().length());
+            
+            // Translate keeps line breaks, so every line is the translation of one sentence
+            Map<Integer, String> translations = new HashMap<>();
+            String[] lines = translatedText.strip().split("\n");
+            if (lines.length == sentenceIndexes.size()) {
+                for (int i = 0; i < lines.length; i++) {
+                    String translation = lines[i].trim();
+                    translations.put(sentenceIndexes.get(i), translation);
+                    if (VsConfig.TM_ENABLED) {
+                        translationMemory.put(jobDetails.orgLanguage(), jobDetails.targetLanguage(),
+                                requestSentences.get(i), translation);
+                    }
+                }
+            } else {
+                // Lines were merged or split: keep the translation as a whole and don't cache it
+                translations.put(sentenceIndexes.get(0), translatedText.strip().replaceAll("\\s*\n\\s*", " "));
+                for (int i = 1; i < sentenceIndexes.size(); i++) {
+                    translations.put(sentenceIndexes.get(i), "");
+                }
+            }
+            return translations;
+        });
+    }
+
+    private String joinTranslatedSegments(List<String> translatedSegments, String targetLanguage) {
+        // Translate trims the whitespace between sentences; languages written without spaces need none back
+        String separator = switch (targetLanguage) {
+            case "ja", "zh", "zh-TW", "th" -> "";
+            default -> " ";
+        };
+        List<String> nonEmptySegments = new ArrayList<>();
+        for (String translatedSegment : translatedSegments) {
+            if (!translatedSegment.isEmpty()) {
+                nonEmptySegments.add(translatedSegment);
+            }
+        }
+        return String.join(separator, nonEmptySegments);
+    }
+
+    private static boolean jobExists(AmazonTranscribe transcribeClient, String jobName) {
+        try {
+            transcribeClient.getTranscriptionJob(new GetTranscriptionJobRequest().withTranscriptionJobName(jobName));
+            return true;
+        } catch (BadRequestException e) {
+            return false; // Transcribe reports unknown jobs as a bad request
+        }
+    }
+
+    // Queue and processing time as reported by Transcribe
+    private static void recordTranscriptionJob(TranscriptionJob transcriptionJob) {
+        if (transcriptionJob.getCreationTime() == null || transcriptionJob.getStartTime() == null
+                || transcriptionJob.getCompletionTime() == null) {
+            return;
+        }
+        VsMetrics.recordTranscriptionJob(
+                Duration.between(transcriptionJob.getCreationTime().toInstant(), transcriptionJob.getStartTime().toInstant()),
+                Duration.between(transcriptionJob.getStartTime().toInstant(), transcriptionJob.getCompletionTime().toInstant()));
+    }
+
+    private TranscriptionJob getTranscriptionJob(VsJobDetails jobDetails, String jobName) {
+        GetTranscriptionJobRequest getJobRequest = new GetTranscriptionJobRequest()
+                .withTranscriptionJobName(jobName);
+        
+        return clientPool.transcribe(jobDetails).getTranscriptionJob(getJobRequest).getTranscriptionJob();
+    }
+
+    // Uploads of a workflow are kept under their own prefix; the workflow ID is encoded, so no prefix contains another
+    private static String uploadPrefix() {
+        return "videos/" + URLEncoder.encode(VsActivityContext.current().getInfo().getWorkflowId(), 
+                StandardCharsets.UTF_8) + "/";
+    }
+
+    // A stalled server fails the attempt instead of blocking it until the activity times out
+    private static HttpURLConnection openConnection(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(VsConfig.DOWNLOAD_CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(VsConfig.DOWNLOAD_READ_TIMEOUT_MS);
+        return connection;
+    }
+
+    // Identifies the version of the video, so a resumed download does not mix two versions
+    private static String sourceValidator(HttpURLConnection connection) {
+        String eTag = connection.getHeaderField("ETag");
+        return eTag != null ? eTag : connection.getHeaderField("Last-Modified");
+    }
+
+    // The validator the video URL serves now, from a HEAD request; null when the server does not send one
+    private static String currentSourceValidator(AmazonS3 s3Client, VsJobDetails jobDetails, Optional<VsS3Location> source) {
+        try {
+            // s3:// URLs are read through a pre-signed URL, so they are checked the same way
+            URL url = jobDetails.videoUrl().startsWith("s3://") && source.isPresent()
+                    ? s3Client.generatePresignedUrl(source.get().bucketName(), source.get().key(),
+                            new java.util.Date(System.currentTimeMillis() + 1000 * 60 * 5), HttpMethod.HEAD)
+                    : new URL(jobDetails.videoUrl());
+            HttpURLConnection connection = openConnection(url);
+            connection.setRequestMethod("HEAD");
+            try {
+                return connection.getResponseCode() == HttpURLConnection.HTTP_OK ? sourceValidator(connection) : null;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            // Cannot tell whether the video changed: download it again, the download reports the actual error
+            System.out.println("Cannot check " + jobDetails.videoUrl() + " for changes: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private VsSummarizer summarizer(String languageCode) {
+        return switch (VsConfig.SUMMARY_ENGINE) {
+            case "comprehend" -> comprehendSummarizer;
+            case "textrank" -> textRankSummarizer;
+            case "auto" -> comprehendSummarizer.supportsLanguage(languageCode) ? comprehendSummarizer : textRankSummarizer;
+            default -> throw new IllegalStateException("Unknown summary engine: " + VsConfig.SUMMARY_ENGINE);
+        };
+    }
+
+    // Delete every file, so a failed delete neither leaks the others nor hides the error of the upload
+    private static void deleteTempFiles(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.out.println("Failed to delete temp file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Cut the audio track into segments and upload them; null if it cannot be split or is only one segment
+    private static List<VsMediaSegment> uploadSegments(AmazonS3 s3Client, String bucketName, Path video) throws IOException {
+        Path directory = Files.createTempDirectory("segments-");
+        try {
+            List<VsAudioExtractor.Segment> audioSegments = VsAudioExtractor.split(video, directory,
+                    VsConfig.TRANSCRIPTION_SEGMENT_SECONDS * 1000L);
+            if (audioSegments == null || audioSegments.size() < 2) {
+                return null;
+            }
+            
+            String keyPrefix = "audio/" + UUID.randomUUID() + "/";
+            List<VsMediaSegment> segments = new ArrayList<>();
+            long uploadStart = System.nanoTime();
+            long bytesUploaded = 0;
+            for (VsAudioExtractor.Segment audioSegment : audioSegments) {
+                String s3Key = keyPrefix + audioSegment.file().getFileName();
+                s3Client.putObject(bucketName, s3Key, audioSegment.file().toFile());
+                bytesUploaded += Files.size(audioSegment.file());
+                segments.add(new VsMediaSegment(s3Key, audioSegment.startMillis(), audioSegment.durationMillis()));
+            }
+            VsMetrics.recordTransfer("upload", bytesUploaded, System.nanoTime() - uploadStart);
+            return segments;
+        } finally {
+            // Also the segments written before splitting failed
+            try (Stream<Path> files = Files.list(directory)) {
+                deleteTempFiles(files.collect(Collectors.toList()));
+            }
+            deleteTempFiles(List.of(directory));
+        }
+    }
+
+    private static boolean isMp4Container(String fileExtension) {
+        String extension = fileExtension.toLowerCase();
+        return extension.equals(".mp4") || extension.equals(".m4v") || extension.equals(".mov");
+    }
+
     private String getFileExtension(String url) {
         // Extract file extension from URL
         int questionMarkIndex = url.indexOf('?');
@@ -363,22 +980,4 @@ public class VsActivityImpl implements VsActivity {
         return ".mp4";
     }
 
-    private boolean isLanguageSupportedForKeyPhrases(String languageCode) {
-        // List of languages supported by AWS Comprehend for key phrases detection
-        return switch (languageCode) { // English
-            // Spanish
-            // French
-            // German
-            // Italian
-            // Portuguese
-            // Arabic
-            // Hindi
-            // Japanese
-            // Korean
-            // Chinese
-            case "en", "es", "fr", "de", "it", "pt", "ar", "hi", "ja", "ko", "zh", "zh-TW" -> // Chinese (Traditional)
-                    true;
-            default -> false;
-        };
-    }
 }
@@ -2,20 +2,34 @@ package io.temporal.exercises.videosummary;
 
 import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
 import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowQueryException;
 import io.temporal.client.WorkflowStub;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 public class VsApp {
     public static void main(String[] args) throws Exception {
         // A WorkflowServiceStubs communicates with the Temporal front-end service.
+        // This short-lived client reports no metrics; the SDK metrics are scraped from the worker.
         WorkflowServiceStubs serviceStub = WorkflowServiceStubs.newLocalServiceStubs();
 
         // A WorkflowClient wraps the stub.
         // It can be used to start, signal, query, cancel, and terminate Workflows.
-        WorkflowClient client = WorkflowClient.newInstance(serviceStub);
+        // Payloads are compressed; workers must use the same data converter.
+        WorkflowClient client = WorkflowClient.newInstance(serviceStub, WorkflowClientOptions.newBuilder()
+                .setDataConverter(VsCompressionCodec.newDataConverter())
+                .build());
 
         // Workflow options configure  Workflow stubs.
         // A WorkflowId prevents duplicate instances, which are removed.
@@ -30,16 +44,16 @@ public class VsApp {
 
         String videoUrl = "File URL";
         String orgLanguage = "En";
-        String targetLanguage = "Fr";
+        List<String> targetLanguages = List.of("Fr", "De"); // Summarized in each, from one upload and transcription
         String apiKey = "API KEY";
         String apiSecret = "API SECRET";
         String region = "us-east-1";
         String bucketName = "Bucket name";
 
-        VsJobDetails jobDetails = new VsJobDetails(videoUrl, orgLanguage, targetLanguage, apiKey, apiSecret, region, bucketName);
+        VsJobDetails jobDetails = new VsJobDetails(videoUrl, orgLanguage, targetLanguages, apiKey, apiSecret, region, bucketName);
 
         // Sync call
-        // String result = workflow.getVideoSummary(jobDetails);
+        // Map<String, String> result = workflow.getVideoSummary(jobDetails);
         // System.out.println(result);
 
         // Async execution
@@ -52,7 +66,7 @@ public class VsApp {
 
         // Convert to untyped stub and get future result
         WorkflowStub untypedStub = WorkflowStub.fromTyped(workflow);
-        CompletableFuture<String> resultFuture = untypedStub.getResultAsync(String.class);
+        CompletableFuture<Map<String, String>> resultFuture = getSummariesAsync(untypedStub);
 
         // Add callback
         resultFuture.whenComplete((result, ex) -> {
@@ -62,5 +76,95 @@ public class VsApp {
                 System.out.println("Workflow completed with result: " + result);
             }
         });
+
+        // Report the transcript, translations and summaries as they become available, until the workflow completes
+        try {
+            watchProgress(client, we.getWorkflowId(), Duration.ofSeconds(5), VsApp::printProgress);
+        } catch (ExecutionException e) {
+            // Reported by the callback above
+        }
+    }
+
+    /**
+     * Query the progress of a getVideoSummary workflow every pollInterval and pass every change to onChange,
+     * together with the progress reported before, until the workflow completes.
+     * @return Summary by target language, as returned by the workflow
+     * @throws ExecutionException When the workflow failed
+     */
+    public static Map<String, String> watchProgress(WorkflowClient client, String workflowId, Duration pollInterval,
+                                                    BiConsumer<VsWorkflowProgress, VsWorkflowProgress> onChange)
+            throws InterruptedException, ExecutionException {
+        VsWorkflow workflow = client.newWorkflowStub(VsWorkflow.class, workflowId);
+        CompletableFuture<Map<String, String>> resultFuture = getSummariesAsync(WorkflowStub.fromTyped(workflow));
+
+        VsWorkflowProgress reported = new VsWorkflowProgress();
+        boolean done = false;
+        while (!done) {
+            done = resultFuture.isDone();
+            try {
+                VsWorkflowProgress progress = workflow.getProgress();
+                if (progress.getVersion() != reported.getVersion()) {
+                    onChange.accept(reported, progress);
+                    reported = progress;
+                }
+            } catch (WorkflowQueryException e) {
+                // No workflow task has run yet, or no worker is available: ask again later
+                System.out.println("Progress of " + workflowId + " is not available yet: " + e.getMessage());
+            }
+
+            if (!done) {
+                try {
+                    resultFuture.get(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | ExecutionException e) {
+                    // Still running, or failed: the final progress is queried before the failure is thrown
+                }
+            }
+        }
+        return resultFuture.get();
+    }
+
+    /**
+     * Print the stages that changed and the results that became available since the previous progress.
+     */
+    public static void printProgress(VsWorkflowProgress previous, VsWorkflowProgress progress) {
+        progress.getStages().forEach((stage, status) -> {
+            if (status != previous.getStages().get(stage)) {
+                System.out.println("  " + stage + ": " + status);
+            }
+        });
+        if (progress.getOriginalText() != null && previous.getOriginalText() == null) {
+            System.out.println("Transcript: " + abbreviate(progress.getOriginalText(),
+                    progress.isOriginalTextTruncated()));
+        }
+        progress.getTranslations().forEach((targetLanguage, text) -> {
+            if (!Objects.equals(text, previous.getTranslations().get(targetLanguage))) {
+                System.out.println("Translation (" + targetLanguage + "): " + abbreviate(text,
+                        progress.getTruncatedTranslations().contains(targetLanguage)));
+            }
+        });
+        progress.getSummaries().forEach((targetLanguage, summary) -> {
+            if (!Objects.equals(summary, previous.getSummaries().get(targetLanguage))) {
+                System.out.println("Summary (" + targetLanguage + "): " + summary);
+            }
+        });
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Summary by target language, once the getVideoSummary workflow of the stub completes. A class literal cannot
+    // name Map<String, String>; the data converter builds the map from JSON strings.
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Map<String, String>> getSummariesAsync(WorkflowStub workflowStub) {
+        return workflowStub.getResultAsync(Map.class).thenApply(result -> (Map<String, String>) result);
+    }
+
+    // Long texts, and the start of the texts the workflow passed by reference, end in an ellipsis
+    private static String abbreviate(String text, boolean truncated) {
+        if (text == null) {
+            return null;
+        }
+        return text.length() > 200 ? text.substring(0, 200) + "..." : truncated ? text + "..." : text;
     }
 }
@@ -0,0 +1,172 @@
+package io.temporal.exercises.videosummary;
+
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.client.ActivityCanceledException;
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.client.ActivityCompletionException;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs activities off the SDK activity threads and completes them asynchronously.
+ * The SDK thread only hands the activity to an executor (virtual threads when available) and returns, so the
+ * number of activities in flight is bounded by maxInFlight instead of by the worker's platform threads.
+ * When maxInFlight activities are running, the SDK thread waits for a free permit, which stops the worker from
+ * polling more tasks than it can run. Local activities cannot be completed asynchronously and run inline.
+ */
+public class VsAsyncActivityImpl implements VsActivity {
+    private static final ExecutorService activityExecutor = VsThreads.newExecutor("vs-activity");
+
+    private final VsActivity activities;
+    private final ActivityCompletionClient completionClient;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    /**
+     * @param activities Activity implementation to run
+     * @param completionClient Client that reports the results
+     * @param maxInFlight Maximum number of activities running at the same time
+     */
+    public VsAsyncActivityImpl(VsActivity activities, ActivityCompletionClient completionClient, int maxInFlight) {
+        this.activities = activities;
+        this.completionClient = completionClient;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public VsActionReturnVals uploadToS3(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return runAsync(() -> activities.uploadToS3(jobDetails, results));
+    }
+
+    @Override
+    public void deleteFromS3(VsJobDetails jobDetails, VsActionReturnVals results) {
+        runAsync(() -> {
+            activities.deleteFromS3(jobDetails, results);
+            return null;
+        });
+    }
+
+    @Override
+    public void deletePayloads(VsJobDetails jobDetails) {
+        runAsync(() -> {
+            activities.deletePayloads(jobDetails);
+            return null;
+        });
+    }
+
+    @Override
+    public VsActionReturnVals startTranscription(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return runAsync(() -> activities.startTranscription(jobDetails, results));
+    }
+
+    @Override
+    public String getTranscriptionStatus(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return runAsync(() -> activities.getTranscriptionStatus(jobDetails, results));
+    }
+
+    @Override
+    public VsActionReturnVals fetchTranscript(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return runAsync(() -> activities.fetchTranscript(jobDetails, results));
+    }
+
+    @Override
+    public VsActionReturnVals convertOriginalTextToTargetLanguage(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return runAsync(() -> activities.convertOriginalTextToTargetLanguage(jobDetails, results));
+    }
+
+    @Override
+    public VsActionReturnVals mergeSegments(VsJobDetails jobDetails, VsActionReturnVals results,
+                                            List<VsActionReturnVals> segmentResults) {
+        return runAsync(() -> activities.mergeSegments(jobDetails, results, segmentResults));
+    }
+
+    @Override
+    public String generateSummary(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return runAsync(() -> activities.generateSummary(jobDetails, results));
+    }
+
+    /**
+     * @return Number of activities currently running
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private <R> R runAsync(Callable<R> activity) {
+        ActivityExecutionContext executionContext = Activity.getExecutionContext();
+        if (executionContext.getInfo().isLocal()) {
+            try {
+                return activity.call();
+            } catch (Exception e) {
+                throw Activity.wrap(e);
+            }
+        }
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Activity.wrap(new RuntimeException("Interrupted while waiting for an activity slot", e));
+        }
+
+        byte[] taskToken = executionContext.getTaskToken();
+        VsActivityContext context = VsActivityContext.handOff(executionContext, completionClient);
+        executionContext.doNotCompleteOnReturn();
+        try {
+            activityExecutor.execute(() -> {
+                try {
+                    complete(taskToken, context.call(activity));
+                } catch (Exception e) {
+                    fail(taskToken, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+
+        return null; // Ignored; the result is reported by the completion client
+    }
+
+    private <R> void complete(byte[] taskToken, R result) {
+        try {
+            completionClient.complete(taskToken, result);
+        } catch (ActivityCompletionException e) {
+            // Timed out or cancelled in the meantime; the server no longer expects a result
+            System.out.println("Failed to complete activity: " + e.getMessage());
+        }
+    }
+
+    private void fail(byte[] taskToken, Exception failure) {
+        try {
+            if (isCancellation(failure)) {
+                completionClient.reportCancellation(taskToken, null);
+            } else {
+                completionClient.completeExceptionally(taskToken, failure);
+            }
+        } catch (ActivityCompletionException e) {
+            System.out.println("Failed to report activity failure: " + e.getMessage());
+        }
+    }
+
+    // Activities wrap heartbeat failures in their own exceptions
+    static boolean isCancellation(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ActivityCanceledException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
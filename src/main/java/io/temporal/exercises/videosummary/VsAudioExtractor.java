@@ -0,0 +1,646 @@
+package io.temporal.exercises.videosummary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies the AAC audio track of an MP4 file into an audio-only M4A file, without decoding or re-encoding.
+ * The output holds the original movie header and audio track, with the chunk offsets rewritten to point into
+ * a new media data box that contains only the audio chunks. Only the sample table is read; the audio bytes are
+ * copied channel to channel.
+ * split() cuts the audio track into M4A files of a given duration each, for transcribing them in parallel.
+ * Cuts fall on chunk boundaries (typically well under a second of audio), so every segment keeps whole AAC frames.
+ * Fragmented MP4 files and files without an AAC track are not supported; extract() returns false and split()
+ * returns null for them, and the caller uploads the original file instead.
+ */
+public final class VsAudioExtractor {
+    // moov boxes beyond this size are not read into memory
+    private static final long MAX_MOOV_BYTES = 64L * 1024 * 1024;
+
+    private record Box(String type, int start, int headerSize, int size) {
+        int payloadStart() {
+            return start + headerSize;
+        }
+
+        int end() {
+            return start + size;
+        }
+    }
+
+    private record AudioTrack(Box trak, Box chunkOffsets, long[] chunkSizes) {
+    }
+
+    // Sample table of the audio track, one entry per chunk or per sample
+    private record SampleTable(long[] chunkOffsets, int[] samplesPerChunk, int[] sampleSizes, int[] sampleDurations) {
+    }
+
+    /**
+     * One piece of the audio track written by split().
+     * @param file M4A file of the segment
+     * @param startMillis Start of the segment in the original media
+     * @param durationMillis Length of the segment
+     */
+    public record Segment(Path file, long startMillis, long durationMillis) {
+    }
+
+    private VsAudioExtractor() {
+    }
+
+    /**
+     * Extract the first AAC audio track.
+     * @param video MP4, MOV or M4V file
+     * @param audio Output M4A file, overwritten
+     * @return Whether the audio track was extracted
+     */
+    public static boolean extract(Path video, Path audio) throws IOException {
+        try (FileChannel source = FileChannel.open(video, StandardOpenOption.READ)) {
+            byte[] moov = readMoov(source);
+            if (moov == null) {
+                return false;
+            }
+
+            AudioTrack track = findAudioTrack(moov);
+            if (track == null) {
+                return false;
+            }
+
+            Box mvhd = findChild(moov, new Box("moov", 0, 8, moov.length), "mvhd");
+            if (mvhd == null) {
+                return false;
+            }
+
+            long[] sourceOffsets = readChunkOffsets(moov, track.chunkOffsets());
+            long audioBytes = 0;
+            for (long chunkSize : track.chunkSizes()) {
+                audioBytes += chunkSize;
+            }
+
+            // Layout of the output: ftyp, moov (movie header and audio track only), mdat
+            byte[] ftyp = fileTypeBox();
+            int moovSize = 8 + mvhd.size() + track.trak().size();
+            boolean largeMdat = audioBytes + 8 > 0xFFFFFFFFL;
+            long mdatHeaderSize = largeMdat ? 16 : 8;
+            long dataStart = ftyp.length + moovSize + mdatHeaderSize;
+
+            // The audio track, with chunk offsets pointing into the new mdat
+            byte[] trak = new byte[track.trak().size()];
+            System.arraycopy(moov, track.trak().start(), trak, 0, trak.length);
+            long[] targetOffsets = new long[sourceOffsets.length];
+            long offset = dataStart;
+            for (int i = 0; i < sourceOffsets.length; i++) {
+                targetOffsets[i] = offset;
+                offset += track.chunkSizes()[i];
+            }
+            if (!writeChunkOffsets(trak, track.chunkOffsets().start() - track.trak().start(),
+                    track.chunkOffsets().type(), targetOffsets)) {
+                return false;
+            }
+
+            try (FileChannel target = FileChannel.open(audio, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(target, ByteBuffer.wrap(ftyp));
+
+                ByteBuffer moovHeader = ByteBuffer.allocate(8).putInt(moovSize).put(type("moov"));
+                writeFully(target, moovHeader.flip());
+                writeFully(target, ByteBuffer.wrap(moov, mvhd.start(), mvhd.size()));
+                writeFully(target, ByteBuffer.wrap(trak));
+
+                ByteBuffer mdatHeader = ByteBuffer.allocate((int) mdatHeaderSize);
+                if (largeMdat) {
+                    mdatHeader.putInt(1).put(type("mdat")).putLong(audioBytes + 16);
+                } else {
+                    mdatHeader.putInt((int) (audioBytes + 8)).put(type("mdat"));
+                }
+                writeFully(target, mdatHeader.flip());
+
+                for (int i = 0; i < sourceOffsets.length; i++) {
+                    copyRange(source, sourceOffsets[i], track.chunkSizes()[i], target);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Cut the first AAC audio track into M4A files of about segmentMillis each.
+     * @param video MP4, MOV or M4V file
+     * @param directory Directory for the segment files
+     * @param segmentMillis Target duration of a segment; a segment ends at the first chunk boundary after it
+     * @return Segments in media order, or null if the audio track cannot be split
+     */
+    public static List<Segment> split(Path video, Path directory, long segmentMillis) throws IOException {
+        try (FileChannel source = FileChannel.open(video, StandardOpenOption.READ)) {
+            byte[] moov = readMoov(source);
+            if (moov == null) {
+                return null;
+            }
+
+            Box moovBox = new Box("moov", 0, 8, moov.length);
+            AudioTrack track = findAudioTrack(moov);
+            Box mvhd = findChild(moov, moovBox, "mvhd");
+            if (track == null || mvhd == null) {
+                return null;
+            }
+            Box tkhd = findChild(moov, track.trak(), "tkhd");
+            Box mdia = findChild(moov, track.trak(), "mdia");
+            Box mdhd = findChild(moov, mdia, "mdhd");
+            Box hdlr = findChild(moov, mdia, "hdlr");
+            Box minf = findChild(moov, mdia, "minf");
+            Box stbl = findChild(moov, minf, "stbl");
+            Box stsd = findChild(moov, stbl, "stsd");
+            if (tkhd == null || mdhd == null || hdlr == null
+                    || ByteBuffer.wrap(moov).getInt(stsd.payloadStart() + 4) != 1) {
+                return null; // More than one sample description would need the stsc indexes kept
+            }
+            SampleTable table = readSampleTable(moov, stbl, track.chunkOffsets());
+            if (table == null) {
+                return null;
+            }
+
+            long movieTimescale = timescale(moov, mvhd);
+            long mediaTimescale = timescale(moov, mdhd);
+            long segmentTicks = segmentMillis * mediaTimescale / 1000;
+
+            List<Segment> segments = new ArrayList<>();
+            int firstChunk = 0;
+            int firstSample = 0;
+            long startTicks = 0;
+            while (firstChunk < table.chunkOffsets().length) {
+                // Take whole chunks until the segment is long enough
+                int endChunk = firstChunk;
+                int endSample = firstSample;
+                long ticks = 0;
+                while (endChunk < table.chunkOffsets().length && (ticks < segmentTicks || endChunk == firstChunk)) {
+                    for (int i = 0; i < table.samplesPerChunk()[endChunk]; i++) {
+                        ticks += table.sampleDurations()[endSample++];
+                    }
+                    endChunk++;
+                }
+
+                Path file = directory.resolve(String.format("segment-%04d.m4a", segments.size() + 1));
+                writeSegment(source, file, moov, mvhd, tkhd, mdhd, hdlr, minf, stsd, table,
+                        firstChunk, endChunk, firstSample, endSample, ticks, movieTimescale, mediaTimescale);
+                segments.add(new Segment(file, startTicks * 1000 / mediaTimescale, ticks * 1000 / mediaTimescale));
+
+                startTicks += ticks;
+                firstChunk = endChunk;
+                firstSample = endSample;
+            }
+            return segments;
+        }
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Read the top-level moov box; null for fragmented files or files without one
+    private static byte[] readMoov(FileChannel source) throws IOException {
+        long position = 0;
+        long fileSize = source.size();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        while (position + 8 <= fileSize) {
+            header.clear().limit(8);
+            readFully(source, header, position);
+            header.flip();
+            long size = header.getInt() & 0xFFFFFFFFL;
+            String type = new String(header.array(), 4, 4, StandardCharsets.ISO_8859_1);
+            int headerSize = 8;
+            if (size == 1) {
+                header.clear().limit(8);
+                readFully(source, header, position + 8);
+                size = header.flip().getLong();
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - position;
+            }
+            if (size < headerSize || position + size > fileSize) {
+                return null; // Corrupt or truncated
+            }
+
+            if (type.equals("moof")) {
+                return null; // Fragmented MP4: samples are described per fragment
+            }
+            if (type.equals("moov")) {
+                if (size > MAX_MOOV_BYTES) {
+                    return null;
+                }
+                // Re-base the box so that it starts with a plain 8-byte header
+                ByteBuffer moov = ByteBuffer.allocate((int) (size - headerSize + 8));
+                moov.putInt(moov.capacity()).put(type("moov"));
+                readFully(source, moov, position + headerSize);
+                return moov.array();
+            }
+            position += size;
+        }
+        return null;
+    }
+
+    private static AudioTrack findAudioTrack(byte[] moov) {
+        for (Box trak : children(moov, new Box("moov", 0, 8, moov.length))) {
+            if (!trak.type().equals("trak")) {
+                continue;
+            }
+            Box mdia = findChild(moov, trak, "mdia");
+            Box hdlr = mdia == null ? null : findChild(moov, mdia, "hdlr");
+            // hdlr payload: version and flags, pre_defined, handler_type
+            if (hdlr == null || hdlr.size() < hdlr.headerSize() + 12
+                    || !typeAt(moov, hdlr.payloadStart() + 8).equals("soun")) {
+                continue;
+            }
+
+            Box minf = findChild(moov, mdia, "minf");
+            Box stbl = minf == null ? null : findChild(moov, minf, "stbl");
+            if (stbl == null) {
+                continue;
+            }
+            Box stsd = findChild(moov, stbl, "stsd");
+            // stsd payload: version and flags, entry_count, then the first sample entry
+            if (stsd == null || stsd.size() < stsd.headerSize() + 16
+                    || !typeAt(moov, stsd.payloadStart() + 12).equals("mp4a")) {
+                continue;
+            }
+
+            Box stsc = findChild(moov, stbl, "stsc");
+            Box stsz = findChild(moov, stbl, "stsz");
+            Box chunkOffsets = findChild(moov, stbl, "stco");
+            if (chunkOffsets == null) {
+                chunkOffsets = findChild(moov, stbl, "co64");
+            }
+            if (stsc == null || stsz == null || chunkOffsets == null) {
+                continue;
+            }
+
+            // stco/co64 payload: version and flags, entry_count, then 4 or 8 bytes per chunk
+            int chunkCount = ByteBuffer.wrap(moov).getInt(chunkOffsets.payloadStart() + 4);
+            int offsetSize = chunkOffsets.type().equals("co64") ? 8 : 4;
+            if (chunkCount < 0 || chunkOffsets.payloadStart() + 8 + (long) offsetSize * chunkCount > chunkOffsets.end()) {
+                continue;
+            }
+            long[] chunkSizes = chunkSizes(moov, stsc, stsz, chunkCount);
+            if (chunkSizes != null) {
+                return new AudioTrack(trak, chunkOffsets, chunkSizes);
+            }
+        }
+        return null;
+    }
+
+    // Size of every chunk in bytes, from the sample-to-chunk and sample size tables
+    private static long[] chunkSizes(byte[] moov, Box stsc, Box stsz, int chunkCount) {
+        ByteBuffer buffer = ByteBuffer.wrap(moov);
+
+        int defaultSampleSize = buffer.getInt(stsz.payloadStart() + 4);
+        int sampleCount = buffer.getInt(stsz.payloadStart() + 8);
+        int sampleSizesStart = stsz.payloadStart() + 12;
+        if (defaultSampleSize == 0 && sampleSizesStart + 4L * sampleCount > stsz.end()) {
+            return null;
+        }
+
+        int entryCount = buffer.getInt(stsc.payloadStart() + 4);
+        int entriesStart = stsc.payloadStart() + 8;
+        if (entriesStart + 12L * entryCount > stsc.end()) {
+            return null;
+        }
+
+        long[] chunkSizes = new long[chunkCount];
+        int sample = 0;
+        for (int entry = 0; entry < entryCount; entry++) {
+            int firstChunk = buffer.getInt(entriesStart + 12 * entry);
+            int samplesPerChunk = buffer.getInt(entriesStart + 12 * entry + 4);
+            int lastChunk = entry + 1 < entryCount ? buffer.getInt(entriesStart + 12 * (entry + 1)) - 1 : chunkCount;
+            for (int chunk = firstChunk; chunk <= lastChunk && chunk <= chunkCount; chunk++) {
+                long chunkSize = 0;
+                for (int i = 0; i < samplesPerChunk && sample < sampleCount; i++, sample++) {
+                    chunkSize += defaultSampleSize != 0
+                            ? defaultSampleSize
+                            : buffer.getInt(sampleSizesStart + 4 * sample) & 0xFFFFFFFFL;
+                }
+                chunkSizes[chunk - 1] = chunkSize;
+            }
+        }
+        return chunkSizes;
+    }
+
+    private static SampleTable readSampleTable(byte[] moov, Box stbl, Box chunkOffsets) {
+        ByteBuffer buffer = ByteBuffer.wrap(moov);
+        Box stts = findChild(moov, stbl, "stts");
+        Box stsc = findChild(moov, stbl, "stsc");
+        Box stsz = findChild(moov, stbl, "stsz");
+        if (stts == null) {
+            return null;
+        }
+
+        long[] offsets = readChunkOffsets(moov, chunkOffsets);
+        int chunkCount = offsets.length;
+
+        int defaultSampleSize = buffer.getInt(stsz.payloadStart() + 4);
+        int sampleCount = buffer.getInt(stsz.payloadStart() + 8);
+        int[] sampleSizes = new int[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            sampleSizes[i] = defaultSampleSize != 0 ? defaultSampleSize : buffer.getInt(stsz.payloadStart() + 12 + 4 * i);
+        }
+
+        // Time-to-sample: runs of samples with the same duration
+        int[] sampleDurations = new int[sampleCount];
+        int timeEntries = buffer.getInt(stts.payloadStart() + 4);
+        if (stts.payloadStart() + 8 + 8L * timeEntries > stts.end()) {
+            return null;
+        }
+        int sample = 0;
+        for (int entry = 0; entry < timeEntries; entry++) {
+            int count = buffer.getInt(stts.payloadStart() + 8 + 8 * entry);
+            int delta = buffer.getInt(stts.payloadStart() + 12 + 8 * entry);
+            for (int i = 0; i < count && sample < sampleCount; i++) {
+                sampleDurations[sample++] = delta;
+            }
+        }
+        if (sample != sampleCount) {
+            return null;
+        }
+
+        // Sample-to-chunk: runs of chunks with the same number of samples
+        int[] samplesPerChunk = new int[chunkCount];
+        int chunkEntries = buffer.getInt(stsc.payloadStart() + 4);
+        int assignedSamples = 0;
+        for (int entry = 0; entry < chunkEntries; entry++) {
+            int entryStart = stsc.payloadStart() + 8 + 12 * entry;
+            int firstChunk = buffer.getInt(entryStart);
+            int lastChunk = entry + 1 < chunkEntries ? buffer.getInt(entryStart + 12) - 1 : chunkCount;
+            for (int chunk = firstChunk; chunk <= lastChunk && chunk <= chunkCount; chunk++) {
+                samplesPerChunk[chunk - 1] = buffer.getInt(entryStart + 4);
+                assignedSamples += samplesPerChunk[chunk - 1];
+            }
+        }
+        if (assignedSamples != sampleCount) {
+            return null;
+        }
+        return new SampleTable(offsets, samplesPerChunk, sampleSizes, sampleDurations);
+    }
+
+    // Write chunks [firstChunk, endChunk) as a stand-alone M4A file
+    private static void writeSegment(FileChannel source, Path file, byte[] moov, Box mvhd, Box tkhd, Box mdhd,
+                                     Box hdlr, Box minf, Box stsd, SampleTable table,
+                                     int firstChunk, int endChunk, int firstSample, int endSample, long mediaTicks,
+                                     long movieTimescale, long mediaTimescale) throws IOException {
+        long[] chunkSizes = new long[endChunk - firstChunk];
+        long audioBytes = 0;
+        for (int chunk = firstChunk, sample = firstSample; chunk < endChunk; chunk++) {
+            for (int i = 0; i < table.samplesPerChunk()[chunk]; i++) {
+                chunkSizes[chunk - firstChunk] += table.sampleSizes()[sample++] & 0xFFFFFFFFL;
+            }
+            audioBytes += chunkSizes[chunk - firstChunk];
+        }
+
+        // Sample tables of the segment; chunk offsets are filled in once the moov size is known
+        ByteBuffer stts = runLengthDurations(table.sampleDurations(), firstSample, endSample);
+        ByteBuffer stsc = runLengthChunks(table.samplesPerChunk(), firstChunk, endChunk);
+        ByteBuffer stsz = ByteBuffer.allocate(12 + 4 * (endSample - firstSample))
+                .putInt(0).putInt(0).putInt(endSample - firstSample);
+        for (int sample = firstSample; sample < endSample; sample++) {
+            stsz.putInt(table.sampleSizes()[sample]);
+        }
+        long movieTicks = mediaTicks * movieTimescale / mediaTimescale;
+        byte[] ftyp = fileTypeBox();
+        boolean largeMdat = audioBytes + 8 > 0xFFFFFFFFL;
+        long mdatHeaderSize = largeMdat ? 16 : 8;
+
+        // The moov size does not depend on the offset values: size it with placeholders, then fill them in
+        long[] targetOffsets = new long[chunkSizes.length];
+        int moovSize = segmentMoov(moov, mvhd, tkhd, mdhd, hdlr, minf, stsd, stts, stsc, stsz, targetOffsets,
+                false, mediaTicks, movieTicks).length;
+        boolean wide = ftyp.length + moovSize + mdatHeaderSize + audioBytes > 0xFFFFFFFFL;
+        if (wide) {
+            moovSize += 4 * chunkSizes.length;
+        }
+        long offset = ftyp.length + moovSize + mdatHeaderSize;
+        for (int i = 0; i < chunkSizes.length; i++) {
+            targetOffsets[i] = offset;
+            offset += chunkSizes[i];
+        }
+        byte[] moovBytes = segmentMoov(moov, mvhd, tkhd, mdhd, hdlr, minf, stsd, stts, stsc, stsz, targetOffsets,
+                wide, mediaTicks, movieTicks);
+
+        try (FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(target, ByteBuffer.wrap(ftyp));
+            writeFully(target, ByteBuffer.wrap(moovBytes));
+
+            ByteBuffer mdatHeader = ByteBuffer.allocate((int) mdatHeaderSize);
+            if (largeMdat) {
+                mdatHeader.putInt(1).put(type("mdat")).putLong(audioBytes + 16);
+            } else {
+                mdatHeader.putInt((int) (audioBytes + 8)).put(type("mdat"));
+            }
+            writeFully(target, mdatHeader.flip());
+
+            for (int chunk = firstChunk; chunk < endChunk; chunk++) {
+                copyRange(source, table.chunkOffsets()[chunk], chunkSizes[chunk - firstChunk], target);
+            }
+        }
+    }
+
+    // Movie box of a segment: movie header and the audio track with the given sample tables and durations
+    private static byte[] segmentMoov(byte[] moov, Box mvhd, Box tkhd, Box mdhd, Box hdlr, Box minf, Box stsd,
+                                      ByteBuffer stts, ByteBuffer stsc, ByteBuffer stsz, long[] chunkOffsets,
+                                      boolean wide, long mediaTicks, long movieTicks) {
+        ByteBuffer offsets = ByteBuffer.allocate(8 + (wide ? 8 : 4) * chunkOffsets.length)
+                .putInt(0).putInt(chunkOffsets.length);
+        for (long chunkOffset : chunkOffsets) {
+            if (wide) {
+                offsets.putLong(chunkOffset);
+            } else {
+                offsets.putInt((int) chunkOffset);
+            }
+        }
+
+        byte[] stbl = box("stbl", copy(moov, stsd), box("stts", stts.array()), box("stsc", stsc.array()),
+                box("stsz", stsz.array()), box(wide ? "co64" : "stco", offsets.array()));
+        List<byte[]> minfChildren = new ArrayList<>();
+        for (Box child : children(moov, minf)) {
+            minfChildren.add(child.type().equals("stbl") ? stbl : copy(moov, child));
+        }
+        byte[] mdia = box("mdia", withDuration(moov, mdhd, mediaTicks, 16, 24), copy(moov, hdlr),
+                box("minf", minfChildren.toArray(new byte[0][])));
+        byte[] trak = box("trak", withDuration(moov, tkhd, movieTicks, 20, 28), mdia);
+        return box("moov", withDuration(moov, mvhd, movieTicks, 16, 24), trak);
+    }
+
+    private static ByteBuffer runLengthDurations(int[] sampleDurations, int firstSample, int endSample) {
+        List<int[]> runs = new ArrayList<>();
+        for (int sample = firstSample; sample < endSample; sample++) {
+            int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            if (last != null && last[1] == sampleDurations[sample]) {
+                last[0]++;
+            } else {
+                runs.add(new int[]{1, sampleDurations[sample]});
+            }
+        }
+        ByteBuffer stts = ByteBuffer.allocate(8 + 8 * runs.size()).putInt(0).putInt(runs.size());
+        for (int[] run : runs) {
+            stts.putInt(run[0]).putInt(run[1]);
+        }
+        return stts;
+    }
+
+    private static ByteBuffer runLengthChunks(int[] samplesPerChunk, int firstChunk, int endChunk) {
+        List<int[]> runs = new ArrayList<>();
+        for (int chunk = firstChunk; chunk < endChunk; chunk++) {
+            if (runs.isEmpty() || runs.get(runs.size() - 1)[1] != samplesPerChunk[chunk]) {
+                runs.add(new int[]{chunk - firstChunk + 1, samplesPerChunk[chunk]});
+            }
+        }
+        ByteBuffer stsc = ByteBuffer.allocate(8 + 12 * runs.size()).putInt(0).putInt(runs.size());
+        for (int[] run : runs) {
+            stsc.putInt(run[0]).putInt(run[1]).putInt(1);
+        }
+        return stsc;
+    }
+
+    // Timescale of an mvhd or mdhd box, which sits before the duration in both versions
+    private static long timescale(byte[] moov, Box header) {
+        ByteBuffer buffer = ByteBuffer.wrap(moov);
+        boolean version1 = moov[header.payloadStart()] == 1;
+        return buffer.getInt(header.payloadStart() + (version1 ? 20 : 12)) & 0xFFFFFFFFL;
+    }
+
+    // Copy of an mvhd, tkhd or mdhd box with a new duration at the offset of its version
+    private static byte[] withDuration(byte[] moov, Box header, long duration, int offsetV0, int offsetV1) {
+        byte[] copy = copy(moov, header);
+        ByteBuffer buffer = ByteBuffer.wrap(copy);
+        int payload = header.payloadStart() - header.start();
+        if (copy[payload] == 1) {
+            buffer.putLong(payload + offsetV1, duration);
+        } else {
+            buffer.putInt(payload + offsetV0, (int) Math.min(duration, 0xFFFFFFFFL));
+        }
+        return copy;
+    }
+
+    private static byte[] copy(byte[] data, Box box) {
+        byte[] copy = new byte[box.size()];
+        System.arraycopy(data, box.start(), copy, 0, copy.length);
+        return copy;
+    }
+
+    private static byte[] box(String type, byte[]... payloads) {
+        int size = 8;
+        for (byte[] payload : payloads) {
+            size += payload.length;
+        }
+        ByteBuffer box = ByteBuffer.allocate(size).putInt(size).put(type(type));
+        for (byte[] payload : payloads) {
+            box.put(payload);
+        }
+        return box.array();
+    }
+
+    private static long[] readChunkOffsets(byte[] moov, Box chunkOffsets) {
+        ByteBuffer buffer = ByteBuffer.wrap(moov);
+        boolean wide = chunkOffsets.type().equals("co64");
+        int count = buffer.getInt(chunkOffsets.payloadStart() + 4);
+        long[] offsets = new long[count];
+        int entriesStart = chunkOffsets.payloadStart() + 8;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = wide
+                    ? buffer.getLong(entriesStart + 8 * i)
+                    : buffer.getInt(entriesStart + 4 * i) & 0xFFFFFFFFL;
+        }
+        return offsets;
+    }
+
+    // Overwrite the entries of an stco or co64 box in place; false if an offset does not fit
+    private static boolean writeChunkOffsets(byte[] trak, int boxStart, String type, long[] offsets) {
+        ByteBuffer buffer = ByteBuffer.wrap(trak);
+        int entriesStart = boxStart + 8 + 8;
+        for (int i = 0; i < offsets.length; i++) {
+            if (type.equals("co64")) {
+                buffer.putLong(entriesStart + 8 * i, offsets[i]);
+            } else if (offsets[i] <= 0xFFFFFFFFL) {
+                buffer.putInt(entriesStart + 4 * i, (int) offsets[i]);
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Box> children(byte[] data, Box parent) {
+        List<Box> children = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int position = parent.payloadStart();
+        while (position + 8 <= parent.end()) {
+            long size = buffer.getInt(position) & 0xFFFFFFFFL;
+            int headerSize = 8;
+            if (size == 1 && position + 16 <= parent.end()) {
+                size = buffer.getLong(position + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = parent.end() - position;
+            }
+            if (size < headerSize || position + size > parent.end()) {
+                break; // Corrupt: keep what was parsed so far
+            }
+            children.add(new Box(typeAt(data, position + 4), position, headerSize, (int) size));
+            position += (int) size;
+        }
+        return children;
+    }
+
+    private static Box findChild(byte[] data, Box parent, String type) {
+        for (Box child : children(data, parent)) {
+            if (child.type().equals(type)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static String typeAt(byte[] data, int position) {
+        return new String(data, position, 4, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] type(String type) {
+        return type.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] fileTypeBox() {
+        ByteBuffer ftyp = ByteBuffer.allocate(28);
+        ftyp.putInt(28).put(type("ftyp"))
+                .put(type("M4A ")).putInt(0) // Major brand and version
+                .put(type("M4A ")).put(type("mp42")).put(type("isom")); // Compatible brands
+        return ftyp.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int bytesRead = channel.read(buffer, position);
+            if (bytesRead < 0) {
+                throw new IOException("Unexpected end of file at " + position);
+            }
+            position += bytesRead;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void copyRange(FileChannel source, long position, long count, FileChannel target) throws IOException {
+        while (count > 0) {
+            long transferred = source.transferTo(position, count, target);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of file at " + position);
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+}
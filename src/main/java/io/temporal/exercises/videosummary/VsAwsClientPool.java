@@ -0,0 +1,327 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.comprehend.AmazonComprehend;
+import com.amazonaws.services.comprehend.AmazonComprehendClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.transcribe.AmazonTranscribe;
+import com.amazonaws.services.transcribe.AmazonTranscribeClientBuilder;
+import com.amazonaws.services.translate.AmazonTranslate;
+import com.amazonaws.services.translate.AmazonTranslateClientBuilder;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe registry of AWS clients shared by all activities.
+ * Clients are keyed by credentials, region and service, so their HTTP connection pools stay warm across workflows.
+ * The registry is bounded; the least recently used client is evicted when it is full and clients that have not
+ * been used for a while are evicted by a background sweep. Evicted clients are shut down only after a grace
+ * period, because an activity that fetched the client earlier may still be using it.
+ * All pools are swept by one daemon thread; closing a pool stops its sweep and shuts down all of its clients.
+ * Clients are created by a ClientFactory, which load tests replace with local stand-ins.
+ */
+public class VsAwsClientPool implements AutoCloseable {
+    // Declared before the shared pool, which schedules its sweep on it
+    private static final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vs-aws-client-pool-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final VsAwsClientPool sharedPool = new VsAwsClientPool(
+            VsConfig.AWS_MAX_CLIENTS,
+            TimeUnit.MINUTES.toMillis(VsConfig.AWS_CLIENT_IDLE_MINUTES),
+            TimeUnit.MINUTES.toMillis(VsConfig.AWS_CLIENT_RETIRE_GRACE_MINUTES),
+            defaultClientConfiguration());
+
+    /**
+     * Creates the client of one service for the credentials and region of a job.
+     */
+    public interface ClientFactory {
+        AmazonS3 s3(VsJobDetails jobDetails);
+
+        AmazonTranscribe transcribe(VsJobDetails jobDetails);
+
+        AmazonTranslate translate(VsJobDetails jobDetails);
+
+        AmazonComprehend comprehend(VsJobDetails jobDetails);
+    }
+
+    private enum Service { S3, TRANSCRIBE, TRANSLATE, COMPREHEND }
+
+    private record ClientKey(String apiKey, String apiSecretHash, String region, Service service) {
+    }
+
+    private static final class PooledClient {
+        final Object client;
+        long lastUsedMillis;
+
+        PooledClient(Object client, long lastUsedMillis) {
+            this.client = client;
+            this.lastUsedMillis = lastUsedMillis;
+        }
+    }
+
+    private record RetiredClient(Object client, long shutdownAtMillis) {
+    }
+
+    private final int maxClients;
+    private final long idleTimeoutMillis;
+    private final long retireGraceMillis;
+    private final ClientFactory clientFactory;
+
+    // Access-ordered, so iteration starts with the least recently used client. Guarded by "this".
+    private final LinkedHashMap<ClientKey, PooledClient> clients = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<RetiredClient> retiredClients = new ArrayList<>();
+    private boolean closed;
+
+    private final ScheduledFuture<?> sweep;
+
+    public VsAwsClientPool(int maxClients, long idleTimeoutMillis, long retireGraceMillis,
+                           ClientConfiguration clientConfiguration) {
+        this(maxClients, idleTimeoutMillis, retireGraceMillis, new AwsClientFactory(clientConfiguration));
+    }
+
+    public VsAwsClientPool(int maxClients, long idleTimeoutMillis, long retireGraceMillis,
+                           ClientFactory clientFactory) {
+        this.maxClients = maxClients;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.retireGraceMillis = retireGraceMillis;
+        this.clientFactory = clientFactory;
+
+        sweep = sweeper.scheduleWithFixedDelay(this::evictIdleClients, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return Pool shared by every activity in this JVM
+     */
+    public static VsAwsClientPool shared() {
+        return sharedPool;
+    }
+
+    public AmazonS3 s3(VsJobDetails jobDetails) {
+        return getOrCreate(jobDetails, Service.S3, () -> clientFactory.s3(jobDetails));
+    }
+
+    public AmazonTranscribe transcribe(VsJobDetails jobDetails) {
+        return getOrCreate(jobDetails, Service.TRANSCRIBE, () -> clientFactory.transcribe(jobDetails));
+    }
+
+    public AmazonTranslate translate(VsJobDetails jobDetails) {
+        return getOrCreate(jobDetails, Service.TRANSLATE, () -> clientFactory.translate(jobDetails));
+    }
+
+    public AmazonComprehend comprehend(VsJobDetails jobDetails) {
+        return getOrCreate(jobDetails, Service.COMPREHEND, () -> clientFactory.comprehend(jobDetails));
+    }
+
+    /**
+     * @return Number of clients currently cached
+     */
+    public synchronized int size() {
+        return clients.size();
+    }
+
+    /**
+     * Stop sweeping this pool and shut down its clients, including the evicted ones still in their grace period.
+     * Activities must not use the pool or its clients any more.
+     */
+    @Override
+    public void close() {
+        sweep.cancel(false);
+
+        List<Object> openClients = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            clients.values().forEach(pooledClient -> openClients.add(pooledClient.client));
+            retiredClients.forEach(retiredClient -> openClients.add(retiredClient.client()));
+            clients.clear();
+            retiredClients.clear();
+        }
+        openClients.forEach(VsAwsClientPool::shutdown);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Real AWS clients sharing one HTTP configuration
+    private static final class AwsClientFactory implements ClientFactory {
+        private final ClientConfiguration clientConfiguration;
+
+        AwsClientFactory(ClientConfiguration clientConfiguration) {
+            this.clientConfiguration = clientConfiguration;
+        }
+
+        @Override
+        public AmazonS3 s3(VsJobDetails jobDetails) {
+            AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                    .withCredentials(credentialsProvider(jobDetails))
+                    .withClientConfiguration(clientConfiguration);
+
+            if (VsConfig.S3_ENDPOINT != null) {
+                // Local S3-compatible stand-in (e.g. MinIO) only understands path-style addressing
+                return builder
+                        .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                                VsConfig.S3_ENDPOINT, jobDetails.region()))
+                        .withPathStyleAccessEnabled(true)
+                        .build();
+            }
+
+            return builder.withRegion(Regions.fromName(jobDetails.region())).build();
+        }
+
+        @Override
+        public AmazonTranscribe transcribe(VsJobDetails jobDetails) {
+            return AmazonTranscribeClientBuilder.standard()
+                    .withCredentials(credentialsProvider(jobDetails))
+                    .withClientConfiguration(clientConfiguration)
+                    .withRegion(Regions.fromName(jobDetails.region()))
+                    .build();
+        }
+
+        @Override
+        public AmazonTranslate translate(VsJobDetails jobDetails) {
+            return AmazonTranslateClientBuilder.standard()
+                    .withCredentials(credentialsProvider(jobDetails))
+                    .withClientConfiguration(clientConfiguration)
+                    .withRegion(Regions.fromName(jobDetails.region()))
+                    .build();
+        }
+
+        @Override
+        public AmazonComprehend comprehend(VsJobDetails jobDetails) {
+            return AmazonComprehendClientBuilder.standard()
+                    .withCredentials(credentialsProvider(jobDetails))
+                    .withClientConfiguration(clientConfiguration)
+                    .withRegion(Regions.fromName(jobDetails.region()))
+                    .build();
+        }
+    }
+
+    private static ClientConfiguration defaultClientConfiguration() {
+        return new ClientConfiguration()
+                .withMaxConnections(VsConfig.AWS_MAX_CONNECTIONS)
+                .withConnectionTimeout(VsConfig.AWS_CONNECTION_TIMEOUT_MS)
+                .withSocketTimeout(VsConfig.AWS_SOCKET_TIMEOUT_MS)
+                .withConnectionMaxIdleMillis(VsConfig.AWS_CONNECTION_MAX_IDLE_MS)
+                .withTcpKeepAlive(true);
+    }
+
+    private static AWSStaticCredentialsProvider credentialsProvider(VsJobDetails jobDetails) {
+        return new AWSStaticCredentialsProvider(new BasicAWSCredentials(jobDetails.apiKey(), jobDetails.apiSecret()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrCreate(VsJobDetails jobDetails, Service service, Supplier<T> factory) {
+        // The secret is part of the key so that rotated credentials get a fresh client,
+        // but only its hash is kept in memory for the lifetime of the pool.
+        ClientKey key = new ClientKey(jobDetails.apiKey(), VsDigests.sha256Hex(Objects.requireNonNullElse(jobDetails.apiSecret(), "")),
+                jobDetails.region(), service);
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The AWS client pool is closed");
+            }
+            PooledClient pooledClient = clients.get(key);
+            if (pooledClient != null) {
+                pooledClient.lastUsedMillis = System.currentTimeMillis();
+                return (T) pooledClient.client;
+            }
+        }
+
+        // Built outside the lock: resolving credentials and regions can be slow and must not hold up
+        // the activities that use other clients
+        T client = factory.get();
+
+        PooledClient pooledClient;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+
+            pooledClient = clients.get(key);
+            if (closed) {
+                pooledClient = null;
+            } else if (pooledClient == null) {
+                pooledClient = new PooledClient(client, now);
+                clients.put(key, pooledClient);
+
+                // Evict least recently used clients beyond the bound
+                Iterator<PooledClient> iterator = clients.values().iterator();
+                while (clients.size() > maxClients && iterator.hasNext()) {
+                    retire(iterator.next().client, now);
+                    iterator.remove();
+                }
+            }
+            if (pooledClient != null) {
+                pooledClient.lastUsedMillis = now;
+            }
+        }
+
+        // Closed while the client was built
+        if (pooledClient == null) {
+            shutdown(client);
+            throw new IllegalStateException("The AWS client pool is closed");
+        }
+        // Another activity built the same client in the meantime: use that one, this one was never shared
+        if (pooledClient.client != client) {
+            shutdown(client);
+        }
+        return (T) pooledClient.client;
+    }
+
+    private synchronized void evictIdleClients() {
+        long now = System.currentTimeMillis();
+
+        Iterator<PooledClient> iterator = clients.values().iterator();
+        while (iterator.hasNext()) {
+            PooledClient pooledClient = iterator.next();
+            if (now - pooledClient.lastUsedMillis > idleTimeoutMillis) {
+                retire(pooledClient.client, now);
+                iterator.remove();
+            }
+        }
+
+        Iterator<RetiredClient> retired = retiredClients.iterator();
+        while (retired.hasNext()) {
+            RetiredClient retiredClient = retired.next();
+            if (now >= retiredClient.shutdownAtMillis()) {
+                shutdown(retiredClient.client());
+                retired.remove();
+            }
+        }
+    }
+
+    private void retire(Object client, long now) {
+        retiredClients.add(new RetiredClient(client, now + retireGraceMillis));
+    }
+
+    private static void shutdown(Object client) {
+        try {
+            if (client instanceof AmazonS3 s3Client) {
+                s3Client.shutdown();
+            } else if (client instanceof AmazonTranscribe transcribeClient) {
+                transcribeClient.shutdown();
+            } else if (client instanceof AmazonTranslate translateClient) {
+                translateClient.shutdown();
+            } else if (client instanceof AmazonComprehend comprehendClient) {
+                comprehendClient.shutdown();
+            }
+        } catch (Exception e) {
+            System.out.println("Failed to shut down AWS client: " + e.getMessage());
+        }
+    }
+}
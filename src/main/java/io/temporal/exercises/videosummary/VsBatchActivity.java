@@ -0,0 +1,28 @@
+package io.temporal.exercises.videosummary;
+
+import io.temporal.activity.ActivityInterface;
+
+import java.util.List;
+
+/**
+ * Access to the manifest of a batch. The manifest stays in the blob store, so the batch workflow only ever holds
+ * the jobs of its current run.
+ */
+@ActivityInterface
+public interface VsBatchActivity {
+    /**
+     * Read a page of the manifest.
+     * @param storage Bucket and credentials of the blob store that holds the manifest
+     * @param manifestRef Blob store reference of the manifest
+     * @param firstIndex Position in the manifest of the first job to return
+     * @param count Maximum number of jobs to return
+     * @return Jobs from firstIndex on, in manifest order
+     */
+    List<VsJobDetails> loadJobs(VsJobDetails storage, String manifestRef, int firstIndex, int count);
+
+    /**
+     * Delete the manifest and anything else the batch stored, once every job of the batch has run.
+     * @param storage Bucket and credentials of the blob store that holds the manifest
+     */
+    void deleteManifest(VsJobDetails storage);
+}
@@ -0,0 +1,69 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.temporal.activity.Activity;
+
+import java.util.List;
+
+public class VsBatchActivityImpl implements VsBatchActivity {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final VsAwsClientPool clientPool;
+
+    public VsBatchActivityImpl() {
+        this(VsAwsClientPool.shared());
+    }
+
+    public VsBatchActivityImpl(VsAwsClientPool clientPool) {
+        this.clientPool = clientPool;
+    }
+
+    /**
+     * Store a manifest for a batch, before the batch workflow is started.
+     * @param batchId Workflow ID of the batch, which owns the stored manifest
+     * @return Reference to pass in the VsBatchRequest
+     */
+    public static String storeManifest(VsAwsClientPool clientPool, VsJobDetails storage, String batchId,
+                                       List<VsJobDetails> jobs) {
+        try {
+            return VsBlobStore.newInstance(clientPool, storage, batchId)
+                    .put("manifest", objectMapper.writeValueAsString(jobs));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to store the manifest of batch " + batchId + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<VsJobDetails> loadJobs(VsJobDetails storage, String manifestRef, int firstIndex, int count) {
+        try {
+            List<VsJobDetails> jobs = objectMapper.readValue(blobStore(storage).get(manifestRef),
+                    new TypeReference<>() {
+                    });
+            int from = Math.min(firstIndex, jobs.size());
+            int to = Math.min(from + count, jobs.size());
+            return List.copyOf(jobs.subList(from, to));
+        } catch (Exception e) {
+            throw Activity.wrap(new RuntimeException("Failed to load the batch manifest: " + e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public void deleteManifest(VsJobDetails storage) {
+        try {
+            int deleted = blobStore(storage).deleteAll();
+            System.out.println("Deleted " + deleted + " payloads of batch " + Activity.getExecutionContext().getInfo().getWorkflowId());
+        } catch (Exception e) {
+            throw Activity.wrap(new RuntimeException("Failed to delete the batch manifest: " + e.getMessage(), e));
+        }
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // The batch keeps its workflow ID across runs, so every run finds the manifest the client stored
+    private VsBlobStore blobStore(VsJobDetails storage) {
+        return VsBlobStore.newInstance(clientPool, storage, Activity.getExecutionContext().getInfo().getWorkflowId());
+    }
+}
@@ -0,0 +1,84 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts one batch workflow for a manifest of jobs and waits for its result.
+ * Usage: VsBatchApp manifest.json [batchWorkflowId]
+ * The manifest is a JSON array of job details, e.g.
+ * [{"videoUrl": "...", "orgLanguage": "en", "targetLanguages": ["fr", "de"], "apiKey": "...", "apiSecret": "...",
+ *   "region": "us-east-1", "bucketName": "..."}]
+ * A single "targetLanguage": "fr" works as well.
+ */
+public class VsBatchApp {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: VsBatchApp <manifest.json> [batchWorkflowId]");
+            System.exit(1);
+        }
+
+        List<VsJobDetails> jobs = new ObjectMapper().readValue(new File(args[0]), new TypeReference<>() {
+        });
+        if (jobs.isEmpty()) {
+            System.out.println("The manifest has no jobs");
+            System.exit(1);
+        }
+        // Reusing a batch ID makes an accidental second submission of the same manifest fail instead of running twice
+        String batchId = args.length > 1 ? args[1] : "video-summary-batch-" + UUID.randomUUID();
+
+        WorkflowServiceStubs serviceStub = WorkflowServiceStubs.newLocalServiceStubs();
+        WorkflowClient client = WorkflowClient.newInstance(serviceStub, WorkflowClientOptions.newBuilder()
+                .setDataConverter(VsCompressionCodec.newDataConverter())
+                .build());
+
+        WorkflowOptions options = WorkflowOptions.newBuilder()
+                .setTaskQueue(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE)
+                .setWorkflowId(batchId)
+                .build();
+        VsBatchWorkflow workflow = client.newWorkflowStub(VsBatchWorkflow.class, options);
+
+        // The manifest goes to the blob store of the first job, so the workflow input stays the same size
+        // however long the manifest is
+        VsJobDetails first = jobs.get(0);
+        VsJobDetails storage = new VsJobDetails(null, null, (String) null, first.apiKey(), first.apiSecret(),
+                first.region(), first.bucketName());
+        String manifestRef = VsBatchActivityImpl.storeManifest(VsAwsClientPool.shared(), storage, batchId, jobs);
+
+        // Concurrency settings travel in the request, so the workflow code stays deterministic
+        VsBatchRequest request = new VsBatchRequest(storage, manifestRef, jobs.size(), 0, VsConfig.BATCH_MAX_IN_FLIGHT,
+                VsConfig.BATCH_JOBS_PER_RUN, null);
+        System.out.println("Starting batch " + batchId + ": " + request);
+
+        // Blocks until every run of the batch has completed
+        VsBatchResult result = workflow.processBatch(request);
+        Map<Integer, VsBatchItemResult> failedItems = new HashMap<>();
+        for (VsBatchItemResult item : result.failedItems()) {
+            failedItems.put(item.index(), item);
+        }
+        for (int index = 0; index < jobs.size(); index++) {
+            VsBatchItemResult failedItem = failedItems.get(index);
+            if (failedItem != null) {
+                System.out.println(String.format("[%d] %s FAILED (%s): %s", index, failedItem.videoUrl(),
+                        failedItem.workflowId(), failedItem.error()));
+            } else {
+                // The summaries are the result of the job's child workflow
+                Object summaries = client.newUntypedWorkflowStub(VsBatchWorkflowImpl.childWorkflowId(batchId, index))
+                        .getResult(Object.class);
+                System.out.println(String.format("[%d] %s: %s", index, jobs.get(index).videoUrl(), summaries));
+            }
+        }
+        System.out.println("Batch " + batchId + " completed: " + result);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,15 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * A job of a batch that produced no summary.
+ */
+@JsonDeserialize(as = VsBatchItemResult.class)
+public record VsBatchItemResult(
+        int index, // Position of the job in the manifest
+        String videoUrl, // URL of the video
+        String workflowId, // ID of the child workflow that processed the job
+        String error // Failure message
+) {
+}
@@ -0,0 +1,24 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Input of a batch workflow run. The manifest stays in the blob store and only the counts and the failed jobs
+ * are carried from run to run, so the input of a run does not grow with the batch.
+ */
+@JsonDeserialize(as = VsBatchRequest.class)
+public record VsBatchRequest(
+        VsJobDetails storage, // Bucket and credentials of the blob store that holds the manifest
+        String manifestRef, // Blob store reference of the manifest, a JSON array of job details
+        int jobCount, // Number of jobs in the manifest
+        int firstIndex, // Position in the manifest of the first job of this run
+        int maxInFlight, // Child workflows running at the same time
+        int jobsPerRun, // Jobs processed before the batch continues as new, to keep history bounded
+        VsBatchResult resultsSoFar // Counts and failed jobs of earlier runs, or null
+) {
+    @Override
+    public String toString() {
+        return String.format("BatchRequest{jobs=%d, firstIndex=%d, maxInFlight=%d, jobsPerRun=%d}",
+                jobCount, firstIndex, maxInFlight, jobsPerRun);
+    }
+}
@@ -0,0 +1,21 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch. The summaries of the jobs that succeeded are the results of their child workflows, which
+ * are named by VsBatchWorkflowImpl.childWorkflowId.
+ */
+@JsonDeserialize(as = VsBatchResult.class)
+public record VsBatchResult(
+        int succeeded, // Jobs that produced a summary
+        int failed, // Jobs that did not
+        List<VsBatchItemResult> failedItems // Failed jobs in manifest order
+) {
+    @Override
+    public String toString() {
+        return String.format("BatchResult{succeeded=%d, failed=%d}", succeeded, failed);
+    }
+}
@@ -0,0 +1,15 @@
+package io.temporal.exercises.videosummary;
+
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+
+@WorkflowInterface
+public interface VsBatchWorkflow {
+    /**
+     * Run a video summary child workflow for every job of the batch, a bounded number at a time.
+     * @param request Reference to the manifest of jobs, and concurrency settings
+     * @return Counts and failed jobs; the summaries are the results of the child workflows
+     */
+    @WorkflowMethod
+    VsBatchResult processBatch(VsBatchRequest request);
+}
@@ -0,0 +1,136 @@
+package io.temporal.exercises.videosummary;
+
+import io.temporal.activity.LocalActivityOptions;
+import io.temporal.failure.ChildWorkflowFailure;
+import io.temporal.failure.TemporalFailure;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.ChildWorkflowOptions;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class VsBatchWorkflowImpl implements VsBatchWorkflow {
+    // Manifest pages are read by the worker that runs the workflow task, without a trip through a task queue
+    private final VsBatchActivity batchActivities = Workflow.newLocalActivityStub(VsBatchActivity.class,
+            LocalActivityOptions.newBuilder()
+                    .setStartToCloseTimeout(Duration.ofMinutes(1)) // Max execution time for single Activity
+                    .setScheduleToCloseTimeout(Duration.ofMinutes(10)) // Entire duration including retries
+                    .build());
+
+    @Override
+    public VsBatchResult processBatch(VsBatchRequest request) {
+        int succeeded = 0;
+        int failed = 0;
+        List<VsBatchItemResult> failedItems = new ArrayList<>();
+        if (request.resultsSoFar() != null) {
+            succeeded = request.resultsSoFar().succeeded();
+            failed = request.resultsSoFar().failed();
+            failedItems.addAll(request.resultsSoFar().failedItems());
+        }
+
+        // Every run continues as new after jobsPerRun jobs, so the history of a single run stays bounded.
+        // Only the jobs of this run are read from the manifest.
+        int jobsThisRun = Math.min(request.jobCount() - request.firstIndex(), Math.max(1, request.jobsPerRun()));
+        List<VsJobDetails> jobs = jobsThisRun > 0
+                ? batchActivities.loadJobs(request.storage(), request.manifestRef(), request.firstIndex(), jobsThisRun)
+                : List.of();
+        int maxInFlight = Math.max(1, request.maxInFlight());
+
+        // Children are named after the batch, which keeps its workflow ID across runs
+        String batchId = Workflow.getInfo().getWorkflowId();
+
+        Map<Integer, Promise<Map<String, String>>> inFlight = new LinkedHashMap<>();
+        int next = 0;
+        while (next < jobs.size() || !inFlight.isEmpty()) {
+            // Top up to the in-flight limit
+            while (next < jobs.size() && inFlight.size() < maxInFlight) {
+                int index = request.firstIndex() + next;
+                VsWorkflow child = Workflow.newChildWorkflowStub(VsWorkflow.class, ChildWorkflowOptions.newBuilder()
+                        .setWorkflowId(childWorkflowId(batchId, index))
+                        .setTaskQueue(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE)
+                        .build());
+                inFlight.put(index, Async.function(child::getVideoSummary, jobs.get(next)));
+                next++;
+            }
+
+            // Wait for any child to finish, successfully or not, then collect every finished one.
+            // Promise.anyOf(...).get() would rethrow the failure of a child and fail the whole batch.
+            Workflow.await(() -> inFlight.values().stream().anyMatch(Promise::isCompleted));
+            List<Integer> completed = new ArrayList<>();
+            for (Map.Entry<Integer, Promise<Map<String, String>>> entry : inFlight.entrySet()) {
+                if (entry.getValue().isCompleted()) {
+                    int index = entry.getKey();
+                    String error = failureOf(entry.getValue());
+                    if (error == null) {
+                        succeeded++;
+                    } else {
+                        failed++;
+                        failedItems.add(new VsBatchItemResult(index, jobs.get(index - request.firstIndex()).videoUrl(),
+                                childWorkflowId(batchId, index), error));
+                    }
+                    completed.add(index);
+                }
+            }
+            completed.forEach(inFlight::remove);
+        }
+
+        failedItems.sort(Comparator.comparingInt(VsBatchItemResult::index));
+        VsBatchResult results = new VsBatchResult(succeeded, failed, failedItems);
+
+        // All children of this run are done; hand the rest of the batch to a fresh run
+        int nextIndex = request.firstIndex() + jobs.size();
+        if (!jobs.isEmpty() && nextIndex < request.jobCount()) {
+            VsBatchWorkflow continued = Workflow.newContinueAsNewStub(VsBatchWorkflow.class);
+            continued.processBatch(new VsBatchRequest(
+                    request.storage(),
+                    request.manifestRef(),
+                    request.jobCount(),
+                    nextIndex,
+                    request.maxInFlight(),
+                    request.jobsPerRun(),
+                    results));
+        }
+
+        // The last run is done with the manifest
+        try {
+            batchActivities.deleteManifest(request.storage());
+        }
+        catch (Exception e) {
+            System.out.println("Failed to delete the manifest of batch " + batchId);
+        }
+        return results;
+    }
+
+    /**
+     * @return Workflow ID of the child that runs the job at index of the manifest; its result holds the summaries
+     */
+    static String childWorkflowId(String batchId, int index) {
+        return batchId + "-" + index;
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Failure message of a finished child, or null when it produced a summary
+    private static String failureOf(Promise<Map<String, String>> summaries) {
+        RuntimeException failure = summaries.getFailure();
+        if (failure != null) {
+            Throwable cause = failure instanceof ChildWorkflowFailure && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            return cause instanceof TemporalFailure ? ((TemporalFailure) cause).getOriginalMessage() : cause.getMessage();
+        }
+        if (summaries.get() == null) {
+            // The child workflow handles its own failures and returns no summary
+            return "No summary was generated";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package io.temporal.exercises.videosummary;
+
+import java.nio.file.Paths;
+
+/**
+ * Claim-check store for texts too large to travel through workflow history.
+ * Activities put the text into the store and pass only the returned reference to the workflow.
+ * A store is scoped to one workflow, which deletes everything in it once the texts are no longer needed.
+ */
+public interface VsBlobStore {
+    /**
+     * @param scope Owner of the stored texts, usually the workflow ID
+     * @return Store in the job's bucket, or in the local claim-check directory when vs.claimCheck.dir is set
+     */
+    static VsBlobStore newInstance(VsAwsClientPool clientPool, VsJobDetails jobDetails, String scope) {
+        if (VsConfig.CLAIM_CHECK_DIR != null) {
+            return new VsLocalBlobStore(Paths.get(VsConfig.CLAIM_CHECK_DIR), scope);
+        }
+        return new VsS3BlobStore(clientPool.s3(jobDetails), jobDetails.bucketName(), scope);
+    }
+
+    /**
+     * Store the text.
+     * @param name Descriptive name, becomes part of the reference
+     * @param text Text to store
+     * @return Reference to pass around instead of the text
+     */
+    String put(String name, String text);
+
+    /**
+     * @param reference Reference returned by put
+     * @return The stored text
+     */
+    String get(String reference);
+
+    /**
+     * Delete every text stored in this scope.
+     * @return Number of texts deleted
+     */
+    int deleteAll();
+}
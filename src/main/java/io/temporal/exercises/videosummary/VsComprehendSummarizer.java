@@ -0,0 +1,124 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.comprehend.AmazonComprehend;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesItemResult;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesRequest;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesResult;
+import com.amazonaws.services.comprehend.model.BatchItemError;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Summarizes with Amazon Comprehend key phrase detection.
+ * The text is split into documents small enough for Comprehend, which are sent in concurrent batch requests;
+ * the key phrases of all documents are merged into a bounded top-k.
+ */
+public class VsComprehendSummarizer implements VsSummarizer {
+    private final VsAwsClientPool clientPool;
+    private final ExecutorService requestExecutor;
+
+    /**
+     * @param clientPool Source of Comprehend clients
+     * @param requestExecutor Runs the batch requests. Each summary bounds its own number of requests.
+     */
+    public VsComprehendSummarizer(VsAwsClientPool clientPool, ExecutorService requestExecutor) {
+        this.clientPool = clientPool;
+        this.requestExecutor = requestExecutor;
+    }
+
+    @Override
+    public boolean supportsLanguage(String languageCode) {
+        // List of languages supported by AWS Comprehend for key phrases detection
+        return switch (languageCode) { // English
+            // Spanish
+            // French
+            // German
+            // Italian
+            // Portuguese
+            // Arabic
+            // Hindi
+            // Japanese
+            // Korean
+            // Chinese
+            case "en", "es", "fr", "de", "it", "pt", "ar", "hi", "ja", "ko", "zh", "zh-TW" -> // Chinese (Traditional)
+                    true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public VsSummary summarize(VsJobDetails jobDetails, String text, String languageCode) throws Exception {
+        AmazonComprehend comprehendClient = clientPool.comprehend(jobDetails);
+
+        // Split the text into documents small enough for Comprehend and group them into batch requests
+        List<String> documents = VsTextSegmenter.split(text,
+                Locale.forLanguageTag(languageCode), VsConfig.SUMMARY_MAX_DOCUMENT_BYTES);
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i += VsConfig.SUMMARY_BATCH_SIZE) {
+            batches.add(documents.subList(i, Math.min(i + VsConfig.SUMMARY_BATCH_SIZE, documents.size())));
+        }
+
+        // Detect key phrases batch by batch, at most SUMMARY_PARALLELISM batches at a time,
+        // merging every result into a bounded top-k as it arrives
+        VsKeyPhraseRanker ranker = new VsKeyPhraseRanker(Locale.forLanguageTag(languageCode));
+        CompletionService<BatchDetectKeyPhrasesResult> completionService =
+                new ExecutorCompletionService<>(requestExecutor);
+        List<Future<BatchDetectKeyPhrasesResult>> inFlight = new ArrayList<>();
+        Iterator<List<String>> nextBatch = batches.iterator();
+        int failedDocuments = 0;
+        try {
+            while (nextBatch.hasNext() && inFlight.size() < VsConfig.SUMMARY_PARALLELISM) {
+                inFlight.add(submitKeyPhraseDetection(completionService, comprehendClient, jobDetails.region(),
+                        languageCode, nextBatch.next()));
+            }
+
+            for (int completed = 0; completed < batches.size(); completed++) {
+                BatchDetectKeyPhrasesResult batchResult = completionService.take().get();
+                for (BatchDetectKeyPhrasesItemResult itemResult : batchResult.getResultList()) {
+                    ranker.addAll(itemResult.getKeyPhrases());
+                }
+                for (BatchItemError itemError : batchResult.getErrorList()) {
+                    failedDocuments++;
+                    System.out.println("Key phrase detection failed for a document: "
+                            + itemError.getErrorCode() + " " + itemError.getErrorMessage());
+                }
+
+                if (nextBatch.hasNext()) {
+                    inFlight.add(submitKeyPhraseDetection(completionService, comprehendClient, jobDetails.region(),
+                            languageCode, nextBatch.next()));
+                }
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+
+        if (!documents.isEmpty() && failedDocuments == documents.size()) {
+            throw new RuntimeException("Key phrase detection failed for every document");
+        }
+
+        System.out.println("Detected " + ranker.size() + " distinct key phrases in "
+                + documents.size() + " documents in " + batches.size() + " batches");
+        return new VsSummary(List.of(), ranker.top(VsConfig.SUMMARY_TOP_PHRASES));
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private Future<BatchDetectKeyPhrasesResult> submitKeyPhraseDetection(
+            CompletionService<BatchDetectKeyPhrasesResult> completionService, AmazonComprehend comprehendClient,
+            String region, String languageCode, List<String> documents) {
+        // Shared with every summary on this worker, so together they stay under the account's quota
+        return completionService.submit(() -> VsRateLimiter.call("comprehend", region,
+                () -> comprehendClient.batchDetectKeyPhrases(new BatchDetectKeyPhrasesRequest()
+                        .withTextList(documents)
+                        .withLanguageCode(languageCode))));
+    }
+}
@@ -0,0 +1,127 @@
+package io.temporal.exercises.videosummary;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.CodecDataConverter;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.PayloadCodecException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses workflow and activity payloads before they are written to Temporal history.
+ * Payloads below a size threshold are left alone, as are payloads that don't get smaller.
+ * Clients and workers must use the same codec, see {@link #newDataConverter()}.
+ */
+public class VsCompressionCodec implements PayloadCodec {
+    private static final String METADATA_ENCODING_KEY = "encoding";
+    private static final ByteString METADATA_ENCODING = ByteString.copyFromUtf8("binary/zlib");
+
+    private final int thresholdBytes;
+
+    public VsCompressionCodec(int thresholdBytes) {
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    /**
+     * @return Default data converter with this codec applied, for WorkflowClientOptions
+     */
+    public static DataConverter newDataConverter() {
+        return new CodecDataConverter(DefaultDataConverter.newDefaultInstance(),
+                Collections.singletonList(new VsCompressionCodec(VsConfig.COMPRESSION_THRESHOLD_BYTES)));
+    }
+
+    @Override
+    public List<Payload> encode(List<Payload> payloads) {
+        List<Payload> encoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            encoded.add(encodePayload(payload));
+        }
+        return encoded;
+    }
+
+    @Override
+    public List<Payload> decode(List<Payload> payloads) {
+        List<Payload> decoded = new ArrayList<>(payloads.size());
+        for (Payload payload : payloads) {
+            decoded.add(decodePayload(payload));
+        }
+        return decoded;
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private Payload encodePayload(Payload payload) {
+        if (payload.getSerializedSize() < thresholdBytes) {
+            return payload;
+        }
+
+        byte[] compressed = deflate(payload.toByteArray());
+        if (compressed.length >= payload.getSerializedSize()) {
+            return payload;
+        }
+
+        return Payload.newBuilder()
+                .putMetadata(METADATA_ENCODING_KEY, METADATA_ENCODING)
+                .setData(ByteString.copyFrom(compressed))
+                .build();
+    }
+
+    private Payload decodePayload(Payload payload) {
+        if (!METADATA_ENCODING.equals(payload.getMetadataOrDefault(METADATA_ENCODING_KEY, null))) {
+            return payload;
+        }
+
+        try {
+            return Payload.parseFrom(inflate(payload.getData().toByteArray()));
+        } catch (InvalidProtocolBufferException | DataFormatException e) {
+            throw new PayloadCodecException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed payload");
+                }
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package io.temporal.exercises.videosummary;
+
+/**
+ * Worker tuning knobs.
+ * Every value can be overridden with a JVM system property, e.g. -Dvs.upload.partSizeMb=16
+ */
+public final class VsConfig {
+    // Stream the source video straight into an S3 multipart upload instead of staging it in a temp file
+    public static final boolean UPLOAD_STREAMING = getBoolean("vs.upload.streaming", true);
+
+    // Size of a single multipart upload part. S3 requires at least 5 MB for every part but the last.
+    public static final int UPLOAD_PART_SIZE_MB = getInt("vs.upload.partSizeMb", 8);
+
+    // Parts buffered or uploading at the same time. Memory per upload is capped at partSize * maxPartsInFlight.
+    public static final int UPLOAD_MAX_PARTS_IN_FLIGHT = getInt("vs.upload.maxPartsInFlight", 4);
+
+    // Connections used to download a video that is staged in a temp file, each fetching byte ranges.
+    // 1 downloads a single stream; servers without range support are always downloaded as one stream.
+    public static final int DOWNLOAD_PARALLELISM = getInt("vs.download.parallelism", 4);
+
+    // Size of one byte range of a parallel download, and retries of a failed range
+    public static final int DOWNLOAD_RANGE_SIZE_MB = getInt("vs.download.rangeSizeMb", 8);
+    public static final int DOWNLOAD_RANGE_RETRIES = getInt("vs.download.rangeRetries", 3);
+
+    // Timeouts of opening a download connection and of waiting for more bytes of a response. A stalled range is
+    // retried after the read timeout, and a stalled single stream fails the attempt.
+    public static final int DOWNLOAD_CONNECT_TIMEOUT_MS = getInt("vs.download.connectTimeoutMs", 10000);
+    public static final int DOWNLOAD_READ_TIMEOUT_MS = getInt("vs.download.readTimeoutMs", 60000);
+
+    // Videos already in S3 are used in place (same bucket) or copied server-side instead of downloaded and uploaded
+    public static final boolean S3_SOURCE_FAST_PATH = getBoolean("vs.upload.s3SourceFastPath", true);
+
+    // Upload only the AAC audio track of MP4 videos, extracted without re-encoding. Stages the video in a temp file.
+    public static final boolean AUDIO_EXTRACTION_ENABLED = getBoolean("vs.audioExtraction.enabled", false);
+
+    // Transcribe MP4 videos as audio segments in parallel, translating each segment as soon as its transcript is ready
+    public static final boolean TRANSCRIPTION_SEGMENTED = getBoolean("vs.transcription.segmented", false);
+
+    // Target duration of one segment. Shorter segments finish sooner but cut more sentences at segment boundaries.
+    public static final int TRANSCRIPTION_SEGMENT_SECONDS = getInt("vs.transcription.segmentSeconds", 300);
+
+    // Optional S3 endpoint override, e.g. http://localhost:9000 for a local S3-compatible stand-in
+    public static final String S3_ENDPOINT = System.getProperty("vs.s3.endpoint");
+
+    // Shared AWS client pool: at most this many cached clients (one per credentials, region and service)
+    public static final int AWS_MAX_CLIENTS = getInt("vs.aws.maxClients", 64);
+
+    // Cached clients unused for this long are evicted
+    public static final int AWS_CLIENT_IDLE_MINUTES = getInt("vs.aws.clientIdleMinutes", 10);
+
+    // Evicted clients are shut down after this delay, so activities still holding them can finish
+    public static final int AWS_CLIENT_RETIRE_GRACE_MINUTES = getInt("vs.aws.clientRetireGraceMinutes", 45);
+
+    // HTTP connection pool settings for every AWS client
+    public static final int AWS_MAX_CONNECTIONS = getInt("vs.aws.maxConnections", 50);
+    public static final int AWS_CONNECTION_TIMEOUT_MS = getInt("vs.aws.connectionTimeoutMs", 10000);
+    public static final int AWS_SOCKET_TIMEOUT_MS = getInt("vs.aws.socketTimeoutMs", 50000);
+    public static final int AWS_CONNECTION_MAX_IDLE_MS = getInt("vs.aws.connectionMaxIdleMs", 60000);
+
+    // Worker-wide adaptive rate limit of the Translate and Comprehend requests, per service and region
+    public static final boolean RATE_LIMIT_ENABLED = getBoolean("vs.rateLimit.enabled", true);
+
+    // Rate limit: requests per second to start with, before the limiter adapts to throttling
+    public static final double RATE_LIMIT_TRANSLATE_TPS = getDouble("vs.rateLimit.translateTps", 10);
+    public static final double RATE_LIMIT_COMPREHEND_TPS = getDouble("vs.rateLimit.comprehendTps", 10);
+
+    // Rate limit: range of the adapted rate
+    public static final double RATE_LIMIT_MIN_TPS = getDouble("vs.rateLimit.minTps", 1);
+    public static final double RATE_LIMIT_MAX_TPS = getDouble("vs.rateLimit.maxTps", 100);
+
+    // Rate limit: rate added for every second without throttling, and factor applied when the service throttles
+    public static final double RATE_LIMIT_INCREASE_TPS = getDouble("vs.rateLimit.increaseTps", 1);
+    public static final double RATE_LIMIT_DECREASE_FACTOR = getDouble("vs.rateLimit.decreaseFactor", 0.5);
+
+    // Rate limit: throttled requests sent again through the limiter before the activity attempt fails
+    public static final int RATE_LIMIT_THROTTLE_RETRIES = getInt("vs.rateLimit.throttleRetries", 5);
+
+    // Reuse the upload and transcript of a video that was already transcribed, found by URL or content hash
+    public static final boolean DEDUP_ENABLED = getBoolean("vs.dedup.enabled", true);
+
+    // Claim-check: texts larger than the threshold are stored in a blob store and passed by reference
+    public static final boolean CLAIM_CHECK_ENABLED = getBoolean("vs.claimCheck.enabled", true);
+    public static final int CLAIM_CHECK_THRESHOLD_BYTES = getInt("vs.claimCheck.thresholdBytes", 16 * 1024);
+
+    // Claim-check: characters from the start of a claim-checked text that are still passed inline, so the progress
+    // query can show the transcript and translations without reading the blob store
+    public static final int CLAIM_CHECK_PREVIEW_CHARS = getInt("vs.claimCheck.previewChars", 1000);
+
+    // Claim-check: local directory to use as the blob store instead of the job bucket, e.g. for tests
+    public static final String CLAIM_CHECK_DIR = System.getProperty("vs.claimCheck.dir");
+
+    // Payloads larger than this are compressed before they are written to workflow history
+    public static final int COMPRESSION_THRESHOLD_BYTES = getInt("vs.compression.thresholdBytes", 1024);
+
+    // Translate: maximum UTF-8 size of one TranslateText request (the service limit is 10,000 bytes)
+    public static final int TRANSLATE_MAX_SEGMENT_BYTES = getInt("vs.translate.maxSegmentBytes", 9000);
+
+    // Translate: segments of one transcript translated at the same time
+    public static final int TRANSLATE_PARALLELISM = getInt("vs.translate.parallelism", 8);
+
+    // Translate: completed requests stored together in the claim-check store as one checkpoint for a retried attempt,
+    // 0 to keep no checkpoints. Checkpoints are only kept when claim-check is enabled.
+    public static final int TRANSLATE_CHECKPOINT_REQUESTS = getInt("vs.translate.checkpointRequests", 4);
+
+    // Translation memory: reuse sentence translations across jobs
+    public static final boolean TM_ENABLED = getBoolean("vs.tm.enabled", true);
+
+    // Translation memory: approximate size of the in-memory tier
+    public static final int TM_MAX_MEMORY_MB = getInt("vs.tm.maxMemoryMb", 64);
+
+    // Translation memory: optional directory of the disk tier, shared by the workers on a host
+    public static final String TM_DIRECTORY = System.getProperty("vs.tm.dir");
+
+    // Summary: maximum UTF-8 size of one document sent to Comprehend key phrase detection
+    public static final int SUMMARY_MAX_DOCUMENT_BYTES = getInt("vs.summary.maxDocumentBytes", 4500);
+
+    // Summary: documents per BatchDetectKeyPhrases request (the service limit is 25)
+    public static final int SUMMARY_BATCH_SIZE = getInt("vs.summary.batchSize", 25);
+
+    // Summary: batch requests of one text running at the same time
+    public static final int SUMMARY_PARALLELISM = getInt("vs.summary.parallelism", 4);
+
+    // Summary: number of key phrases in the summary
+    public static final int SUMMARY_TOP_PHRASES = getInt("vs.summary.topPhrases", 10);
+
+    // Summary: engine, one of comprehend, textrank or auto (Comprehend for the languages it supports, TextRank otherwise)
+    public static final String SUMMARY_ENGINE = System.getProperty("vs.summary.engine", "auto");
+
+    // Summary: number of key sentences in a TextRank summary
+    public static final int SUMMARY_TOP_SENTENCES = getInt("vs.summary.topSentences", 5);
+
+    // Summary: most similar sentences every sentence is linked to in the TextRank graph. Bounds the graph of a long
+    // transcript to sentences * neighbors edges instead of one per pair of sentences.
+    public static final int SUMMARY_TEXTRANK_NEIGHBORS = getInt("vs.summary.textRankNeighbors", 20);
+
+    // Summary: fork-join parallelism of the TextRank engine
+    public static final int SUMMARY_TEXTRANK_PARALLELISM = getInt("vs.summary.textRankParallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    // Batch: child workflows of one batch running at the same time
+    public static final int BATCH_MAX_IN_FLIGHT = getInt("vs.batch.maxInFlight", 50);
+
+    // Batch: jobs per batch workflow run before it continues as new
+    public static final int BATCH_JOBS_PER_RUN = getInt("vs.batch.jobsPerRun", 500);
+
+    // Worker: comma-separated task queues served by this worker process (workflow, media, transcription, nlp)
+    public static final String WORKER_QUEUES = System.getProperty("vs.worker.queues", "workflow,media,transcription,nlp");
+
+    // Worker: run activities on virtual threads (Java 21+) and complete them asynchronously, so blocking I/O
+    // does not hold a platform thread. Falls back to a platform thread pool on older runtimes.
+    public static final boolean WORKER_VIRTUAL_THREADS = getBoolean("vs.worker.virtualThreads", false);
+
+    // Worker: workflow task queue
+    public static final int WORKFLOW_MAX_CONCURRENT_TASKS = getInt("vs.worker.workflow.maxConcurrentTasks", 200);
+    public static final int WORKFLOW_POLLERS = getInt("vs.worker.workflow.pollers", 5);
+
+    // Worker: run the short steps (generateSummary, deleteFromS3 and the translation of small texts) as local
+    // activities in the workflow worker, without a task-queue round trip. The workflow worker then needs AWS access.
+    public static final boolean LOCAL_ACTIVITIES_ENABLED = getBoolean("vs.worker.localActivities.enabled", false);
+    public static final int LOCAL_ACTIVITIES_MAX_CONCURRENT = getInt("vs.worker.localActivities.maxConcurrent", 50);
+
+    // Largest original text, in UTF-8 bytes, that is translated in a local activity
+    public static final int LOCAL_TRANSLATION_MAX_BYTES = getInt("vs.worker.localActivities.maxTranslationBytes", 4096);
+
+    // Worker: media task queue. Uploads are bandwidth-bound, so only a few run per worker.
+    public static final int MEDIA_MAX_CONCURRENT_ACTIVITIES = getInt("vs.worker.media.maxConcurrentActivities",
+            WORKER_VIRTUAL_THREADS ? 16 : 4);
+    public static final int MEDIA_POLLERS = getInt("vs.worker.media.pollers", 2);
+    public static final double MEDIA_ACTIVITIES_PER_SECOND = getDouble("vs.worker.media.activitiesPerSecond", 0);
+
+    // Worker: transcription task queue
+    public static final int TRANSCRIPTION_MAX_CONCURRENT_ACTIVITIES = getInt("vs.worker.transcription.maxConcurrentActivities",
+            WORKER_VIRTUAL_THREADS ? 1000 : 50);
+    public static final int TRANSCRIPTION_POLLERS = getInt("vs.worker.transcription.pollers", 5);
+    public static final double TRANSCRIPTION_ACTIVITIES_PER_SECOND = getDouble("vs.worker.transcription.activitiesPerSecond", 0);
+
+    // Worker: NLP task queue
+    public static final int NLP_MAX_CONCURRENT_ACTIVITIES = getInt("vs.worker.nlp.maxConcurrentActivities",
+            WORKER_VIRTUAL_THREADS ? 500 : 20);
+    public static final int NLP_POLLERS = getInt("vs.worker.nlp.pollers", 5);
+    public static final double NLP_ACTIVITIES_PER_SECOND = getDouble("vs.worker.nlp.activitiesPerSecond", 0);
+
+    // Metrics: port of the worker's Prometheus scrape endpoint (http://host:port/metrics), 0 to disable it
+    public static final int METRICS_PORT = getInt("vs.metrics.port", 9464);
+
+    // Metrics: interval at which the Temporal SDK flushes its metrics into the registry
+    public static final int METRICS_SDK_REPORT_SECONDS = getInt("vs.metrics.sdkReportSeconds", 10);
+
+    private VsConfig() {
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static int getInt(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static double getDouble(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    private static boolean getBoolean(String name, boolean defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+}
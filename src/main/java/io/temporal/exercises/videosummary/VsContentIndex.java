@@ -0,0 +1,125 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Content-addressed index of videos that were already uploaded and transcribed.
+ * The index lives as small JSON objects in the job bucket, so every worker shares it:
+ * <ul>
+ *   <li>index/content/&lt;sha256 of the video&gt;/&lt;orgLanguage&gt;.json holds a {@link VsContentIndexEntry}</li>
+ *   <li>index/url/&lt;sha256 of the video URL&gt;.json holds the content hash last seen at that URL, with the
+ *   ETag or Last-Modified the URL served it with</li>
+ * </ul>
+ * Entries are only written once a transcript exists, so a hit always lets the workflow skip transcription.
+ * A URL entry is only trusted while the URL still serves the same validator; a video that changed in place is
+ * downloaded again and found, if at all, by its content hash.
+ */
+public class VsContentIndex {
+    private static final String CONTENT_PREFIX = "index/content/";
+    private static final String URL_PREFIX = "index/url/";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+
+    public VsContentIndex(AmazonS3 s3Client, String bucketName) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Look up a video by the URL it was downloaded from, without downloading it again.
+     * currentValidator fetches the ETag or Last-Modified the URL serves now, e.g. with a HEAD request; it is only
+     * called when the URL is in the index, and a null or different validator is a miss.
+     */
+    public Optional<VsContentIndexEntry> findByUrl(String videoUrl, String orgLanguage, Supplier<String> currentValidator) {
+        return read(urlKey(videoUrl))
+                .flatMap(VsContentIndex::parseUrlEntry)
+                .filter(urlEntry -> urlEntry.sourceValidator().equals(currentValidator.get()))
+                .flatMap(urlEntry -> findByContent(urlEntry.contentHash(), orgLanguage));
+    }
+
+    /**
+     * Look up a video by the SHA-256 of its bytes.
+     */
+    public Optional<VsContentIndexEntry> findByContent(String contentHash, String orgLanguage) {
+        return read(contentKey(contentHash, orgLanguage))
+                .map(json -> fromJson(json, VsContentIndexEntry.class))
+                // The transcript may have been cleaned up since the entry was written
+                .filter(entry -> s3Client.doesObjectExist(bucketName, entry.transcriptKey()));
+    }
+
+    /**
+     * Record a transcribed video under its content hash and under the URL it came from.
+     * Without a source validator a later change of the video at that URL could not be noticed, so only the
+     * content hash is recorded.
+     */
+    public void put(String videoUrl, String sourceValidator, VsContentIndexEntry entry) {
+        s3Client.putObject(bucketName, contentKey(entry.contentHash(), entry.orgLanguage()), toJson(entry));
+        if (sourceValidator != null) {
+            s3Client.putObject(bucketName, urlKey(videoUrl), toJson(new UrlEntry(entry.contentHash(), sourceValidator)));
+        }
+    }
+
+    // What the index knows about a video URL
+    record UrlEntry(
+            String contentHash, // SHA-256 of the video last downloaded from the URL
+            String sourceValidator // ETag or Last-Modified the URL served it with
+    ) {
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static String contentKey(String contentHash, String orgLanguage) {
+        return CONTENT_PREFIX + contentHash + "/" + orgLanguage + ".json";
+    }
+
+    private static String urlKey(String videoUrl) {
+        return URL_PREFIX + VsDigests.sha256Hex(videoUrl) + ".json";
+    }
+
+    // Entries written before validators were recorded only hold the content hash and are never trusted
+    private static Optional<UrlEntry> parseUrlEntry(String json) {
+        if (!json.startsWith("{")) {
+            return Optional.empty();
+        }
+        return Optional.of(fromJson(json, UrlEntry.class))
+                .filter(urlEntry -> urlEntry.contentHash() != null && urlEntry.sourceValidator() != null);
+    }
+
+    private Optional<String> read(String key) {
+        try {
+            return Optional.of(s3Client.getObjectAsString(bucketName, key));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize index entry", e);
+        }
+    }
+
+    private static <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt index entry: " + e.getMessage(), e);
+        }
+    }
+}
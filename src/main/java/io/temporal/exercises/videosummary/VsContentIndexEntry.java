@@ -0,0 +1,15 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * Content index record: where the upload and the transcript of a video in one original language are stored.
+ */
+@JsonDeserialize(as = VsContentIndexEntry.class)
+public record VsContentIndexEntry(
+        String contentHash, // SHA-256 of the video bytes
+        String orgLanguage, // Language the video was transcribed in
+        String s3Key, // Key of the uploaded video
+        String transcriptKey // Key of the Transcribe output JSON
+) {
+}
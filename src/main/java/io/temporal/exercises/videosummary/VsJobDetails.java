@@ -2,19 +2,50 @@ package io.temporal.exercises.videosummary;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+
 @JsonDeserialize(as = VsJobDetails.class)
 public record VsJobDetails(
       String videoUrl, // URL of the file to translate
       String orgLanguage, // Original language
-      String targetLanguage, // Language to translate to
+      String targetLanguage, // Language to translate to; the first of targetLanguages
       String apiKey, // AWS API key
       String apiSecret, // AWS API secret
       String region, // AWS region, e.g. "us-east-1";
-      String bucketName // S3 bucket name
+      String bucketName, // S3 bucket name
+      List<String> targetLanguages // Every language to translate to and summarize in
 ) {
+    // Jobs name either a single targetLanguage or a list of targetLanguages; the list wins when both are set
+    public VsJobDetails {
+        if (targetLanguages == null || targetLanguages.isEmpty()) {
+            targetLanguages = targetLanguage == null ? List.of() : List.of(targetLanguage);
+        } else {
+            targetLanguages = List.copyOf(new LinkedHashSet<>(targetLanguages));
+            targetLanguage = targetLanguages.get(0);
+        }
+    }
+
+    public VsJobDetails(String videoUrl, String orgLanguage, String targetLanguage, String apiKey, String apiSecret,
+                        String region, String bucketName) {
+        this(videoUrl, orgLanguage, targetLanguage, apiKey, apiSecret, region, bucketName, null);
+    }
+
+    public VsJobDetails(String videoUrl, String orgLanguage, List<String> targetLanguages, String apiKey,
+                        String apiSecret, String region, String bucketName) {
+        this(videoUrl, orgLanguage, null, apiKey, apiSecret, region, bucketName, targetLanguages);
+    }
+
+    /**
+     * @return The same job with targetLanguage as its only target language, for the per-language activities
+     */
+    public VsJobDetails withTargetLanguage(String targetLanguage) {
+        return new VsJobDetails(videoUrl, orgLanguage, targetLanguage, apiKey, apiSecret, region, bucketName);
+    }
+
     @Override
     public String toString() {
-        return String.format("JobDetails{videoUrl='%s', orgLanguage=%s, targetLanguage=%s, region=%s, bucketName=%s}",
-                videoUrl, orgLanguage, targetLanguage, region, bucketName);
+        return String.format("JobDetails{videoUrl='%s', orgLanguage=%s, targetLanguages=%s, region=%s, bucketName=%s}",
+                videoUrl, orgLanguage, targetLanguages, region, bucketName);
     }
-}
\ No newline at end of file
+}
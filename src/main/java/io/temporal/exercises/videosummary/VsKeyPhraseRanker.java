@@ -0,0 +1,85 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.comprehend.model.KeyPhrase;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Merges key phrases detected in many chunks of one text and keeps the best ones.
+ * Phrases are deduplicated case-insensitively and the scores of repeated phrases are added up, so a phrase that
+ * comes up in many chunks outranks one that appears once. Selecting the top phrases uses a heap bounded by the
+ * number of phrases requested instead of sorting every phrase.
+ * Not thread-safe; feed it from a single thread.
+ */
+public class VsKeyPhraseRanker {
+    private static final class RankedPhrase {
+        final String text; // Spelling of the first occurrence
+        double score;
+
+        RankedPhrase(String text) {
+            this.text = text;
+        }
+    }
+
+    private final Locale locale;
+    private final Map<String, RankedPhrase> phrases = new HashMap<>();
+
+    public VsKeyPhraseRanker(Locale locale) {
+        this.locale = locale;
+    }
+
+    /**
+     * Add the key phrases detected in one chunk.
+     */
+    public void addAll(List<KeyPhrase> keyPhrases) {
+        for (KeyPhrase keyPhrase : keyPhrases) {
+            add(keyPhrase.getText(), keyPhrase.getScore() == null ? 0 : keyPhrase.getScore());
+        }
+    }
+
+    public void add(String text, double score) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return;
+        }
+        phrases.computeIfAbsent(trimmed.toLowerCase(locale), key -> new RankedPhrase(trimmed)).score += score;
+    }
+
+    /**
+     * @param count Maximum number of phrases to return
+     * @return Best phrases, highest aggregated score first
+     */
+    public List<String> top(int count) {
+        Comparator<RankedPhrase> byScore = Comparator.comparingDouble(phrase -> phrase.score);
+        PriorityQueue<RankedPhrase> best = new PriorityQueue<>(count + 1, byScore);
+        for (RankedPhrase phrase : phrases.values()) {
+            if (best.size() < count) {
+                best.add(phrase);
+            } else if (count > 0 && phrase.score > best.peek().score) {
+                best.poll();
+                best.add(phrase);
+            }
+        }
+
+        List<RankedPhrase> ranked = new ArrayList<>(best);
+        ranked.sort(byScore.reversed());
+        List<String> texts = new ArrayList<>(ranked.size());
+        for (RankedPhrase phrase : ranked) {
+            texts.add(phrase.text);
+        }
+        return texts;
+    }
+
+    /**
+     * @return Number of distinct phrases seen so far
+     */
+    public int size() {
+        return phrases.size();
+    }
+}
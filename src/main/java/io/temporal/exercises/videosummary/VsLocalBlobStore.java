@@ -0,0 +1,76 @@
+package io.temporal.exercises.videosummary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Claim-check store in a local directory, for tests and single-host setups. References are file: URIs.
+ * Every scope is a subdirectory.
+ */
+public class VsLocalBlobStore implements VsBlobStore {
+    private final Path directory;
+    private final Path scopeDirectory;
+
+    /**
+     * @param scope Owner of the stored texts, usually the workflow ID
+     */
+    public VsLocalBlobStore(Path directory, String scope) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.scopeDirectory = this.directory.resolve(URLEncoder.encode(scope, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String put(String name, String text) {
+        try {
+            Path file = scopeDirectory.resolve(UUID.randomUUID() + "-" + name + ".txt");
+            Files.createDirectories(scopeDirectory);
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+            return file.toUri().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store " + name + " in " + scopeDirectory, e);
+        }
+    }
+
+    @Override
+    public String get(String reference) {
+        Path file = Paths.get(URI.create(reference)).normalize();
+        if (!file.startsWith(directory)) {
+            throw new IllegalArgumentException("Not a reference to " + directory + ": " + reference);
+        }
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + reference, e);
+        }
+    }
+
+    @Override
+    public int deleteAll() {
+        if (!Files.isDirectory(scopeDirectory)) {
+            return 0;
+        }
+        try {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(scopeDirectory)) {
+                files = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                Files.delete(file);
+            }
+            return files.size() - 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete " + scopeDirectory, e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * One time window of an uploaded video, transcribed and translated on its own in segmented mode.
+ */
+@JsonDeserialize(as = VsMediaSegment.class)
+public record VsMediaSegment(
+        String s3Key, // Key of the M4A file of the segment
+        long startMillis, // Start of the segment in the video
+        long durationMillis // Length of the segment
+) {
+}
@@ -0,0 +1,95 @@
+package io.temporal.exercises.videosummary;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the duration, outcome and retries of every activity attempt in VsMetrics.
+ * Wraps the activity implementation inside VsAsyncActivityImpl, so the time is measured on the thread that
+ * actually runs the activity.
+ */
+public class VsMeteredActivityImpl implements VsActivity {
+    private final VsActivity activities;
+
+    public VsMeteredActivityImpl(VsActivity activities) {
+        this.activities = activities;
+    }
+
+    @Override
+    public VsActionReturnVals uploadToS3(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return metered("uploadToS3", () -> activities.uploadToS3(jobDetails, results));
+    }
+
+    @Override
+    public void deleteFromS3(VsJobDetails jobDetails, VsActionReturnVals results) {
+        metered("deleteFromS3", () -> {
+            activities.deleteFromS3(jobDetails, results);
+            return null;
+        });
+    }
+
+    @Override
+    public void deletePayloads(VsJobDetails jobDetails) {
+        metered("deletePayloads", () -> {
+            activities.deletePayloads(jobDetails);
+            return null;
+        });
+    }
+
+    @Override
+    public VsActionReturnVals startTranscription(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return metered("startTranscription", () -> activities.startTranscription(jobDetails, results));
+    }
+
+    @Override
+    public String getTranscriptionStatus(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return metered("getTranscriptionStatus", () -> activities.getTranscriptionStatus(jobDetails, results));
+    }
+
+    @Override
+    public VsActionReturnVals fetchTranscript(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return metered("fetchTranscript", () -> activities.fetchTranscript(jobDetails, results));
+    }
+
+    @Override
+    public VsActionReturnVals convertOriginalTextToTargetLanguage(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return metered("convertOriginalTextToTargetLanguage",
+                () -> activities.convertOriginalTextToTargetLanguage(jobDetails, results));
+    }
+
+    @Override
+    public VsActionReturnVals mergeSegments(VsJobDetails jobDetails, VsActionReturnVals results,
+                                            List<VsActionReturnVals> segmentResults) {
+        return metered("mergeSegments", () -> activities.mergeSegments(jobDetails, results, segmentResults));
+    }
+
+    @Override
+    public String generateSummary(VsJobDetails jobDetails, VsActionReturnVals results) {
+        return metered("generateSummary", () -> activities.generateSummary(jobDetails, results));
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static <R> R metered(String activity, Supplier<R> call) {
+        if (VsActivityContext.current().getInfo().getAttempt() > 1) {
+            VsMetrics.recordRetry(activity);
+        }
+
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            R result = call.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            if (VsAsyncActivityImpl.isCancellation(e)) {
+                outcome = "cancelled";
+            }
+            throw e;
+        } finally {
+            VsMetrics.recordActivity(activity, outcome, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package io.temporal.exercises.videosummary;
+
+import com.sun.net.httpserver.HttpServer;
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.temporal.common.reporter.MicrometerClientStatsReporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide metrics registry, scraped in the Prometheus text format.
+ * Activity code records its own meters here; the Temporal SDK reports its worker and client metrics
+ * (schedule-to-start latency, slot usage, workflow counters) into the same registry through newSdkMetricsScope(),
+ * so one endpoint shows both.
+ */
+public final class VsMetrics {
+    private static final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    private VsMetrics() {
+    }
+
+    public static PrometheusMeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * @return Metrics scope for WorkflowServiceStubsOptions, reporting SDK metrics into this registry
+     */
+    public static Scope newSdkMetricsScope() {
+        return new RootScopeBuilder()
+                .reporter(new MicrometerClientStatsReporter(registry))
+                .reportEvery(com.uber.m3.util.Duration.ofSeconds(VsConfig.METRICS_SDK_REPORT_SECONDS));
+    }
+
+    /**
+     * Serve the registry at http://host:port/metrics.
+     */
+    public static HttpServer startScrapeEndpoint(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.setExecutor(VsThreads.newExecutor("vs-metrics"));
+        server.start();
+        return server;
+    }
+
+    /**
+     * Record one attempt of an activity.
+     * @param outcome success, failure or cancelled
+     */
+    public static void recordActivity(String activity, String outcome, long durationNanos) {
+        Timer.builder("vs.activity.duration")
+                .description("Duration of activity attempts")
+                .tags("activity", activity, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count an attempt that retried a failed or timed out earlier attempt.
+     */
+    public static void recordRetry(String activity) {
+        Counter.builder("vs.activity.retries")
+                .description("Activity attempts after the first")
+                .tag("activity", activity)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Record bytes moved by one transfer and its throughput.
+     * @param direction download, upload, or copy for server-side copies within S3
+     */
+    public static void recordTransfer(String direction, long bytes, long durationNanos) {
+        Counter.builder("vs.transfer.bytes")
+                .description("Bytes downloaded from video URLs and uploaded to S3")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .register(registry)
+                .increment(bytes);
+        if (durationNanos > 0) {
+            DistributionSummary.builder("vs.transfer.throughput")
+                    .description("Throughput of single transfers")
+                    .baseUnit("bytes_per_second")
+                    .tag("direction", direction)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(bytes * 1e9 / durationNanos);
+        }
+    }
+
+    /**
+     * Record how long a Transcribe job waited in the service queue and how long it ran.
+     */
+    public static void recordTranscriptionJob(Duration queued, Duration processing) {
+        Timer.builder("vs.transcription.queued")
+                .description("Time Transcribe jobs spent queued in the service")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(queued);
+        Timer.builder("vs.transcription.processing")
+                .description("Time Transcribe jobs spent processing")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(processing);
+    }
+
+    /**
+     * Report the current rate and queue depth of a rate limiter.
+     */
+    public static void registerRateLimiter(VsRateLimiter limiter) {
+        Gauge.builder("vs.ratelimit.rate", limiter, VsRateLimiter::getRate)
+                .description("Current request rate of the adaptive AWS rate limiter")
+                .baseUnit("requests_per_second")
+                .tags("service", limiter.getService(), "region", limiter.getRegion())
+                .register(registry);
+        Gauge.builder("vs.ratelimit.queue", limiter, VsRateLimiter::getQueueDepth)
+                .description("Requests waiting for the adaptive AWS rate limiter")
+                .tags("service", limiter.getService(), "region", limiter.getRegion())
+                .register(registry);
+    }
+
+    /**
+     * Count a request the service rejected with a throttling error.
+     */
+    public static void recordThrottle(String service, String region) {
+        Counter.builder("vs.ratelimit.throttles")
+                .description("AWS requests rejected with a throttling error")
+                .tags("service", service, "region", region)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Count characters processed by translation and summarization.
+     * @param operation translate or summary
+     * @param source Where the result came from, e.g. translate, memory, comprehend or textrank
+     */
+    public static void recordCharacters(String operation, String source, long characters) {
+        Counter.builder("vs.characters")
+                .description("Characters translated or summarized")
+                .tags("operation", operation, "source", source)
+                .register(registry)
+                .increment(characters);
+    }
+}
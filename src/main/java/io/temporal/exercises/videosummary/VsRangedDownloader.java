@@ -0,0 +1,267 @@
+package io.temporal.exercises.videosummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads a URL into a file over several HTTP connections at once.
+ * A single TCP stream on a high-latency link gets only part of the available bandwidth, so the file is fetched as
+ * byte ranges in parallel, each written at its offset into the preallocated file.
+ * The first request asks for the first range; a 206 response with the total size shows that the server supports
+ * ranges, and its body is the first range. Any other response is downloaded as a single stream instead.
+ * A failed range is resumed from its last written byte, up to maxRangeRetries times. Every connection has a connect
+ * and a read timeout, so a stalled server fails the range instead of blocking the download forever.
+ */
+public class VsRangedDownloader {
+    private static final ExecutorService rangeExecutor = VsThreads.newExecutor("vs-download");
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+    private final int parallelism;
+    private final long rangeSize;
+    private final int maxRangeRetries;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    /**
+     * @param parallelism Connections used at the same time; 1 downloads a single stream
+     * @param rangeSize Bytes requested per range
+     * @param maxRangeRetries Retries of a failed range before the download fails
+     * @param connectTimeoutMillis Timeout of opening a connection
+     * @param readTimeoutMillis Longest wait for more bytes of a response before its range is retried
+     */
+    public VsRangedDownloader(int parallelism, long rangeSize, int maxRangeRetries, int connectTimeoutMillis,
+                              int readTimeoutMillis) {
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.maxRangeRetries = maxRangeRetries;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * @param bytes Size of the downloaded file
+     * @param connections Connections used; 1 when the server does not support ranges
+     * @param sourceValidator ETag or Last-Modified of the source
+     */
+    public record Result(long bytes, int connections, String sourceValidator) {
+    }
+
+    /**
+     * Download url into file, overwriting it.
+     */
+    public Result download(URL url, Path file) throws IOException {
+        return download(url, file, null);
+    }
+
+    /**
+     * Download url into file, overwriting it.
+     * @param progressListener Called on the calling thread with the bytes downloaded so far, about every second
+     *                         while the download runs and once when it is done; may be null
+     */
+    public Result download(URL url, Path file, LongConsumer progressListener) throws IOException {
+        Progress progress = new Progress(progressListener);
+        HttpURLConnection probe = openConnection(url);
+        if (parallelism > 1) {
+            probe.setRequestProperty("Range", "bytes=0-" + (rangeSize - 1));
+        }
+        String sourceValidator = sourceValidator(probe);
+        Matcher contentRange = CONTENT_RANGE.matcher(Objects.toString(probe.getHeaderField("Content-Range"), ""));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (probe.getResponseCode() != HttpURLConnection.HTTP_PARTIAL || !contentRange.matches()
+                    || Long.parseLong(contentRange.group(1)) != 0) {
+                // No range support: download a single stream, reusing the probe unless it returned a partial body
+                HttpURLConnection connection = probe;
+                if (probe.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+                    probe.disconnect();
+                    connection = openConnection(url);
+                }
+                AtomicLong written = new AtomicLong();
+                try (InputStream inputStream = connection.getInputStream()) {
+                    write(inputStream, channel, written, Long.MAX_VALUE, progress);
+                }
+                progress.report();
+                return new Result(written.get(), 1, sourceValidator(connection));
+            }
+
+            long totalSize = Long.parseLong(contentRange.group(3));
+            long firstRangeEnd = Long.parseLong(contentRange.group(2)) + 1;
+            if (totalSize > 0) {
+                // Allocate the file up front, so the ranges can be written at their offsets in any order
+                channel.write(ByteBuffer.allocate(1), totalSize - 1);
+            }
+
+            // The probe's body is the first range; the other connections take the rest range by range
+            AtomicLong nextRangeStart = new AtomicLong(firstRangeEnd);
+            List<Future<Void>> connections = new ArrayList<>();
+            try {
+                for (int i = 1; i < parallelism && i * rangeSize < totalSize; i++) {
+                    connections.add(rangeExecutor.submit(() -> {
+                        for (long start = nextRangeStart.getAndAdd(rangeSize); start < totalSize;
+                             start = nextRangeStart.getAndAdd(rangeSize)) {
+                            downloadRange(url, channel, start, Math.min(start + rangeSize, totalSize), sourceValidator,
+                                    progress);
+                        }
+                        return null;
+                    }));
+                }
+
+                AtomicLong written = new AtomicLong();
+                try (InputStream inputStream = probe.getInputStream()) {
+                    write(inputStream, channel, written, firstRangeEnd, progress);
+                } catch (IOException e) {
+                    System.out.println("Retrying range at byte " + written + " of " + url + ": " + e.getMessage());
+                }
+                if (written.get() < firstRangeEnd) {
+                    downloadRange(url, channel, written.get(), firstRangeEnd, sourceValidator, progress);
+                }
+                // Then this thread takes ranges like the other connections
+                for (long start = nextRangeStart.getAndAdd(rangeSize); start < totalSize;
+                     start = nextRangeStart.getAndAdd(rangeSize)) {
+                    downloadRange(url, channel, start, Math.min(start + rangeSize, totalSize), sourceValidator,
+                            progress);
+                }
+
+                // Keep reporting progress while the other connections finish their ranges
+                for (Future<Void> connection : connections) {
+                    while (true) {
+                        try {
+                            connection.get(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                            break;
+                        } catch (TimeoutException e) {
+                            progress.report();
+                        }
+                    }
+                }
+                progress.report();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while downloading " + url, e);
+            } catch (ExecutionException e) {
+                // Failures of the other connections surface as they would on this thread, e.g. a changed video
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                        : new IOException("Failed to download " + url + ": " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                connections.forEach(connection -> connection.cancel(true));
+            }
+            return new Result(totalSize, connections.size() + 1, sourceValidator);
+        }
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Fetch [start, end), resuming from the last written byte after a failure
+    private void downloadRange(URL url, FileChannel channel, long start, long end, String sourceValidator,
+                               Progress progress) throws IOException {
+        // Advanced as bytes are written, so a failed read resumes after the last of them
+        AtomicLong position = new AtomicLong(start);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                HttpURLConnection connection = openConnection(url);
+                connection.setRequestProperty("Range", "bytes=" + position + "-" + (end - 1));
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                    throw new IOException("Range request for " + url + " returned HTTP " + connection.getResponseCode());
+                }
+                if (!Objects.equals(sourceValidator, sourceValidator(connection))) {
+                    // Mixing two versions of the video would corrupt it; a retry of the activity starts over
+                    throw new IllegalStateException("Video " + url + " changed during the download");
+                }
+                try (InputStream inputStream = connection.getInputStream()) {
+                    write(inputStream, channel, position, end, progress);
+                }
+                if (position.get() < end) {
+                    throw new IOException("Range of " + url + " ended at byte " + position + " instead of " + end);
+                }
+                return;
+            } catch (IOException e) {
+                if (attempt >= maxRangeRetries) {
+                    throw e;
+                }
+                System.out.println("Retrying range at byte " + position + " of " + url + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private HttpURLConnection openConnection(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        return connection;
+    }
+
+    // Copy to the channel from position up to end or the end of the stream, advancing position after every write
+    private static void write(InputStream inputStream, FileChannel channel, AtomicLong position, long end,
+                              Progress progress) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (position.get() < end) {
+            int bytesRead = inputStream.read(buffer, 0, (int) Math.min(buffer.length, end - position.get()));
+            if (bytesRead == -1) {
+                break;
+            }
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, bytesRead);
+            while (byteBuffer.hasRemaining()) {
+                position.addAndGet(channel.write(byteBuffer, position.get()));
+            }
+            progress.add(bytesRead);
+        }
+    }
+
+    // Bytes written by all connections; reported to the listener only on the thread that started the download
+    private static final class Progress {
+        private final LongConsumer listener;
+        private final Thread callingThread = Thread.currentThread();
+        private final AtomicLong bytes = new AtomicLong();
+        private long lastReportNanos = System.nanoTime();
+
+        Progress(LongConsumer listener) {
+            this.listener = listener;
+        }
+
+        void add(long written) {
+            bytes.addAndGet(written);
+            if (Thread.currentThread() == callingThread
+                    && System.nanoTime() - lastReportNanos >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MILLIS)) {
+                report();
+            }
+        }
+
+        void report() {
+            lastReportNanos = System.nanoTime();
+            if (listener != null) {
+                listener.accept(bytes.get());
+            }
+        }
+    }
+
+    // Identifies the version of the video, so the ranges all come from the same one
+    private static String sourceValidator(HttpURLConnection connection) {
+        String eTag = connection.getHeaderField("ETag");
+        return eTag != null ? eTag : connection.getHeaderField("Last-Modified");
+    }
+}
@@ -0,0 +1,250 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.retry.RetryUtils;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Worker-wide token bucket for the requests to one AWS service in one region.
+ * The rate adapts with AIMD: it grows by VsConfig.RATE_LIMIT_INCREASE_TPS for every second without throttling and
+ * is multiplied by VsConfig.RATE_LIMIT_DECREASE_FACTOR when the service throttles, so all activities of a worker
+ * together settle just below the account's request quota instead of retrying into it.
+ * Callers that find the bucket empty sleep until the next token is due at the current rate and check again, so
+ * a lowered rate applies to the callers already waiting.
+ * Time is read from a Clock, which tests replace with a manual one.
+ */
+public final class VsRateLimiter {
+    private static final Map<String, VsRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Source of the time the rate is measured in, and of the waits for tokens.
+     */
+    public interface Clock {
+        long nanoTime();
+
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    private static final Clock systemClock = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long nanos) throws InterruptedException {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    };
+
+    private final String service;
+    private final String region;
+    private final double minRate;
+    private final double maxRate;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized, which would pin virtual threads
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private double rate; // Requests per second
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastIncreaseNanos;
+    private long lastDecreaseNanos;
+
+    /**
+     * @param service Service name, e.g. translate
+     * @param region AWS region
+     * @param initialRate Requests per second to start with
+     * @param minRate Lowest rate throttling can push the limiter down to
+     * @param maxRate Highest rate the limiter probes up to
+     */
+    public VsRateLimiter(String service, String region, double initialRate, double minRate, double maxRate) {
+        this(service, region, initialRate, minRate, maxRate, systemClock);
+    }
+
+    /**
+     * @param clock Time source, for tests; the other constructor uses System.nanoTime and real sleeps
+     */
+    public VsRateLimiter(String service, String region, double initialRate, double minRate, double maxRate,
+                         Clock clock) {
+        this.service = service;
+        this.region = region;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.clock = clock;
+        this.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+        this.tokens = 1;
+        this.lastRefillNanos = clock.nanoTime();
+        this.lastIncreaseNanos = lastRefillNanos;
+        this.lastDecreaseNanos = lastRefillNanos - TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * @return The limiter shared by all activities of this worker for the service in the region
+     */
+    public static VsRateLimiter forService(String service, String region) {
+        return limiters.computeIfAbsent(service + "/" + region, key -> {
+            VsRateLimiter limiter = new VsRateLimiter(service, region, initialRate(service),
+                    VsConfig.RATE_LIMIT_MIN_TPS, VsConfig.RATE_LIMIT_MAX_TPS);
+            VsMetrics.registerRateLimiter(limiter);
+            return limiter;
+        });
+    }
+
+    /**
+     * Run one request under the limiter of the service, feeding its outcome back into the rate.
+     */
+    public static <R> R call(String service, String region, Callable<R> request) throws Exception {
+        if (!VsConfig.RATE_LIMIT_ENABLED) {
+            return request.call();
+        }
+        return forService(service, region).call(request);
+    }
+
+    /**
+     * Run one request under this limiter, feeding its outcome back into the rate.
+     * A throttled request is sent again at the lowered rate, up to VsConfig.RATE_LIMIT_THROTTLE_RETRIES times,
+     * instead of failing the whole activity attempt.
+     */
+    public <R> R call(Callable<R> request) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            acquire();
+            try {
+                R result = request.call();
+                onSuccess();
+                return result;
+            } catch (SdkBaseException e) {
+                if (!RetryUtils.isThrottlingException(e)) {
+                    throw e;
+                }
+                onThrottle();
+                if (attempt >= VsConfig.RATE_LIMIT_THROTTLE_RETRIES) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait until the next request may be sent.
+     */
+    public void acquire() throws InterruptedException {
+        waiting.incrementAndGet();
+        try {
+            while (true) {
+                long waitNanos;
+                lock.lock();
+                try {
+                    refill(clock.nanoTime());
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    waitNanos = (long) ((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+                } finally {
+                    lock.unlock();
+                }
+                clock.sleep(waitNanos);
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Additive increase, at most once per second.
+     */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            long now = clock.nanoTime();
+            if (now - lastIncreaseNanos >= TimeUnit.SECONDS.toNanos(1)) {
+                refill(now);
+                rate = Math.min(maxRate, rate + VsConfig.RATE_LIMIT_INCREASE_TPS);
+                lastIncreaseNanos = now;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Multiplicative decrease. The requests already in flight at the old rate are throttled together,
+     * so the rate is cut at most once per second.
+     */
+    public void onThrottle() {
+        VsMetrics.recordThrottle(service, region);
+        lock.lock();
+        try {
+            long now = clock.nanoTime();
+            if (now - lastDecreaseNanos >= TimeUnit.SECONDS.toNanos(1)) {
+                refill(now);
+                rate = Math.max(minRate, rate * VsConfig.RATE_LIMIT_DECREASE_FACTOR);
+                tokens = Math.min(tokens, 0); // Drop the burst allowance
+                lastDecreaseNanos = now;
+                lastIncreaseNanos = now;
+                System.out.println(String.format("%s in %s throttled, lowering the rate to %.1f requests/s",
+                        service, region, rate));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * @return Current rate in requests per second
+     */
+    public double getRate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Callers waiting for a token
+     */
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RateLimiter{service=%s, region=%s, rate=%.1f, queueDepth=%d}",
+                service, region, getRate(), getQueueDepth());
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Bursts are capped at one second of requests
+    private void refill(long now) {
+        tokens = Math.min(Math.max(1, rate), tokens + (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+
+    private static double initialRate(String service) {
+        return switch (service) {
+            case "translate" -> VsConfig.RATE_LIMIT_TRANSLATE_TPS;
+            case "comprehend" -> VsConfig.RATE_LIMIT_COMPREHEND_TPS;
+            default -> VsConfig.RATE_LIMIT_MAX_TPS;
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claim-check store in the job bucket. References look like s3://bucket/payloads/&lt;scope&gt;/&lt;uuid&gt;/&lt;name&gt;.txt
+ * The scope is URL-encoded, so one scope is never a prefix of another.
+ */
+public class VsS3BlobStore implements VsBlobStore {
+    private static final String PREFIX = "payloads/";
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final String scopePrefix;
+
+    /**
+     * @param scope Owner of the stored texts, usually the workflow ID
+     */
+    public VsS3BlobStore(AmazonS3 s3Client, String bucketName, String scope) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.scopePrefix = PREFIX + URLEncoder.encode(scope, StandardCharsets.UTF_8) + "/";
+    }
+
+    @Override
+    public String put(String name, String text) {
+        String key = scopePrefix + UUID.randomUUID() + "/" + name + ".txt";
+        s3Client.putObject(bucketName, key, text);
+        return "s3://" + bucketName + "/" + key;
+    }
+
+    @Override
+    public String get(String reference) {
+        String prefix = "s3://" + bucketName + "/";
+        if (!reference.startsWith(prefix)) {
+            throw new IllegalArgumentException("Not a reference to bucket " + bucketName + ": " + reference);
+        }
+        return s3Client.getObjectAsString(bucketName, reference.substring(prefix.length()));
+    }
+
+    @Override
+    public int deleteAll() {
+        int deleted = 0;
+        ListObjectsV2Request listRequest = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(scopePrefix);
+        ListObjectsV2Result listing;
+        do {
+            // A listing page holds at most 1000 keys, the most a single DeleteObjects request accepts
+            listing = s3Client.listObjectsV2(listRequest);
+            List<DeleteObjectsRequest.KeyVersion> keys = new ArrayList<>();
+            for (S3ObjectSummary object : listing.getObjectSummaries()) {
+                keys.add(new DeleteObjectsRequest.KeyVersion(object.getKey()));
+            }
+            if (!keys.isEmpty()) {
+                s3Client.deleteObjects(new DeleteObjectsRequest(bucketName).withKeys(keys).withQuiet(true));
+                deleted += keys.size();
+            }
+            listRequest.setContinuationToken(listing.getNextContinuationToken());
+        } while (listing.isTruncated());
+        return deleted;
+    }
+}
@@ -0,0 +1,76 @@
+package io.temporal.exercises.videosummary;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bucket and key of an S3 object named by a video URL: s3://bucket/key, a virtual-hosted-style URL
+ * (https://bucket.s3.region.amazonaws.com/key) or a path-style URL (https://s3.region.amazonaws.com/bucket/key,
+ * or vs.s3.endpoint/bucket/key). The query string of a pre-signed URL is ignored.
+ */
+public record VsS3Location(String bucketName, String key) {
+    private static final Pattern PATH_STYLE_HOST = Pattern.compile("s3([.-][a-z0-9-]+)*\\.amazonaws\\.com(\\.cn)?");
+    private static final Pattern VIRTUAL_HOST = Pattern.compile("(.+)\\.s3([.-][a-z0-9-]+)*\\.amazonaws\\.com(\\.cn)?");
+
+    /**
+     * @return The object the URL names, or empty if it is not an S3 URL
+     */
+    public static Optional<VsS3Location> fromUrl(String url) {
+        return fromUrl(url, VsConfig.S3_ENDPOINT);
+    }
+
+    // As fromUrl(url), with path-style URLs also accepted on the given S3 endpoint (null for AWS only)
+    static Optional<VsS3Location> fromUrl(String url, String s3Endpoint) {
+        if (url.startsWith("s3://")) {
+            // Keys in s3:// URLs are written as they are, without percent-encoding
+            String location = url.substring("s3://".length());
+            int slash = location.indexOf('/');
+            return slash > 0 && slash < location.length() - 1
+                    ? Optional.of(new VsS3Location(location.substring(0, slash), location.substring(slash + 1)))
+                    : Optional.empty();
+        }
+
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return Optional.empty();
+        }
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase();
+        String path = uri.getPath() == null || uri.getPath().isEmpty() ? "" : uri.getPath().substring(1);
+
+        if (PATH_STYLE_HOST.matcher(host).matches() || isS3Endpoint(uri, s3Endpoint)) {
+            int slash = path.indexOf('/');
+            return slash > 0 && slash < path.length() - 1
+                    ? Optional.of(new VsS3Location(path.substring(0, slash), path.substring(slash + 1)))
+                    : Optional.empty();
+        }
+
+        Matcher virtualHost = VIRTUAL_HOST.matcher(host);
+        if (virtualHost.matches() && !path.isEmpty()) {
+            return Optional.of(new VsS3Location(virtualHost.group(1), path));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "s3://" + bucketName + "/" + key;
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static boolean isS3Endpoint(URI uri, String s3Endpoint) {
+        if (s3Endpoint == null) {
+            return false;
+        }
+        URI endpoint = URI.create(s3Endpoint);
+        return endpoint.getHost() != null && endpoint.getHost().equalsIgnoreCase(uri.getHost())
+                && endpoint.getPort() == uri.getPort();
+    }
+}
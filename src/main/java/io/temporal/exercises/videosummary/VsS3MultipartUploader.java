@@ -0,0 +1,391 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.amazonaws.services.s3.model.MultipartUploadListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Streams an input stream into S3 using a multipart upload.
+ * The stream is cut into fixed-size parts which are uploaded concurrently while the next part is being read,
+ * so downloading and uploading overlap. A fixed pool of part buffers caps both the memory used and the number
+ * of parts in flight: reading blocks until an uploaded part hands its buffer back.
+ * An upload with a progress listener reports its progress after every completed part. When it also has a source
+ * validator it is resumable: it can be continued from that progress by a later call, and it is left in place
+ * instead of being aborted when it fails. Once no attempt will continue it,
+ * the caller must abort it with {@link #abort} or {@link #abortAll}, or its parts are stored and billed until
+ * the bucket's AbortIncompleteMultipartUpload lifecycle rule removes them.
+ * Objects already in S3 are copied server-side, part by part, without passing through this process.
+ */
+public class VsS3MultipartUploader {
+    // Smallest part size S3 accepts for all parts except the last one
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    // Objects up to this size are copied with a single request; larger ones part by part
+    private static final long COPY_PART_SIZE = 64L * 1024 * 1024;
+
+    // Shared by all uploads. The number of tasks per upload is bounded by its buffer pool.
+    private static final ExecutorService partUploadExecutor = VsThreads.newExecutor("vs-s3-part-upload");
+
+    private final AmazonS3 s3Client;
+    private final int partSize;
+    private final int maxPartsInFlight;
+
+    public VsS3MultipartUploader(AmazonS3 s3Client, int partSize, int maxPartsInFlight) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        if (maxPartsInFlight < 1) {
+            throw new IllegalArgumentException("At least one part must be allowed in flight");
+        }
+        this.s3Client = s3Client;
+        this.partSize = partSize;
+        this.maxPartsInFlight = maxPartsInFlight;
+    }
+
+    /**
+     * Upload the stream to the given bucket and key. The stream is read to the end but not closed.
+     * @param inputStream Source data
+     * @param bucketName Target bucket
+     * @param key Target key
+     * @return Number of bytes uploaded
+     */
+    public long upload(InputStream inputStream, String bucketName, String key) throws IOException {
+        return upload(inputStream, bucketName, key, null, null, null);
+    }
+
+    /**
+     * Upload the stream as a resumable multipart upload.
+     * @param inputStream Source data, positioned at resumeFrom.bytesUploaded() when resuming
+     * @param bucketName Target bucket
+     * @param key Target key, must match resumeFrom.s3Key() when resuming
+     * @param resumeFrom Progress of an earlier attempt, or null to start a new upload
+     * @param sourceValidator ETag or Last-Modified of the source, recorded in the progress; null when the source
+     *                        cannot tell its versions apart, so the upload is aborted when it fails
+     * @param progressListener Called on the calling thread whenever more leading parts have completed; may be null
+     * @return Number of bytes uploaded, including those of the earlier attempt
+     */
+    public long upload(InputStream inputStream, String bucketName, String key, VsUploadProgress resumeFrom,
+                       String sourceValidator, Consumer<VsUploadProgress> progressListener) throws IOException {
+        byte[] firstPart = new byte[partSize];
+        int firstPartLength = readPart(inputStream, firstPart);
+
+        // Everything fits in one part: a single PUT is cheaper than a multipart upload
+        if (resumeFrom == null && firstPartLength < partSize) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(firstPartLength);
+            s3Client.putObject(bucketName, key, new ByteArrayInputStream(firstPart, 0, firstPartLength), metadata);
+            return firstPartLength;
+        }
+
+        String uploadId = resumeFrom != null
+                ? resumeFrom.uploadId()
+                : s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key)).getUploadId();
+
+        BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(maxPartsInFlight);
+        for (int i = 1; i < maxPartsInFlight; i++) {
+            freeBuffers.add(new byte[partSize]);
+        }
+
+        ProgressTracker progress = new ProgressTracker(key, uploadId, resumeFrom, sourceValidator, progressListener);
+        List<Future<PartETag>> pendingParts = new ArrayList<>();
+        List<Integer> pendingLengths = new ArrayList<>();
+        long totalBytes = resumeFrom != null ? resumeFrom.bytesUploaded() : 0;
+        try {
+            byte[] buffer = firstPart;
+            int length = firstPartLength;
+            int partNumber = resumeFrom != null ? resumeFrom.parts().size() + 1 : 1;
+            while (length > 0) {
+                pendingParts.add(submitPart(bucketName, key, uploadId, partNumber++, buffer, length, freeBuffers));
+                pendingLengths.add(length);
+                totalBytes += length;
+                if (length < partSize) {
+                    break; // End of stream
+                }
+
+                // Blocks while all buffers are in flight
+                buffer = freeBuffers.take();
+                checkForFailedParts(pendingParts);
+
+                if (progressListener != null) {
+                    progress.update(pendingParts, pendingLengths);
+                }
+
+                length = readPart(inputStream, buffer);
+                if (length == 0) {
+                    freeBuffers.add(buffer);
+                }
+            }
+
+            List<PartETag> partETags = new ArrayList<>();
+            if (resumeFrom != null) {
+                for (VsUploadProgress.Part part : resumeFrom.parts()) {
+                    partETags.add(new PartETag(part.partNumber(), part.eTag()));
+                }
+            }
+            for (Future<PartETag> pendingPart : pendingParts) {
+                partETags.add(pendingPart.get());
+            }
+            partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+
+            s3Client.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+            return totalBytes;
+        } catch (Exception e) {
+            if (progressListener != null && sourceValidator != null) {
+                // Record the parts that made it, so the next attempt continues from there
+                try {
+                    progress.update(pendingParts, pendingLengths);
+                } catch (RuntimeException progressFailure) {
+                    e.addSuppressed(progressFailure);
+                }
+            } else {
+                abortQuietly(bucketName, key, uploadId);
+            }
+            pendingParts.forEach(part -> part.cancel(true));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (e instanceof ExecutionException && e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new IOException("Multipart upload of " + key + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copy an S3 object server-side. Objects larger than one copy part are copied as a multipart upload of
+     * concurrent part copies, at most maxPartsInFlight at a time, which also works beyond the 5 GB limit of a
+     * single copy request.
+     * @return Size of the object
+     */
+    public long copy(String sourceBucketName, String sourceKey, String bucketName, String key) throws IOException {
+        long size = s3Client.getObjectMetadata(sourceBucketName, sourceKey).getContentLength();
+        if (size <= COPY_PART_SIZE) {
+            s3Client.copyObject(sourceBucketName, sourceKey, bucketName, key);
+            return size;
+        }
+
+        String uploadId = s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key))
+                .getUploadId();
+        CompletionService<PartETag> completionService = new ExecutorCompletionService<>(partUploadExecutor);
+        List<Future<PartETag>> inFlight = new ArrayList<>();
+        int partCount = (int) ((size + COPY_PART_SIZE - 1) / COPY_PART_SIZE);
+        int nextPart = 1;
+        try {
+            while (nextPart <= partCount && inFlight.size() < maxPartsInFlight) {
+                inFlight.add(submitPartCopy(completionService, sourceBucketName, sourceKey, bucketName, key, uploadId,
+                        nextPart++, size));
+            }
+
+            List<PartETag> partETags = new ArrayList<>();
+            for (int completed = 0; completed < partCount; completed++) {
+                partETags.add(completionService.take().get());
+                if (nextPart <= partCount) {
+                    inFlight.add(submitPartCopy(completionService, sourceBucketName, sourceKey, bucketName, key,
+                            uploadId, nextPart++, size));
+                }
+            }
+            partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+
+            s3Client.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+            return size;
+        } catch (Exception e) {
+            abortQuietly(bucketName, key, uploadId);
+            inFlight.forEach(part -> part.cancel(true));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (e instanceof ExecutionException && e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new IOException("Multipart copy of " + sourceKey + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Whether the upload of an earlier attempt can be continued with this uploader
+     */
+    public boolean canResume(String bucketName, VsUploadProgress progress) {
+        if (progress.partSize() != partSize) {
+            return false;
+        }
+        try {
+            // Fails once the upload has been completed or aborted
+            s3Client.listParts(new ListPartsRequest(bucketName, progress.s3Key(), progress.uploadId()).withMaxParts(1));
+            return true;
+        } catch (Exception e) {
+            System.out.println("Cannot resume multipart upload " + progress.uploadId() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Abort a multipart upload that will not be resumed.
+     */
+    public void abort(String bucketName, VsUploadProgress progress) {
+        abortQuietly(bucketName, progress.s3Key(), progress.uploadId());
+    }
+
+    /**
+     * Abort every incomplete multipart upload under a key prefix, e.g. those a failed job left for a retry
+     * that never came.
+     * @return Number of uploads aborted
+     */
+    public int abortAll(String bucketName, String keyPrefix) {
+        int aborted = 0;
+        ListMultipartUploadsRequest listRequest = new ListMultipartUploadsRequest(bucketName).withPrefix(keyPrefix);
+        MultipartUploadListing listing;
+        do {
+            listing = s3Client.listMultipartUploads(listRequest);
+            for (MultipartUpload upload : listing.getMultipartUploads()) {
+                abortQuietly(bucketName, upload.getKey(), upload.getUploadId());
+                aborted++;
+            }
+            listRequest.setKeyMarker(listing.getNextKeyMarker());
+            listRequest.setUploadIdMarker(listing.getNextUploadIdMarker());
+        } while (listing.isTruncated());
+        return aborted;
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Tracks the leading parts that have completed and reports them when there are more
+    private final class ProgressTracker {
+        private final String key;
+        private final String uploadId;
+        private final String sourceValidator;
+        private final Consumer<VsUploadProgress> listener;
+        private final List<VsUploadProgress.Part> completedParts = new ArrayList<>();
+        private long completedBytes;
+        private int reportedParts; // Leading pending parts already included in completedParts
+
+        ProgressTracker(String key, String uploadId, VsUploadProgress resumeFrom, String sourceValidator,
+                        Consumer<VsUploadProgress> listener) {
+            this.key = key;
+            this.uploadId = uploadId;
+            this.sourceValidator = sourceValidator;
+            this.listener = listener;
+            if (resumeFrom != null) {
+                completedParts.addAll(resumeFrom.parts());
+                completedBytes = resumeFrom.bytesUploaded();
+            }
+        }
+
+        void update(List<Future<PartETag>> pendingParts, List<Integer> pendingLengths) {
+            int reported = reportedParts;
+            while (reportedParts < pendingParts.size() && pendingParts.get(reportedParts).isDone()) {
+                PartETag partETag;
+                try {
+                    partETag = pendingParts.get(reportedParts).get();
+                } catch (Exception e) {
+                    break; // Failed or cancelled part: the next attempt uploads it again
+                }
+                completedParts.add(new VsUploadProgress.Part(partETag.getPartNumber(), partETag.getETag()));
+                completedBytes += pendingLengths.get(reportedParts);
+                reportedParts++;
+            }
+            if (reportedParts > reported) {
+                listener.accept(new VsUploadProgress(key, uploadId, partSize, new ArrayList<>(completedParts),
+                        completedBytes, sourceValidator));
+            }
+        }
+    }
+
+    private Future<PartETag> submitPart(String bucketName, String key, String uploadId, int partNumber,
+                                       byte[] buffer, int length, BlockingQueue<byte[]> freeBuffers) {
+        return partUploadExecutor.submit(() -> {
+            try {
+                UploadPartRequest request = new UploadPartRequest()
+                        .withBucketName(bucketName)
+                        .withKey(key)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withInputStream(new ByteArrayInputStream(buffer, 0, length))
+                        .withPartSize(length);
+                return s3Client.uploadPart(request).getPartETag();
+            } finally {
+                freeBuffers.add(buffer);
+            }
+        });
+    }
+
+    private Future<PartETag> submitPartCopy(CompletionService<PartETag> completionService, String sourceBucketName,
+                                            String sourceKey, String bucketName, String key, String uploadId,
+                                            int partNumber, long size) {
+        long firstByte = (partNumber - 1) * COPY_PART_SIZE;
+        return completionService.submit(() -> s3Client.copyPart(new CopyPartRequest()
+                .withSourceBucketName(sourceBucketName)
+                .withSourceKey(sourceKey)
+                .withDestinationBucketName(bucketName)
+                .withDestinationKey(key)
+                .withUploadId(uploadId)
+                .withPartNumber(partNumber)
+                .withFirstByte(firstByte)
+                .withLastByte(Math.min(firstByte + COPY_PART_SIZE, size) - 1)).getPartETag());
+    }
+
+    private static void checkForFailedParts(List<Future<PartETag>> pendingParts) throws Exception {
+        for (Future<PartETag> pendingPart : pendingParts) {
+            if (pendingPart.isDone()) {
+                pendingPart.get(); // Rethrows the failure, if any
+            }
+        }
+    }
+
+    private void abortQuietly(String bucketName, String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+        } catch (Exception e) {
+            System.out.println("Failed to abort multipart upload " + uploadId + " for key " + key + ": " + e.getMessage());
+        }
+    }
+
+    // Fill the buffer until it is full or the stream ends
+    private static int readPart(InputStream inputStream, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int bytesRead = inputStream.read(buffer, length, buffer.length - length);
+            if (bytesRead == -1) {
+                break;
+            }
+            length += bytesRead;
+        }
+        return length;
+    }
+}
@@ -1,5 +1,15 @@
 package io.temporal.exercises.videosummary;
 
 public interface VsSharedKeys {
+    // Workflow tasks
     String VIDEO_SUMMARY_TASK_QUEUE = "VIDEO_SUMMARY_TASK_QUEUE";
+
+    // Bandwidth-heavy activities: upload to and delete from S3
+    String MEDIA_TASK_QUEUE = "VIDEO_SUMMARY_MEDIA_TASK_QUEUE";
+
+    // Quick Amazon Transcribe calls: start, status checks, fetching the transcript
+    String TRANSCRIPTION_TASK_QUEUE = "VIDEO_SUMMARY_TRANSCRIPTION_TASK_QUEUE";
+
+    // Text activities: translation and summary
+    String NLP_TASK_QUEUE = "VIDEO_SUMMARY_NLP_TASK_QUEUE";
 }
@@ -0,0 +1,21 @@
+package io.temporal.exercises.videosummary;
+
+/**
+ * Summarization engine behind the generateSummary activity.
+ * Implementations must be thread-safe; one instance serves every activity of a worker.
+ */
+public interface VsSummarizer {
+    /**
+     * @return Whether the engine can summarize text in this language
+     */
+    boolean supportsLanguage(String languageCode);
+
+    /**
+     * Summarize the text.
+     * @param jobDetails Job, for engines that call AWS with the job's credentials
+     * @param text Text to summarize
+     * @param languageCode Language of the text
+     * @return Summary
+     */
+    VsSummary summarize(VsJobDetails jobDetails, String text, String languageCode) throws Exception;
+}
@@ -0,0 +1,28 @@
+package io.temporal.exercises.videosummary;
+
+import java.util.List;
+
+/**
+ * Result of a summarization engine.
+ */
+public record VsSummary(
+        List<String> keySentences, // Most representative sentences, in text order; empty if the engine does not extract sentences
+        List<String> keyPhrases // Key phrases, most important first
+) {
+    /**
+     * @return Summary text returned by the workflow
+     */
+    public String format() {
+        StringBuilder summaryBuilder = new StringBuilder("Summary:\n");
+        for (String sentence : keySentences) {
+            summaryBuilder.append("- ").append(sentence).append("\n");
+        }
+        if (!keySentences.isEmpty() && !keyPhrases.isEmpty()) {
+            summaryBuilder.append("Key phrases:\n");
+        }
+        for (String phrase : keyPhrases) {
+            summaryBuilder.append("- ").append(phrase).append("\n");
+        }
+        return summaryBuilder.toString();
+    }
+}
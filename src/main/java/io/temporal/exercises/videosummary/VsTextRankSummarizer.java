@@ -0,0 +1,529 @@
+package io.temporal.exercises.videosummary;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Extractive summarizer that runs in the JVM (TextRank).
+ * Sentences are nodes of a graph whose edges are the cosine similarity of their TF-IDF vectors; PageRank over
+ * that graph picks the most central sentences. Only sentences sharing a word are compared, and every sentence keeps
+ * only its most similar neighbors, so the graph of a long transcript holds O(sentences) edges instead of one per pair
+ * of sentences. Key phrases come from PageRank over a word co-occurrence graph,
+ * with adjacent top-ranked words merged into phrases. Very common words are left out of the word graph, which
+ * stands in for the stop word lists and part-of-speech tags of classic TextRank, so every language BreakIterator
+ * can segment is supported. The similarity graph and the PageRank iterations are computed in parallel on a
+ * fork-join pool.
+ */
+public class VsTextRankSummarizer implements VsSummarizer {
+    private static final ForkJoinPool sharedPool = new ForkJoinPool(VsConfig.SUMMARY_TEXTRANK_PARALLELISM);
+
+    private static final double DAMPING = 0.85;
+    private static final int MAX_ITERATIONS = 100;
+    private static final double CONVERGENCE = 1e-6;
+
+    // Words in a larger share of the sentences than this are treated as stop words,
+    // once the text has enough sentences for the share to mean something
+    private static final double MAX_WORD_SENTENCE_SHARE = 0.3;
+    private static final int MIN_SENTENCES_FOR_WORD_SHARE = 30;
+
+    // Rows of the similarity graph computed by one fork-join task
+    private static final int ROWS_PER_TASK = 32;
+
+    // Words in more sentences than this do not link sentences in the similarity graph. In a long text these are
+    // function words of low TF-IDF weight, and comparing every pair of sentences containing them would make building
+    // the graph quadratic in the number of sentences. Texts of up to this many sentences are compared exactly.
+    private static final int MAX_LINKING_SENTENCES = 1000;
+
+    private record Token(String word, int start, int end) {
+    }
+
+    // Sparse adjacency: neighbors[i] and weights[i] are the edges of node i
+    private record Graph(int[][] neighbors, double[][] weights) {
+    }
+
+    private final ForkJoinPool pool;
+
+    // Most similar sentences each sentence is linked to in the similarity graph
+    private final int maxNeighbors;
+
+    public VsTextRankSummarizer() {
+        this(sharedPool, VsConfig.SUMMARY_TEXTRANK_NEIGHBORS);
+    }
+
+    public VsTextRankSummarizer(ForkJoinPool pool, int maxNeighbors) {
+        this.pool = pool;
+        this.maxNeighbors = maxNeighbors;
+    }
+
+    @Override
+    public boolean supportsLanguage(String languageCode) {
+        return true;
+    }
+
+    @Override
+    public VsSummary summarize(VsJobDetails jobDetails, String text, String languageCode) {
+        Locale locale = Locale.forLanguageTag(languageCode);
+
+        List<String> sentences = new ArrayList<>();
+        List<List<Token>> sentenceTokens = new ArrayList<>();
+        for (String sentence : VsTextSegmenter.sentences(text, locale, Integer.MAX_VALUE)) {
+            String trimmed = sentence.strip();
+            List<Token> tokens = tokens(trimmed, locale);
+            if (!tokens.isEmpty()) {
+                sentences.add(trimmed);
+                sentenceTokens.add(tokens);
+            }
+        }
+        if (sentences.isEmpty()) {
+            return new VsSummary(List.of(), List.of());
+        }
+
+        // Number of sentences each word occurs in
+        Map<String, Integer> sentenceFrequency = new HashMap<>();
+        for (List<Token> tokens : sentenceTokens) {
+            Set<String> words = new HashSet<>();
+            for (Token token : tokens) {
+                words.add(token.word());
+            }
+            words.forEach(word -> sentenceFrequency.merge(word, 1, Integer::sum));
+        }
+
+        List<String> keySentences = keySentences(sentences, sentenceTokens, sentenceFrequency);
+        List<String> keyPhrases = keyPhrases(sentences, sentenceTokens, sentenceFrequency, locale);
+
+        System.out.println("TextRank summarized " + sentences.size() + " sentences and "
+                + sentenceFrequency.size() + " distinct words");
+        return new VsSummary(keySentences, keyPhrases);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private List<String> keySentences(List<String> sentences, List<List<Token>> sentenceTokens,
+                                      Map<String, Integer> sentenceFrequency) {
+        int count = sentences.size();
+
+        // TF-IDF vector of every sentence as parallel arrays sorted by word ID, normalized to unit length
+        Map<String, Integer> wordIds = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        int[][] vectorWords = new int[count][];
+        double[][] vectorWeights = new double[count][];
+        for (int i = 0; i < count; i++) {
+            Map<Integer, Integer> termFrequency = new HashMap<>();
+            for (Token token : sentenceTokens.get(i)) {
+                int id = wordIds.computeIfAbsent(token.word(), word -> {
+                    words.add(word);
+                    return words.size() - 1;
+                });
+                termFrequency.merge(id, 1, Integer::sum);
+            }
+            int[] ids = termFrequency.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            double[] weights = new double[ids.length];
+            double norm = 0;
+            for (int w = 0; w < ids.length; w++) {
+                double idf = Math.log((double) count / sentenceFrequency.get(words.get(ids[w]))) + 1;
+                weights[w] = termFrequency.get(ids[w]) * idf;
+                norm += weights[w] * weights[w];
+            }
+            norm = Math.sqrt(norm);
+            for (int w = 0; w < weights.length; w++) {
+                weights[w] /= norm;
+            }
+            vectorWords[i] = ids;
+            vectorWeights[i] = weights;
+        }
+
+        // Sentences containing each word, with the word's weight in them, in sentence order
+        int[] postingCounts = new int[words.size()];
+        for (int[] ids : vectorWords) {
+            for (int id : ids) {
+                postingCounts[id]++;
+            }
+        }
+        int[][] postingSentences = new int[words.size()][];
+        double[][] postingWeights = new double[words.size()][];
+        for (int id = 0; id < words.size(); id++) {
+            postingSentences[id] = new int[postingCounts[id]];
+            postingWeights[id] = new double[postingCounts[id]];
+            postingCounts[id] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            for (int w = 0; w < vectorWords[i].length; w++) {
+                int id = vectorWords[i][w];
+                postingSentences[id][postingCounts[id]] = i;
+                postingWeights[id][postingCounts[id]++] = vectorWeights[i][w];
+            }
+        }
+
+        // Similarity graph: the most similar sentences of every sentence. Only sentences sharing a word are compared,
+        // summing the products of the shared words' weights. Rows are computed in parallel, in blocks that share one
+        // accumulator.
+        int[][] neighbors = new int[count][];
+        double[][] weights = new double[count][];
+        int blocks = (count + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+        parallelFor(blocks, 1, block -> {
+            double[] similarities = new double[count];
+            int[] similarSentences = new int[count];
+            for (int i = block * ROWS_PER_TASK; i < Math.min(count, (block + 1) * ROWS_PER_TASK); i++) {
+                int similarCount = 0;
+                for (int w = 0; w < vectorWords[i].length; w++) {
+                    int[] sentencesWithWord = postingSentences[vectorWords[i][w]];
+                    if (sentencesWithWord.length > MAX_LINKING_SENTENCES) {
+                        continue;
+                    }
+                    double[] weightsOfWord = postingWeights[vectorWords[i][w]];
+                    for (int p = 0; p < sentencesWithWord.length; p++) {
+                        int j = sentencesWithWord[p];
+                        if (j != i) {
+                            if (similarities[j] == 0) {
+                                similarSentences[similarCount++] = j;
+                            }
+                            similarities[j] += vectorWeights[i][w] * weightsOfWord[p];
+                        }
+                    }
+                }
+
+                NearestNeighbors nearest = new NearestNeighbors(Math.min(maxNeighbors, similarCount));
+                for (int s = 0; s < similarCount; s++) {
+                    nearest.offer(similarSentences[s], similarities[similarSentences[s]]);
+                    similarities[similarSentences[s]] = 0;
+                }
+                neighbors[i] = nearest.neighbors();
+                weights[i] = nearest.weights();
+            }
+        });
+
+        double[] scores = pageRank(symmetric(new Graph(neighbors, weights)));
+
+        // Best sentences, reported in text order
+        Integer[] ranked = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            ranked[i] = i;
+        }
+        Arrays.sort(ranked, Comparator.<Integer>comparingDouble(i -> -scores[i]).thenComparingInt(i -> i));
+        int[] best = Arrays.stream(ranked)
+                .limit(VsConfig.SUMMARY_TOP_SENTENCES)
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+        List<String> keySentences = new ArrayList<>(best.length);
+        for (int i : best) {
+            keySentences.add(sentences.get(i));
+        }
+        return keySentences;
+    }
+
+    private List<String> keyPhrases(List<String> sentences, List<List<Token>> sentenceTokens,
+                                    Map<String, Integer> sentenceFrequency, Locale locale) {
+        // Candidate words: not too common and not too short (see isCandidate)
+        int maxSentences = sentences.size() < MIN_SENTENCES_FOR_WORD_SHARE
+                ? Integer.MAX_VALUE
+                : (int) Math.ceil(sentences.size() * MAX_WORD_SENTENCE_SHARE);
+        Map<String, Integer> wordIds = new HashMap<>();
+        for (List<Token> tokens : sentenceTokens) {
+            for (Token token : tokens) {
+                if (isCandidate(token.word(), sentenceFrequency.get(token.word()), maxSentences)) {
+                    wordIds.computeIfAbsent(token.word(), word -> wordIds.size());
+                }
+            }
+        }
+        if (wordIds.isEmpty()) {
+            return List.of();
+        }
+
+        // Co-occurrence graph: candidate words next to each other within a sentence
+        List<Map<Integer, Double>> edges = new ArrayList<>();
+        for (int i = 0; i < wordIds.size(); i++) {
+            edges.add(new HashMap<>());
+        }
+        for (List<Token> tokens : sentenceTokens) {
+            Integer previous = null;
+            for (Token token : tokens) {
+                Integer current = wordIds.get(token.word());
+                if (current != null && previous != null && !current.equals(previous)) {
+                    edges.get(previous).merge(current, 1.0, Double::sum);
+                    edges.get(current).merge(previous, 1.0, Double::sum);
+                }
+                previous = current;
+            }
+        }
+        int[][] neighbors = new int[edges.size()][];
+        double[][] weights = new double[edges.size()][];
+        for (int i = 0; i < edges.size(); i++) {
+            neighbors[i] = edges.get(i).keySet().stream().mapToInt(Integer::intValue).toArray();
+            weights[i] = new double[neighbors[i].length];
+            for (int e = 0; e < neighbors[i].length; e++) {
+                weights[i][e] = edges.get(i).get(neighbors[i][e]);
+            }
+        }
+        double[] scores = pageRank(new Graph(neighbors, weights));
+
+        // Keep the top third of the words, then merge runs of kept words into phrases
+        double[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        double threshold = sorted[Math.max(0, sorted.length - Math.max(1, sorted.length / 3))];
+
+        VsKeyPhraseRanker ranker = new VsKeyPhraseRanker(locale);
+        for (int s = 0; s < sentenceTokens.size(); s++) {
+            List<Token> tokens = sentenceTokens.get(s);
+            int runStart = -1;
+            double runScore = 0;
+            for (int t = 0; t <= tokens.size(); t++) {
+                Integer id = t < tokens.size() ? wordIds.get(tokens.get(t).word()) : null;
+                if (id != null && scores[id] >= threshold) {
+                    if (runStart < 0) {
+                        runStart = t;
+                        runScore = 0;
+                    }
+                    runScore += scores[id];
+                } else if (runStart >= 0) {
+                    // Original spelling and spacing of the phrase
+                    ranker.add(sentences.get(s).substring(tokens.get(runStart).start(), tokens.get(t - 1).end()),
+                            runScore);
+                    runStart = -1;
+                }
+            }
+        }
+        return ranker.top(VsConfig.SUMMARY_TOP_PHRASES);
+    }
+
+    // Links every edge back as well, keeping one edge per pair. Rows must be sorted by neighbor.
+    private static Graph symmetric(Graph graph) {
+        int count = graph.neighbors().length;
+        int[] degrees = new int[count];
+        for (int i = 0; i < count; i++) {
+            degrees[i] += graph.neighbors()[i].length;
+            for (int j : graph.neighbors()[i]) {
+                if (Arrays.binarySearch(graph.neighbors()[j], i) < 0) {
+                    degrees[j]++;
+                }
+            }
+        }
+
+        int[][] neighbors = new int[count][];
+        double[][] weights = new double[count][];
+        int[] filled = new int[count];
+        for (int i = 0; i < count; i++) {
+            neighbors[i] = Arrays.copyOf(graph.neighbors()[i], degrees[i]);
+            weights[i] = Arrays.copyOf(graph.weights()[i], degrees[i]);
+            filled[i] = graph.neighbors()[i].length;
+        }
+        for (int i = 0; i < count; i++) {
+            int[] row = graph.neighbors()[i];
+            for (int e = 0; e < row.length; e++) {
+                int j = row[e];
+                if (Arrays.binarySearch(graph.neighbors()[j], i) < 0) {
+                    neighbors[j][filled[j]] = i;
+                    weights[j][filled[j]] = graph.weights()[i][e];
+                    filled[j]++;
+                }
+            }
+        }
+        return new Graph(neighbors, weights);
+    }
+
+    // Weighted PageRank. Each iteration updates the nodes in parallel from the scores of the previous one.
+    private double[] pageRank(Graph graph) {
+        int count = graph.neighbors().length;
+        double[] outWeights = new double[count];
+        for (int i = 0; i < count; i++) {
+            for (double weight : graph.weights()[i]) {
+                outWeights[i] += weight;
+            }
+        }
+
+        double[] scores = new double[count];
+        Arrays.fill(scores, 1.0);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double[] previous = scores;
+            double[] next = new double[count];
+            parallelFor(count, ROWS_PER_TASK, i -> {
+                // The graphs are symmetric, so the edges of node i are also its incoming edges
+                double rank = 0;
+                int[] neighbors = graph.neighbors()[i];
+                double[] weights = graph.weights()[i];
+                for (int e = 0; e < neighbors.length; e++) {
+                    rank += weights[e] / outWeights[neighbors[e]] * previous[neighbors[e]];
+                }
+                next[i] = (1 - DAMPING) + DAMPING * rank;
+            });
+
+            double delta = 0;
+            for (int i = 0; i < count; i++) {
+                delta = Math.max(delta, Math.abs(next[i] - previous[i]));
+            }
+            scores = next;
+            if (delta < CONVERGENCE) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    // Runs body for 0 to count - 1, in fork-join tasks of at most grain indexes
+    private void parallelFor(int count, int grain, IntConsumer body) {
+        pool.invoke(new RowRange(0, count, grain, body));
+    }
+
+    private static final class RowRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+        private final int grain;
+        private final IntConsumer body;
+
+        RowRange(int start, int end, int grain, IntConsumer body) {
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= grain) {
+                for (int i = start; i < end; i++) {
+                    body.accept(i);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RowRange(start, middle, grain, body), new RowRange(middle, end, grain, body));
+            }
+        }
+    }
+
+    // The most similar sentences offered, in a min-heap on similarity. A sentence offered later replaces a kept one
+    // only when it is more similar, so the result depends only on the order of the offers.
+    private static final class NearestNeighbors {
+        private final int[] heapNeighbors;
+        private final double[] heapWeights;
+        private int size;
+
+        NearestNeighbors(int capacity) {
+            heapNeighbors = new int[capacity];
+            heapWeights = new double[capacity];
+        }
+
+        void offer(int neighbor, double weight) {
+            if (size < heapNeighbors.length) {
+                heapNeighbors[size] = neighbor;
+                heapWeights[size] = weight;
+                siftUp(size++);
+            } else if (size > 0 && weight > heapWeights[0]) {
+                heapNeighbors[0] = neighbor;
+                heapWeights[0] = weight;
+                siftDown(0);
+            }
+        }
+
+        // Neighbors kept, sorted by sentence index
+        int[] neighbors() {
+            int[] neighbors = Arrays.copyOf(heapNeighbors, size);
+            Arrays.sort(neighbors);
+            return neighbors;
+        }
+
+        // Weights in the order of neighbors()
+        double[] weights() {
+            Integer[] order = new Integer[size];
+            for (int e = 0; e < size; e++) {
+                order[e] = e;
+            }
+            Arrays.sort(order, Comparator.comparingInt(e -> heapNeighbors[e]));
+            double[] weights = new double[size];
+            for (int e = 0; e < size; e++) {
+                weights[e] = heapWeights[order[e]];
+            }
+            return weights;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (heapWeights[parent] <= heapWeights[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (heapWeights[child] < heapWeights[smallest]) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(smallest, index);
+                index = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int neighbor = heapNeighbors[a];
+            heapNeighbors[a] = heapNeighbors[b];
+            heapNeighbors[b] = neighbor;
+            double weight = heapWeights[a];
+            heapWeights[a] = heapWeights[b];
+            heapWeights[b] = weight;
+        }
+    }
+
+    private static boolean isCandidate(String word, int sentences, int maxSentences) {
+        if (sentences > maxSentences) {
+            return false;
+        }
+        int length = word.codePointCount(0, word.length());
+        Character.UnicodeScript script = Character.UnicodeScript.of(word.codePointAt(0));
+        return switch (script) {
+            // Ideographic scripts write whole words with one or two characters
+            case HAN, HANGUL, HIRAGANA, KATAKANA -> true;
+            // In alphabetic scripts the short words are mostly articles, prepositions and auxiliaries
+            case LATIN, CYRILLIC, GREEK -> length > 3;
+            default -> length > 1;
+        };
+    }
+
+    // Words of the sentence, lower-cased, with their position in the sentence
+    private static List<Token> tokens(String sentence, Locale locale) {
+        List<Token> tokens = new ArrayList<>();
+        BreakIterator iterator = BreakIterator.getWordInstance(locale);
+        iterator.setText(sentence);
+        int start = iterator.first();
+        for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+            if (containsLetterOrDigit(sentence, start, end)) {
+                tokens.add(new Token(sentence.substring(start, end).toLowerCase(locale), start, end));
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean containsLetterOrDigit(String text, int start, int end) {
+        for (int i = start; i < end; ) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                return true;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return false;
+    }
+}
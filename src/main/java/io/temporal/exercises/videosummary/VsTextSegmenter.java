@@ -0,0 +1,186 @@
+package io.temporal.exercises.videosummary;
+
+import java.nio.charset.StandardCharsets;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits long texts into size-bounded segments for AWS text APIs that limit the request size in UTF-8 bytes.
+ * Segments end at sentence boundaries where possible; consecutive sentences are packed into one segment
+ * up to the limit. A sentence that is too long on its own is split at word boundaries, and as a last resort
+ * at character boundaries. The result is deterministic for the same input.
+ * BreakIterator ends a sentence after every period followed by a capital, so common abbreviations and initials
+ * ("Dr. Smith", "J. Smith") are joined with the sentence that follows.
+ */
+public final class VsTextSegmenter {
+    // Abbreviations that are usually followed by more of the same sentence, without the final period
+    private static final Set<String> ABBREVIATIONS = Set.of(
+            "mr", "mrs", "ms", "dr", "prof", "st", "jr", "sr", "vs", "e.g", "i.e", "fig", "approx");
+
+    private VsTextSegmenter() {
+    }
+
+    /**
+     * Split the text into segments of at most maxBytes UTF-8 bytes each.
+     * @param text Text to split
+     * @param locale Language of the text, used to find sentence and word boundaries
+     * @param maxBytes Maximum size of a segment in UTF-8 bytes
+     * @return Segments in text order. Concatenating them yields the original text.
+     */
+    public static List<String> split(String text, Locale locale, int maxBytes) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        int segmentBytes = 0;
+        for (String sentence : sentences(text, locale, maxBytes)) {
+            int sentenceBytes = utf8Length(sentence);
+            if (segmentBytes + sentenceBytes > maxBytes) {
+                segments.add(segment.toString());
+                segment.setLength(0);
+                segmentBytes = 0;
+            }
+            segment.append(sentence);
+            segmentBytes += sentenceBytes;
+        }
+
+        if (segment.length() > 0) {
+            segments.add(segment.toString());
+        }
+        return segments;
+    }
+
+    /**
+     * Split the text into sentences of at most maxBytes UTF-8 bytes each, without packing them together.
+     * @param text Text to split
+     * @param locale Language of the text, used to find sentence and word boundaries
+     * @param maxBytes Maximum size of a piece in UTF-8 bytes
+     * @return Sentences, or pieces of sentences that are too long, in text order.
+     *         Concatenating them yields the original text.
+     */
+    public static List<String> sentences(String text, Locale locale, int maxBytes) {
+        List<String> sentences = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return sentences;
+        }
+
+        for (String sentence : joinAbbreviations(pieces(text, BreakIterator.getSentenceInstance(locale)))) {
+            if (utf8Length(sentence) > maxBytes) {
+                // Too long on its own: break the sentence down further
+                sentences.addAll(splitLongSentence(sentence, locale, maxBytes));
+            } else {
+                sentences.add(sentence);
+            }
+        }
+        return sentences;
+    }
+
+    /**
+     * @return Size of the text in UTF-8 bytes, without encoding it
+     */
+    public static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static List<String> pieces(String text, BreakIterator iterator) {
+        List<String> pieces = new ArrayList<>();
+        iterator.setText(text);
+        int start = iterator.first();
+        for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+            pieces.add(text.substring(start, end));
+        }
+        return pieces;
+    }
+
+    private static List<String> joinAbbreviations(List<String> pieces) {
+        List<String> sentences = new ArrayList<>();
+        StringBuilder sentence = new StringBuilder();
+        for (String piece : pieces) {
+            sentence.append(piece);
+            if (!endsWithAbbreviation(piece)) {
+                sentences.add(sentence.toString());
+                sentence.setLength(0);
+            }
+        }
+        if (sentence.length() > 0) {
+            sentences.add(sentence.toString());
+        }
+        return sentences;
+    }
+
+    // A listed abbreviation or a single capital letter, as in an initial, before the final period
+    private static boolean endsWithAbbreviation(String piece) {
+        String trimmed = piece.stripTrailing();
+        if (!trimmed.endsWith(".")) {
+            return false;
+        }
+        String lastWord = trimmed.substring(trimmed.lastIndexOf(' ') + 1, trimmed.length() - 1);
+        return ABBREVIATIONS.contains(lastWord.toLowerCase(Locale.ROOT))
+                || (lastWord.length() == 1 && Character.isUpperCase(lastWord.charAt(0)));
+    }
+
+    private static List<String> splitLongSentence(String sentence, Locale locale, int maxBytes) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        int segmentBytes = 0;
+        for (String word : pieces(sentence, BreakIterator.getWordInstance(locale))) {
+            int wordBytes = utf8Length(word);
+            if (segmentBytes + wordBytes > maxBytes && segment.length() > 0) {
+                segments.add(segment.toString());
+                segment.setLength(0);
+                segmentBytes = 0;
+            }
+            if (wordBytes > maxBytes) {
+                segments.addAll(splitByCharacters(word, maxBytes));
+                continue;
+            }
+            segment.append(word);
+            segmentBytes += wordBytes;
+        }
+
+        if (segment.length() > 0) {
+            segments.add(segment.toString());
+        }
+        return segments;
+    }
+
+    // Never splits a surrogate pair
+    private static List<String> splitByCharacters(String text, int maxBytes) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int bytes = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            int codePointBytes = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            if (bytes + codePointBytes > maxBytes && i > start) {
+                segments.add(text.substring(start, i));
+                start = i;
+                bytes = 0;
+            }
+            bytes += codePointBytes;
+            i += Character.charCount(codePoint);
+        }
+        segments.add(text.substring(start));
+        return segments;
+    }
+}
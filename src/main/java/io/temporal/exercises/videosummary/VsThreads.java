@@ -0,0 +1,66 @@
+package io.temporal.exercises.videosummary;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors for blocking work.
+ * With vs.worker.virtualThreads on a Java 21+ runtime every task gets its own virtual thread; otherwise tasks run
+ * on a cached pool of daemon platform threads. The code is compiled for an older release, so virtual threads are
+ * looked up reflectively.
+ */
+public final class VsThreads {
+    private static final Method newVirtualThreadPerTaskExecutor = findVirtualThreadFactoryMethod();
+
+    private VsThreads() {
+    }
+
+    /**
+     * @return Whether this runtime supports virtual threads
+     */
+    public static boolean virtualThreadsAvailable() {
+        return newVirtualThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * @return Whether blocking work runs on virtual threads in this worker
+     */
+    public static boolean useVirtualThreads() {
+        return VsConfig.WORKER_VIRTUAL_THREADS && virtualThreadsAvailable();
+    }
+
+    /**
+     * @param name Name prefix of platform threads
+     * @return Executor that starts a thread for each task, reusing idle platform threads when not on virtual threads
+     */
+    public static ExecutorService newExecutor(String name) {
+        if (useVirtualThreads()) {
+            try {
+                return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Failed to create virtual thread executor, using platform threads: " + e.getMessage());
+            }
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null; // Before Java 21
+        }
+    }
+}
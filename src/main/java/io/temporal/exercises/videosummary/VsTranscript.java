@@ -0,0 +1,56 @@
+package io.temporal.exercises.videosummary;
+
+/**
+ * Transcript text and what the activities use of its items (words and punctuation): their count and the end of the
+ * last timed one. Items are not kept, so a long transcript costs no more than its text.
+ */
+public class VsTranscript {
+    // Punctuation items have no timestamps
+    public static final int NO_TIME = -1;
+
+    private final String text;
+    private final int itemCount;
+    private final int durationMillis;
+
+    VsTranscript(String text, int itemCount, int durationMillis) {
+        this.text = text;
+        this.itemCount = itemCount;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @return End of the last timed item in milliseconds, or 0 when there is none
+     */
+    public int getDurationMillis() {
+        return durationMillis;
+    }
+
+    static final class Builder {
+        private final StringBuilder text = new StringBuilder();
+        private int itemCount;
+        private int durationMillis;
+
+        void appendText(String transcript) {
+            text.append(transcript);
+        }
+
+        void addItem(int end) {
+            itemCount++;
+            if (end != NO_TIME) {
+                durationMillis = end;
+            }
+        }
+
+        VsTranscript build() {
+            return new VsTranscript(text.toString(), itemCount, durationMillis);
+        }
+    }
+}
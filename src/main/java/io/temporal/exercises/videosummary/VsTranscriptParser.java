@@ -0,0 +1,130 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Pull parser for the JSON document written by Amazon Transcribe.
+ * Reads the transcript text and the end times of its items in one pass straight from the stream, so neither the
+ * document nor its items are held in memory. Escaped characters in the transcript are decoded properly.
+ * <pre>
+ * {"jobName": ..., "results": {
+ *     "transcripts": [{"transcript": "Hello, world."}],
+ *     "items": [{"start_time": "0.0", "end_time": "0.4", "alternatives": [{"content": "Hello"}], "type": "pronunciation"},
+ *               {"alternatives": [{"content": ","}], "type": "punctuation"}, ...]},
+ *  "status": "COMPLETED"}
+ * </pre>
+ */
+public final class VsTranscriptParser {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private VsTranscriptParser() {
+    }
+
+    /**
+     * Parse a Transcribe output document. The stream is read to the end but not closed.
+     */
+    public static VsTranscript parse(InputStream inputStream) throws IOException {
+        VsTranscript.Builder transcript = new VsTranscript.Builder();
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.equals("results")) {
+                    parseResults(parser, transcript);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return transcript.build();
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static void parseResults(JsonParser parser, VsTranscript.Builder transcript) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("transcripts")) {
+                parseTranscripts(parser, transcript);
+            } else if (field.equals("items")) {
+                parseItems(parser, transcript);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void parseTranscripts(JsonParser parser, VsTranscript.Builder transcript) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.equals("transcript")) {
+                    transcript.appendText(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static void parseItems(JsonParser parser, VsTranscript.Builder transcript) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String content = null;
+            int end = VsTranscript.NO_TIME;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "end_time" -> end = toMillis(parser.getText());
+                    case "alternatives" -> content = parseBestAlternative(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (content != null) {
+                transcript.addItem(end);
+            }
+        }
+    }
+
+    // Alternatives are ordered by confidence; only the first one is part of the transcript
+    private static String parseBestAlternative(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        String content = null;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.equals("content") && content == null) {
+                    content = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return content;
+    }
+
+    private static int toMillis(String seconds) {
+        return (int) Math.round(Double.parseDouble(seconds) * 1000);
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected transcript JSON: expected " + expected + " but found " + actual);
+        }
+    }
+}
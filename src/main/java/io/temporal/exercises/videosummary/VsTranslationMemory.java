@@ -0,0 +1,174 @@
+package io.temporal.exercises.videosummary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Translation memory in front of Amazon Translate.
+ * Sentence translations are keyed by source language, target language and the SHA-256 of the normalized sentence.
+ * The first tier is an in-memory LRU bounded by the approximate size of its entries. The optional second tier is a
+ * directory shared by all workers on a host; files are written atomically, so concurrent workers never see a partial
+ * entry. Hit and miss counters show how much repeated content is saved.
+ */
+public class VsTranslationMemory {
+    private static final VsTranslationMemory sharedMemory = new VsTranslationMemory(
+            VsConfig.TM_MAX_MEMORY_MB * 1024L * 1024L,
+            VsConfig.TM_DIRECTORY == null ? null : Paths.get(VsConfig.TM_DIRECTORY));
+
+    private final long maxMemoryBytes;
+    private final Path directory;
+
+    // Access-ordered, so iteration starts with the least recently used entry. Guarded by "this".
+    private final LinkedHashMap<String, String> memoryTier = new LinkedHashMap<>(1024, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxMemoryBytes Approximate upper bound of the in-memory tier
+     * @param directory Directory of the disk tier, or null for memory only
+     */
+    public VsTranslationMemory(long maxMemoryBytes, Path directory) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+    }
+
+    /**
+     * @return Translation memory shared by every activity in this JVM
+     */
+    public static VsTranslationMemory shared() {
+        return sharedMemory;
+    }
+
+    /**
+     * Collapse whitespace and apply Unicode NFC, so trivially different spellings of a sentence share an entry.
+     */
+    public static String normalize(String sentence) {
+        return Normalizer.normalize(sentence, Normalizer.Form.NFC).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * @return Cached translation of the sentence, if any
+     */
+    public Optional<String> get(String sourceLanguage, String targetLanguage, String sentence) {
+        String key = key(sourceLanguage, targetLanguage, sentence);
+
+        synchronized (this) {
+            String translation = memoryTier.get(key);
+            if (translation != null) {
+                memoryHits.incrementAndGet();
+                return Optional.of(translation);
+            }
+        }
+
+        if (directory != null) {
+            try {
+                String translation = Files.readString(diskPath(key), StandardCharsets.UTF_8);
+                diskHits.incrementAndGet();
+                putInMemory(key, translation);
+                return Optional.of(translation);
+            } catch (NoSuchFileException e) {
+                // Not cached on this host either
+            } catch (IOException e) {
+                System.out.println("Failed to read translation memory entry " + key + ": " + e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Cache the translation of the sentence.
+     */
+    public void put(String sourceLanguage, String targetLanguage, String sentence, String translation) {
+        String key = key(sourceLanguage, targetLanguage, sentence);
+        putInMemory(key, translation);
+
+        if (directory != null) {
+            Path path = diskPath(key);
+            try {
+                Files.createDirectories(path.getParent());
+                Path tempFile = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+                Files.writeString(tempFile, translation, StandardCharsets.UTF_8);
+                Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.out.println("Failed to write translation memory entry " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TranslationMemory{memoryHits=%d, diskHits=%d, misses=%d, memoryBytes=%d}",
+                getMemoryHits(), getDiskHits(), getMisses(), getMemoryBytes());
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static String key(String sourceLanguage, String targetLanguage, String sentence) {
+        // Language codes become directory names of the disk tier
+        if (!sourceLanguage.matches("[A-Za-z0-9-]+") || !targetLanguage.matches("[A-Za-z0-9-]+")) {
+            throw new IllegalArgumentException("Invalid language code: " + sourceLanguage + ", " + targetLanguage);
+        }
+        return sourceLanguage + "-" + targetLanguage + "-" + VsDigests.sha256Hex(normalize(sentence));
+    }
+
+    // Spread entries over subdirectories to keep directory listings short
+    private Path diskPath(String key) {
+        String hash = key.substring(key.length() - 64);
+        return directory.resolve(key.substring(0, key.length() - 65)).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private synchronized void putInMemory(String key, String translation) {
+        String previous = memoryTier.put(key, translation);
+        if (previous != null) {
+            memoryBytes -= entryBytes(key, previous);
+        }
+        memoryBytes += entryBytes(key, translation);
+
+        Iterator<Map.Entry<String, String>> iterator = memoryTier.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+            Map.Entry<String, String> eldest = iterator.next();
+            memoryBytes -= entryBytes(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    // Two bytes per char plus a rough per-entry overhead of the map node and string headers
+    private static long entryBytes(String key, String translation) {
+        return 2L * (key.length() + translation.length()) + 96;
+    }
+}
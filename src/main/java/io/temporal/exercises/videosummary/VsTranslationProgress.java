@@ -0,0 +1,23 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heartbeat details of convertOriginalTextToTargetLanguage.
+ * Lets a retried attempt skip the sentences that an earlier attempt already translated. The translations themselves
+ * are in the claim-check store, one text per checkpoint of several requests with a line per sentence, so the
+ * heartbeat stays small however long the text is.
+ */
+@JsonDeserialize(as = VsTranslationProgress.class)
+public record VsTranslationProgress(
+        int segmentCount, // Number of sentences the original text was split into
+        int originalTextLength, // Length of the original text, to detect a changed input
+        Map<String, List<Integer>> translatedSegments // Blob reference -> indexes of the sentences it holds, in order
+) {
+    public boolean matches(int segmentCount, int originalTextLength) {
+        return this.segmentCount == segmentCount && this.originalTextLength == originalTextLength;
+    }
+}
@@ -0,0 +1,25 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.List;
+
+/**
+ * Heartbeat details of a streaming uploadToS3.
+ * Lets a retried attempt continue the multipart upload after the last part that an earlier attempt completed,
+ * downloading only the rest of the video.
+ */
+@JsonDeserialize(as = VsUploadProgress.class)
+public record VsUploadProgress(
+        String s3Key, // Key of the object being uploaded
+        String uploadId, // Multipart upload ID
+        int partSize, // Part size of the upload, parts of a resumed upload must have the same size
+        List<Part> parts, // Parts 1..n, all completed
+        long bytesUploaded, // Bytes of the video covered by the completed parts
+        String sourceValidator // ETag or Last-Modified of the video, to detect a changed source; never null, as
+                               // the upload of a video that has neither is not resumable
+) {
+    @JsonDeserialize(as = Part.class)
+    public record Part(int partNumber, String eTag) {
+    }
+}
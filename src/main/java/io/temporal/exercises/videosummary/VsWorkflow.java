@@ -1,10 +1,25 @@
 package io.temporal.exercises.videosummary;
 
+import io.temporal.workflow.QueryMethod;
 import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
 
+import java.util.Map;
+
 @WorkflowInterface
 public interface VsWorkflow {
+    /**
+     * Upload and transcribe the video once, then translate and summarize it in every target language in parallel.
+     * @param jobDetails Job details containing the video URL, target languages and S3 configuration
+     * @return Summary by target language, without the languages that failed; null if no summary was generated
+     */
     @WorkflowMethod
-    String getVideoSummary(VsJobDetails jobDetails);
+    Map<String, String> getVideoSummary(VsJobDetails jobDetails);
+
+    /**
+     * Stage status and the results available so far: the transcript as soon as transcription finishes, then every
+     * translation and summary as it completes. Can be queried while the workflow runs and after it completed.
+     */
+    @QueryMethod
+    VsWorkflowProgress getProgress();
 }
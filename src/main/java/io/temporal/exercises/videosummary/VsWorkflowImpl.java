@@ -1,9 +1,16 @@
 package io.temporal.exercises.videosummary;
 
 import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
 import io.temporal.common.RetryOptions;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class VsWorkflowImpl implements VsWorkflow {
@@ -28,55 +35,375 @@ public class VsWorkflowImpl implements VsWorkflow {
             .setHeartbeatTimeout(Duration.ofMinutes(30))
             .build();
 
+    // Status checks are quick; a stuck call should be retried rather than waited on
+    private final ActivityOptions pollingOptions = ActivityOptions.newBuilder()
+            .setRetryOptions(retryoptions) // Apply the RetryOptions defined above
+            .setStartToCloseTimeout(Duration.ofSeconds(30)) // Max execution time for single Activity
+            .setScheduleToCloseTimeout(Duration.ofMinutes(5)) // Entire duration from scheduling to completion including queue time
+            .build();
+
+    // Activities are routed by method to task queues served by separately sized workers. The SDK looks the options
+    // up by activity type, which is the method name starting with an upper case letter.
     private final Map<String, ActivityOptions> perActivityMethodOptions = Map.of(
-            "uploadToS3", videoProcessingOptions,
-            "transcribe", videoProcessingOptions
+            "UploadToS3", onTaskQueue(videoProcessingOptions, VsSharedKeys.MEDIA_TASK_QUEUE),
+            "DeleteFromS3", onTaskQueue(defaultOptions, VsSharedKeys.MEDIA_TASK_QUEUE),
+            "DeletePayloads", onTaskQueue(defaultOptions, VsSharedKeys.MEDIA_TASK_QUEUE),
+            "StartTranscription", onTaskQueue(defaultOptions, VsSharedKeys.TRANSCRIPTION_TASK_QUEUE),
+            "GetTranscriptionStatus", onTaskQueue(pollingOptions, VsSharedKeys.TRANSCRIPTION_TASK_QUEUE),
+            "FetchTranscript", onTaskQueue(defaultOptions, VsSharedKeys.TRANSCRIPTION_TASK_QUEUE),
+            "ConvertOriginalTextToTargetLanguage", onTaskQueue(defaultOptions, VsSharedKeys.NLP_TASK_QUEUE),
+            "MergeSegments", onTaskQueue(defaultOptions, VsSharedKeys.NLP_TASK_QUEUE),
+            "GenerateSummary", onTaskQueue(defaultOptions, VsSharedKeys.NLP_TASK_QUEUE)
+    );
+
+    // Short steps in local-activity mode. Attempts up to the local retry threshold are retried inside the workflow
+    // task; later ones are scheduled on durable timers, like regular activity retries.
+    private final LocalActivityOptions localOptions = LocalActivityOptions.newBuilder()
+            .setRetryOptions(retryoptions) // Apply the RetryOptions defined above
+            .setStartToCloseTimeout(Duration.ofMinutes(2)) // Max execution time for single Activity
+            .setScheduleToCloseTimeout(Duration.ofMinutes(15)) // Entire duration from scheduling to completion including retries
+            .setLocalRetryThreshold(Duration.ofSeconds(10))
+            .build();
+
+    private final Map<String, LocalActivityOptions> perLocalActivityMethodOptions = Map.of(
+            "ConvertOriginalTextToTargetLanguage", localOptions,
+            "GenerateSummary", localOptions,
+            "DeleteFromS3", localOptions,
+            "DeletePayloads", localOptions
     );
 
+    // Transcription polling: durable timers between status checks, backing off from 10 seconds to 1 minute
+    private static final Duration transcriptionPollInitialInterval = Duration.ofSeconds(10);
+    private static final Duration transcriptionPollMaximumInterval = Duration.ofMinutes(1);
+    private static final double transcriptionPollBackoffCoefficient = 1.5;
+    private static final Duration transcriptionMaximumWait = Duration.ofHours(4);
+
     private final VsActivity activityStub = io.temporal.workflow.Workflow.
             newActivityStub(VsActivity.class, defaultOptions, perActivityMethodOptions);
 
+    private final VsActivity localActivityStub = Workflow.
+            newLocalActivityStub(VsActivity.class, localOptions, perLocalActivityMethodOptions);
+
+    // Settings of this worker: whether the short steps run as local activities, and up to which text size
+    // translations do
+    private final boolean configuredLocalActivities;
+    private final int configuredLocalTranslationMaxBytes;
+
+    // The settings recorded by this execution
+    private boolean localActivities;
+    private int localTranslationMaxBytes;
+
+    private final VsWorkflowProgress progress = new VsWorkflowProgress();
+
+    public VsWorkflowImpl() {
+        this(VsConfig.LOCAL_ACTIVITIES_ENABLED, VsConfig.LOCAL_TRANSLATION_MAX_BYTES);
+    }
+
+    // Lets tests run either mode, whatever the configuration of their JVM
+    VsWorkflowImpl(boolean localActivities, int localTranslationMaxBytes) {
+        this.configuredLocalActivities = localActivities;
+        this.configuredLocalTranslationMaxBytes = localTranslationMaxBytes;
+    }
+
     @Override
-    public String getVideoSummary(VsJobDetails jobDetails) {
-        final VsActionReturnVals results = new VsActionReturnVals();
+    public Map<String, String> getVideoSummary(VsJobDetails jobDetails) {
+        VsActionReturnVals results = new VsActionReturnVals();
+
+        // Recorded in the history, so a replay on a worker with other settings schedules the same steps
+        localActivities = Workflow.sideEffect(Boolean.class, () -> configuredLocalActivities);
+        localTranslationMaxBytes = Workflow.sideEffect(Integer.class, () -> configuredLocalTranslationMaxBytes);
+
+        progress.update(VsWorkflowProgress.UPLOAD, VsWorkflowProgress.Status.PENDING);
+        progress.update(VsWorkflowProgress.TRANSCRIPTION, VsWorkflowProgress.Status.PENDING);
+        for (String targetLanguage : jobDetails.targetLanguages()) {
+            progress.update(VsWorkflowProgress.translation(targetLanguage), VsWorkflowProgress.Status.PENDING);
+            progress.update(VsWorkflowProgress.summary(targetLanguage), VsWorkflowProgress.Status.PENDING);
+        }
 
         try {
-            activityStub.uploadToS3(jobDetails, results);
+            progress.update(VsWorkflowProgress.UPLOAD, VsWorkflowProgress.Status.RUNNING);
+            results = activityStub.uploadToS3(jobDetails, results);
+            progress.update(VsWorkflowProgress.UPLOAD, VsWorkflowProgress.Status.COMPLETED);
         }
         catch (Exception e) {
             System.out.println("Failed to upload video file to S3 bucket: " + jobDetails);
-            return null; // End transaction without compensating action.
+            countStepFailure("upload");
+            progress.update(VsWorkflowProgress.UPLOAD, VsWorkflowProgress.Status.FAILED);
+            progress.finish();
+            
+            // No object was uploaded, but the failed attempts may have left a multipart upload for a retry
+            try {
+                shortStepStub().deleteFromS3(jobDetails, results);
+            }
+            catch (Exception cleanupFailure) {
+                System.out.println("Failed to abort the incomplete upload: " + jobDetails);
+            }
+            return null;
+        }
+
+        // The upload and transcription are shared; every target language is translated and summarized on its own
+        Map<String, Promise<String>> pendingSummaries = new LinkedHashMap<>();
+        if (results.getSegments() != null) {
+            pendingSummaries = summarizeSegments(jobDetails, results);
+        } else {
+            boolean transcribed;
+            try {
+                progress.update(VsWorkflowProgress.TRANSCRIPTION, VsWorkflowProgress.Status.RUNNING);
+                results = transcribe(jobDetails, results);
+                transcribed = results.getOriginalText() != null || results.getOriginalTextRef() != null;
+            }
+            catch (Exception e) {
+                transcribed = false;
+            }
+
+            if (transcribed) {
+                progress.transcribed(results);
+                VsActionReturnVals transcript = results;
+                for (String targetLanguage : jobDetails.targetLanguages()) {
+                    VsJobDetails languageJob = jobDetails.withTargetLanguage(targetLanguage);
+                    pendingSummaries.put(targetLanguage,
+                            Async.function(() -> summarize(languageJob, translate(languageJob, transcript))));
+                }
+            } else {
+                // Without a transcript there is nothing to translate or summarize
+                System.out.println("Failed to transcribe the video: " + jobDetails);
+                countStepFailure("transcribe");
+                progress.update(VsWorkflowProgress.TRANSCRIPTION, VsWorkflowProgress.Status.FAILED);
+                for (String targetLanguage : jobDetails.targetLanguages()) {
+                    progress.update(VsWorkflowProgress.translation(targetLanguage), VsWorkflowProgress.Status.FAILED);
+                    progress.update(VsWorkflowProgress.summary(targetLanguage), VsWorkflowProgress.Status.FAILED);
+                }
+            }
         }
 
+        Map<String, String> summaries = new LinkedHashMap<>();
+        pendingSummaries.forEach((targetLanguage, summary) -> {
+            if (summary.get() != null) {
+                summaries.put(targetLanguage, summary.get());
+            }
+        });
+        progress.finish();
+
+        // The summaries are returned inline, so the claim-checked texts are not needed any more
+        deletePayloads(jobDetails);
+        if (!summaries.isEmpty()) {
+            return summaries;
+        }
+
+        // Take compensating action
+        Workflow.getMetricsScope().counter("vs_workflow_compensations").inc(1);
         try {
-            activityStub.transcribe(jobDetails, results);
+            shortStepStub().deleteFromS3(jobDetails, results);
+            return null;
         }
         catch (Exception e) {
-            System.out.println("Failed to transcribe the video: " + jobDetails);
+            System.out.println("Failed to delete uploaded video file from S3 bucket: " + jobDetails);
+            throw(e);
+        }
+    }
+
+    @Override
+    public VsWorkflowProgress getProgress() {
+        return progress;
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static ActivityOptions onTaskQueue(ActivityOptions options, String taskQueue) {
+        return ActivityOptions.newBuilder(options).setTaskQueue(taskQueue).build();
+    }
+
+    // Start the Transcribe job, then wait for it on durable timers instead of a sleeping activity.
+    // While the job runs the workflow holds no worker thread or activity slot.
+    private VsActionReturnVals transcribe(VsJobDetails jobDetails, VsActionReturnVals results) {
+        // The content index already had a transcript for this video
+        if (results.getTranscriptKey() != null) {
+            return activityStub.fetchTranscript(jobDetails, results);
         }
 
+        results = activityStub.startTranscription(jobDetails, results);
+        if (results.getTranscriptionJobName() == null) {
+            return results;
+        }
+
+        long waitStart = Workflow.currentTimeMillis();
+        long deadline = waitStart + transcriptionMaximumWait.toMillis();
+        Duration pollInterval = transcriptionPollInitialInterval;
+        String status;
+        do {
+            if (Workflow.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Transcription job " + results.getTranscriptionJobName()
+                        + " did not finish within " + transcriptionMaximumWait);
+            }
+
+            Workflow.sleep(pollInterval);
+            pollInterval = nextPollInterval(pollInterval);
+
+            status = activityStub.getTranscriptionStatus(jobDetails, results);
+            Workflow.getMetricsScope().counter("vs_transcription_polls").inc(1);
+        } while (status.equals("QUEUED") || status.equals("IN_PROGRESS"));
+
+        // Time from starting the job until the poll that saw it finish
+        Workflow.getMetricsScope().timer("vs_transcription_wait")
+                .record(com.uber.m3.util.Duration.ofMillis(Workflow.currentTimeMillis() - waitStart));
+
+        return activityStub.fetchTranscript(jobDetails, results);
+    }
+
+    private VsActionReturnVals translate(VsJobDetails jobDetails, VsActionReturnVals results) {
+        String targetLanguage = jobDetails.targetLanguage();
         try {
-            activityStub.convertOriginalTextToTargetLanguage(jobDetails, results);
+            progress.update(VsWorkflowProgress.translation(targetLanguage), VsWorkflowProgress.Status.RUNNING);
+            VsActionReturnVals translated = translationStub(results)
+                    .convertOriginalTextToTargetLanguage(jobDetails, results);
+            progress.translated(targetLanguage, translated);
+            return translated;
         }
         catch (Exception e) {
             System.out.println("Failed to translate the original text to target language: " + jobDetails);
+            countStepFailure("translate");
+            progress.update(VsWorkflowProgress.translation(targetLanguage), VsWorkflowProgress.Status.FAILED);
+            return null;
         }
+    }
 
+    // Null results are those of a failed translation, which leaves nothing to summarize
+    private String summarize(VsJobDetails jobDetails, VsActionReturnVals results) {
+        String targetLanguage = jobDetails.targetLanguage();
+        if (results == null) {
+            progress.update(VsWorkflowProgress.summary(targetLanguage), VsWorkflowProgress.Status.FAILED);
+            return null;
+        }
         try {
-            return activityStub.generateSummary(jobDetails, results);
+            progress.update(VsWorkflowProgress.summary(targetLanguage), VsWorkflowProgress.Status.RUNNING);
+            String summary = shortStepStub().generateSummary(jobDetails, results);
+            progress.summarized(targetLanguage, summary);
+            return summary;
         }
         catch (Exception e) {
             System.out.println("Failed to generate summary: " + jobDetails);
+            countStepFailure("summary");
+            progress.update(VsWorkflowProgress.summary(targetLanguage), VsWorkflowProgress.Status.FAILED);
+            return null;
         }
+    }
 
-        // Take compensating action
-        try {
-            activityStub.deleteFromS3(results);
+    // Segmented upload: every segment is transcribed on its own, all segments at the same time, and each transcript
+    // goes to translation into every target language as soon as it is ready. Per language, the pieces are joined
+    // in media order and summarized.
+    private Map<String, Promise<String>> summarizeSegments(VsJobDetails jobDetails, VsActionReturnVals results) {
+        List<Promise<VsActionReturnVals>> transcribedSegments = new ArrayList<>();
+        for (VsMediaSegment segment : results.getSegments()) {
+            VsActionReturnVals segmentResults = new VsActionReturnVals();
+            segmentResults.setS3Key(segment.s3Key());
+            transcribedSegments.add(Async.function(() -> transcribe(jobDetails, segmentResults)));
+        }
+        progress.update(VsWorkflowProgress.TRANSCRIPTION, VsWorkflowProgress.Status.RUNNING);
+        Promise.allOf(transcribedSegments).handle((ignored, failure) -> {
+            progress.update(VsWorkflowProgress.TRANSCRIPTION,
+                    failure == null ? VsWorkflowProgress.Status.COMPLETED : VsWorkflowProgress.Status.FAILED);
             return null;
+        });
+
+        // The first merge stores the joined transcript and the merges of the other languages reuse it, so each
+        // merge waits for the one before it. Null until a merge succeeded.
+        Promise<VsActionReturnVals> mergedTranscript = Workflow.newPromise(null);
+        Map<String, Promise<String>> pendingSummaries = new LinkedHashMap<>();
+        for (String targetLanguage : jobDetails.targetLanguages()) {
+            VsJobDetails languageJob = jobDetails.withTargetLanguage(targetLanguage);
+            progress.update(VsWorkflowProgress.translation(targetLanguage), VsWorkflowProgress.Status.RUNNING);
+            List<Promise<VsActionReturnVals>> translatedSegments = new ArrayList<>();
+            for (Promise<VsActionReturnVals> transcribedSegment : transcribedSegments) {
+                translatedSegments.add(Async.function(() -> {
+                    VsActionReturnVals segmentResults = transcribedSegment.get();
+                    return translationStub(segmentResults).convertOriginalTextToTargetLanguage(languageJob,
+                            segmentResults);
+                }));
+            }
+
+            Promise<VsActionReturnVals> previousTranscript = mergedTranscript;
+            Promise<VsActionReturnVals> merge = Async.function(() -> {
+                List<VsActionReturnVals> segmentResults = new ArrayList<>();
+                for (Promise<VsActionReturnVals> translatedSegment : translatedSegments) {
+                    segmentResults.add(translatedSegment.get());
+                }
+                VsActionReturnVals transcript = previousTranscript.get();
+                return activityStub.mergeSegments(languageJob, transcript != null ? transcript : results,
+                        segmentResults);
+            });
+            mergedTranscript = Async.function(() -> {
+                try {
+                    return transcriptOf(merge.get());
+                }
+                catch (Exception e) {
+                    return previousTranscript.get();
+                }
+            });
+
+            pendingSummaries.put(targetLanguage, Async.function(() -> {
+                VsActionReturnVals merged;
+                try {
+                    merged = merge.get();
+                }
+                catch (Exception e) {
+                    System.out.println("Failed to transcribe and translate the video segments: " + languageJob);
+                    countStepFailure("segments");
+                    progress.update(VsWorkflowProgress.translation(targetLanguage), VsWorkflowProgress.Status.FAILED);
+                    progress.update(VsWorkflowProgress.summary(targetLanguage), VsWorkflowProgress.Status.FAILED);
+                    return null;
+                }
+                // The whole transcript only exists once the segments are merged
+                if (progress.getOriginalText() == null) {
+                    progress.transcribed(merged);
+                }
+                progress.translated(targetLanguage, merged);
+                return summarize(languageJob, merged);
+            }));
+        }
+        return pendingSummaries;
+    }
+
+    // Only the merged transcript of a segmented upload, to pass on to the merges of the other target languages
+    private static VsActionReturnVals transcriptOf(VsActionReturnVals merged) {
+        VsActionReturnVals transcript = new VsActionReturnVals();
+        transcript.setOriginalText(merged.getOriginalText());
+        transcript.setOriginalTextRef(merged.getOriginalTextRef());
+        transcript.setOriginalTextPreview(merged.getOriginalTextPreview());
+        return transcript;
+    }
+
+    // A failed cleanup leaves the payloads to the bucket's lifecycle rule; the summaries are still returned
+    private void deletePayloads(VsJobDetails jobDetails) {
+        try {
+            shortStepStub().deletePayloads(jobDetails);
         }
         catch (Exception e) {
-            System.out.println("Failed to delete uploaded video file from S3 bucket: " + jobDetails);
-            throw(e);
+            System.out.println("Failed to delete the claim-check payloads: " + jobDetails);
+            countStepFailure("cleanup");
         }
     }
+
+    private VsActivity shortStepStub() {
+        return localActivities ? localActivityStub : activityStub;
+    }
+
+    // Only small inline texts are translated locally; long translations go to the NLP task queue instead of
+    // holding up the workflow task
+    private VsActivity translationStub(VsActionReturnVals results) {
+        boolean smallText = results.getOriginalTextRef() == null && results.getOriginalText() != null
+                && VsTextSegmenter.utf8Length(results.getOriginalText()) <= localTranslationMaxBytes;
+        return localActivities && smallText ? localActivityStub : activityStub;
+    }
+
+    // The workflow metrics scope does not report while the workflow is replaying, so nothing is counted twice
+    private static void countStepFailure(String step) {
+        Workflow.getMetricsScope().tagged(Map.of("step", step)).counter("vs_workflow_step_failures").inc(1);
+    }
+
+    private static Duration nextPollInterval(Duration pollInterval) {
+        Duration next = Duration.ofMillis((long) (pollInterval.toMillis() * transcriptionPollBackoffCoefficient));
+        return next.compareTo(transcriptionPollMaximumInterval) > 0 ? transcriptionPollMaximumInterval : next;
+    }
 }
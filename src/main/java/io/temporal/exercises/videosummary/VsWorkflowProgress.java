@@ -0,0 +1,163 @@
+package io.temporal.exercises.videosummary;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Progress of a getVideoSummary execution, returned by the getProgress query.
+ * Holds the status of every stage and the results that are already available, so a client can show the transcript
+ * and translations before the summaries are done. Of texts passed by claim-check reference only the first
+ * VsConfig.CLAIM_CHECK_PREVIEW_CHARS characters are held: the references cannot be resolved by clients, and the
+ * blobs are deleted when the workflow completes.
+ */
+@JsonDeserialize(as = VsWorkflowProgress.class)
+public class VsWorkflowProgress {
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    public static final String UPLOAD = "upload";
+    public static final String TRANSCRIPTION = "transcription";
+
+    public static String translation(String targetLanguage) {
+        return "translation/" + targetLanguage;
+    }
+
+    public static String summary(String targetLanguage) {
+        return "summary/" + targetLanguage;
+    }
+
+    /**
+     * Set the status of a stage and count the change.
+     */
+    public void update(String stage, Status status) {
+        stages.put(stage, status);
+        version++;
+    }
+
+    /**
+     * Mark the workflow as done with all stages.
+     */
+    public void finish() {
+        finished = true;
+        version++;
+    }
+
+    /**
+     * Record the transcript of a transcription that just finished.
+     */
+    public void transcribed(VsActionReturnVals results) {
+        transcriptKey = results.getTranscriptKey();
+        originalTextTruncated = results.getOriginalTextRef() != null;
+        originalText = originalTextTruncated ? results.getOriginalTextPreview() : results.getOriginalText();
+        update(TRANSCRIPTION, Status.COMPLETED);
+    }
+
+    /**
+     * Record the text of a translation that just finished.
+     */
+    public void translated(String targetLanguage, VsActionReturnVals results) {
+        if (results.getTargetTextRef() != null) {
+            translations.put(targetLanguage, results.getTargetTextPreview());
+            truncatedTranslations.add(targetLanguage);
+        } else {
+            translations.put(targetLanguage, results.getTargetText());
+            truncatedTranslations.remove(targetLanguage);
+        }
+        update(translation(targetLanguage), Status.COMPLETED);
+    }
+
+    /**
+     * Record a summary that was just generated.
+     */
+    public void summarized(String targetLanguage, String summary) {
+        summaries.put(targetLanguage, summary);
+        update(summary(targetLanguage), Status.COMPLETED);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public Map<String, Status> getStages() {
+        return stages;
+    }
+
+    public void setStages(Map<String, Status> stages) {
+        this.stages = stages;
+    }
+
+    public String getTranscriptKey() {
+        return transcriptKey;
+    }
+
+    public void setTranscriptKey(String transcriptKey) {
+        this.transcriptKey = transcriptKey;
+    }
+
+    public String getOriginalText() {
+        return originalText;
+    }
+
+    public void setOriginalText(String originalText) {
+        this.originalText = originalText;
+    }
+
+    public boolean isOriginalTextTruncated() {
+        return originalTextTruncated;
+    }
+
+    public void setOriginalTextTruncated(boolean originalTextTruncated) {
+        this.originalTextTruncated = originalTextTruncated;
+    }
+
+    public Map<String, String> getTranslations() {
+        return translations;
+    }
+
+    public void setTranslations(Map<String, String> translations) {
+        this.translations = translations;
+    }
+
+    public Set<String> getTruncatedTranslations() {
+        return truncatedTranslations;
+    }
+
+    public void setTruncatedTranslations(Set<String> truncatedTranslations) {
+        this.truncatedTranslations = truncatedTranslations;
+    }
+
+    public Map<String, String> getSummaries() {
+        return summaries;
+    }
+
+    public void setSummaries(Map<String, String> summaries) {
+        this.summaries = summaries;
+    }
+
+    private int version; // Incremented on every change, so watchers can skip unchanged results
+    private boolean finished; // All stages are done; only the cleanup of a failed job may follow
+    private Map<String, Status> stages = new LinkedHashMap<>(); // Stage -> status, in workflow order
+    private String transcriptKey; // Key of the Transcribe output JSON in the job bucket
+    private String originalText;
+    private boolean originalTextTruncated; // originalText is only the start of a transcript passed by reference
+    private Map<String, String> translations = new LinkedHashMap<>(); // Target language -> translated text
+    private Set<String> truncatedTranslations = new LinkedHashSet<>(); // Languages of which only the start is held
+    private Map<String, String> summaries = new LinkedHashMap<>(); // Target language -> summary
+}
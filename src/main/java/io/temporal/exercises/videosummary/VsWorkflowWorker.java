@@ -1,38 +1,128 @@
 package io.temporal.exercises.videosummary;
 
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
 import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerOptions;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class VsWorkflowWorker {
-    public static void main(String[] args) {
-        // Create a stub that accesses a Temporal Service on the local development machine
-        WorkflowServiceStubs serviceStub = WorkflowServiceStubs.newLocalServiceStubs();
+    public static void main(String[] args) throws IOException {
+        // Create a stub that accesses a Temporal Service on the local development machine.
+        // The SDK reports its worker metrics (slots, schedule-to-start latency, polls) through the stub's scope.
+        WorkflowServiceStubs serviceStub = WorkflowServiceStubs.newServiceStubs(WorkflowServiceStubsOptions.newBuilder()
+                .setMetricsScope(VsMetrics.newSdkMetricsScope())
+                .build());
 
         // The Worker uses the Client to communicate with the Temporal Service
-        WorkflowClient client = WorkflowClient.newInstance(serviceStub);
+        // Payloads are compressed; clients must use the same data converter.
+        WorkflowClient client = WorkflowClient.newInstance(serviceStub, WorkflowClientOptions.newBuilder()
+                .setDataConverter(VsCompressionCodec.newDataConverter())
+                .build());
 
         // A WorkerFactory creates Workers
         WorkerFactory factory = WorkerFactory.newInstance(client);
 
-        // A Worker listens to one Task Queue.
-        // This Worker processes both Workflows and Activities
-        Worker worker = factory.newWorker(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE);
-
-        // Register a Workflow implementation with this Worker
-        // The implementation must be known at runtime to dispatch Workflow tasks
-        // Workflows are stateful so a type is needed to create instances.
-        worker.registerWorkflowImplementationTypes(VsWorkflowImpl.class);
+        // Activities are stateless and thread safe so a shared instance is used by every Worker.
+        VsActivity activities = new VsMeteredActivityImpl(new VsActivityImpl());
 
-        // Register Activity implementation(s) with this Worker.
-        // The implementation must be known at runtime to dispatch Activity tasks
-        // Activities are stateless and thread safe so a shared instance is used.
-        worker.registerActivitiesImplementations(new VsActivityImpl());
+        // A Worker listens to one Task Queue. vs.worker.queues selects the queues this process serves,
+        // so media and NLP workers can be scaled independently on different nodes.
+        Set<String> queues = Arrays.stream(VsConfig.WORKER_QUEUES.split(","))
+                .map(String::trim)
+                .filter(queue -> !queue.isEmpty())
+                .collect(Collectors.toSet());
+        registerWorkers(factory, client, activities, queues);
 
-        System.out.println("Worker is running and actively polling Task Queue: " + VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE);
+        // Activity and SDK metrics in the Prometheus text format
+        if (VsConfig.METRICS_PORT > 0) {
+            VsMetrics.startScrapeEndpoint(VsConfig.METRICS_PORT);
+            System.out.println("Metrics are served at http://localhost:" + VsConfig.METRICS_PORT + "/metrics");
+        }
 
         // Start all registered Workers. The Workers will start polling the Task Queue.
         factory.start();
     }
+
+    /**
+     * Create the Workers of the given task queues, sized by VsConfig. Also used by the load-test harness,
+     * so it runs the same worker setup.
+     * @param queues Any of workflow, media, transcription and nlp
+     */
+    public static void registerWorkers(WorkerFactory factory, WorkflowClient client, VsActivity activities,
+                                       Set<String> queues) {
+        if (queues.contains("workflow")) {
+            // Register a Workflow implementation with this Worker
+            // The implementation must be known at runtime to dispatch Workflow tasks
+            // Workflows are stateful so a type is needed to create instances.
+            // Local activities run in the worker of the workflow task, so it needs the activities too. It does not
+            // poll the workflow task queue for regular activities.
+            Worker worker = factory.newWorker(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE, WorkerOptions.newBuilder()
+                    .setMaxConcurrentWorkflowTaskExecutionSize(VsConfig.WORKFLOW_MAX_CONCURRENT_TASKS)
+                    .setMaxConcurrentWorkflowTaskPollers(VsConfig.WORKFLOW_POLLERS)
+                    .setMaxConcurrentLocalActivityExecutionSize(VsConfig.LOCAL_ACTIVITIES_MAX_CONCURRENT)
+                    .setLocalActivityWorkerOnly(true)
+                    .build());
+            worker.registerWorkflowImplementationTypes(VsWorkflowImpl.class, VsBatchWorkflowImpl.class);
+            worker.registerActivitiesImplementations(activities, new VsBatchActivityImpl());
+            System.out.println("Worker is running and actively polling Task Queue: " + VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE);
+        }
+
+        // Register Activity implementation(s) with the activity Workers.
+        // The implementation must be known at runtime to dispatch Activity tasks
+        if (VsConfig.WORKER_VIRTUAL_THREADS) {
+            System.out.println(VsThreads.virtualThreadsAvailable()
+                    ? "Activities run on virtual threads"
+                    : "Virtual threads need Java 21 or later; activities run on platform threads");
+        }
+        if (queues.contains("media")) {
+            newActivityWorker(factory, client, activities, VsSharedKeys.MEDIA_TASK_QUEUE,
+                    VsConfig.MEDIA_MAX_CONCURRENT_ACTIVITIES, VsConfig.MEDIA_POLLERS, VsConfig.MEDIA_ACTIVITIES_PER_SECOND);
+        }
+        if (queues.contains("transcription")) {
+            newActivityWorker(factory, client, activities, VsSharedKeys.TRANSCRIPTION_TASK_QUEUE,
+                    VsConfig.TRANSCRIPTION_MAX_CONCURRENT_ACTIVITIES, VsConfig.TRANSCRIPTION_POLLERS,
+                    VsConfig.TRANSCRIPTION_ACTIVITIES_PER_SECOND);
+        }
+        if (queues.contains("nlp")) {
+            newActivityWorker(factory, client, activities, VsSharedKeys.NLP_TASK_QUEUE,
+                    VsConfig.NLP_MAX_CONCURRENT_ACTIVITIES, VsConfig.NLP_POLLERS, VsConfig.NLP_ACTIVITIES_PER_SECOND);
+        }
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static void newActivityWorker(WorkerFactory factory, WorkflowClient client, VsActivity activities,
+                                          String taskQueue, int maxConcurrentActivities, int pollers,
+                                          double activitiesPerSecond) {
+        WorkerOptions.Builder options = WorkerOptions.newBuilder()
+                .setMaxConcurrentActivityTaskPollers(pollers);
+        if (activitiesPerSecond > 0) {
+            // Enforced by the server across every worker of the task queue
+            options.setMaxTaskQueueActivitiesPerSecond(activitiesPerSecond);
+        }
+
+        if (VsConfig.WORKER_VIRTUAL_THREADS) {
+            // SDK threads only hand activities off, so a few of them are enough;
+            // the number of running activities is bounded by the async wrapper instead.
+            options.setMaxConcurrentActivityExecutionSize(Math.max(2, 2 * pollers));
+            activities = new VsAsyncActivityImpl(activities, client.newActivityCompletionClient(), maxConcurrentActivities);
+        } else {
+            options.setMaxConcurrentActivityExecutionSize(maxConcurrentActivities);
+        }
+
+        factory.newWorker(taskQueue, options.build()).registerActivitiesImplementations(activities);
+        System.out.println(String.format("Worker is running and actively polling Task Queue: %s "
+                + "[maxConcurrentActivities=%d, pollers=%d, activitiesPerSecond=%s]",
+                taskQueue, maxConcurrentActivities, pollers, activitiesPerSecond > 0 ? activitiesPerSecond : "unlimited"));
+    }
 }
@@ -0,0 +1,458 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.amazonaws.services.s3.model.MultipartUploadListing;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.services.translate.AmazonTranslate;
+import com.amazonaws.services.translate.model.TranslateTextRequest;
+import com.amazonaws.services.translate.model.TranslateTextResult;
+import com.sun.net.httpserver.HttpServer;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.testing.TestActivityEnvironment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VsActivityImplTest {
+    private static final VsJobDetails JOB = new VsJobDetails("https://example.com/video.mp4", "en-US", "fr",
+            "key", "secret", "us-east-1", "bucket");
+    private static final int PART_SIZE = VsConfig.UPLOAD_PART_SIZE_MB * 1024 * 1024;
+    private static final byte[] VIDEO = randomBytes(2 * PART_SIZE + PART_SIZE / 2);
+    private static final String EARLIER_KEY = "videos/test-workflow-id/earlier.webm";
+    // An earlier attempt that uploaded the first part of VIDEO
+    private static final VsUploadProgress EARLIER_PROGRESS = new VsUploadProgress(EARLIER_KEY, "upload-0", PART_SIZE,
+            List.of(new VsUploadProgress.Part(1, "etag-1-upload-0")), PART_SIZE, "\"v1\"");
+
+    private final Map<String, String> objects = new ConcurrentHashMap<>();
+    private AmazonS3 s3Client;
+    private AmazonTranslate translateClient;
+    private VsAwsClientPool clientPool;
+    private TestActivityEnvironment testEnvironment;
+    private VsActivity activities;
+    // Parts by upload ID and part number, and the objects the multipart uploads completed
+    private final Map<String, byte[]> uploadedParts = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> completedUploads = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    // The video server: its ETag (none if null), whether it honours ranges, and the ranges requested
+    private HttpServer videoServer;
+    private volatile String videoETag = "\"v1\"";
+    private volatile boolean honourRanges = true;
+    private final List<String> requestedRanges = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        s3Client = mock(AmazonS3.class);
+        when(s3Client.putObject(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            objects.put(invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        });
+        when(s3Client.getObjectAsString(anyString(), anyString())).thenAnswer(invocation -> {
+            String value = objects.get(invocation.<String>getArgument(1));
+            if (value == null) {
+                AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+                notFound.setStatusCode(404);
+                throw notFound;
+            }
+            return value;
+        });
+        when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId("upload-" + uploadIds.incrementAndGet());
+            return result;
+        });
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            uploadedParts.put(request.getUploadId() + "/" + request.getPartNumber(),
+                    request.getInputStream().readAllBytes());
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber() + "-" + request.getUploadId());
+            return result;
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            CompleteMultipartUploadRequest request = invocation.getArgument(0);
+            ByteArrayOutputStream object = new ByteArrayOutputStream();
+            for (PartETag part : request.getPartETags()) {
+                assertEquals("etag-" + part.getPartNumber() + "-" + request.getUploadId(), part.getETag());
+                object.write(uploadedParts.get(request.getUploadId() + "/" + part.getPartNumber()));
+            }
+            completedUploads.put(request.getKey(), object.toByteArray());
+            return new CompleteMultipartUploadResult();
+        });
+        translateClient = mock(AmazonTranslate.class);
+        // Translates every line to upper case
+        when(translateClient.translateText(any(TranslateTextRequest.class))).thenAnswer(invocation ->
+                new TranslateTextResult().withTranslatedText(
+                        invocation.<TranslateTextRequest>getArgument(0).getText().toUpperCase(Locale.ROOT)));
+
+        VsAwsClientPool.ClientFactory factory = mock(VsAwsClientPool.ClientFactory.class);
+        when(factory.s3(any(VsJobDetails.class))).thenReturn(s3Client);
+        when(factory.translate(any(VsJobDetails.class))).thenReturn(translateClient);
+
+        clientPool = new VsAwsClientPool(10, Duration.ofMinutes(10).toMillis(), 0, factory);
+
+        testEnvironment = TestActivityEnvironment.newInstance();
+        testEnvironment.registerActivitiesImplementations(new VsActivityImpl(clientPool,
+                new VsTranslationMemory(1024 * 1024, null)));
+        activities = testEnvironment.newActivityStub(VsActivity.class, ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofMinutes(1))
+                .build());
+    }
+
+    @After
+    public void tearDown() {
+        testEnvironment.close();
+        clientPool.close();
+        if (videoServer != null) {
+            videoServer.stop(0);
+        }
+    }
+
+    @Test
+    public void translationCheckpointsSeveralRequestsTogether() {
+        VsActionReturnVals results = new VsActionReturnVals();
+        results.setOriginalText(sentences(VsConfig.TRANSLATE_CHECKPOINT_REQUESTS * VsConfig.TRANSLATE_MAX_SEGMENT_BYTES
+                + VsConfig.TRANSLATE_MAX_SEGMENT_BYTES / 2));
+        activities.convertOriginalTextToTargetLanguage(JOB, results);
+
+        // One checkpoint for every few requests, and none after the last one
+        ArgumentCaptor<TranslateTextRequest> requests = ArgumentCaptor.forClass(TranslateTextRequest.class);
+        verify(translateClient, atLeast(VsConfig.TRANSLATE_CHECKPOINT_REQUESTS + 1)).translateText(requests.capture());
+        int checkpoints = (requests.getAllValues().size() - 1) / VsConfig.TRANSLATE_CHECKPOINT_REQUESTS;
+        List<String> stored = objects.keySet().stream().filter(key -> key.contains("translated-sentences")).toList();
+        assertEquals(checkpoints, stored.size());
+        for (String key : stored) {
+            assertTrue(key, key.startsWith("payloads/test-workflow-id/"));
+            // The sentences of several requests, a line each
+            String[] lines = objects.get(key).split("\n");
+            assertTrue(lines.length > requests.getAllValues().get(0).getText().split("\n").length);
+            for (String line : lines) {
+                assertTrue(line, line.matches("SENTENCE NUMBER \\d+ OF THE TRANSCRIPT\\."));
+            }
+        }
+    }
+
+    @Test
+    public void translationHeartbeatsReferencesInsteadOfTexts() {
+        String reference = "s3://bucket/payloads/earlier/translated-sentences.txt";
+        objects.put("payloads/earlier/translated-sentences.txt", "SENTENCE NUMBER 0 OF THE TRANSCRIPT.");
+        String originalText = sentences(1) + " Two more. And another.";
+        testEnvironment.setHeartbeatDetails(new VsTranslationProgress(3, originalText.length(),
+                Map.of(reference, List.of(0))));
+        List<VsTranslationProgress> heartbeats = new ArrayList<>();
+        testEnvironment.setActivityHeartbeatListener(VsTranslationProgress.class, heartbeats::add);
+
+        VsActionReturnVals results = new VsActionReturnVals();
+        results.setOriginalText(originalText);
+        activities.convertOriginalTextToTargetLanguage(JOB, results);
+
+        // The checkpoint of the earlier attempt is carried on by reference
+        assertEquals(Map.of(reference, List.of(0)), heartbeats.get(0).translatedSegments());
+    }
+
+    @Test
+    public void largeTranslationIsPassedByReferenceWithItsStart() {
+        String originalText = sentences(VsConfig.CLAIM_CHECK_THRESHOLD_BYTES + 1);
+
+        VsActionReturnVals results = new VsActionReturnVals();
+        results.setOriginalText(originalText);
+        VsActionReturnVals translated = activities.convertOriginalTextToTargetLanguage(JOB, results);
+
+        assertNull(translated.getTargetText());
+        String stored = objects.get(translated.getTargetTextRef().substring("s3://bucket/".length()));
+        assertEquals(originalText.toUpperCase(Locale.ROOT), stored);
+        assertEquals(stored.substring(0, VsConfig.CLAIM_CHECK_PREVIEW_CHARS), translated.getTargetTextPreview());
+    }
+
+    @Test
+    public void retriedTranslationOnlySendsTheMissingSentences() {
+        String reference = "s3://bucket/payloads/earlier/translated-sentences.txt";
+        objects.put("payloads/earlier/translated-sentences.txt", "PREMIÈRE PHRASE.");
+        String originalText = "First sentence. Second sentence. Third sentence.";
+        testEnvironment.setHeartbeatDetails(new VsTranslationProgress(3, originalText.length(),
+                Map.of(reference, List.of(0))));
+
+        VsActionReturnVals results = new VsActionReturnVals();
+        results.setOriginalText(originalText);
+        VsActionReturnVals translated = activities.convertOriginalTextToTargetLanguage(JOB, results);
+
+        assertEquals("PREMIÈRE PHRASE. SECOND SENTENCE. THIRD SENTENCE.", translated.getTargetText());
+        ArgumentCaptor<TranslateTextRequest> request = ArgumentCaptor.forClass(TranslateTextRequest.class);
+        verify(translateClient).translateText(request.capture());
+        assertEquals("Second sentence.\nThird sentence.", request.getValue().getText());
+    }
+
+    @Test
+    public void mergeKeepsTheTranscriptOfTheMergeForAnotherLanguage() {
+        VsActionReturnVals transcript = new VsActionReturnVals();
+        transcript.setOriginalTextRef("s3://bucket/payloads/test-workflow-id/1/original-text.txt");
+
+        VsActionReturnVals merged = activities.mergeSegments(JOB, transcript,
+                List.of(segmentResults("First.", "Premier."), segmentResults("Second.", "Deuxième.")));
+
+        assertEquals("s3://bucket/payloads/test-workflow-id/1/original-text.txt", merged.getOriginalTextRef());
+        assertNull(merged.getOriginalText());
+        assertEquals("Premier. Deuxième.", merged.getTargetText());
+        verify(s3Client, never()).getObjectAsString(anyString(), anyString());
+    }
+
+    @Test
+    public void deletePayloadsRemovesWhatTheWorkflowStored() {
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            ListObjectsV2Result listing = new ListObjectsV2Result();
+            objects.keySet().stream()
+                    .filter(key -> key.startsWith(invocation.<ListObjectsV2Request>getArgument(0).getPrefix()))
+                    .forEach(key -> {
+                        S3ObjectSummary summary = new S3ObjectSummary();
+                        summary.setKey(key);
+                        listing.getObjectSummaries().add(summary);
+                    });
+            return listing;
+        });
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenAnswer(invocation -> {
+            invocation.<DeleteObjectsRequest>getArgument(0).getKeys().forEach(key -> objects.remove(key.getKey()));
+            return null;
+        });
+        objects.put("payloads/another-workflow/1/original-text.txt", "Not ours.");
+
+        VsActionReturnVals results = new VsActionReturnVals();
+        results.setOriginalText(sentences(VsConfig.CLAIM_CHECK_THRESHOLD_BYTES + 1));
+        activities.convertOriginalTextToTargetLanguage(JOB, results);
+        assertEquals(2, objects.size());
+
+        activities.deletePayloads(JOB);
+
+        assertEquals(Set.of("payloads/another-workflow/1/original-text.txt"), objects.keySet());
+    }
+
+    @Test
+    public void resumesTheUploadOfAnEarlierAttemptWithARangeRequest() throws IOException {
+        uploadedParts.put("upload-0/1", Arrays.copyOf(VIDEO, PART_SIZE));
+        testEnvironment.setHeartbeatDetails(EARLIER_PROGRESS);
+
+        VsActionReturnVals results = activities.uploadToS3(videoJob(), new VsActionReturnVals());
+
+        assertEquals(List.of("bytes=" + PART_SIZE + "-"), requestedRanges);
+        assertEquals(EARLIER_KEY, results.getS3Key());
+        // Only parts 2 and 3 were sent; part 1 is completed with the ETag of the earlier attempt
+        assertEquals(Set.of("upload-0/1", "upload-0/2", "upload-0/3"), uploadedParts.keySet());
+        assertArrayEquals(VIDEO, completedUploads.get(EARLIER_KEY));
+        verify(s3Client, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+        // The digest only saw the missing bytes
+        assertNull(results.getContentHash());
+    }
+
+    @Test
+    public void skipsTheUploadedBytesWhenTheServerIgnoresTheRange() throws IOException {
+        honourRanges = false;
+        uploadedParts.put("upload-0/1", Arrays.copyOf(VIDEO, PART_SIZE));
+        testEnvironment.setHeartbeatDetails(EARLIER_PROGRESS);
+
+        VsActionReturnVals results = activities.uploadToS3(videoJob(), new VsActionReturnVals());
+
+        assertEquals(EARLIER_KEY, results.getS3Key());
+        assertArrayEquals(VIDEO, completedUploads.get(EARLIER_KEY));
+    }
+
+    @Test
+    public void restartsTheUploadWhenTheVideoChanged() throws IOException {
+        videoETag = "\"v2\"";
+        testEnvironment.setHeartbeatDetails(EARLIER_PROGRESS);
+
+        VsActionReturnVals results = activities.uploadToS3(videoJob(), new VsActionReturnVals());
+
+        verify(s3Client).abortMultipartUpload(abortOf(EARLIER_KEY, "upload-0"));
+        assertNotEquals(EARLIER_KEY, results.getS3Key());
+        assertTrue(results.getS3Key(), results.getS3Key().startsWith("videos/test-workflow-id/"));
+        assertArrayEquals(VIDEO, completedUploads.get(results.getS3Key()));
+        assertEquals("\"v2\"", results.getSourceValidator());
+        assertEquals(VsDigests.toHex(VsDigests.newSha256().digest(VIDEO)), results.getContentHash());
+    }
+
+    @Test
+    public void heartbeatsButDoesNotResumeWithoutASourceValidator() throws IOException {
+        videoETag = null;
+        List<VsUploadProgress> heartbeats = new ArrayList<>();
+        testEnvironment.setActivityHeartbeatListener(VsUploadProgress.class, heartbeats::add);
+        testEnvironment.setHeartbeatDetails(EARLIER_PROGRESS);
+
+        VsActionReturnVals results = activities.uploadToS3(videoJob(), new VsActionReturnVals());
+
+        verify(s3Client).abortMultipartUpload(abortOf(EARLIER_KEY, "upload-0"));
+        assertArrayEquals(VIDEO, completedUploads.get(results.getS3Key()));
+        assertNull(results.getSourceValidator());
+        // The progress keeps the activity alive, but has no validator so the next attempt would not resume it
+        assertFalse(heartbeats.isEmpty());
+        assertNull(heartbeats.get(0).sourceValidator());
+    }
+
+    @Test
+    public void abortsAFailedUploadWithoutASourceValidator() throws IOException {
+        videoETag = null;
+        failPart(3);
+
+        try {
+            activities.uploadToS3(videoJob(), new VsActionReturnVals());
+            fail("The upload should have failed");
+        } catch (ActivityFailure e) {
+            // A retry could not resume it
+        }
+
+        ArgumentCaptor<AbortMultipartUploadRequest> abort = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3Client).abortMultipartUpload(abort.capture());
+        assertEquals("upload-1", abort.getValue().getUploadId());
+    }
+
+    @Test
+    public void keepsAFailedUploadWithASourceValidatorForTheNextAttempt() throws IOException {
+        failPart(3);
+
+        try {
+            activities.uploadToS3(videoJob(), new VsActionReturnVals());
+            fail("The upload should have failed");
+        } catch (ActivityFailure e) {
+            // The next attempt resumes it
+        }
+
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void deleteFromS3AbortsTheIncompleteUploadsOfTheWorkflow() {
+        MultipartUploadListing listing = new MultipartUploadListing();
+        MultipartUpload upload = new MultipartUpload();
+        upload.setKey(EARLIER_KEY);
+        upload.setUploadId("upload-0");
+        listing.setMultipartUploads(List.of(upload));
+        ArgumentCaptor<ListMultipartUploadsRequest> listRequest = ArgumentCaptor.forClass(ListMultipartUploadsRequest.class);
+        when(s3Client.listMultipartUploads(listRequest.capture())).thenReturn(listing);
+
+        // The upload failed for good, so there is no object to delete
+        activities.deleteFromS3(JOB, new VsActionReturnVals());
+
+        assertEquals("videos/test-workflow-id/", listRequest.getValue().getPrefix());
+        verify(s3Client).abortMultipartUpload(abortOf(EARLIER_KEY, "upload-0"));
+        verify(s3Client, never()).deleteObject(anyString(), anyString());
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Numbered sentences, at least the given number of bytes of them
+    private static String sentences(int bytes) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < bytes; i++) {
+            text.append(i == 0 ? "" : " ").append("Sentence number ").append(i).append(" of the transcript.");
+        }
+        return text.toString();
+    }
+
+    // A job whose video is served by a local server, with the ETag and range support the test sets
+    private VsJobDetails videoJob() throws IOException {
+        videoServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        videoServer.createContext("/video.webm", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            int start = 0;
+            if (range != null) {
+                requestedRanges.add(range);
+                if (honourRanges) {
+                    start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                    exchange.getResponseHeaders().set("Content-Range",
+                            "bytes " + start + "-" + (VIDEO.length - 1) + "/" + VIDEO.length);
+                }
+            }
+            if (videoETag != null) {
+                exchange.getResponseHeaders().set("ETag", videoETag);
+            }
+            exchange.sendResponseHeaders(start > 0 ? 206 : 200, VIDEO.length - start);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(VIDEO, start, VIDEO.length - start);
+            } catch (IOException e) {
+                // The client stopped reading, e.g. to restart the download
+            }
+        });
+        videoServer.start();
+        return new VsJobDetails("http://127.0.0.1:" + videoServer.getAddress().getPort() + "/video.webm",
+                "en-US", "fr", "key", "secret", "us-east-1", "bucket");
+    }
+
+    private static VsActionReturnVals segmentResults(String originalText, String targetText) {
+        VsActionReturnVals results = new VsActionReturnVals();
+        results.setOriginalText(originalText);
+        results.setTargetText(targetText);
+        return results;
+    }
+
+    private void failPart(int partNumber) {
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            if (request.getPartNumber() == partNumber) {
+                throw new AmazonS3Exception("Internal Error");
+            }
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber() + "-" + request.getUploadId());
+            return result;
+        });
+    }
+
+    private static AbortMultipartUploadRequest abortOf(String key, String uploadId) {
+        return argThat(request ->
+                request.getKey().equals(key) && request.getUploadId().equals(uploadId));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
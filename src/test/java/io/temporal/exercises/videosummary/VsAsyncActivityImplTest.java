@@ -0,0 +1,185 @@
+package io.temporal.exercises.videosummary;
+
+import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.RetryOptions;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Promise;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class VsAsyncActivityImplTest {
+    private static final String TASK_QUEUE = "async-activities";
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private TestWorkflowEnvironment testEnvironment;
+    private VsActivity activities;
+    private VsAsyncActivityImpl asyncActivities;
+
+    // Seen by the activities while they run
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final Set<Integer> inFlightSeen = ConcurrentHashMap.newKeySet();
+    private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    @WorkflowInterface
+    public interface SummariesWorkflow {
+        /**
+         * Summarize the texts in parallel; a failed summary is returned as "failed: " and its error message
+         */
+        @WorkflowMethod
+        List<String> summarize(List<String> texts, boolean local);
+    }
+
+    public static class SummariesWorkflowImpl implements SummariesWorkflow {
+        @Override
+        public List<String> summarize(List<String> texts, boolean local) {
+            RetryOptions noRetries = RetryOptions.newBuilder().setMaximumAttempts(1).build();
+            VsActivity activities = local
+                    ? Workflow.newLocalActivityStub(VsActivity.class, LocalActivityOptions.newBuilder()
+                            .setStartToCloseTimeout(Duration.ofSeconds(10))
+                            .setRetryOptions(noRetries)
+                            .build())
+                    : Workflow.newActivityStub(VsActivity.class, ActivityOptions.newBuilder()
+                            .setStartToCloseTimeout(Duration.ofSeconds(10))
+                            .setHeartbeatTimeout(Duration.ofSeconds(1))
+                            .setRetryOptions(noRetries)
+                            .build());
+
+            List<Promise<String>> summaries = new ArrayList<>();
+            for (String text : texts) {
+                VsActionReturnVals results = new VsActionReturnVals();
+                results.setTargetText(text);
+                summaries.add(Async.function(activities::generateSummary, (VsJobDetails) null, results));
+            }
+            List<String> completed = new ArrayList<>();
+            for (Promise<String> summary : summaries) {
+                try {
+                    completed.add(summary.get());
+                } catch (ActivityFailure e) {
+                    completed.add("failed: " + (e.getCause() instanceof ApplicationFailure
+                            ? ((ApplicationFailure) e.getCause()).getOriginalMessage() : e.getCause().getMessage()));
+                }
+            }
+            return completed;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        activities = mock(VsActivity.class, withSettings().withoutAnnotations());
+        when(activities.generateSummary(any(), any(VsActionReturnVals.class))).thenAnswer(invocation -> {
+            String text = invocation.<VsActionReturnVals>getArgument(1).getTargetText();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            inFlightSeen.add(asyncActivities.getInFlight());
+            threadNames.add(Thread.currentThread().getName());
+            try {
+                if (text.startsWith("fail")) {
+                    throw new IllegalStateException("Cannot summarize " + text);
+                }
+                if (text.startsWith("slow")) {
+                    // Longer than the heartbeat timeout, so only the heartbeats keep it alive
+                    for (int i = 0; i < 25; i++) {
+                        Thread.sleep(100);
+                        VsActivityContext.current().heartbeat(i);
+                    }
+                } else {
+                    Thread.sleep(200);
+                }
+                return "Summary of " + text;
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        // Real time, so the heartbeat timeout is not skipped over while an activity runs on its own thread
+        testEnvironment = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setUseTimeskipping(false)
+                .build());
+        asyncActivities = new VsAsyncActivityImpl(activities,
+                testEnvironment.getWorkflowClient().newActivityCompletionClient(), MAX_IN_FLIGHT);
+        Worker worker = testEnvironment.newWorker(TASK_QUEUE);
+        worker.registerWorkflowImplementationTypes(SummariesWorkflowImpl.class);
+        worker.registerActivitiesImplementations(asyncActivities);
+        testEnvironment.start();
+    }
+
+    @After
+    public void tearDown() {
+        testEnvironment.close();
+    }
+
+    @Test
+    public void runsAtMostMaxInFlightActivitiesAtATime() {
+        List<String> texts = List.of("a", "b", "c", "d", "e", "f");
+
+        List<String> summaries = summarize(texts, false);
+
+        assertEquals(List.of("Summary of a", "Summary of b", "Summary of c", "Summary of d", "Summary of e",
+                "Summary of f"), summaries);
+        assertEquals(MAX_IN_FLIGHT, maxRunning.get());
+        assertTrue(inFlightSeen.toString(), inFlightSeen.stream().allMatch(inFlight -> inFlight <= MAX_IN_FLIGHT));
+        assertEquals(0, asyncActivities.getInFlight());
+        // Not on the SDK's activity threads
+        assertTrue(threadNames.toString(), threadNames.stream().allMatch(name -> name.startsWith("vs-activity-")));
+    }
+
+    @Test
+    public void reportsTheFailureOfAHandedOffActivityAndFreesItsSlot() {
+        List<String> summaries = summarize(List.of("fail 1", "fail 2", "fail 3", "a"), false);
+
+        assertEquals(List.of("failed: Cannot summarize fail 1", "failed: Cannot summarize fail 2",
+                "failed: Cannot summarize fail 3", "Summary of a"), summaries);
+        assertEquals(0, asyncActivities.getInFlight());
+    }
+
+    @Test
+    public void heartbeatsFromTheThreadTheActivityWasHandedOffTo() {
+        assertEquals(List.of("Summary of slow"), summarize(List.of("slow"), false));
+    }
+
+    @Test
+    public void runsLocalActivitiesInline() {
+        List<String> summaries = summarize(List.of("a", "b"), true);
+
+        assertEquals(List.of("Summary of a", "Summary of b"), summaries);
+        // Completed by the SDK on its own thread, without taking a slot
+        assertEquals(Set.of(0), inFlightSeen);
+        assertFalse(threadNames.toString(), threadNames.stream().anyMatch(name -> name.startsWith("vs-activity-")));
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private List<String> summarize(List<String> texts, boolean local) {
+        return testEnvironment.getWorkflowClient().newWorkflowStub(SummariesWorkflow.class,
+                WorkflowOptions.newBuilder().setTaskQueue(TASK_QUEUE).build())
+                .summarize(texts, local);
+    }
+}
@@ -0,0 +1,481 @@
+package io.temporal.exercises.videosummary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VsAudioExtractorTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void extractsTheAudioChunksAndRewritesTheChunkOffsets() throws IOException {
+        Mp4 mp4 = new Mp4();
+
+        byte[] audio = extract(mp4.build());
+
+        assertAudioTrack(mp4, audio, "stco");
+    }
+
+    @Test
+    public void keepsSixtyFourBitChunkOffsetsAndLargeBoxHeaders() throws IOException {
+        Mp4 mp4 = new Mp4();
+        mp4.chunkOffsetType = "co64";
+        mp4.largeMoovHeader = true;
+
+        byte[] audio = extract(mp4.build());
+
+        assertAudioTrack(mp4, audio, "co64");
+    }
+
+    @Test
+    public void sizesChunksFromSeveralSampleToChunkRuns() throws IOException {
+        Mp4 mp4 = new Mp4();
+        // Runs starting at chunks 1, 3 and 4, with a different sample size for every sample
+        mp4.samplesPerChunk = new int[]{3, 3, 1, 2, 2};
+        mp4.sampleSizes = new int[11];
+        for (int i = 0; i < mp4.sampleSizes.length; i++) {
+            mp4.sampleSizes[i] = 40 + 13 * i;
+        }
+
+        byte[] audio = extract(mp4.build());
+
+        int stsc = box(audio, "moov", "trak", "mdia", "minf", "stbl", "stsc");
+        assertEquals(3, ByteBuffer.wrap(audio).getInt(stsc + 12));
+        assertAudioTrack(mp4, audio, "stco");
+    }
+
+    @Test
+    public void rejectsAFileWithoutAnAudioTrack() throws IOException {
+        Mp4 mp4 = new Mp4();
+        mp4.handlerType = "vide";
+
+        assertFalse(VsAudioExtractor.extract(write(mp4.build()), folder.getRoot().toPath().resolve("audio.m4a")));
+    }
+
+    @Test
+    public void rejectsATruncatedMovieBox() throws IOException {
+        byte[] video = new Mp4().build();
+
+        // The moov box is last, so the file ends inside it
+        assertFalse(VsAudioExtractor.extract(write(Arrays.copyOf(video, video.length - 20)),
+                folder.getRoot().toPath().resolve("audio.m4a")));
+    }
+
+    @Test
+    public void rejectsAChunkOffsetTableThatOverrunsItsBox() throws IOException {
+        byte[] video = new Mp4().build();
+        int stco = box(video, "moov", "trak", "mdia", "minf", "stbl", "stco");
+        ByteBuffer.wrap(video).putInt(stco + 12, 1000);
+
+        assertFalse(VsAudioExtractor.extract(write(video), folder.getRoot().toPath().resolve("audio.m4a")));
+    }
+
+    @Test
+    public void rejectsASampleTableWithACorruptBoxSize() throws IOException {
+        byte[] video = new Mp4().build();
+        // A box size running past its parent ends the parsing of the sample table before stsz
+        int stsc = box(video, "moov", "trak", "mdia", "minf", "stbl", "stsc");
+        ByteBuffer.wrap(video).putInt(stsc, 0x7FFFFFF0);
+
+        assertFalse(VsAudioExtractor.extract(write(video), folder.getRoot().toPath().resolve("audio.m4a")));
+    }
+
+    @Test
+    public void cutsSegmentsAtTheFirstChunkBoundaryAfterTheSegmentDuration() throws IOException {
+        Mp4 mp4 = new Mp4();
+        // Ten chunks of 4096 ticks, about 93 ms each
+        mp4.samplesPerChunk = filled(10, 4);
+        mp4.sampleSizes = filled(40, 50);
+        mp4.sampleDurations = filled(40, 1024);
+
+        List<VsAudioExtractor.Segment> segments = split(mp4, 200);
+
+        // 200 ms is 8820 ticks, reached after three chunks
+        assertEquals(4, segments.size());
+        assertSegment(mp4, segments.get(0), 0, 3, 0, 278);
+        assertSegment(mp4, segments.get(1), 3, 6, 278, 278);
+        assertSegment(mp4, segments.get(2), 6, 9, 557, 278);
+        assertSegment(mp4, segments.get(3), 9, 10, 835, 92);
+    }
+
+    @Test
+    public void rebasesTheSampleTablesOfEverySegment() throws IOException {
+        Mp4 mp4 = new Mp4();
+        mp4.samplesPerChunk = new int[]{2, 2, 3, 3, 1, 1};
+        mp4.sampleSizes = new int[12];
+        mp4.sampleDurations = new int[12];
+        for (int i = 0; i < 12; i++) {
+            mp4.sampleSizes[i] = 30 + 7 * i;
+            mp4.sampleDurations[i] = i < 6 ? 1024 : 2048;
+        }
+
+        // 100 ms is 4410 ticks: chunks of 2048, 2048 and 4096 ticks, then one of 6144, then two of 2048
+        List<VsAudioExtractor.Segment> segments = split(mp4, 100);
+
+        assertEquals(3, segments.size());
+        assertSegment(mp4, segments.get(0), 0, 3, 0, 185);
+        assertSegment(mp4, segments.get(1), 3, 4, 185, 139);
+        assertSegment(mp4, segments.get(2), 4, 6, 325, 92);
+    }
+
+    @Test
+    public void putsAChunkLongerThanTheSegmentDurationInASegmentOfItsOwn() throws IOException {
+        Mp4 mp4 = new Mp4();
+
+        List<VsAudioExtractor.Segment> segments = split(mp4, 1);
+
+        assertEquals(3, segments.size());
+        for (int chunk = 0; chunk < 3; chunk++) {
+            assertSegment(mp4, segments.get(chunk), chunk, chunk + 1, chunk * 4096 * 1000L / 44100, 92);
+        }
+    }
+
+    @Test
+    public void doesNotSplitAFileWithoutAnAudioTrack() throws IOException {
+        Mp4 mp4 = new Mp4();
+        mp4.handlerType = "vide";
+
+        assertNull(VsAudioExtractor.split(write(mp4.build()), folder.newFolder().toPath(), 1000));
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // A synthetic MP4: ftyp, an mdat with video filler before every audio chunk, then a moov with a video
+    // track without samples and the audio track. Every byte of audio sample i is i + 1.
+    private static final class Mp4 {
+        String handlerType = "soun";
+        String chunkOffsetType = "stco";
+        boolean largeMoovHeader;
+        int[] samplesPerChunk = {4, 4, 4};
+        int[] sampleSizes = filled(12, 100);
+        int[] sampleDurations = filled(12, 1024);
+        int mediaTimescale = 44100;
+
+        // Offsets of the audio chunks in the built file
+        long[] chunkOffsets;
+
+        byte[] build() {
+            byte[] ftyp = box("ftyp", ascii("isom"), ByteBuffer.allocate(4).array(), ascii("isom"));
+
+            ByteArrayOutputStream mdat = new ByteArrayOutputStream();
+            chunkOffsets = new long[samplesPerChunk.length];
+            int sample = 0;
+            for (int chunk = 0; chunk < samplesPerChunk.length; chunk++) {
+                byte[] filler = new byte[64];
+                Arrays.fill(filler, (byte) 0xEE);
+                mdat.writeBytes(filler);
+                chunkOffsets[chunk] = ftyp.length + 8 + mdat.size();
+                for (int i = 0; i < samplesPerChunk[chunk]; i++, sample++) {
+                    mdat.writeBytes(sampleBytes(sample));
+                }
+            }
+
+            long mediaDuration = 0;
+            for (int duration : sampleDurations) {
+                mediaDuration += duration;
+            }
+            byte[] videoTrak = box("trak", trackHeader(1, 0), box("mdia", mediaHeader(90000, 0), handler("vide")));
+            byte[] audioTrak = box("trak", trackHeader(2, mediaDuration * 1000 / mediaTimescale),
+                    box("mdia", mediaHeader(mediaTimescale, mediaDuration), handler(handlerType),
+                            box("minf", box("smhd", new byte[8]), sampleTable())));
+            byte[] moov = box("moov", movieHeader(mediaDuration * 1000 / mediaTimescale), videoTrak, audioTrak);
+            if (largeMoovHeader) {
+                moov = ByteBuffer.allocate(moov.length + 8).putInt(1).put(ascii("moov")).putLong(moov.length + 8)
+                        .put(moov, 8, moov.length - 8).array();
+            }
+
+            ByteArrayOutputStream file = new ByteArrayOutputStream();
+            file.writeBytes(ftyp);
+            file.writeBytes(box("mdat", mdat.toByteArray()));
+            file.writeBytes(moov);
+            return file.toByteArray();
+        }
+
+        byte[] sampleBytes(int sample) {
+            byte[] bytes = new byte[sampleSizes[sample]];
+            Arrays.fill(bytes, (byte) (sample + 1));
+            return bytes;
+        }
+
+        // The samples of chunks [firstChunk, endChunk), as they must appear in an output mdat
+        byte[] chunkBytes(int firstChunk, int endChunk) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int sample = 0;
+            for (int chunk = 0; chunk < endChunk; chunk++) {
+                for (int i = 0; i < samplesPerChunk[chunk]; i++, sample++) {
+                    if (chunk >= firstChunk) {
+                        bytes.writeBytes(sampleBytes(sample));
+                    }
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        private byte[] sampleTable() {
+            ByteBuffer mp4a = ByteBuffer.allocate(36).putInt(36).put(ascii("mp4a"));
+            mp4a.position(16);
+            mp4a.putShort((short) 2).putShort((short) 16).putInt(0).putInt(mediaTimescale << 16);
+            byte[] stsd = ByteBuffer.allocate(8 + 36).putInt(0).putInt(1).put(mp4a.array()).array();
+
+            ByteBuffer stts = ByteBuffer.allocate(8 + 8 * sampleDurations.length).putInt(0).putInt(0);
+            int timeEntries = 0;
+            for (int i = 0; i < sampleDurations.length; i++) {
+                if (i == 0 || sampleDurations[i] != sampleDurations[i - 1]) {
+                    stts.putInt(1).putInt(sampleDurations[i]);
+                    timeEntries++;
+                } else {
+                    stts.putInt(stts.position() - 8, stts.getInt(stts.position() - 8) + 1);
+                }
+            }
+            stts.putInt(4, timeEntries);
+
+            ByteBuffer stsc = ByteBuffer.allocate(8 + 12 * samplesPerChunk.length).putInt(0).putInt(0);
+            int chunkEntries = 0;
+            for (int chunk = 0; chunk < samplesPerChunk.length; chunk++) {
+                if (chunk == 0 || samplesPerChunk[chunk] != samplesPerChunk[chunk - 1]) {
+                    stsc.putInt(chunk + 1).putInt(samplesPerChunk[chunk]).putInt(1);
+                    chunkEntries++;
+                }
+            }
+            stsc.putInt(4, chunkEntries);
+
+            ByteBuffer stsz = ByteBuffer.allocate(12 + 4 * sampleSizes.length).putInt(0).putInt(0)
+                    .putInt(sampleSizes.length);
+            for (int size : sampleSizes) {
+                stsz.putInt(size);
+            }
+
+            boolean wide = chunkOffsetType.equals("co64");
+            ByteBuffer offsets = ByteBuffer.allocate(8 + (wide ? 8 : 4) * chunkOffsets.length).putInt(0)
+                    .putInt(chunkOffsets.length);
+            for (long offset : chunkOffsets) {
+                if (wide) {
+                    offsets.putLong(offset);
+                } else {
+                    offsets.putInt((int) offset);
+                }
+            }
+
+            return box("stbl", box("stsd", stsd), box("stts", Arrays.copyOf(stts.array(), 8 + 8 * timeEntries)),
+                    box("stsc", Arrays.copyOf(stsc.array(), 8 + 12 * chunkEntries)), box("stsz", stsz.array()),
+                    box(chunkOffsetType, offsets.array()));
+        }
+
+        private static byte[] movieHeader(long duration) {
+            // Version 0: timescale at 12, duration at 16
+            return box("mvhd", ByteBuffer.allocate(100).putInt(12, 1000).putInt(16, (int) duration).array());
+        }
+
+        private static byte[] trackHeader(int trackId, long duration) {
+            // Version 0: track ID at 12, duration at 20
+            return box("tkhd", ByteBuffer.allocate(84).putInt(12, trackId).putInt(20, (int) duration).array());
+        }
+
+        private static byte[] mediaHeader(int timescale, long duration) {
+            // Version 0: timescale at 12, duration at 16
+            return box("mdhd", ByteBuffer.allocate(24).putInt(12, timescale).putInt(16, (int) duration).array());
+        }
+
+        private static byte[] handler(String handlerType) {
+            return box("hdlr", ByteBuffer.allocate(25).put(8, ascii(handlerType)).array());
+        }
+    }
+
+    private byte[] extract(byte[] video) throws IOException {
+        Path audio = folder.getRoot().toPath().resolve("audio.m4a");
+        assertTrue(VsAudioExtractor.extract(write(video), audio));
+        return Files.readAllBytes(audio);
+    }
+
+    private List<VsAudioExtractor.Segment> split(Mp4 mp4, long segmentMillis) throws IOException {
+        List<VsAudioExtractor.Segment> segments = VsAudioExtractor.split(write(mp4.build()),
+                folder.newFolder().toPath(), segmentMillis);
+        assertNotNull(segments);
+        return segments;
+    }
+
+    private Path write(byte[] video) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, video);
+        return file;
+    }
+
+    private static void assertAudioTrack(Mp4 mp4, byte[] audio, String chunkOffsetType) {
+        assertAudioTrack(mp4, audio, chunkOffsetType, 0, mp4.samplesPerChunk.length);
+    }
+
+    // An output file holds only the movie header and the audio track, and audio chunks [firstChunk, endChunk)
+    // in order in its mdat
+    private static void assertAudioTrack(Mp4 mp4, byte[] audio, String chunkOffsetType, int firstChunk,
+                                         int endChunk) {
+        int moov = box(audio, "moov");
+        int trak = box(audio, "moov", "trak");
+        assertEquals(ByteBuffer.wrap(audio).getInt(moov), 8 + ByteBuffer.wrap(audio).getInt(box(audio, "moov", "mvhd"))
+                + ByteBuffer.wrap(audio).getInt(trak));
+
+        int mdat = box(audio, "mdat");
+        byte[] allChunks = mp4.chunkBytes(firstChunk, endChunk);
+        assertArrayEquals(allChunks, Arrays.copyOfRange(audio, mdat + 8, ByteBuffer.wrap(audio).getInt(mdat) + mdat));
+
+        long[] offsets = chunkOffsets(audio, box(audio, "moov", "trak", "mdia", "minf", "stbl", chunkOffsetType));
+        assertEquals(endChunk - firstChunk, offsets.length);
+        for (int chunk = 0; chunk < offsets.length; chunk++) {
+            byte[] expected = mp4.chunkBytes(firstChunk + chunk, firstChunk + chunk + 1);
+            assertArrayEquals("Chunk " + chunk, expected,
+                    Arrays.copyOfRange(audio, (int) offsets[chunk], (int) offsets[chunk] + expected.length));
+        }
+    }
+
+    // A segment file holds chunks [firstChunk, endChunk) with sample tables and durations that start at the segment
+    private static void assertSegment(Mp4 mp4, VsAudioExtractor.Segment segment, int firstChunk, int endChunk,
+                                      long startMillis, long durationMillis) throws IOException {
+        assertEquals(startMillis, segment.startMillis());
+        assertEquals(durationMillis, segment.durationMillis());
+
+        byte[] audio = Files.readAllBytes(segment.file());
+        assertAudioTrack(mp4, audio, "stco", firstChunk, endChunk);
+
+        int firstSample = 0;
+        for (int chunk = 0; chunk < firstChunk; chunk++) {
+            firstSample += mp4.samplesPerChunk[chunk];
+        }
+        int endSample = firstSample;
+        for (int chunk = firstChunk; chunk < endChunk; chunk++) {
+            endSample += mp4.samplesPerChunk[chunk];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(audio);
+        String[] stbl = {"moov", "trak", "mdia", "minf", "stbl"};
+        assertArrayEquals(Arrays.copyOfRange(mp4.sampleSizes, firstSample, endSample),
+                sampleSizes(audio, box(audio, child(stbl, "stsz"))));
+        assertArrayEquals(Arrays.copyOfRange(mp4.sampleDurations, firstSample, endSample),
+                expandRuns(audio, box(audio, child(stbl, "stts"))));
+        assertArrayEquals(Arrays.copyOfRange(mp4.samplesPerChunk, firstChunk, endChunk),
+                samplesPerChunk(audio, box(audio, child(stbl, "stsc")), endChunk - firstChunk));
+
+        // Durations in ticks of the media timescale in mdhd, in milliseconds in mvhd and tkhd
+        long ticks = 0;
+        for (int sample = firstSample; sample < endSample; sample++) {
+            ticks += mp4.sampleDurations[sample];
+        }
+        assertEquals(ticks, buffer.getInt(box(audio, "moov", "trak", "mdia", "mdhd") + 8 + 16));
+        assertEquals(ticks * 1000 / mp4.mediaTimescale, buffer.getInt(box(audio, "moov", "mvhd") + 8 + 16));
+        assertEquals(ticks * 1000 / mp4.mediaTimescale, buffer.getInt(box(audio, "moov", "trak", "tkhd") + 8 + 20));
+    }
+
+    private static String[] child(String[] path, String type) {
+        String[] childPath = Arrays.copyOf(path, path.length + 1);
+        childPath[path.length] = type;
+        return childPath;
+    }
+
+    private static int[] sampleSizes(byte[] data, int stsz) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int[] sizes = new int[buffer.getInt(stsz + 16)];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = buffer.getInt(stsz + 20 + 4 * i);
+        }
+        return sizes;
+    }
+
+    // Per-sample durations of an stts box
+    private static int[] expandRuns(byte[] data, int stts) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        List<Integer> durations = new ArrayList<>();
+        for (int entry = 0; entry < buffer.getInt(stts + 12); entry++) {
+            for (int i = 0; i < buffer.getInt(stts + 16 + 8 * entry); i++) {
+                durations.add(buffer.getInt(stts + 20 + 8 * entry));
+            }
+        }
+        return durations.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Per-chunk sample counts of an stsc box
+    private static int[] samplesPerChunk(byte[] data, int stsc, int chunkCount) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int entries = buffer.getInt(stsc + 12);
+        assertEquals(1, buffer.getInt(stsc + 16));
+        int[] samplesPerChunk = new int[chunkCount];
+        for (int entry = 0; entry < entries; entry++) {
+            int firstChunk = buffer.getInt(stsc + 16 + 12 * entry);
+            int endChunk = entry + 1 < entries ? buffer.getInt(stsc + 28 + 12 * entry) : chunkCount + 1;
+            for (int chunk = firstChunk; chunk < endChunk; chunk++) {
+                samplesPerChunk[chunk - 1] = buffer.getInt(stsc + 20 + 12 * entry);
+            }
+        }
+        return samplesPerChunk;
+    }
+
+    private static long[] chunkOffsets(byte[] data, int box) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        boolean wide = new String(data, box + 4, 4, StandardCharsets.ISO_8859_1).equals("co64");
+        long[] offsets = new long[buffer.getInt(box + 12)];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = wide ? buffer.getLong(box + 16 + 8 * i) : buffer.getInt(box + 16 + 4 * i) & 0xFFFFFFFFL;
+        }
+        return offsets;
+    }
+
+    // Start of the first box at a path of box types from the top level; full boxes (stsd) are not descended
+    // into, and all boxes have plain 8-byte headers
+    private static int box(byte[] data, String... path) {
+        int found = box(data, 0, data.length, path, 0);
+        if (found < 0) {
+            throw new AssertionError("No box at " + String.join("/", path));
+        }
+        return found;
+    }
+
+    private static int box(byte[] data, int start, int end, String[] path, int depth) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        for (int position = start; position + 8 <= end; position += buffer.getInt(position)) {
+            if (new String(data, position + 4, 4, StandardCharsets.ISO_8859_1).equals(path[depth])) {
+                int found = depth == path.length - 1
+                        ? position
+                        : box(data, position + 8, position + buffer.getInt(position), path, depth + 1);
+                if (found >= 0) {
+                    return found;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] box(String type, byte[]... payloads) {
+        ByteArrayOutputStream box = new ByteArrayOutputStream();
+        for (byte[] payload : payloads) {
+            box.writeBytes(payload);
+        }
+        return ByteBuffer.allocate(8 + box.size()).putInt(8 + box.size()).put(ascii(type)).put(box.toByteArray())
+                .array();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static int[] filled(int length, int value) {
+        int[] values = new int[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
@@ -0,0 +1,149 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.translate.AmazonTranslate;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VsAwsClientPoolTest {
+    private static final VsJobDetails JOB = new VsJobDetails("https://example.com/video.mp4", "en-US", "fr",
+            "key", "secret", "us-east-1", "bucket");
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @Test
+    public void cachesClientsPerCredentialsRegionAndService() {
+        VsAwsClientPool.ClientFactory factory = mock(VsAwsClientPool.ClientFactory.class);
+        when(factory.s3(any(VsJobDetails.class))).thenAnswer(invocation -> mock(AmazonS3.class));
+        VsAwsClientPool pool = new VsAwsClientPool(10, TimeUnit.MINUTES.toMillis(10), 0, factory);
+
+        AmazonS3 first = pool.s3(JOB);
+        assertSame(first, pool.s3(JOB));
+        assertNotSame(first, pool.s3(new VsJobDetails("https://example.com/video.mp4", "en-US", "fr",
+                "key", "rotated-secret", "us-east-1", "bucket")));
+        verify(factory, times(2)).s3(any(VsJobDetails.class));
+    }
+
+    @Test
+    public void slowClientBuildDoesNotBlockOtherClients() throws Exception {
+        CountDownLatch s3BuildStarted = new CountDownLatch(1);
+        CountDownLatch releaseS3Build = new CountDownLatch(1);
+        VsAwsClientPool.ClientFactory factory = mock(VsAwsClientPool.ClientFactory.class);
+        when(factory.s3(any(VsJobDetails.class))).thenAnswer(invocation -> {
+            s3BuildStarted.countDown();
+            releaseS3Build.await(30, TimeUnit.SECONDS);
+            return mock(AmazonS3.class);
+        });
+        when(factory.translate(any(VsJobDetails.class))).thenAnswer(invocation -> mock(AmazonTranslate.class));
+        VsAwsClientPool pool = new VsAwsClientPool(10, TimeUnit.MINUTES.toMillis(10), 0, factory);
+
+        try {
+            Future<AmazonS3> s3 = executor.submit(() -> pool.s3(JOB));
+            s3BuildStarted.await(10, TimeUnit.SECONDS);
+
+            // Would time out if the S3 build held the pool lock
+            executor.submit(() -> pool.translate(JOB)).get(5, TimeUnit.SECONDS);
+            assertEquals(1, pool.size());
+
+            releaseS3Build.countDown();
+            s3.get(10, TimeUnit.SECONDS);
+            assertEquals(2, pool.size());
+        } finally {
+            releaseS3Build.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentBuildsOfTheSameClientKeepOneAndShutDownTheOther() throws Exception {
+        CountDownLatch bothBuilding = new CountDownLatch(2);
+        AmazonS3 firstClient = mock(AmazonS3.class);
+        AmazonS3 secondClient = mock(AmazonS3.class);
+        VsAwsClientPool.ClientFactory factory = mock(VsAwsClientPool.ClientFactory.class);
+        when(factory.s3(any(VsJobDetails.class))).thenAnswer(invocation -> {
+            bothBuilding.countDown();
+            bothBuilding.await(10, TimeUnit.SECONDS);
+            return firstClient;
+        }).thenAnswer(invocation -> {
+            bothBuilding.countDown();
+            bothBuilding.await(10, TimeUnit.SECONDS);
+            return secondClient;
+        });
+        VsAwsClientPool pool = new VsAwsClientPool(10, TimeUnit.MINUTES.toMillis(10), 0, factory);
+
+        try {
+            Future<AmazonS3> first = executor.submit(() -> pool.s3(JOB));
+            Future<AmazonS3> second = executor.submit(() -> pool.s3(JOB));
+            AmazonS3 kept = first.get(10, TimeUnit.SECONDS);
+            assertSame(kept, second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, pool.size());
+
+            AmazonS3 discarded = kept == firstClient ? secondClient : firstClient;
+            verify(discarded).shutdown();
+            verify(kept, never()).shutdown();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sweepsEveryPoolFromOneThread() {
+        VsAwsClientPool.ClientFactory factory = mock(VsAwsClientPool.ClientFactory.class);
+        VsAwsClientPool.shared();
+        List<VsAwsClientPool> pools = List.of(new VsAwsClientPool(10, TimeUnit.MINUTES.toMillis(10), 0, factory),
+                new VsAwsClientPool(10, TimeUnit.MINUTES.toMillis(10), 0, factory),
+                new VsAwsClientPool(10, TimeUnit.MINUTES.toMillis(10), 0, factory));
+
+        try {
+            assertEquals(1, Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("vs-aws-client-pool-sweeper"))
+                    .count());
+        } finally {
+            pools.forEach(VsAwsClientPool::close);
+        }
+    }
+
+    @Test
+    public void closeShutsDownCachedAndEvictedClients() {
+        AmazonS3 evictedClient = mock(AmazonS3.class);
+        AmazonS3 cachedClient = mock(AmazonS3.class);
+        VsAwsClientPool.ClientFactory factory = mock(VsAwsClientPool.ClientFactory.class);
+        when(factory.s3(any(VsJobDetails.class))).thenReturn(evictedClient, cachedClient);
+        // One client at most, and evicted clients wait ten minutes before they are shut down
+        VsAwsClientPool pool = new VsAwsClientPool(1, TimeUnit.MINUTES.toMillis(10), TimeUnit.MINUTES.toMillis(10),
+                factory);
+        pool.s3(JOB);
+        pool.s3(new VsJobDetails("https://example.com/video.mp4", "en-US", "fr",
+                "key", "secret", "eu-west-1", "bucket"));
+        verify(evictedClient, never()).shutdown();
+
+        pool.close();
+
+        verify(evictedClient).shutdown();
+        verify(cachedClient).shutdown();
+        assertEquals(0, pool.size());
+        try {
+            pool.s3(JOB);
+            fail("A closed pool should not hand out clients");
+        } catch (IllegalStateException e) {
+            assertEquals("The AWS client pool is closed", e.getMessage());
+        }
+    }
+}
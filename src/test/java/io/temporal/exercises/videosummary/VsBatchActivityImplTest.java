@@ -0,0 +1,72 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.s3.AmazonS3;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.testing.TestActivityEnvironment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class VsBatchActivityImplTest {
+    private static final VsJobDetails STORAGE = new VsJobDetails(null, null, (String) null,
+            "key", "secret", "us-east-1", "bucket");
+
+    private final Map<String, String> objects = new ConcurrentHashMap<>();
+    private VsAwsClientPool clientPool;
+    private TestActivityEnvironment testEnvironment;
+    private VsBatchActivity batchActivities;
+
+    @Before
+    public void setUp() {
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        when(s3Client.putObject(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            objects.put(invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        });
+        when(s3Client.getObjectAsString(anyString(), anyString()))
+                .thenAnswer(invocation -> objects.get(invocation.<String>getArgument(1)));
+        VsAwsClientPool.ClientFactory factory = mock(VsAwsClientPool.ClientFactory.class);
+        when(factory.s3(any(VsJobDetails.class))).thenReturn(s3Client);
+        clientPool = new VsAwsClientPool(10, Duration.ofMinutes(10).toMillis(), 0, factory);
+
+        testEnvironment = TestActivityEnvironment.newInstance();
+        testEnvironment.registerActivitiesImplementations(new VsBatchActivityImpl(clientPool));
+        batchActivities = testEnvironment.newActivityStub(VsBatchActivity.class, ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofMinutes(1))
+                .build());
+    }
+
+    @After
+    public void tearDown() {
+        testEnvironment.close();
+        clientPool.close();
+    }
+
+    @Test
+    public void loadsOnePageOfTheStoredManifest() {
+        List<VsJobDetails> jobs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            jobs.add(new VsJobDetails("https://example.com/video-" + i + ".mp4", "en-US", List.of("fr", "de"),
+                    "key", "secret", "us-east-1", "bucket"));
+        }
+        String manifestRef = VsBatchActivityImpl.storeManifest(clientPool, STORAGE, "batch/1", jobs);
+        assertTrue(manifestRef, manifestRef.startsWith("s3://bucket/payloads/batch%2F1/"));
+
+        assertEquals(jobs.subList(2, 4), batchActivities.loadJobs(STORAGE, manifestRef, 2, 2));
+        assertEquals(jobs.subList(4, 5), batchActivities.loadJobs(STORAGE, manifestRef, 4, 2));
+        assertEquals(List.of(), batchActivities.loadJobs(STORAGE, manifestRef, 5, 2));
+    }
+}
@@ -0,0 +1,144 @@
+package io.temporal.exercises.videosummary;
+
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class VsBatchWorkflowImplTest {
+    private static final String BATCH_ID = "batch-1";
+    private static final String MANIFEST_REF = "s3://bucket/payloads/batch-1/manifest.txt";
+    private static final VsJobDetails STORAGE = new VsJobDetails(null, null, (String) null,
+            "key", "secret", "us-east-1", "bucket");
+
+    private final List<VsJobDetails> manifest = new ArrayList<>();
+    private TestWorkflowEnvironment testEnvironment;
+    private VsBatchActivity batchActivities;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 5; i++) {
+            manifest.add(new VsJobDetails("https://example.com/video-" + i + ".mp4", "en-US", "fr",
+                    "key", "secret", "us-east-1", "bucket"));
+        }
+        batchActivities = mock(VsBatchActivity.class, withSettings().withoutAnnotations());
+        when(batchActivities.loadJobs(any(VsJobDetails.class), eq(MANIFEST_REF), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int firstIndex = invocation.getArgument(2);
+                    int count = invocation.getArgument(3);
+                    return new ArrayList<>(manifest.subList(firstIndex, Math.min(firstIndex + count, manifest.size())));
+                });
+
+        testEnvironment = TestWorkflowEnvironment.newInstance();
+        Worker worker = testEnvironment.newWorker(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE);
+        worker.registerWorkflowImplementationTypes(VsBatchWorkflowImpl.class, FakeVideoSummaryWorkflow.class);
+        worker.registerActivitiesImplementations(batchActivities);
+        testEnvironment.start();
+    }
+
+    @After
+    public void tearDown() {
+        testEnvironment.close();
+    }
+
+    @Test
+    public void carriesOnlyCountsAndFailuresAcrossRuns() {
+        VsBatchResult result = processBatch(2);
+
+        assertEquals(3, result.succeeded());
+        assertEquals(2, result.failed());
+        assertEquals(2, result.failedItems().size());
+        assertEquals(1, result.failedItems().get(0).index());
+        assertEquals("batch-1-1", result.failedItems().get(0).workflowId());
+        assertEquals("No summary was generated", result.failedItems().get(0).error());
+        assertEquals(3, result.failedItems().get(1).index());
+        assertEquals("Transcription failed", result.failedItems().get(1).error());
+
+        // Three runs, each reading only its own page of the manifest
+        verify(batchActivities).loadJobs(any(VsJobDetails.class), eq(MANIFEST_REF), eq(0), eq(2));
+        verify(batchActivities).loadJobs(any(VsJobDetails.class), eq(MANIFEST_REF), eq(2), eq(2));
+        verify(batchActivities).loadJobs(any(VsJobDetails.class), eq(MANIFEST_REF), eq(4), eq(1));
+        verify(batchActivities).deleteManifest(any(VsJobDetails.class));
+
+        // The summaries are the results of the child workflows
+        WorkflowClient client = testEnvironment.getWorkflowClient();
+        assertEquals(Map.of("fr", "Summary of https://example.com/video-4.mp4"),
+                client.newUntypedWorkflowStub(VsBatchWorkflowImpl.childWorkflowId(BATCH_ID, 4)).getResult(Map.class));
+    }
+
+    @Test
+    public void continuedRunsDoNotReceiveTheManifestOrTheSummaries() {
+        processBatch(1);
+
+        // Walk the runs back from the last one through the run each was continued from
+        WorkflowClient client = testEnvironment.getWorkflowClient();
+        int runs = 0;
+        String runId = null;
+        do {
+            WorkflowExecutionStartedEventAttributes started = (runId == null
+                    ? client.fetchHistory(BATCH_ID)
+                    : client.fetchHistory(BATCH_ID, runId)).getHistory().getEvents(0)
+                    .getWorkflowExecutionStartedEventAttributes();
+            // Only the failed jobs 1 and 3 are carried; neither the rest of the manifest nor any summary is
+            String input = started.getInput().toString();
+            for (int index : List.of(0, 2, 4)) {
+                assertFalse(input, input.contains("video-" + index));
+            }
+            assertFalse(input, input.contains("Summary of"));
+            runId = started.getContinuedExecutionRunId();
+            runs++;
+        } while (!runId.isEmpty());
+        assertEquals(5, runs);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private VsBatchResult processBatch(int jobsPerRun) {
+        VsBatchWorkflow workflow = testEnvironment.getWorkflowClient().newWorkflowStub(VsBatchWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE)
+                        .setWorkflowId(BATCH_ID)
+                        .build());
+        return workflow.processBatch(new VsBatchRequest(STORAGE, MANIFEST_REF, manifest.size(), 0, 2, jobsPerRun, null));
+    }
+
+    // Stands in for VsWorkflowImpl: job 1 returns no summary, job 3 fails
+    public static class FakeVideoSummaryWorkflow implements VsWorkflow {
+        @Override
+        public Map<String, String> getVideoSummary(VsJobDetails jobDetails) {
+            if (jobDetails.videoUrl().contains("video-1")) {
+                return null;
+            }
+            if (jobDetails.videoUrl().contains("video-3")) {
+                throw ApplicationFailure.newNonRetryableFailure("Transcription failed", "VsTestFailure");
+            }
+            return Map.of(jobDetails.targetLanguage(), "Summary of " + jobDetails.videoUrl());
+        }
+
+        @Override
+        public VsWorkflowProgress getProgress() {
+            return new VsWorkflowProgress();
+        }
+    }
+}
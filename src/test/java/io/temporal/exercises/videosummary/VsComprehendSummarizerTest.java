@@ -0,0 +1,164 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.comprehend.AmazonComprehend;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesItemResult;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesRequest;
+import com.amazonaws.services.comprehend.model.BatchDetectKeyPhrasesResult;
+import com.amazonaws.services.comprehend.model.BatchItemError;
+import com.amazonaws.services.comprehend.model.KeyPhrase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class VsComprehendSummarizerTest {
+    private static final VsJobDetails JOB = new VsJobDetails("https://example.com/video.mp4", "en-US", "en",
+            "key", "secret", "us-east-1", "bucket");
+
+    // More requests than may run at the same time
+    private static final String TEXT = sentences(2 * VsConfig.SUMMARY_PARALLELISM * VsConfig.SUMMARY_BATCH_SIZE
+            * VsConfig.SUMMARY_MAX_DOCUMENT_BYTES);
+
+    private final ExecutorService requestExecutor = Executors.newFixedThreadPool(4 * VsConfig.SUMMARY_PARALLELISM);
+    private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private AmazonComprehend comprehendClient;
+    private VsAwsClientPool clientPool;
+    private VsComprehendSummarizer summarizer;
+
+    // Documents that fail, by their index in the request
+    private volatile IntPredicate failingDocuments = index -> false;
+
+    @Before
+    public void setUp() {
+        // Every document mentions rockets, and one in ten also fuel
+        comprehendClient = mock(AmazonComprehend.class);
+        when(comprehendClient.batchDetectKeyPhrases(any(BatchDetectKeyPhrasesRequest.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                List<String> documents = invocation.<BatchDetectKeyPhrasesRequest>getArgument(0).getTextList();
+                requests.add(documents);
+                BatchDetectKeyPhrasesResult result = new BatchDetectKeyPhrasesResult()
+                        .withResultList(new ArrayList<>()).withErrorList(new ArrayList<>());
+                for (int i = 0; i < documents.size(); i++) {
+                    if (failingDocuments.test(i)) {
+                        result.getErrorList().add(new BatchItemError().withIndex(i)
+                                .withErrorCode("InternalServerException"));
+                        continue;
+                    }
+                    List<KeyPhrase> keyPhrases = new ArrayList<>();
+                    keyPhrases.add(new KeyPhrase().withText("Rockets").withScore(0.5f));
+                    if (i % 10 == 0) {
+                        keyPhrases.add(new KeyPhrase().withText("fuel").withScore(0.9f));
+                    }
+                    result.getResultList().add(new BatchDetectKeyPhrasesItemResult().withIndex(i)
+                            .withKeyPhrases(keyPhrases));
+                }
+                return result;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        VsAwsClientPool.ClientFactory factory = mock(VsAwsClientPool.ClientFactory.class);
+        when(factory.comprehend(any(VsJobDetails.class))).thenReturn(comprehendClient);
+        clientPool = new VsAwsClientPool(10, Duration.ofMinutes(10).toMillis(), 0, factory);
+        summarizer = new VsComprehendSummarizer(clientPool, requestExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        requestExecutor.shutdownNow();
+        clientPool.close();
+    }
+
+    @Test
+    public void sendsTheWholeTextInBoundedDocumentsAndBatches() throws Exception {
+        summarizer.summarize(JOB, TEXT, "en");
+
+        int documents = 0;
+        for (List<String> request : requests) {
+            assertTrue(request.size() <= VsConfig.SUMMARY_BATCH_SIZE);
+            for (String document : request) {
+                assertTrue(document.getBytes(StandardCharsets.UTF_8).length <= VsConfig.SUMMARY_MAX_DOCUMENT_BYTES);
+                documents++;
+            }
+        }
+        // Only the last request is not full
+        assertEquals((documents + VsConfig.SUMMARY_BATCH_SIZE - 1) / VsConfig.SUMMARY_BATCH_SIZE, requests.size());
+        assertTrue(requests.size() > VsConfig.SUMMARY_PARALLELISM);
+        assertTrue(maxInFlight.get() <= VsConfig.SUMMARY_PARALLELISM);
+
+        // Requests complete in any order; every document was sent once
+        List<String> sentDocuments = new ArrayList<>();
+        requests.forEach(sentDocuments::addAll);
+        sentDocuments.sort(null);
+        List<String> expectedDocuments = new ArrayList<>(VsTextSegmenter.split(TEXT, Locale.ENGLISH,
+                VsConfig.SUMMARY_MAX_DOCUMENT_BYTES));
+        expectedDocuments.sort(null);
+        assertEquals(expectedDocuments, sentDocuments);
+    }
+
+    @Test
+    public void ranksThePhrasesOfAllDocumentsTogether() throws Exception {
+        VsSummary summary = summarizer.summarize(JOB, TEXT, "en");
+
+        // Fuel scores higher in the documents that mention it, rockets adds up over more documents
+        assertEquals(List.of("Rockets", "fuel"), summary.keyPhrases());
+        assertTrue(summary.keySentences().isEmpty());
+    }
+
+    @Test
+    public void skipsTheDocumentsThatFail() throws Exception {
+        failingDocuments = index -> index != 0;
+
+        VsSummary summary = summarizer.summarize(JOB, TEXT, "en");
+
+        // Only the first document of every request was ranked, and it mentions fuel
+        assertEquals(List.of("fuel", "Rockets"), summary.keyPhrases());
+    }
+
+    @Test
+    public void failsWhenEveryDocumentFails() {
+        failingDocuments = index -> true;
+
+        try {
+            summarizer.summarize(JOB, TEXT, "en");
+            fail("The summary should have failed");
+        } catch (Exception e) {
+            assertEquals("Key phrase detection failed for every document", e.getMessage());
+        }
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Numbered sentences of about 40 bytes, up to the given size
+    private static String sentences(int bytes) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < bytes; i++) {
+            text.append("Sentence ").append(i).append(" is about rockets and fuel. ");
+        }
+        return text.toString();
+    }
+}
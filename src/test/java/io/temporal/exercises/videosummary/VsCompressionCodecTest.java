@@ -0,0 +1,94 @@
+package io.temporal.exercises.videosummary;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.payload.codec.PayloadCodecException;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VsCompressionCodecTest {
+    private static final int THRESHOLD = 1024;
+
+    private final VsCompressionCodec codec = new VsCompressionCodec(THRESHOLD);
+
+    @Test
+    public void leavesPayloadsBelowTheThresholdAlone() {
+        Payload payload = toPayload("a".repeat(THRESHOLD / 2));
+
+        assertSame(payload, codec.encode(List.of(payload)).get(0));
+    }
+
+    @Test
+    public void compressesLargePayloadsAndRestoresThemExactly() {
+        Payload payload = toPayload("The same sentence over and over. ".repeat(1000));
+
+        Payload encoded = codec.encode(List.of(payload)).get(0);
+
+        assertEquals("binary/zlib", encoded.getMetadataOrThrow("encoding").toStringUtf8());
+        assertTrue(encoded.getSerializedSize() < payload.getSerializedSize() / 10);
+        assertEquals(payload, codec.decode(List.of(encoded)).get(0));
+    }
+
+    @Test
+    public void leavesIncompressiblePayloadsAlone() {
+        byte[] noise = new byte[4 * THRESHOLD];
+        new Random(1).nextBytes(noise);
+        Payload payload = Payload.newBuilder()
+                .putMetadata("encoding", ByteString.copyFromUtf8("binary/plain"))
+                .setData(ByteString.copyFrom(noise))
+                .build();
+
+        assertSame(payload, codec.encode(List.of(payload)).get(0));
+    }
+
+    @Test
+    public void decodesPayloadsItDidNotEncode() {
+        Payload payload = toPayload("x".repeat(10 * THRESHOLD));
+
+        assertSame(payload, codec.decode(List.of(payload)).get(0));
+    }
+
+    @Test
+    public void rejectsATruncatedCompressedPayload() {
+        Payload encoded = codec.encode(List.of(toPayload("Again and again. ".repeat(1000)))).get(0);
+        Payload truncated = encoded.toBuilder()
+                .setData(encoded.getData().substring(0, encoded.getData().size() / 2))
+                .build();
+
+        try {
+            codec.decode(List.of(truncated));
+            fail("A truncated payload should not decode");
+        } catch (PayloadCodecException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void dataConverterRoundTripsWorkflowValues() {
+        DataConverter dataConverter = VsCompressionCodec.newDataConverter();
+        Map<String, String> summaries = Map.of("fr", "Résumé. ".repeat(5000), "de", "Kurz.");
+
+        Payload payload = dataConverter.toPayload(summaries).get();
+
+        assertEquals("binary/zlib", payload.getMetadataOrThrow("encoding").toStringUtf8());
+        assertEquals(summaries, dataConverter.fromPayload(payload, Map.class, Map.class));
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static Payload toPayload(String value) {
+        return DefaultDataConverter.newDefaultInstance().toPayload(value).get();
+    }
+}
@@ -0,0 +1,92 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class VsContentIndexTest {
+    private static final String URL = "https://example.com/video.mp4";
+    private static final VsContentIndexEntry ENTRY = new VsContentIndexEntry("abc123", "en-US",
+            "videos/1.mp4", "transcripts/1.json");
+
+    private final Map<String, String> objects = new HashMap<>();
+    private VsContentIndex index;
+
+    @Before
+    public void setUp() {
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        when(s3Client.putObject(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            objects.put(invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        });
+        when(s3Client.getObjectAsString(anyString(), anyString())).thenAnswer(invocation -> {
+            String value = objects.get(invocation.<String>getArgument(1));
+            if (value == null) {
+                AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+                notFound.setStatusCode(404);
+                throw notFound;
+            }
+            return value;
+        });
+        when(s3Client.doesObjectExist(anyString(), anyString())).thenReturn(true);
+        index = new VsContentIndex(s3Client, "bucket");
+    }
+
+    @Test
+    public void reusesAUrlThatStillServesTheSameVideo() {
+        index.put(URL, "\"etag-1\"", ENTRY);
+
+        assertEquals(Optional.of(ENTRY), index.findByUrl(URL, "en-US", () -> "\"etag-1\""));
+    }
+
+    @Test
+    public void missesWhenTheVideoAtTheUrlChanged() {
+        index.put(URL, "\"etag-1\"", ENTRY);
+
+        assertFalse(index.findByUrl(URL, "en-US", () -> "\"etag-2\"").isPresent());
+        assertFalse(index.findByUrl(URL, "en-US", () -> null).isPresent());
+        // The content entry is still there for the content-hash lookup after the download
+        assertEquals(Optional.of(ENTRY), index.findByContent("abc123", "en-US"));
+    }
+
+    @Test
+    public void doesNotRecordTheUrlWithoutASourceValidator() {
+        index.put(URL, null, ENTRY);
+
+        assertFalse(index.findByUrl(URL, "en-US", () -> null).isPresent());
+        assertTrue(index.findByContent("abc123", "en-US").isPresent());
+    }
+
+    @Test
+    public void doesNotCheckTheUrlWhenItIsNotIndexed() {
+        AtomicInteger headRequests = new AtomicInteger();
+
+        assertFalse(index.findByUrl(URL, "en-US", () -> {
+            headRequests.incrementAndGet();
+            return "\"etag-1\"";
+        }).isPresent());
+        assertEquals(0, headRequests.get());
+    }
+
+    @Test
+    public void ignoresUrlEntriesWithoutAValidator() {
+        index.put(URL, "\"etag-1\"", ENTRY);
+        // Entries written before validators were recorded only hold the content hash
+        objects.replaceAll((key, value) -> key.startsWith("index/url/") ? ENTRY.contentHash() : value);
+
+        assertFalse(index.findByUrl(URL, "en-US", () -> "\"etag-1\"").isPresent());
+    }
+}
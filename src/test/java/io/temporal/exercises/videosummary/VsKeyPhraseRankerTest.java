@@ -0,0 +1,72 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.comprehend.model.KeyPhrase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VsKeyPhraseRankerTest {
+    @Test
+    public void mergesPhrasesCaseInsensitivelyWithTheirFirstSpelling() {
+        VsKeyPhraseRanker ranker = new VsKeyPhraseRanker(Locale.ENGLISH);
+        ranker.add("Machine Learning", 0.5);
+        ranker.add("machine learning ", 0.3);
+        ranker.add("MACHINE LEARNING", 0.2);
+        ranker.add("Data", 0.9);
+
+        assertEquals(2, ranker.size());
+        // Three mentions of 0.5, 0.3 and 0.2 outrank a single mention of 0.9
+        assertEquals(List.of("Machine Learning", "Data"), ranker.top(10));
+    }
+
+    @Test
+    public void comparesCaseInTheLanguageOfTheText() {
+        VsKeyPhraseRanker turkish = new VsKeyPhraseRanker(Locale.forLanguageTag("tr"));
+        turkish.add("İstanbul", 1);
+        turkish.add("istanbul", 1);
+        turkish.add("ISTANBUL", 1);
+
+        // In Turkish the dotted capital İ is i, and the dotless capital I is ı
+        assertEquals(2, turkish.size());
+    }
+
+    @Test
+    public void returnsTheBestPhrasesHighestScoreFirst() {
+        Random random = new Random(3);
+        VsKeyPhraseRanker ranker = new VsKeyPhraseRanker(Locale.ENGLISH);
+        List<Double> scores = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            double score = random.nextDouble();
+            scores.add(score);
+            ranker.add("phrase " + i, score);
+        }
+
+        List<String> expected = scores.stream()
+                .sorted(Comparator.reverseOrder())
+                .limit(10)
+                .map(score -> "phrase " + scores.indexOf(score))
+                .collect(Collectors.toList());
+        assertEquals(expected, ranker.top(10));
+    }
+
+    @Test
+    public void returnsFewerPhrasesThanRequestedWhenThereAreFewer() {
+        VsKeyPhraseRanker ranker = new VsKeyPhraseRanker(Locale.ENGLISH);
+        ranker.addAll(List.of(new KeyPhrase().withText("Rockets").withScore(0.7f),
+                new KeyPhrase().withText("Fuel").withScore(0.8f),
+                // Comprehend may leave out the score; it counts as 0
+                new KeyPhrase().withText("Engines"),
+                new KeyPhrase().withText("  ").withScore(1f)));
+
+        assertEquals(List.of("Fuel", "Rockets", "Engines"), ranker.top(5));
+        assertTrue(ranker.top(0).isEmpty());
+    }
+}
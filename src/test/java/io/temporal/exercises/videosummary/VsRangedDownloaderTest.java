@@ -0,0 +1,233 @@
+package io.temporal.exercises.videosummary;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VsRangedDownloaderTest {
+    private static final int RANGE_SIZE = 64 * 1024;
+    private static final int TIMEOUT_MILLIS = 5000;
+    private static final int STALL_SECONDS = 5;
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    // Ten full ranges and a partial one
+    private static final byte[] VIDEO = randomBytes(10 * RANGE_SIZE + 12345);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private final List<String> requestedRanges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private URL url;
+
+    // Behaviour of the server
+    private volatile boolean honourRanges = true;
+    private volatile long truncateRangeAt = -1; // Start of a range whose first response breaks off halfway
+    private volatile long stallRangeAt = -1; // Start of a range whose first response stops sending halfway
+    private volatile int eTagChangesAfterRequest = Integer.MAX_VALUE;
+
+    @Before
+    public void setUp() throws IOException {
+        AtomicBoolean truncated = new AtomicBoolean();
+        AtomicBoolean stalled = new AtomicBoolean();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/video.mp4", exchange -> {
+            int request = requests.incrementAndGet();
+            exchange.getResponseHeaders().set("ETag", request > eTagChangesAfterRequest ? "\"v2\"" : "\"v1\"");
+
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            Matcher matcher = RANGE.matcher(range != null ? range : "");
+            if (!honourRanges || !matcher.matches()) {
+                send(exchange, 200, 0, VIDEO.length, VIDEO.length);
+                return;
+            }
+            requestedRanges.add(range);
+            int start = Integer.parseInt(matcher.group(1));
+            int end = matcher.group(2).isEmpty() ? VIDEO.length : Math.min(VIDEO.length,
+                    Integer.parseInt(matcher.group(2)) + 1);
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + VIDEO.length);
+            if (start == truncateRangeAt && truncated.compareAndSet(false, true)) {
+                // Chunked, so the response ends cleanly after half of the range
+                send(exchange, 206, start, start + (end - start) / 2, 0);
+            } else if (start == stallRangeAt && stalled.compareAndSet(false, true)) {
+                stall(exchange, start, end);
+            } else {
+                send(exchange, 206, start, end, end - start);
+            }
+        });
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/video.mp4");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void downloadsRangesOverSeveralConnections() throws IOException {
+        Path file = folder.newFile().toPath();
+
+        VsRangedDownloader.Result result = downloader(0).download(url, file);
+
+        assertArrayEquals(VIDEO, Files.readAllBytes(file));
+        assertEquals(VIDEO.length, result.bytes());
+        assertEquals(4, result.connections());
+        assertEquals("\"v1\"", result.sourceValidator());
+        // Every range was requested once
+        assertEquals(11, requestedRanges.size());
+        assertTrue(requestedRanges.contains("bytes=0-" + (RANGE_SIZE - 1)));
+        assertTrue(requestedRanges.contains("bytes=" + 10 * RANGE_SIZE + "-" + (VIDEO.length - 1)));
+    }
+
+    @Test
+    public void downloadsASingleStreamWhenTheServerIgnoresRanges() throws IOException {
+        honourRanges = false;
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[2 * VIDEO.length]); // Overwritten, not appended to
+
+        VsRangedDownloader.Result result = downloader(0).download(url, file);
+
+        assertArrayEquals(VIDEO, Files.readAllBytes(file));
+        assertEquals(1, result.connections());
+        assertEquals(1, requests.get());
+        assertEquals("\"v1\"", result.sourceValidator());
+    }
+
+    @Test
+    public void retriesARangeThatBreaksOff() throws IOException {
+        truncateRangeAt = 3 * RANGE_SIZE;
+        Path file = folder.newFile().toPath();
+
+        downloader(2).download(url, file);
+
+        assertArrayEquals(VIDEO, Files.readAllBytes(file));
+        // The broken range was requested again from the first byte that did not arrive
+        assertTrue(requestedRanges.contains("bytes=" + (3 * RANGE_SIZE + RANGE_SIZE / 2) + "-" + (4 * RANGE_SIZE - 1)));
+        assertEquals(12, requestedRanges.size());
+    }
+
+    @Test
+    public void retriesARangeThatStopsSendingAfterTheReadTimeout() throws IOException {
+        stallRangeAt = 3 * RANGE_SIZE;
+        Path file = folder.newFile().toPath();
+        List<Long> reportedBytes = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        long start = System.nanoTime();
+        new VsRangedDownloader(4, RANGE_SIZE, 2, TIMEOUT_MILLIS, 200).download(url, file, bytes -> {
+            assertEquals(caller, Thread.currentThread());
+            reportedBytes.add(bytes);
+        });
+
+        assertArrayEquals(VIDEO, Files.readAllBytes(file));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(STALL_SECONDS));
+        assertTrue(requestedRanges.contains("bytes=" + (3 * RANGE_SIZE + RANGE_SIZE / 2) + "-" + (4 * RANGE_SIZE - 1)));
+        assertEquals(12, requestedRanges.size());
+        // Progress only grows, and ends at the size of the video
+        assertEquals(Long.valueOf(VIDEO.length), reportedBytes.get(reportedBytes.size() - 1));
+        for (int i = 1; i < reportedBytes.size(); i++) {
+            assertTrue(reportedBytes.get(i - 1) <= reportedBytes.get(i));
+        }
+    }
+
+    @Test
+    public void reportsTheProgressOfASingleStream() throws IOException {
+        honourRanges = false;
+        List<Long> reportedBytes = new ArrayList<>();
+
+        downloader(0).download(url, folder.newFile().toPath(), reportedBytes::add);
+
+        assertEquals(List.of((long) VIDEO.length), reportedBytes);
+    }
+
+    @Test
+    public void failsARangeThatBreaksOffMoreOftenThanItIsRetried() {
+        truncateRangeAt = 3 * RANGE_SIZE;
+
+        try {
+            downloader(0).download(url, folder.newFile().toPath());
+            fail("The download should have failed");
+        } catch (IOException e) {
+            // The range was not retried
+        }
+    }
+
+    @Test
+    public void failsWhenTheVideoChangesDuringTheDownload() throws IOException {
+        eTagChangesAfterRequest = 1;
+
+        try {
+            downloader(2).download(url, folder.newFile().toPath());
+            fail("The download should have failed");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("changed during the download"));
+        }
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static VsRangedDownloader downloader(int maxRangeRetries) {
+        return new VsRangedDownloader(4, RANGE_SIZE, maxRangeRetries, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+    }
+
+    // Send the first half of bytes [start, end) of the video, then nothing for a while
+    private static void stall(HttpExchange exchange, int start, int end) {
+        try (OutputStream body = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(206, end - start);
+            body.write(VIDEO, start, (end - start) / 2);
+            body.flush();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(STALL_SECONDS));
+        } catch (IOException | InterruptedException e) {
+            // The client gave up, or the server is stopping
+        }
+    }
+
+    // Send bytes [start, end) of the video, with a Content-Length of contentLength, 0 for a chunked response
+    private static void send(HttpExchange exchange, int status, int start, int end, long contentLength) {
+        try (OutputStream body = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, contentLength);
+            body.write(VIDEO, start, end - start);
+        } catch (IOException e) {
+            // The client stopped reading
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
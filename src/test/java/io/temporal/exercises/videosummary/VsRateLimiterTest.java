@@ -0,0 +1,174 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.AmazonServiceException;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VsRateLimiterTest {
+    private static final double DELTA = 1e-9;
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void throttlingCutsTheRateOncePerSecond() {
+        VsRateLimiter limiter = new VsRateLimiter("translate", "us-east-1", 10, 1, 100, clock);
+
+        limiter.onThrottle();
+        assertEquals(10 * VsConfig.RATE_LIMIT_DECREASE_FACTOR, limiter.getRate(), DELTA);
+
+        // The other requests in flight at the old rate are throttled too: no further cut within the second
+        limiter.onThrottle();
+        assertEquals(10 * VsConfig.RATE_LIMIT_DECREASE_FACTOR, limiter.getRate(), DELTA);
+
+        clock.advance(1000);
+        limiter.onThrottle();
+        assertEquals(10 * Math.pow(VsConfig.RATE_LIMIT_DECREASE_FACTOR, 2), limiter.getRate(), DELTA);
+    }
+
+    @Test
+    public void rateRecoversLinearlyAfterThrottling() {
+        VsRateLimiter limiter = new VsRateLimiter("translate", "us-east-1", 10, 1, 100, clock);
+        limiter.onThrottle();
+        double throttledRate = limiter.getRate();
+
+        // No increase until a second after the cut, then one step per second however many requests succeed
+        clock.advance(500);
+        limiter.onSuccess();
+        assertEquals(throttledRate, limiter.getRate(), DELTA);
+        for (int second = 1; second <= 3; second++) {
+            clock.advance(second == 1 ? 500 : 1000);
+            limiter.onSuccess();
+            limiter.onSuccess();
+            assertEquals(throttledRate + second * VsConfig.RATE_LIMIT_INCREASE_TPS, limiter.getRate(), DELTA);
+        }
+    }
+
+    @Test
+    public void rateStaysWithinTheClamps() {
+        VsRateLimiter limiter = new VsRateLimiter("translate", "us-east-1", 500, 2, 20, clock);
+        assertEquals(20, limiter.getRate(), DELTA);
+
+        for (int second = 0; second < 10; second++) {
+            clock.advance(1000);
+            limiter.onSuccess();
+        }
+        assertEquals(20, limiter.getRate(), DELTA);
+
+        for (int second = 0; second < 20; second++) {
+            clock.advance(1000);
+            limiter.onThrottle();
+        }
+        assertEquals(2, limiter.getRate(), DELTA);
+    }
+
+    @Test
+    public void spacesRequestsAtTheRate() throws InterruptedException {
+        VsRateLimiter limiter = new VsRateLimiter("translate", "us-east-1", 4, 1, 100, clock);
+
+        // The first request uses the initial token, the next ones wait a quarter of a second each
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), clock.slept, TimeUnit.MICROSECONDS.toNanos(1));
+    }
+
+    @Test
+    public void failsAfterTheThrottleRetries() throws Exception {
+        VsRateLimiter limiter = new VsRateLimiter("translate", "us-east-1", 10, 1, 100, clock);
+        AtomicInteger attempts = new AtomicInteger();
+        AmazonServiceException throttled = throttlingException();
+
+        try {
+            limiter.call(() -> {
+                attempts.incrementAndGet();
+                throw throttled;
+            });
+            fail("The request should have failed");
+        } catch (AmazonServiceException e) {
+            assertSame(throttled, e);
+        }
+
+        assertEquals(VsConfig.RATE_LIMIT_THROTTLE_RETRIES + 1, attempts.get());
+        // Every retry waited for a token at the lowered rate
+        assertTrue(clock.slept > 0);
+    }
+
+    @Test
+    public void retriesAThrottledRequestUntilItSucceeds() throws Exception {
+        VsRateLimiter limiter = new VsRateLimiter("translate", "us-east-1", 10, 1, 100, clock);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = limiter.call(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw throttlingException();
+            }
+            return "translated";
+        });
+
+        assertEquals("translated", result);
+        assertEquals(3, attempts.get());
+        assertEquals(10 * VsConfig.RATE_LIMIT_DECREASE_FACTOR, limiter.getRate(), DELTA);
+    }
+
+    @Test
+    public void doesNotRetryOtherFailures() throws Exception {
+        VsRateLimiter limiter = new VsRateLimiter("translate", "us-east-1", 10, 1, 100, clock);
+        AtomicInteger attempts = new AtomicInteger();
+        AmazonServiceException accessDenied = new AmazonServiceException("Access denied");
+        accessDenied.setErrorCode("AccessDeniedException");
+        accessDenied.setStatusCode(403);
+
+        try {
+            limiter.call(() -> {
+                attempts.incrementAndGet();
+                throw accessDenied;
+            });
+            fail("The request should have failed");
+        } catch (AmazonServiceException e) {
+            assertSame(accessDenied, e);
+        }
+
+        assertEquals(1, attempts.get());
+        assertEquals(10, limiter.getRate(), DELTA);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    // Time only moves when the test advances it or a caller sleeps
+    private static final class ManualClock implements VsRateLimiter.Clock {
+        private long nanos = TimeUnit.HOURS.toNanos(1);
+        private long slept;
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+
+        @Override
+        public void sleep(long nanos) {
+            this.nanos += nanos;
+            slept += nanos;
+        }
+
+        void advance(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+    }
+
+    private static AmazonServiceException throttlingException() {
+        AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorCode("ThrottlingException");
+        throttled.setStatusCode(400);
+        return throttled;
+    }
+}
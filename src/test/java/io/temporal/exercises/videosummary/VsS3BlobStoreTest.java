@@ -0,0 +1,71 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VsS3BlobStoreTest {
+    @Test
+    public void storesTextsUnderTheEncodedScope() {
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        VsS3BlobStore store = new VsS3BlobStore(s3Client, "bucket", "batch/item-1");
+
+        String reference = store.put("original-text", "Hello");
+
+        assertTrue(reference, reference.matches("s3://bucket/payloads/batch%2Fitem-1/[-0-9a-f]{36}/original-text\\.txt"));
+        verify(s3Client).putObject(eq("bucket"), eq(reference.substring("s3://bucket/".length())), eq("Hello"));
+    }
+
+    @Test
+    public void deletesEveryPageOfTheScope() {
+        AmazonS3 s3Client = mock(AmazonS3.class);
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class)))
+                .thenReturn(listing(1000, "next"))
+                .thenReturn(listing(3, null));
+
+        int deleted = new VsS3BlobStore(s3Client, "bucket", "workflow-1").deleteAll();
+
+        assertEquals(1003, deleted);
+        ArgumentCaptor<ListObjectsV2Request> list = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(s3Client, times(2)).listObjectsV2(list.capture());
+        assertEquals("payloads/workflow-1/", list.getAllValues().get(0).getPrefix());
+        ArgumentCaptor<DeleteObjectsRequest> delete = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(2)).deleteObjects(delete.capture());
+        assertEquals(1000, delete.getAllValues().get(0).getKeys().size());
+        assertEquals(3, delete.getAllValues().get(1).getKeys().size());
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static ListObjectsV2Result listing(int keys, String continuationToken) {
+        ListObjectsV2Result result = new ListObjectsV2Result();
+        List<S3ObjectSummary> summaries = new ArrayList<>();
+        for (int i = 0; i < keys; i++) {
+            S3ObjectSummary summary = new S3ObjectSummary();
+            summary.setKey("payloads/workflow-1/" + continuationToken + i + "/target-text.txt");
+            summaries.add(summary);
+        }
+        result.getObjectSummaries().addAll(summaries);
+        result.setNextContinuationToken(continuationToken);
+        result.setTruncated(continuationToken != null);
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+package io.temporal.exercises.videosummary;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class VsS3LocationTest {
+    @Test
+    public void readsS3Urls() {
+        assertEquals(location("bucket", "videos/talk.mp4"), VsS3Location.fromUrl("s3://bucket/videos/talk.mp4"));
+        // Written as they are, so a percent sign is part of the key
+        assertEquals(location("bucket", "videos/50%25 off.mp4"),
+                VsS3Location.fromUrl("s3://bucket/videos/50%25 off.mp4"));
+        assertFalse(VsS3Location.fromUrl("s3://bucket").isPresent());
+        assertFalse(VsS3Location.fromUrl("s3://bucket/").isPresent());
+        assertFalse(VsS3Location.fromUrl("s3:///talk.mp4").isPresent());
+    }
+
+    @Test
+    public void readsPathStyleUrls() {
+        assertEquals(location("bucket", "videos/talk.mp4"),
+                VsS3Location.fromUrl("https://s3.us-east-1.amazonaws.com/bucket/videos/talk.mp4"));
+        assertEquals(location("bucket", "talk.mp4"), VsS3Location.fromUrl("https://s3.amazonaws.com/bucket/talk.mp4"));
+        assertEquals(location("bucket", "talk.mp4"),
+                VsS3Location.fromUrl("https://s3-us-west-2.amazonaws.com/bucket/talk.mp4"));
+        assertEquals(location("bucket", "talk.mp4"),
+                VsS3Location.fromUrl("https://s3.cn-north-1.amazonaws.com.cn/bucket/talk.mp4"));
+        assertFalse(VsS3Location.fromUrl("https://s3.us-east-1.amazonaws.com/bucket").isPresent());
+        assertFalse(VsS3Location.fromUrl("https://s3.us-east-1.amazonaws.com/bucket/").isPresent());
+    }
+
+    @Test
+    public void readsVirtualHostedUrls() {
+        assertEquals(location("bucket", "videos/talk.mp4"),
+                VsS3Location.fromUrl("https://bucket.s3.us-east-1.amazonaws.com/videos/talk.mp4"));
+        assertEquals(location("bucket", "talk.mp4"), VsS3Location.fromUrl("https://bucket.s3.amazonaws.com/talk.mp4"));
+        assertEquals(location("bucket", "talk.mp4"),
+                VsS3Location.fromUrl("https://bucket.s3-eu-west-1.amazonaws.com/talk.mp4"));
+        assertEquals(location("bucket", "talk.mp4"),
+                VsS3Location.fromUrl("https://Bucket.S3.us-east-1.AmazonAWS.com/talk.mp4"));
+        assertFalse(VsS3Location.fromUrl("https://bucket.s3.us-east-1.amazonaws.com/").isPresent());
+    }
+
+    @Test
+    public void ignoresTheQueryOfPreSignedUrls() {
+        assertEquals(location("bucket", "talk.mp4"), VsS3Location.fromUrl("https://bucket.s3.us-east-1.amazonaws.com"
+                + "/talk.mp4?X-Amz-Algorithm=AWS4-HMAC-SHA256&X-Amz-Expires=3600&X-Amz-Signature=abc%2Fdef"));
+        assertEquals(location("bucket", "talk.mp4"),
+                VsS3Location.fromUrl("https://s3.us-east-1.amazonaws.com/bucket/talk.mp4?versionId=3"));
+    }
+
+    @Test
+    public void keepsTheDotsOfBucketNames() {
+        assertEquals(location("videos.example.com", "talk.mp4"),
+                VsS3Location.fromUrl("https://videos.example.com.s3.us-east-1.amazonaws.com/talk.mp4"));
+        assertEquals(location("videos.example.com", "talk.mp4"),
+                VsS3Location.fromUrl("https://videos.example.com.s3.amazonaws.com/talk.mp4"));
+        assertEquals(location("videos.example.com", "talk.mp4"),
+                VsS3Location.fromUrl("https://s3.us-east-1.amazonaws.com/videos.example.com/talk.mp4"));
+    }
+
+    @Test
+    public void decodesUrlEncodedKeys() {
+        assertEquals(location("bucket", "videos/my talk+Q&A café.mp4"), VsS3Location.fromUrl(
+                "https://bucket.s3.us-east-1.amazonaws.com/videos/my%20talk%2BQ%26A%20caf%C3%A9.mp4"));
+        assertEquals(location("bucket", "videos/my talk+Q&A café.mp4"), VsS3Location.fromUrl(
+                "https://s3.us-east-1.amazonaws.com/bucket/videos/my%20talk%2BQ%26A%20caf%C3%A9.mp4"));
+    }
+
+    @Test
+    public void readsPathStyleUrlsOnTheConfiguredEndpoint() {
+        String endpoint = "http://localhost:9000";
+
+        assertEquals(location("bucket", "videos/my talk.mp4"),
+                VsS3Location.fromUrl("http://localhost:9000/bucket/videos/my%20talk.mp4", endpoint));
+        assertEquals(location("bucket", "talk.mp4"),
+                VsS3Location.fromUrl("http://LOCALHOST:9000/bucket/talk.mp4", endpoint));
+        assertFalse(VsS3Location.fromUrl("http://localhost:9001/bucket/talk.mp4", endpoint).isPresent());
+        assertFalse(VsS3Location.fromUrl("http://localhost:9000/bucket/talk.mp4", null).isPresent());
+        // AWS URLs are still recognised next to the endpoint
+        assertEquals(location("bucket", "talk.mp4"),
+                VsS3Location.fromUrl("https://bucket.s3.us-east-1.amazonaws.com/talk.mp4", endpoint));
+    }
+
+    @Test
+    public void rejectsOtherUrls() {
+        assertFalse(VsS3Location.fromUrl("https://example.com/bucket/talk.mp4").isPresent());
+        assertFalse(VsS3Location.fromUrl("https://s3.example.com/bucket/talk.mp4").isPresent());
+        assertFalse(VsS3Location.fromUrl("https://bucket.s3.us-east-1.amazonaws.com.example.com/talk.mp4").isPresent());
+        assertFalse(VsS3Location.fromUrl("https://example.com/not a url").isPresent());
+        assertFalse(VsS3Location.fromUrl("/videos/talk.mp4").isPresent());
+    }
+
+    @Test
+    public void printsAsAnS3Url() {
+        assertEquals("s3://videos.example.com/videos/my talk.mp4",
+                new VsS3Location("videos.example.com", "videos/my talk.mp4").toString());
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static Optional<VsS3Location> location(String bucketName, String key) {
+        return Optional.of(new VsS3Location(bucketName, key));
+    }
+}
@@ -0,0 +1,218 @@
+package io.temporal.exercises.videosummary;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VsS3MultipartUploaderTest {
+    private static final int PART_SIZE = VsS3MultipartUploader.MIN_PART_SIZE;
+
+    private AmazonS3 s3Client;
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() {
+        s3Client = mock(AmazonS3.class);
+        InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId("upload-1");
+        when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiated);
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> storePart(invocation.getArgument(0)));
+    }
+
+    @Test
+    public void cutsTheStreamIntoPartsWithASmallerLastPart() throws IOException {
+        byte[] data = randomBytes(2 * PART_SIZE + 1234);
+
+        long bytesUploaded = new VsS3MultipartUploader(s3Client, PART_SIZE, 2)
+                .upload(new ByteArrayInputStream(data), "bucket", "videos/a.mp4");
+
+        assertEquals(data.length, bytesUploaded);
+        assertEquals(3, uploadedParts.size());
+        assertEquals(PART_SIZE, uploadedParts.get(1).length);
+        assertEquals(PART_SIZE, uploadedParts.get(2).length);
+        assertEquals(1234, uploadedParts.get(3).length);
+        assertArrayEquals(data, joinParts());
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertEquals("upload-1", complete.getValue().getUploadId());
+        List<Integer> partNumbers = new ArrayList<>();
+        for (PartETag partETag : complete.getValue().getPartETags()) {
+            partNumbers.add(partETag.getPartNumber());
+        }
+        assertEquals(List.of(1, 2, 3), partNumbers);
+    }
+
+    @Test
+    public void doesNotUploadAnEmptyPartWhenTheStreamEndsOnAPartBoundary() throws IOException {
+        byte[] data = randomBytes(2 * PART_SIZE);
+
+        new VsS3MultipartUploader(s3Client, PART_SIZE, 4).upload(new ByteArrayInputStream(data), "bucket", "key");
+
+        assertEquals(2, uploadedParts.size());
+        assertArrayEquals(data, joinParts());
+        verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void usesASinglePutForStreamsSmallerThanOnePart() throws IOException {
+        byte[] data = randomBytes(PART_SIZE - 1);
+
+        long bytesUploaded = new VsS3MultipartUploader(s3Client, PART_SIZE, 4)
+                .upload(new ByteArrayInputStream(data), "bucket", "key");
+
+        assertEquals(data.length, bytesUploaded);
+        verify(s3Client).putObject(eq("bucket"), eq("key"), any(InputStream.class), any(ObjectMetadata.class));
+        verify(s3Client, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void readsAtMostMaxPartsInFlightPartsAhead() throws Exception {
+        int maxPartsInFlight = 3;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                release.await(30, TimeUnit.SECONDS);
+                return storePart(invocation.getArgument(0));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        byte[] data = randomBytes(8 * PART_SIZE);
+        AtomicLong bytesRead = new AtomicLong();
+        InputStream countingStream = new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesRead.addAndGet(read);
+                }
+                return read;
+            }
+        };
+
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread uploadThread = new Thread(() -> {
+            try {
+                new VsS3MultipartUploader(s3Client, PART_SIZE, maxPartsInFlight)
+                        .upload(countingStream, "bucket", "key");
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        });
+        uploadThread.start();
+
+        // With every part upload blocked, reading stops once all buffers are in flight
+        long previous = -1;
+        while (bytesRead.get() != previous) {
+            previous = bytesRead.get();
+            Thread.sleep(200);
+        }
+        assertEquals((long) maxPartsInFlight * PART_SIZE, bytesRead.get());
+
+        release.countDown();
+        uploadThread.join(30_000);
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertTrue(maxInFlight.get() <= maxPartsInFlight);
+        assertArrayEquals(data, joinParts());
+    }
+
+    @Test
+    public void abortsANonResumableUploadWhenAPartFails() throws IOException {
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            if (request.getPartNumber() == 2) {
+                throw new AmazonServiceException("Part upload failed");
+            }
+            return storePart(request);
+        });
+
+        try {
+            new VsS3MultipartUploader(s3Client, PART_SIZE, 2)
+                    .upload(new ByteArrayInputStream(randomBytes(4 * PART_SIZE)), "bucket", "key");
+            fail("The upload should have failed");
+        } catch (AmazonServiceException e) {
+            assertEquals("Part upload failed", e.getErrorMessage());
+        }
+
+        ArgumentCaptor<AbortMultipartUploadRequest> abort = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3Client).abortMultipartUpload(abort.capture());
+        assertEquals("upload-1", abort.getValue().getUploadId());
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPartsSmallerThanTheS3Minimum() {
+        new VsS3MultipartUploader(s3Client, PART_SIZE - 1, 4);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private UploadPartResult storePart(UploadPartRequest request) throws IOException {
+        assertEquals("upload-1", request.getUploadId());
+        byte[] part = request.getInputStream().readAllBytes();
+        assertEquals(request.getPartSize(), part.length);
+        uploadedParts.put(request.getPartNumber(), part);
+
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag("etag-" + request.getPartNumber());
+        return result;
+    }
+
+    private byte[] joinParts() {
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (int partNumber = 1; partNumber <= uploadedParts.size(); partNumber++) {
+            joined.writeBytes(uploadedParts.get(partNumber));
+        }
+        return joined.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,124 @@
+package io.temporal.exercises.videosummary;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VsTextRankSummarizerTest {
+    private static final ForkJoinPool singleThread = new ForkJoinPool(1);
+    private static final ForkJoinPool fourThreads = new ForkJoinPool(4);
+
+    // Six sentences on one topic among six that share no word with any other sentence
+    private static final List<String> CLUSTERED = List.of(
+            "Rocket engines burn liquid fuel.",
+            "Quiet meadows bloom every spring.",
+            "Liquid fuel feeds rocket engines through turbopumps.",
+            "Grandmother knits woolen scarves.",
+            "Turbopumps push liquid fuel into rocket engines.",
+            "Violins sound mellow indoors.",
+            "Rocket engines need cooled turbopumps.",
+            "Pebbles tumble downstream slowly.",
+            "Cooled rocket engines burn longer.",
+            "Bakers knead dough before sunrise.",
+            "Liquid fuel cools rocket engines.",
+            "Sailors chart northern currents.");
+
+    @AfterClass
+    public static void shutDownPools() {
+        singleThread.shutdown();
+        fourThreads.shutdown();
+    }
+
+    @Test
+    public void picksTheMostCentralSentencesInTextOrder() {
+        VsSummary summary = summarize(new VsTextRankSummarizer(fourThreads, 20), String.join(" ", CLUSTERED));
+
+        assertEquals(VsConfig.SUMMARY_TOP_SENTENCES, summary.keySentences().size());
+        int previous = -1;
+        for (String sentence : summary.keySentences()) {
+            assertTrue(sentence, sentence.contains("rocket engines") || sentence.contains("Rocket engines"));
+            int index = CLUSTERED.indexOf(sentence);
+            assertTrue(sentence, index > previous);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void keepsTheCentralSentencesWithFewNeighbors() {
+        VsSummary dense = summarize(new VsTextRankSummarizer(fourThreads, Integer.MAX_VALUE),
+                String.join(" ", CLUSTERED));
+        VsSummary sparse = summarize(new VsTextRankSummarizer(fourThreads, 2), String.join(" ", CLUSTERED));
+
+        for (String sentence : sparse.keySentences()) {
+            assertTrue(sentence, sentence.toLowerCase().contains("rocket engines"));
+        }
+        assertEquals(dense.keyPhrases(), sparse.keyPhrases());
+    }
+
+    @Test
+    public void givesTheSameSummaryOnEveryRunAndPoolSize() {
+        String text = randomText(new Random(42), 2000);
+
+        VsSummary first = summarize(new VsTextRankSummarizer(singleThread, 5), text);
+        VsSummary second = summarize(new VsTextRankSummarizer(singleThread, 5), text);
+        VsSummary parallel = summarize(new VsTextRankSummarizer(fourThreads, 5), text);
+
+        assertEquals(first, second);
+        assertEquals(first, parallel);
+        assertEquals(VsConfig.SUMMARY_TOP_SENTENCES, first.keySentences().size());
+        assertEquals(VsConfig.SUMMARY_TOP_PHRASES, first.keyPhrases().size());
+    }
+
+    @Test
+    public void mergesAdjacentKeyWordsIntoPhrasesWithTheirFirstSpelling() {
+        VsSummary summary = summarize(new VsTextRankSummarizer(fourThreads, 20),
+                "Machine Learning improves search. Teams say machine learning needs data. "
+                        + "Good data helps machine learning. Search engines rank pages.");
+
+        assertEquals("Machine Learning", summary.keyPhrases().get(0));
+        assertEquals(1, summary.keyPhrases().stream().filter(phrase -> phrase.equalsIgnoreCase("machine learning"))
+                .count());
+    }
+
+    @Test
+    public void summarizesTextWithoutWordsAsEmpty() {
+        VsSummary summary = summarize(new VsTextRankSummarizer(fourThreads, 20), " ... !!! ");
+
+        assertTrue(summary.keySentences().isEmpty());
+        assertTrue(summary.keyPhrases().isEmpty());
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static VsSummary summarize(VsTextRankSummarizer summarizer, String text) {
+        return summarizer.summarize(null, text, "en");
+    }
+
+    // Sentences of five to fifteen words drawn from a skewed vocabulary, so some sentences overlap more than others
+    private static String randomText(Random random, int sentences) {
+        List<String> vocabulary = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            vocabulary.add("word" + Integer.toString(i, 26).replace('0', 'z'));
+        }
+        StringBuilder text = new StringBuilder();
+        for (int s = 0; s < sentences; s++) {
+            int words = 5 + random.nextInt(11);
+            for (int w = 0; w < words; w++) {
+                int index = (int) (vocabulary.size() * Math.pow(random.nextDouble(), 3));
+                String word = vocabulary.get(index);
+                text.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word)
+                        .append(w == words - 1 ? ". " : " ");
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package io.temporal.exercises.videosummary;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VsTextSegmenterTest {
+    @Test
+    public void splitsASentenceLongerThanTheTranslateLimitAtWordBoundaries() {
+        int maxBytes = VsConfig.TRANSLATE_MAX_SEGMENT_BYTES;
+        StringBuilder sentence = new StringBuilder();
+        while (sentence.length() <= 2 * maxBytes) {
+            sentence.append("word").append(sentence.length() % 7).append(' ');
+        }
+        String text = sentence.toString().trim() + ". Short one.";
+
+        List<String> pieces = VsTextSegmenter.sentences(text, Locale.ENGLISH, maxBytes);
+
+        assertTrue(pieces.size() >= 4);
+        assertEquals(text, String.join("", pieces));
+        for (String piece : pieces.subList(0, pieces.size() - 1)) {
+            assertTrue(VsTextSegmenter.utf8Length(piece) <= maxBytes);
+            assertTrue("Split inside a word: " + piece, piece.endsWith(" "));
+        }
+        assertEquals("Short one.", pieces.get(pieces.size() - 1));
+    }
+
+    @Test
+    public void splitsAWordLongerThanTheLimitByCharacters() {
+        String word = "a".repeat(25);
+
+        List<String> pieces = VsTextSegmenter.sentences(word, Locale.ENGLISH, 10);
+
+        assertEquals(List.of("a".repeat(10), "a".repeat(10), "a".repeat(5)), pieces);
+    }
+
+    @Test
+    public void neverSplitsAMultibyteCharacterAtTheByteLimit() {
+        // 2-byte, 3-byte and 4-byte (surrogate pair) characters with a limit that is not a multiple of any
+        String text = "é".repeat(7) + "日本語テキスト" + "😀".repeat(5);
+
+        for (int maxBytes = 4; maxBytes <= 9; maxBytes++) {
+            List<String> pieces = VsTextSegmenter.sentences(text, Locale.JAPANESE, maxBytes);
+
+            assertEquals(text, String.join("", pieces));
+            for (String piece : pieces) {
+                byte[] encoded = piece.getBytes(StandardCharsets.UTF_8);
+                assertTrue(encoded.length <= maxBytes);
+                assertEquals("Broken character in " + piece, piece, new String(encoded, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void keepsASentenceOfExactlyTheLimit() {
+        String sentence = "Ça coûte très cher.";
+        int maxBytes = sentence.getBytes(StandardCharsets.UTF_8).length;
+
+        assertEquals(List.of(sentence), VsTextSegmenter.sentences(sentence, Locale.FRENCH, maxBytes));
+        assertEquals(2, VsTextSegmenter.sentences(sentence, Locale.FRENCH, maxBytes - 1).size());
+    }
+
+    @Test
+    public void doesNotEndSentencesAtAbbreviationsOrInitials() {
+        String text = "Dr. Smith met Mr. J. Jones, e.g. at noon. They talked. Then Mrs. Lee arrived.";
+
+        List<String> sentences = VsTextSegmenter.sentences(text, Locale.ENGLISH, 1000);
+
+        assertEquals(List.of("Dr. Smith met Mr. J. Jones, e.g. at noon. ", "They talked. ", "Then Mrs. Lee arrived."),
+                sentences);
+    }
+
+    @Test
+    public void packsWholeSentencesUpToTheLimit() {
+        String text = "One two. Three four. Five six. Seven.";
+
+        List<String> segments = VsTextSegmenter.split(text, Locale.ENGLISH, 21);
+
+        assertEquals(List.of("One two. Three four. ", "Five six. Seven."), segments);
+    }
+
+    @Test
+    public void returnsNoSentencesForEmptyText() {
+        assertTrue(VsTextSegmenter.sentences("", Locale.ENGLISH, 100).isEmpty());
+        assertTrue(VsTextSegmenter.split(null, Locale.ENGLISH, 100).isEmpty());
+    }
+
+    @Test
+    public void countsUtf8BytesLikeTheEncoder() {
+        String text = "aé日😀 mixed";
+
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, VsTextSegmenter.utf8Length(text));
+    }
+}
@@ -0,0 +1,80 @@
+package io.temporal.exercises.videosummary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class VsTranscriptParserTest {
+    @Test
+    public void decodesEscapedQuotesAndUnicodeEscapes() throws IOException {
+        VsTranscript transcript = parse("{\"results\": {\"transcripts\": [{\"transcript\": "
+                + "\"She said \\\"caf\\u00e9\\\" \\u2014 twice\\\\n \\ud83d\\ude00\"}], \"items\": []}}");
+
+        assertEquals("She said \"café\" — twice\\n 😀", transcript.getText());
+    }
+
+    @Test
+    public void takesTheDurationFromTheLastTimedItem() throws IOException {
+        VsTranscript transcript = parse("{\"results\": {\"transcripts\": [{\"transcript\": \"Hello, world.\"}], \"items\": ["
+                + "{\"start_time\": \"0.0\", \"end_time\": \"0.42\", \"alternatives\": [{\"confidence\": \"0.99\", \"content\": \"Hello\"}], \"type\": \"pronunciation\"},"
+                + "{\"alternatives\": [{\"confidence\": \"0.0\", \"content\": \",\"}], \"type\": \"punctuation\"},"
+                + "{\"start_time\": \"0.5\", \"end_time\": \"1.0\", \"alternatives\": [{\"content\": \"world\"}], \"type\": \"pronunciation\"},"
+                + "{\"alternatives\": [{\"content\": \".\"}], \"type\": \"punctuation\"}]}}");
+
+        // Punctuation items count, but have no timestamps
+        assertEquals(4, transcript.getItemCount());
+        assertEquals(1000, transcript.getDurationMillis());
+    }
+
+    @Test
+    public void countsAnItemOnceWhateverItsAlternatives() throws IOException {
+        VsTranscript transcript = parse("{\"results\": {\"transcripts\": [{\"transcript\": \"their\"}], \"items\": ["
+                + "{\"start_time\": \"1.0\", \"end_time\": \"1.2\","
+                + "\"alternatives\": [{\"content\": \"their\"}, {\"content\": \"there\"}]},"
+                + "{\"start_time\": \"1.3\", \"end_time\": \"1.5\", \"alternatives\": []}]}}");
+
+        // An item without any alternative is not part of the transcript
+        assertEquals(1, transcript.getItemCount());
+        assertEquals(1200, transcript.getDurationMillis());
+    }
+
+    @Test
+    public void skipsUnknownAndNestedFields() throws IOException {
+        VsTranscript transcript = parse("{\"jobName\": \"job\", \"accountId\": \"1\","
+                + "\"metadata\": {\"transcript\": \"not this one\", \"items\": [{\"content\": \"x\"}]},"
+                + "\"results\": {\"language_code\": \"en-US\","
+                + "\"speaker_labels\": {\"segments\": [{\"items\": [{\"transcript\": \"nor this\"}]}]},"
+                + "\"transcripts\": [{\"id\": 0, \"extra\": {\"transcript\": \"nor that\"}, \"transcript\": \"Hi.\"}],"
+                + "\"items\": [{\"id\": 0, \"start_time\": \"0.1\", \"speaker_label\": {\"id\": [1, 2]}, \"end_time\": \"0.3\","
+                + "\"alternatives\": [{\"content\": \"Hi\", \"extra\": [{\"content\": \"nope\"}]}]}],"
+                + "\"audio_segments\": [[1, 2], {\"transcript\": \"nor here\"}]},"
+                + "\"status\": \"COMPLETED\"}");
+
+        assertEquals("Hi.", transcript.getText());
+        assertEquals(1, transcript.getItemCount());
+        assertEquals(300, transcript.getDurationMillis());
+    }
+
+    @Test
+    public void rejectsADocumentThatIsNotAnObject() {
+        try {
+            parse("[{\"transcript\": \"Hi.\"}]");
+            fail("The document should have been rejected");
+        } catch (IOException e) {
+            assertEquals("Unexpected transcript JSON: expected START_OBJECT but found START_ARRAY", e.getMessage());
+        }
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static VsTranscript parse(String json) throws IOException {
+        return VsTranscriptParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,159 @@
+package io.temporal.exercises.videosummary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VsTranslationMemoryTest {
+    // Size the memory tier counts for an entry with a ten-character translation
+    private static final long ENTRY_BYTES = 2 * ("en-fr-".length() + 64 + 10) + 96;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void evictsTheLeastRecentlyUsedEntriesBeyondTheSizeLimit() {
+        VsTranslationMemory memory = new VsTranslationMemory(3 * ENTRY_BYTES, null);
+        memory.put("en", "fr", "One.", "Un.       ");
+        memory.put("en", "fr", "Two.", "Deux.     ");
+        memory.put("en", "fr", "Three.", "Trois.    ");
+        assertEquals(3 * ENTRY_BYTES, memory.getMemoryBytes());
+
+        // Reading "One." makes "Two." the least recently used
+        assertTrue(memory.get("en", "fr", "One.").isPresent());
+        memory.put("en", "fr", "Four.", "Quatre.   ");
+
+        assertEquals(3 * ENTRY_BYTES, memory.getMemoryBytes());
+        assertFalse(memory.get("en", "fr", "Two.").isPresent());
+        assertTrue(memory.get("en", "fr", "One.").isPresent());
+        assertTrue(memory.get("en", "fr", "Three.").isPresent());
+        assertTrue(memory.get("en", "fr", "Four.").isPresent());
+
+        // An entry twice the size pushes out the two least recently used
+        memory.put("en", "fr", "Five.", "Cinq." + " ".repeat(5 + (int) ENTRY_BYTES / 2));
+        assertTrue(memory.getMemoryBytes() <= 3 * ENTRY_BYTES);
+        assertFalse(memory.get("en", "fr", "One.").isPresent());
+        assertFalse(memory.get("en", "fr", "Three.").isPresent());
+        assertTrue(memory.get("en", "fr", "Four.").isPresent());
+        assertTrue(memory.get("en", "fr", "Five.").isPresent());
+    }
+
+    @Test
+    public void replacingAnEntryCountsOnlyTheNewTranslation() {
+        VsTranslationMemory memory = new VsTranslationMemory(1024 * 1024, null);
+        memory.put("en", "fr", "One.", "Un.       ");
+        memory.put("en", "fr", "One.", "Un !      ");
+
+        assertEquals(ENTRY_BYTES, memory.getMemoryBytes());
+        assertEquals(Optional.of("Un !      "), memory.get("en", "fr", "One."));
+    }
+
+    @Test
+    public void sharesEntriesThroughTheDiskTier() throws IOException {
+        Path directory = folder.newFolder("tm").toPath();
+        new VsTranslationMemory(1024 * 1024, directory).put("en-US", "fr", "Hello world.", "Bonjour le monde.");
+
+        // Another worker on the same host
+        VsTranslationMemory memory = new VsTranslationMemory(1024 * 1024, directory);
+        assertEquals(Optional.of("Bonjour le monde."), memory.get("en-US", "fr", "Hello world."));
+        assertEquals(Optional.of("Bonjour le monde."), memory.get("en-US", "fr", "Hello world."));
+        assertFalse(memory.get("en-US", "de", "Hello world.").isPresent());
+
+        assertEquals(1, memory.getDiskHits());
+        assertEquals(1, memory.getMemoryHits());
+        assertEquals(1, memory.getMisses());
+        // One file per entry, under a directory per language pair, and no temp file left behind
+        List<Path> files = files(directory);
+        assertEquals(1, files.size());
+        assertEquals(directory.resolve("en-US-fr"), files.get(0).getParent().getParent());
+        assertEquals("Bonjour le monde.", Files.readString(files.get(0)));
+    }
+
+    @Test
+    public void readersNeverSeeAPartlyWrittenEntry() throws Exception {
+        Path directory = folder.newFolder("tm").toPath();
+        // No memory tier, so every read goes to the disk
+        VsTranslationMemory writer = new VsTranslationMemory(0, directory);
+        VsTranslationMemory reader = new VsTranslationMemory(0, directory);
+        String shortTranslation = "a".repeat(1000);
+        String longTranslation = "b".repeat(100_000);
+        writer.put("en", "fr", "Sentence.", shortTranslation);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> writers = List.of(
+                    executor.submit(() -> writeRepeatedly(writer, shortTranslation)),
+                    executor.submit(() -> writeRepeatedly(writer, longTranslation)));
+            Future<?> readers = executor.submit(() -> {
+                while (!writers.stream().allMatch(Future::isDone)) {
+                    String translation = reader.get("en", "fr", "Sentence.").orElseThrow();
+                    if (!translation.equals(shortTranslation) && !translation.equals(longTranslation)) {
+                        fail("Read a partly written entry of " + translation.length() + " characters");
+                    }
+                }
+            });
+            for (Future<?> future : writers) {
+                future.get();
+            }
+            readers.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, reader.getMisses());
+        assertEquals(1, files(directory).size());
+    }
+
+    @Test
+    public void normalizesSentencesBeforeLookingThemUp() {
+        VsTranslationMemory memory = new VsTranslationMemory(1024 * 1024, null);
+        memory.put("en", "fr", "Café  au   lait.", "Café au lait.");
+
+        assertEquals(Optional.of("Café au lait."), memory.get("en", "fr", " Café au\tlait.\n"));
+        assertEquals(1, memory.getMemoryHits());
+        assertEquals(0, memory.getMisses());
+    }
+
+    @Test
+    public void rejectsLanguageCodesThatAreNotDirectoryNames() {
+        VsTranslationMemory memory = new VsTranslationMemory(1024 * 1024, null);
+        try {
+            memory.get("../en", "fr", "Hello.");
+            fail("The language code should have been rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid language code: ../en, fr", e.getMessage());
+        }
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private static void writeRepeatedly(VsTranslationMemory memory, String translation) {
+        for (int i = 0; i < 200; i++) {
+            memory.put("en", "fr", "Sentence.", translation);
+        }
+    }
+
+    private static List<Path> files(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package io.temporal.exercises.videosummary;
+
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class VsWorkflowImplTest {
+    private static final VsJobDetails JOB = new VsJobDetails("https://example.com/video.mp4", "en-US",
+            List.of("fr", "de"), "key", "secret", "us-east-1", "bucket");
+    private static final String WORKFLOW_ID = "video-summary";
+    // Texts up to this size are translated locally in local-activity mode
+    private static final int LOCAL_TRANSLATION_MAX_BYTES = 100;
+
+    private TestWorkflowEnvironment testEnvironment;
+    private VsActivity activities;
+    // Transcript each mergeSegments call was given, in call order
+    private final List<String> mergeTranscripts = new CopyOnWriteArrayList<>();
+    // Progress queried when an activity started, by activity and target language
+    private final Map<String, VsWorkflowProgress> progressAt = new ConcurrentHashMap<>();
+    // Target languages whose translation fails
+    private final Set<String> failedTranslations = ConcurrentHashMap.newKeySet();
+    // Whether the workflows started next run the short steps as local activities
+    private volatile boolean localActivities;
+
+    @Before
+    public void setUp() {
+        // The merge is the real one; everything else is scripted per segment
+        VsActivity merger = new VsActivityImpl(new VsAwsClientPool(10, Duration.ofMinutes(10).toMillis(), 0,
+                mock(VsAwsClientPool.ClientFactory.class)), new VsTranslationMemory(1024 * 1024, null));
+        activities = mock(VsActivity.class, withSettings().withoutAnnotations());
+        when(activities.uploadToS3(any(VsJobDetails.class), any(VsActionReturnVals.class))).thenAnswer(invocation -> {
+            VsActionReturnVals results = invocation.getArgument(1);
+            results.setSegments(List.of(new VsMediaSegment("segments/1.m4a", 0, 600_000),
+                    new VsMediaSegment("segments/2.m4a", 600_000, 600_000),
+                    new VsMediaSegment("segments/3.m4a", 1_200_000, 300_000)));
+            return results;
+        });
+        when(activities.startTranscription(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    VsActionReturnVals results = invocation.getArgument(1);
+                    results.setTranscriptionJobName("job-" + results.getS3Key());
+                    return results;
+                });
+        when(activities.getTranscriptionStatus(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenReturn("COMPLETED");
+        when(activities.fetchTranscript(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    VsActionReturnVals results = invocation.getArgument(1);
+                    String segment = results.getS3Key().replaceAll("\\D+(\\d+).*", "$1");
+                    if (segment.equals("1")) {
+                        // The first segment is transcribed last
+                        Thread.sleep(500);
+                    }
+                    results.setOriginalText("Segment " + segment + ".");
+                    return results;
+                });
+        when(activities.convertOriginalTextToTargetLanguage(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    VsJobDetails jobDetails = invocation.getArgument(0);
+                    if (failedTranslations.contains(jobDetails.targetLanguage())) {
+                        throw ApplicationFailure.newNonRetryableFailure("Translation failed", "VsTestFailure");
+                    }
+                    VsActionReturnVals results = invocation.getArgument(1);
+                    results.setTargetText(jobDetails.targetLanguage() + ":" + results.getOriginalText());
+                    return results;
+                });
+        when(activities.mergeSegments(any(VsJobDetails.class), any(VsActionReturnVals.class), anyList()))
+                .thenAnswer(invocation -> {
+                    VsActionReturnVals results = invocation.getArgument(1);
+                    mergeTranscripts.add(String.valueOf(results.getOriginalText()));
+                    return merger.mergeSegments(invocation.getArgument(0), results, invocation.getArgument(2));
+                });
+        when(activities.generateSummary(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation ->
+                        "Summary of " + invocation.<VsActionReturnVals>getArgument(1).getTargetText());
+
+        testEnvironment = TestWorkflowEnvironment.newInstance();
+        // Like VsWorkflowWorker, the workflow worker runs no regular activities
+        Worker workflowWorker = testEnvironment.newWorker(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE,
+                WorkerOptions.newBuilder().setLocalActivityWorkerOnly(true).build());
+        workflowWorker.registerWorkflowImplementationFactory(VsWorkflow.class,
+                () -> new VsWorkflowImpl(localActivities, LOCAL_TRANSLATION_MAX_BYTES));
+        workflowWorker.registerActivitiesImplementations(activities);
+        for (String taskQueue : List.of(VsSharedKeys.MEDIA_TASK_QUEUE, VsSharedKeys.TRANSCRIPTION_TASK_QUEUE,
+                VsSharedKeys.NLP_TASK_QUEUE)) {
+            testEnvironment.newWorker(taskQueue).registerActivitiesImplementations(activities);
+        }
+        testEnvironment.start();
+    }
+
+    @After
+    public void tearDown() {
+        testEnvironment.close();
+    }
+
+    @Test
+    public void mergesSegmentTranscriptsInMediaOrder() {
+        VsWorkflow workflow = newWorkflow();
+
+        Map<String, String> summaries = workflow.getVideoSummary(JOB);
+
+        assertEquals(Map.of("fr", "Summary of fr:Segment 1. fr:Segment 2. fr:Segment 3.",
+                "de", "Summary of de:Segment 1. de:Segment 2. de:Segment 3."), summaries);
+        assertEquals("Segment 1. Segment 2. Segment 3.", workflow.getProgress().getOriginalText());
+
+        // The first merge joins the transcript, the second one is handed that transcript instead of the segments'
+        assertEquals(List.of("null", "Segment 1. Segment 2. Segment 3."), mergeTranscripts);
+    }
+
+    @Test
+    public void reportsEveryStageAndTheTextsAsTheyComplete() {
+        uploadWholeVideo();
+        // A transcript and a German translation too large to pass inline: only their start reaches the workflow
+        when(activities.fetchTranscript(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    VsActionReturnVals results = invocation.getArgument(1);
+                    results.setOriginalTextRef("s3://bucket/payloads/video-summary/1/original-text.txt");
+                    results.setOriginalTextPreview("Hello.");
+                    return results;
+                });
+        when(activities.convertOriginalTextToTargetLanguage(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    String targetLanguage = invocation.<VsJobDetails>getArgument(0).targetLanguage();
+                    progressAt.put("translate/" + targetLanguage, queryProgress());
+                    VsActionReturnVals results = invocation.getArgument(1);
+                    if (targetLanguage.equals("fr")) {
+                        results.setTargetText("Bonjour.");
+                    } else {
+                        results.setTargetTextRef("s3://bucket/payloads/video-summary/2/target-text.txt");
+                        results.setTargetTextPreview("Hallo.");
+                    }
+                    return results;
+                });
+        when(activities.generateSummary(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    String targetLanguage = invocation.<VsJobDetails>getArgument(0).targetLanguage();
+                    progressAt.put("summarize/" + targetLanguage, queryProgress());
+                    return "Summary in " + targetLanguage;
+                });
+
+        VsWorkflow workflow = newWorkflow();
+        assertEquals(Map.of("fr", "Summary in fr", "de", "Summary in de"), workflow.getVideoSummary(JOB));
+
+        for (String targetLanguage : JOB.targetLanguages()) {
+            VsWorkflowProgress translating = progressAt.get("translate/" + targetLanguage);
+            assertEquals(VsWorkflowProgress.Status.COMPLETED, translating.getStages().get(VsWorkflowProgress.UPLOAD));
+            assertEquals(VsWorkflowProgress.Status.COMPLETED,
+                    translating.getStages().get(VsWorkflowProgress.TRANSCRIPTION));
+            assertEquals(VsWorkflowProgress.Status.RUNNING,
+                    translating.getStages().get(VsWorkflowProgress.translation(targetLanguage)));
+            assertEquals(VsWorkflowProgress.Status.PENDING,
+                    translating.getStages().get(VsWorkflowProgress.summary(targetLanguage)));
+            assertEquals("Hello.", translating.getOriginalText());
+            assertTrue(translating.isOriginalTextTruncated());
+            assertFalse(translating.isFinished());
+
+            VsWorkflowProgress summarizing = progressAt.get("summarize/" + targetLanguage);
+            assertEquals(VsWorkflowProgress.Status.COMPLETED,
+                    summarizing.getStages().get(VsWorkflowProgress.translation(targetLanguage)));
+            assertEquals(VsWorkflowProgress.Status.RUNNING,
+                    summarizing.getStages().get(VsWorkflowProgress.summary(targetLanguage)));
+            assertEquals(targetLanguage.equals("fr") ? "Bonjour." : "Hallo.",
+                    summarizing.getTranslations().get(targetLanguage));
+        }
+
+        VsWorkflowProgress done = workflow.getProgress();
+        assertTrue(done.isFinished());
+        done.getStages().forEach((stage, status) -> assertEquals(stage, VsWorkflowProgress.Status.COMPLETED, status));
+        assertEquals(6, done.getStages().size());
+        assertEquals(Map.of("fr", "Bonjour.", "de", "Hallo."), done.getTranslations());
+        assertEquals(Set.of("de"), done.getTruncatedTranslations());
+        assertEquals(Map.of("fr", "Summary in fr", "de", "Summary in de"), done.getSummaries());
+    }
+
+    @Test
+    public void failsTheLaterStagesWithoutRunningThemWhenTranscriptionFails() {
+        uploadWholeVideo();
+        when(activities.fetchTranscript(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenThrow(ApplicationFailure.newNonRetryableFailure("Transcription job failed", "VsTestFailure"));
+
+        VsWorkflow workflow = newWorkflow();
+        assertNull(workflow.getVideoSummary(JOB));
+
+        VsWorkflowProgress progress = workflow.getProgress();
+        assertTrue(progress.isFinished());
+        assertEquals(VsWorkflowProgress.Status.COMPLETED, progress.getStages().get(VsWorkflowProgress.UPLOAD));
+        assertEquals(VsWorkflowProgress.Status.FAILED, progress.getStages().get(VsWorkflowProgress.TRANSCRIPTION));
+        for (String targetLanguage : JOB.targetLanguages()) {
+            assertEquals(VsWorkflowProgress.Status.FAILED,
+                    progress.getStages().get(VsWorkflowProgress.translation(targetLanguage)));
+            assertEquals(VsWorkflowProgress.Status.FAILED,
+                    progress.getStages().get(VsWorkflowProgress.summary(targetLanguage)));
+        }
+        assertTrue(progress.getTranslations().isEmpty());
+        verify(activities, never()).convertOriginalTextToTargetLanguage(any(VsJobDetails.class),
+                any(VsActionReturnVals.class));
+        verify(activities, never()).generateSummary(any(VsJobDetails.class), any(VsActionReturnVals.class));
+        // The compensation deletes the upload
+        verify(activities).deleteFromS3(any(VsJobDetails.class), any(VsActionReturnVals.class));
+    }
+
+    @Test
+    public void returnsTheLanguagesThatSucceedWithoutCompensating() {
+        uploadWholeVideo();
+        transcribeAs("Hello.");
+        VsJobDetails job = new VsJobDetails("https://example.com/video.mp4", "en-US", List.of("fr", "de", "es"),
+                "key", "secret", "us-east-1", "bucket");
+        // German fails in translation, Spanish in the summary
+        failTranslation("de");
+        when(activities.generateSummary(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    if (invocation.<VsJobDetails>getArgument(0).targetLanguage().equals("es")) {
+                        throw ApplicationFailure.newNonRetryableFailure("Summary failed", "VsTestFailure");
+                    }
+                    return "Summary of " + invocation.<VsActionReturnVals>getArgument(1).getTargetText();
+                });
+
+        VsWorkflow workflow = newWorkflow();
+        assertEquals(Map.of("fr", "Summary of fr:Hello."), workflow.getVideoSummary(job));
+
+        Map<String, VsWorkflowProgress.Status> stages = workflow.getProgress().getStages();
+        assertEquals(VsWorkflowProgress.Status.COMPLETED, stages.get(VsWorkflowProgress.summary("fr")));
+        assertEquals(VsWorkflowProgress.Status.FAILED, stages.get(VsWorkflowProgress.translation("de")));
+        assertEquals(VsWorkflowProgress.Status.FAILED, stages.get(VsWorkflowProgress.summary("de")));
+        assertEquals(VsWorkflowProgress.Status.COMPLETED, stages.get(VsWorkflowProgress.translation("es")));
+        assertEquals(VsWorkflowProgress.Status.FAILED, stages.get(VsWorkflowProgress.summary("es")));
+        // German was not summarized after its translation failed
+        verify(activities, times(2)).generateSummary(any(VsJobDetails.class), any(VsActionReturnVals.class));
+        verify(activities, never()).deleteFromS3(any(VsJobDetails.class), any(VsActionReturnVals.class));
+        verify(activities).deletePayloads(any(VsJobDetails.class));
+    }
+
+    @Test
+    public void compensatesOnlyWhenEveryLanguageFails() {
+        uploadWholeVideo();
+        transcribeAs("Hello.");
+        failTranslation("fr");
+        failTranslation("de");
+
+        VsWorkflow workflow = newWorkflow();
+        assertNull(workflow.getVideoSummary(JOB));
+
+        assertTrue(workflow.getProgress().getSummaries().isEmpty());
+        verify(activities, never()).generateSummary(any(VsJobDetails.class), any(VsActionReturnVals.class));
+        verify(activities).deleteFromS3(any(VsJobDetails.class), any(VsActionReturnVals.class));
+    }
+
+    @Test
+    public void pollsTheTranscriptionJobWithAGrowingInterval() {
+        uploadWholeVideo();
+        List<Long> pollTimes = recordPollTimes("QUEUED", "IN_PROGRESS", "IN_PROGRESS", "IN_PROGRESS", "IN_PROGRESS",
+                "IN_PROGRESS", "IN_PROGRESS", "COMPLETED");
+        long start = testEnvironment.currentTimeMillis();
+
+        assertEquals(2, newWorkflow().getVideoSummary(JOB).size());
+
+        // 10 seconds, growing by half every poll up to a minute
+        List<Long> expectedIntervals = List.of(10_000L, 15_000L, 22_500L, 33_750L, 50_625L, 60_000L, 60_000L, 60_000L);
+        assertEquals(expectedIntervals.size(), pollTimes.size());
+        long previous = start;
+        for (int i = 0; i < pollTimes.size(); i++) {
+            long interval = pollTimes.get(i) - previous;
+            assertTrue("Poll " + (i + 1) + " after " + interval + " ms",
+                    interval >= expectedIntervals.get(i) && interval < expectedIntervals.get(i) + 1000);
+            previous = pollTimes.get(i);
+        }
+        verify(activities).fetchTranscript(any(VsJobDetails.class), any(VsActionReturnVals.class));
+    }
+
+    @Test
+    public void stopsPollingWhenTheTranscriptionJobFails() {
+        uploadWholeVideo();
+        List<Long> pollTimes = recordPollTimes("IN_PROGRESS", "FAILED");
+        // Like the real activity, which reports why the job failed
+        when(activities.fetchTranscript(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenThrow(ApplicationFailure.newNonRetryableFailure("Transcription job failed with status: FAILED",
+                        "VsTestFailure"));
+
+        VsWorkflow workflow = newWorkflow();
+        assertNull(workflow.getVideoSummary(JOB));
+
+        assertEquals(2, pollTimes.size());
+        assertEquals(VsWorkflowProgress.Status.FAILED,
+                workflow.getProgress().getStages().get(VsWorkflowProgress.TRANSCRIPTION));
+        verify(activities, never()).convertOriginalTextToTargetLanguage(any(VsJobDetails.class),
+                any(VsActionReturnVals.class));
+        verify(activities).deleteFromS3(any(VsJobDetails.class), any(VsActionReturnVals.class));
+    }
+
+    @Test
+    public void givesUpOnATranscriptionJobThatRunsForMoreThanFourHours() {
+        uploadWholeVideo();
+        List<Long> pollTimes = recordPollTimes("IN_PROGRESS");
+        long start = testEnvironment.currentTimeMillis();
+
+        VsWorkflow workflow = newWorkflow();
+        assertNull(workflow.getVideoSummary(JOB));
+
+        // Six polls in the first 191.875 seconds, then one a minute: the first poll past four hours is the last
+        long fourHours = Duration.ofHours(4).toMillis();
+        assertEquals(6 + (fourHours - 191_875) / 60_000 + 1, pollTimes.size());
+        assertTrue(pollTimes.get(pollTimes.size() - 2) - start <= fourHours);
+        assertTrue(pollTimes.get(pollTimes.size() - 1) - start > fourHours);
+        assertEquals(VsWorkflowProgress.Status.FAILED,
+                workflow.getProgress().getStages().get(VsWorkflowProgress.TRANSCRIPTION));
+        verify(activities, never()).fetchTranscript(any(VsJobDetails.class), any(VsActionReturnVals.class));
+        verify(activities).deleteFromS3(any(VsJobDetails.class), any(VsActionReturnVals.class));
+    }
+
+    @Test
+    public void routesEveryActivityToTheTaskQueueOfItsWorker() {
+        newWorkflow().getVideoSummary(JOB);
+
+        Map<String, String> taskQueues = history().stream()
+                .filter(event -> event.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .map(HistoryEvent::getActivityTaskScheduledEventAttributes)
+                .collect(Collectors.toMap(attributes -> attributes.getActivityType().getName(),
+                        attributes -> attributes.getTaskQueue().getName(), (first, second) -> first));
+        assertEquals(Map.of(
+                "UploadToS3", VsSharedKeys.MEDIA_TASK_QUEUE,
+                "DeletePayloads", VsSharedKeys.MEDIA_TASK_QUEUE,
+                "StartTranscription", VsSharedKeys.TRANSCRIPTION_TASK_QUEUE,
+                "GetTranscriptionStatus", VsSharedKeys.TRANSCRIPTION_TASK_QUEUE,
+                "FetchTranscript", VsSharedKeys.TRANSCRIPTION_TASK_QUEUE,
+                "ConvertOriginalTextToTargetLanguage", VsSharedKeys.NLP_TASK_QUEUE,
+                "MergeSegments", VsSharedKeys.NLP_TASK_QUEUE,
+                "GenerateSummary", VsSharedKeys.NLP_TASK_QUEUE), taskQueues);
+    }
+
+    @Test
+    public void runsTheShortStepsAsLocalActivitiesInLocalMode() {
+        uploadWholeVideo();
+        transcribeAs("Hello.");
+        localActivities = true;
+
+        assertEquals(Map.of("fr", "Summary of fr:Hello.", "de", "Summary of de:Hello."),
+                newWorkflow().getVideoSummary(JOB));
+
+        // Upload and transcription stay on their task queues; translations, summaries and the cleanup are local
+        assertEquals(List.of("UploadToS3", "StartTranscription", "GetTranscriptionStatus", "FetchTranscript"),
+                scheduledActivities(history()));
+        assertEquals(5, localActivityMarkers(history()));
+    }
+
+    @Test
+    public void translatesLargeTextsAsRegularActivitiesInLocalMode() {
+        uploadWholeVideo();
+        transcribeAs("Hello. ".repeat(20));
+        localActivities = true;
+
+        newWorkflow().getVideoSummary(JOB);
+
+        assertEquals(List.of("UploadToS3", "StartTranscription", "GetTranscriptionStatus", "FetchTranscript",
+                "ConvertOriginalTextToTargetLanguage", "ConvertOriginalTextToTargetLanguage"),
+                scheduledActivities(history()));
+        // The summaries and the cleanup
+        assertEquals(3, localActivityMarkers(history()));
+    }
+
+    @Test
+    public void recordsFewerHistoryEventsInLocalMode() {
+        uploadWholeVideo();
+        transcribeAs("Hello.");
+        newWorkflow().getVideoSummary(JOB);
+        List<HistoryEvent> regularHistory = history();
+        localActivities = true;
+
+        newWorkflow().getVideoSummary(JOB);
+        List<HistoryEvent> localHistory = history();
+
+        assertEquals(9, scheduledActivities(regularHistory).size());
+        assertEquals(0, localActivityMarkers(regularHistory));
+        assertEquals(4, scheduledActivities(localHistory).size());
+        // A regular activity costs a scheduled, started and completed event, a local one a single marker
+        assertTrue(localHistory.size() + " events in local mode, " + regularHistory.size() + " otherwise",
+                localHistory.size() <= regularHistory.size() - 5 * 2);
+    }
+
+    ////////////////////////////
+    //     Private stuff      //
+    ////////////////////////////
+
+    private VsWorkflow newWorkflow() {
+        return testEnvironment.getWorkflowClient().newWorkflowStub(VsWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue(VsSharedKeys.VIDEO_SUMMARY_TASK_QUEUE)
+                        .setWorkflowId(WORKFLOW_ID)
+                        .build());
+    }
+
+    // Upload the video as a whole instead of in segments
+    private void uploadWholeVideo() {
+        when(activities.uploadToS3(any(VsJobDetails.class), any(VsActionReturnVals.class))).thenAnswer(invocation -> {
+            VsActionReturnVals results = invocation.getArgument(1);
+            results.setS3Key("videos/video-summary/1.mp4");
+            return results;
+        });
+    }
+
+    private void transcribeAs(String text) {
+        when(activities.fetchTranscript(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    VsActionReturnVals results = invocation.getArgument(1);
+                    results.setOriginalText(text);
+                    return results;
+                });
+    }
+
+    // Fail the translation into targetLanguage, and translate the other languages as in setUp
+    private void failTranslation(String targetLanguage) {
+        failedTranslations.add(targetLanguage);
+    }
+
+    // Answer the status polls with the statuses in turn, repeating the last one; returns the test time of every poll
+    private List<Long> recordPollTimes(String... statuses) {
+        List<Long> pollTimes = new CopyOnWriteArrayList<>();
+        when(activities.getTranscriptionStatus(any(VsJobDetails.class), any(VsActionReturnVals.class)))
+                .thenAnswer(invocation -> {
+                    pollTimes.add(testEnvironment.currentTimeMillis());
+                    return statuses[Math.min(pollTimes.size(), statuses.length) - 1];
+                });
+        return pollTimes;
+    }
+
+    private List<HistoryEvent> history() {
+        return testEnvironment.getWorkflowClient().fetchHistory(WORKFLOW_ID).getEvents();
+    }
+
+    // Activities scheduled on a task queue, in order
+    private static List<String> scheduledActivities(List<HistoryEvent> history) {
+        return history.stream()
+                .filter(event -> event.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .map(event -> event.getActivityTaskScheduledEventAttributes().getActivityType().getName())
+                .collect(Collectors.toList());
+    }
+
+    private static long localActivityMarkers(List<HistoryEvent> history) {
+        return history.stream()
+                .filter(event -> event.getEventType() == EventType.EVENT_TYPE_MARKER_RECORDED
+                        && event.getMarkerRecordedEventAttributes().getMarkerName().equals("LocalActivity"))
+                .count();
+    }
+
+    // The query is answered while the workflow waits for the activity that sends it
+    private VsWorkflowProgress queryProgress() {
+        return testEnvironment.getWorkflowClient().newWorkflowStub(VsWorkflow.class, WORKFLOW_ID).getProgress();
+    }
+}